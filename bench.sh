@@ -0,0 +1,66 @@
+#!/bin/sh
+
+# Compile the application and the benchmarks
+mkdir -p bench/classes
+find hva bench -name "*.java" -print | xargs javac -encoding UTF-8 -d bench/classes \
+    -cp ./lib/po-uilib.jar
+
+# Check if the compilation was successful
+if [ $? -ne 0 ]; then
+    echo "Compilation failed."
+    exit 1
+fi
+
+if [ "$1" = "budgets" ]; then
+    # Check the allocation budgets, failing if any operation is over its budget
+    java -XX:-DoEscapeAnalysis -cp ./lib/po-uilib.jar:bench/classes hva.bench.AllocationBudgets
+elif [ "$1" = "stress" ]; then
+    # Stress the thread-safe hotel, failing if any invariant does not hold
+    shift
+    java -cp ./lib/po-uilib.jar:bench/classes hva.bench.ConcurrencyStress "$@"
+elif [ "$1" = "loop" ]; then
+    # Measure the single-writer command loop, failing if any mutation is lost
+    shift
+    java -cp ./lib/po-uilib.jar:bench/classes hva.bench.CommandLoopThroughput "$@"
+elif [ "$1" = "events" ]; then
+    # Follow the stream of events of the hotel, failing if the follower misses or reorders one
+    shift
+    java -cp ./lib/po-uilib.jar:bench/classes hva.bench.EventStreamFollower "$@"
+elif [ "$1" = "journal" ]; then
+    # Recover a journaled hotel, failing if a reconstructed state differs from the hotel
+    shift
+    java -cp ./lib/po-uilib.jar:bench/classes hva.bench.JournalReplay "$@"
+elif [ "$1" = "history" ]; then
+    # Query past seasons of a hotel, failing if a reconstructed season differs from the hotel
+    shift
+    java -Dhistory=8 -cp ./lib/po-uilib.jar:bench/classes hva.bench.HistoryQueries "$@"
+elif [ "$1" = "fork" ]; then
+    # Fork the hotel for what-if changes, failing if closing a fork does not restore the hotel
+    shift
+    java -cp ./lib/po-uilib.jar:bench/classes hva.bench.ForkRollback "$@"
+elif [ "$1" = "undo" ]; then
+    # Undo and redo changes of a hotel, failing if a step, the journal or the history differs
+    shift
+    java -Dhistory=4 -Dundo=1000000 -cp ./lib/po-uilib.jar:bench/classes hva.bench.UndoRedo "$@"
+elif [ "$1" = "preview" ]; then
+    # Preview transfers, failing if a preview differs from the change its transfer makes
+    shift
+    java -cp ./lib/po-uilib.jar:bench/classes hva.bench.TransferPreviews "$@"
+elif [ "$1" = "placement" ]; then
+    # Search for a better placement of the animals, failing if the plan breaks a constraint
+    shift
+    java -cp ./lib/po-uilib.jar:bench/classes hva.bench.PlacementSearch "$@"
+elif [ "$1" = "rebalance" ]; then
+    # Rebalance the responsibilities of caretakers, failing if a plan breaks a constraint
+    shift
+    java -cp ./lib/po-uilib.jar:bench/classes hva.bench.RebalanceSearch "$@"
+elif [ "$1" = "http" ]; then
+    # Load the local HTTP service, failing if any request is not answered with success
+    shift
+    java -Dsun.net.httpserver.nodelay=true -cp ./lib/po-uilib.jar:bench/classes \
+        hva.bench.HttpLoad "$@"
+else
+    # Run the benchmarks, passing the harness options and filter
+    java -cp ./lib/po-uilib.jar:bench/classes hva.bench.HotelBenchmarks "$@" \
+        | tee bench_output.txt
+fi
@@ -0,0 +1,121 @@
+package hva.bench;
+
+import hva.core.Animal;
+import hva.core.CaseInsensitiveHashMap;
+import hva.core.Habitat;
+import hva.core.Hotel;
+
+import java.lang.management.ManagementFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.sun.management.ThreadMXBean;
+
+/**
+ * Check of the bytes allocated by each core operation against a budget.
+ *
+ * <p>
+ * Each operation is first run enough times to be compiled, then the bytes allocated by the current
+ * thread over a number of runs are read from {@link ThreadMXBean#getCurrentThreadAllocatedBytes()}.
+ * The process exits with a non-zero status if any operation allocates more than its budget, so the
+ * check can fail a build.
+ *
+ * <p>
+ * The check is meant to run with {@code -XX:-DoEscapeAnalysis}. Whether the JIT removes an
+ * allocation by escape analysis varies from run to run, which would make the check flaky, so the
+ * budgets count every allocation made by the code instead.
+ *
+ * <p>
+ * Budgets are in bytes per operation. Lower one when an operation gets leaner, so that the gain is
+ * kept; raise one only with a reason.
+ *
+ * <p>
+ * Run with {@code ./bench.sh budgets}. The verify phase of the Maven build runs it too, so
+ * {@code mvn -B verify} fails if an operation is over its budget.
+ */
+public class AllocationBudgets {
+
+  private static final long SEED = 42;
+  private static final int ANIMALS = 10_000;
+  private static final int WARMUP_RUNS = 50_000;
+  private static final int MEASURED_RUNS = 20_000;
+
+  private final ThreadMXBean _threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+  private int _failures;
+
+  public static void main(String[] args) throws Exception {
+    AllocationBudgets budgets = new AllocationBudgets();
+    SyntheticHotel synthetic = SyntheticHotel.ofAnimals(ANIMALS, SEED);
+    Hotel hotel = HotelBenchmarks.importHotel(synthetic).getHotel();
+
+    Map<String, Integer> map = new CaseInsensitiveHashMap<Integer>();
+    String[] keys = new String[ANIMALS];
+    for (int key = 0; key < ANIMALS; key++) {
+      map.put("key" + key, key);
+      keys[key] = "KEY" + key;
+    }
+    String[] animalIds = new String[ANIMALS];
+    for (int animal = 0; animal < ANIMALS; animal++) {
+      animalIds[animal] = synthetic.animalId(animal);
+    }
+    List<Animal> animals = new ArrayList<Animal>(hotel.animals());
+    List<Habitat> habitats = new ArrayList<Habitat>(hotel.habitats());
+    String[] habitatIds = {"H0", "H1"};
+    int[] next = new int[1];
+
+    System.out.printf(Locale.ROOT, "%-24s %12s %12s%n", "Operation", "B/op", "Budget");
+    budgets.check("lookup.map", 64, () -> map.get(keys[next[0]++ % ANIMALS]));
+    budgets.check("lookup.animal", 64,
+        () -> hotel.animalVaccinations(animalIds[next[0]++ % ANIMALS]));
+    budgets.check("satisfaction", 16384, () -> hotel.satisfaction());
+    budgets.check("transfer", 128, () -> {
+      hotel.transferAnimal(animalIds[0], habitatIds[next[0]++ % 2]);
+      return hotel;
+    });
+    budgets.check("vaccination", 512, () -> {
+      int animal = next[0]++ % ANIMALS;
+      return hotel.vaccinateAnimal(animalIds[animal], synthetic.vaccineId(animal),
+          synthetic.vetFor(animal));
+    });
+    budgets.check("render.animal", 512, () -> animals.get(next[0]++ % ANIMALS).toString());
+    budgets.check("render.habitat", 128,
+        () -> habitats.get(next[0]++ % habitats.size()).toString());
+
+    if (budgets._failures > 0) {
+      System.out.println(budgets._failures + " operation(s) over budget");
+      System.exit(1);
+    }
+    System.out.println("Every operation is within budget");
+  }
+
+  /**
+   * Measures the bytes allocated by an operation and compares them with its budget.
+   *
+   * @param name the name of the operation
+   * @param budget the budget, in bytes per operation
+   * @param workload the operation
+   *
+   * @throws Exception if the operation fails
+   */
+  private void check(String name, long budget, Workload workload) throws Exception {
+    for (int run = 0; run < WARMUP_RUNS; run++) {
+      Harness.consume(workload.invoke());
+    }
+
+    long before = _threads.getCurrentThreadAllocatedBytes();
+    for (int run = 0; run < MEASURED_RUNS; run++) {
+      Harness.consume(workload.invoke());
+    }
+    long bytes = (_threads.getCurrentThreadAllocatedBytes() - before) / MEASURED_RUNS;
+
+    boolean withinBudget = bytes <= budget;
+    if (!withinBudget) {
+      _failures++;
+    }
+    System.out.printf(Locale.ROOT, "%-24s %12d %12d%s%n", name, bytes, budget,
+        withinBudget ? "" : "  OVER BUDGET");
+  }
+}
@@ -0,0 +1,139 @@
+package hva.bench;
+
+import hva.core.HotelCommandLoop;
+import hva.core.HotelSnapshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput and latency of {@link HotelCommandLoop}.
+ *
+ * <p>
+ * Several producer threads submit transfers and vaccinations to the loop, each keeping a window of
+ * mutations in flight, and sample the time from submission to the completion of the future. Once
+ * the loop is closed, its final snapshot must hold every animal and every vaccination. The process
+ * exits with a non-zero status if a mutation fails or the snapshot is wrong.
+ *
+ * <p>
+ * Run with {@code ./bench.sh loop [-p producers] [-s seconds] [-n animals]}.
+ */
+public class CommandLoopThroughput {
+
+  private static final long SEED = 42;
+  private static final int WINDOW = 512;
+  private static final int SAMPLE = 64;
+
+  public static void main(String[] args) throws Exception {
+    int producers = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    long seconds = 5;
+    int animals = 10_000;
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      switch (args[i]) {
+        case "-p" -> producers = Integer.parseInt(args[i + 1]);
+        case "-s" -> seconds = Long.parseLong(args[i + 1]);
+        case "-n" -> animals = Integer.parseInt(args[i + 1]);
+        default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+      }
+    }
+
+    SyntheticHotel synthetic = SyntheticHotel.ofAnimals(animals, SEED);
+    HotelCommandLoop loop =
+        new HotelCommandLoop(HotelBenchmarks.importHotel(synthetic).getHotel());
+    ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<String>();
+    ConcurrentLinkedQueue<long[]> latencies = new ConcurrentLinkedQueue<long[]>();
+    AtomicLong mutations = new AtomicLong();
+    AtomicLong vaccinations = new AtomicLong();
+    long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+
+    List<Thread> threads = new ArrayList<Thread>(producers);
+    SplittableRandom seeds = new SplittableRandom(SEED);
+    for (int producer = 0; producer < producers; producer++) {
+      SplittableRandom random = seeds.split();
+      threads.add(Thread.ofPlatform().start(() -> {
+        List<CompletableFuture<?>> window = new ArrayList<CompletableFuture<?>>(WINDOW);
+        long[] sampled = new long[1 << 16];
+        int samples = 0;
+        long submitted = 0;
+        while (System.nanoTime() < deadline) {
+          int animal = random.nextInt(synthetic.animals());
+          long start = System.nanoTime();
+          CompletableFuture<?> future;
+          if (random.nextInt(5) > 0) {
+            future = loop.transferAnimal(synthetic.animalId(animal),
+                synthetic.habitatId(random.nextInt(synthetic.habitats())));
+          } else {
+            future = loop.vaccinateAnimal(synthetic.animalId(animal),
+                synthetic.vaccineId(animal), synthetic.vetFor(animal));
+            vaccinations.incrementAndGet();
+          }
+          int sample = submitted++ % SAMPLE == 0 && samples < sampled.length ? samples++ : -1;
+          window.add(future.whenComplete((result, failure) -> {
+            if (failure != null) {
+              failures.add(failure.toString());
+            }
+            if (sample >= 0) {
+              sampled[sample] = System.nanoTime() - start;
+            }
+          }));
+          if (window.size() == WINDOW) {
+            awaitAll(window);
+          }
+        }
+        awaitAll(window);
+        mutations.addAndGet(submitted);
+        latencies.add(Arrays.copyOf(sampled, samples));
+      }));
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    loop.close();
+
+    long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+    System.out.printf(Locale.ROOT, "%d producers, %.0f mutations/s%n", producers,
+        mutations.get() / (double) seconds);
+    if (all.length > 0) {
+      System.out.printf(Locale.ROOT, "latency p50 %.1f us, p99 %.1f us, max %.1f us%n",
+          all[all.length / 2] / 1e3, all[(int) (all.length * 0.99)] / 1e3,
+          all[all.length - 1] / 1e3);
+    }
+
+    HotelSnapshot snapshot = loop.snapshot();
+    int housed = 0;
+    for (int habitat = 0; habitat < synthetic.habitats(); habitat++) {
+      housed += snapshot.showAnimalsInHabitat(synthetic.habitatId(habitat)).size();
+    }
+    if (housed != synthetic.animals()) {
+      failures.add(housed + " animals are housed, expected " + synthetic.animals());
+    }
+    if (snapshot.showVaccinations().size() != vaccinations.get()) {
+      failures.add(snapshot.showVaccinations().size() + " vaccinations are registered, expected "
+          + vaccinations.get());
+    }
+
+    if (!failures.isEmpty()) {
+      failures.stream().limit(20).forEach(System.out::println);
+      System.out.println(failures.size() + " failure(s)");
+      System.exit(1);
+    }
+    System.out.println("Every mutation was applied");
+  }
+
+  /**
+   * Waits for every future of a window, whether it succeeds or fails, and empties the window.
+   *
+   * @param window the futures in flight
+   */
+  private static void awaitAll(List<CompletableFuture<?>> window) {
+    CompletableFuture.allOf(window.toArray(new CompletableFuture<?>[0])).exceptionally(e -> null)
+        .join();
+    window.clear();
+  }
+}
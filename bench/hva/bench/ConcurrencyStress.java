@@ -0,0 +1,279 @@
+package hva.bench;
+
+import hva.core.ConcurrentHotel;
+import hva.core.HotelSnapshot;
+import hva.core.enumerator.Influence;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stress check of {@link ConcurrentHotel}.
+ *
+ * <p>
+ * The check first measures how the throughput of lookups scales with the number of reader threads.
+ * It then runs transfers, vaccinations, changes of habitats, additions of animals and queries from
+ * several threads at once, and finally checks the invariants of the hotel: every animal lives in
+ * exactly one habitat and every vaccination is recorded once in the registry, in its vaccine, in
+ * its vet and in its animal. Snapshots taken during the run must hold a consistent count of
+ * animals, and a snapshot taken at the end must render the same lines as the direct queries. The
+ * process exits with a non-zero status if an operation fails or an invariant does not hold.
+ *
+ * <p>
+ * Run with {@code ./bench.sh stress [-t threads] [-s seconds] [-n animals]}.
+ */
+public class ConcurrencyStress {
+
+  private static final long SEED = 42;
+  private static final long SCALING_MILLIS = 1_000;
+
+  private final SyntheticHotel _synthetic;
+  private final ConcurrentHotel _hotel;
+  private final ConcurrentLinkedQueue<String> _failures = new ConcurrentLinkedQueue<String>();
+  private final AtomicLong _vaccinations = new AtomicLong();
+  private final AtomicInteger _addedAnimals = new AtomicInteger();
+  private volatile boolean _running;
+
+  /*
+   * <------------------------ Constructor ------------------------>
+   */
+
+  /**
+   * Constructor which imports the synthetic hotel to be stressed.
+   *
+   * @param animals the number of animals of the hotel
+   *
+   * @throws Exception if the hotel cannot be imported
+   */
+  ConcurrencyStress(int animals) throws Exception {
+    _synthetic = SyntheticHotel.ofAnimals(animals, SEED);
+    _hotel = new ConcurrentHotel(HotelBenchmarks.importHotel(_synthetic).getHotel());
+  }
+
+  public static void main(String[] args) throws Exception {
+    int threads = Runtime.getRuntime().availableProcessors();
+    long seconds = 5;
+    int animals = 10_000;
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      switch (args[i]) {
+        case "-t" -> threads = Integer.parseInt(args[i + 1]);
+        case "-s" -> seconds = Long.parseLong(args[i + 1]);
+        case "-n" -> animals = Integer.parseInt(args[i + 1]);
+        default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+      }
+    }
+
+    ConcurrencyStress stress = new ConcurrencyStress(animals);
+    stress.scaling(threads);
+    stress.stress(threads, seconds * 1_000);
+    stress.checkInvariants();
+
+    if (!stress._failures.isEmpty()) {
+      stress._failures.stream().limit(20).forEach(System.out::println);
+      System.out.println(stress._failures.size() + " failure(s)");
+      System.exit(1);
+    }
+    System.out.println("Every invariant holds");
+  }
+
+  /**
+   * Measures the throughput of lookups with an increasing number of reader threads.
+   *
+   * @param maxThreads the largest number of reader threads
+   *
+   * @throws InterruptedException if interrupted while waiting for the readers
+   */
+  private void scaling(int maxThreads) throws InterruptedException {
+    System.out.printf(Locale.ROOT, "%-10s %16s %10s%n", "Readers", "lookups/s", "Speedup");
+    double single = 0;
+    for (int threads = 1; threads <= maxThreads; threads *= 2) {
+      AtomicLong lookups = new AtomicLong();
+      run(threads, SCALING_MILLIS, random -> {
+        _hotel.animalSatisfaction(_synthetic.animalId(random.nextInt(_synthetic.animals())));
+        lookups.incrementAndGet();
+      });
+      double perSecond = lookups.get() * 1_000.0 / SCALING_MILLIS;
+      single = threads == 1 ? perSecond : single;
+      System.out.printf(Locale.ROOT, "%-10d %16.0f %10.2f%n", threads, perSecond,
+          perSecond / single);
+    }
+  }
+
+  /**
+   * Runs a mix of mutations and queries from several threads.
+   *
+   * @param threads the number of threads
+   * @param millis the duration of the run, in milliseconds
+   *
+   * @throws InterruptedException if interrupted while waiting for the threads
+   */
+  private void stress(int threads, long millis) throws InterruptedException {
+    AtomicLong operations = new AtomicLong();
+    Influence[] influences = Influence.values();
+    run(Math.max(2, threads), millis, random -> {
+      int animal = random.nextInt(_synthetic.animals());
+      int operation = random.nextInt(100);
+      if (operation < 40) {
+        _hotel.transferAnimal(_synthetic.animalId(animal),
+            _synthetic.habitatId(random.nextInt(_synthetic.habitats())));
+      } else if (operation < 60) {
+        _hotel.vaccinateAnimal(_synthetic.animalId(animal), _synthetic.vaccineId(animal),
+            _synthetic.vetFor(animal));
+        _vaccinations.incrementAndGet();
+      } else if (operation < 65) {
+        _hotel.changeHabitatArea(_synthetic.habitatId(animal), 1 + random.nextInt(1_000));
+      } else if (operation < 70) {
+        _hotel.changeHabitatSuitability(_synthetic.habitatId(animal), _synthetic.speciesId(animal),
+            influences[random.nextInt(influences.length)]);
+      } else if (operation < 71) {
+        int added = _addedAnimals.getAndIncrement();
+        _hotel.addAnimal("X" + added, "Novo" + added, _synthetic.speciesId(added),
+            _synthetic.habitatId(added));
+      } else if (operation < 90) {
+        _hotel.animalSatisfaction(_synthetic.animalId(animal));
+      } else if (operation < 95) {
+        _hotel.satisfaction();
+      } else if (operation < 98) {
+        int before = _addedAnimals.get();
+        HotelSnapshot snapshot = _hotel.snapshot();
+        int count = snapshot.showAllAnimals().size() - _synthetic.animals();
+        int housed = 0;
+        for (int habitat = 0; habitat < _synthetic.habitats(); habitat++) {
+          housed += snapshot.showAnimalsInHabitat(_synthetic.habitatId(habitat)).size();
+        }
+        if (count < before - threads || housed != count + _synthetic.animals()) {
+          _failures.add("Snapshot " + snapshot.version() + " with " + count + " added and "
+              + housed + " housed animals");
+        }
+      } else {
+        int before = _addedAnimals.get();
+        int count = _hotel.showAllAnimals().size() - _synthetic.animals();
+        int after = _addedAnimals.get();
+        if (count < before - threads || count > after) {
+          _failures.add("Snapshot with " + count + " added animals, expected " + before + " to "
+              + after);
+        }
+      }
+      operations.incrementAndGet();
+    });
+    System.out.printf(Locale.ROOT, "%d threads, %d operations in %d ms, %d vaccinations%n",
+        Math.max(2, threads), operations.get(), millis, _vaccinations.get());
+  }
+
+  /**
+   * Checks the invariants of the hotel once every thread has stopped.
+   *
+   * @throws Exception if a query fails
+   */
+  private void checkInvariants() throws Exception {
+    int animals = _synthetic.animals() + _addedAnimals.get();
+    List<String> allAnimals = _hotel.showAllAnimals();
+    check(allAnimals.size() == animals, "Hotel has " + allAnimals.size() + " animals, expected "
+        + animals);
+
+    int housed = 0;
+    for (int habitat = 0; habitat < _synthetic.habitats(); habitat++) {
+      String idHabitat = _synthetic.habitatId(habitat);
+      for (String animal : _hotel.showAnimalsInHabitat(idHabitat)) {
+        housed++;
+        check(animal.endsWith("|" + idHabitat), animal + " is listed in " + idHabitat);
+      }
+    }
+    check(housed == animals, housed + " animals are housed, expected " + animals);
+
+    long vaccinations = _vaccinations.get();
+    long registered = _hotel.showVaccinations().size();
+    check(registered == vaccinations, registered + " vaccinations are registered, expected "
+        + vaccinations);
+
+    long applied = 0;
+    for (String vaccine : _hotel.showAllVaccines()) {
+      applied += Long.parseLong(vaccine.split("\\|")[3]);
+    }
+    check(applied == vaccinations, applied + " vaccines were applied, expected " + vaccinations);
+
+    long byVets = 0;
+    for (int vet = 0; vet < _synthetic.vets(); vet++) {
+      byVets += _hotel.showMedicalActsByVeterinarian("V" + vet).size();
+    }
+    check(byVets == vaccinations, byVets + " vaccinations by vets, expected " + vaccinations);
+
+    long onAnimals = 0;
+    for (int animal = 0; animal < _synthetic.animals(); animal++) {
+      onAnimals += _hotel.showMedicalActsOnAnimal(_synthetic.animalId(animal)).size();
+    }
+    check(onAnimals == vaccinations, onAnimals + " vaccinations on animals, expected "
+        + vaccinations);
+
+    HotelSnapshot snapshot = _hotel.snapshot();
+    check(snapshot.showAllAnimals().equals(_hotel.showAllAnimals()), "Snapshot animals differ");
+    check(snapshot.showAllHabitats().equals(_hotel.showAllHabitats()), "Snapshot habitats differ");
+    check(snapshot.showAllVaccines().equals(_hotel.showAllVaccines()), "Snapshot vaccines differ");
+    check(snapshot.showAllEmployees().equals(_hotel.showAllEmployees()),
+        "Snapshot employees differ");
+    check(snapshot.showVaccinations().equals(_hotel.showVaccinations()),
+        "Snapshot vaccinations differ");
+    check(snapshot.showWrongVaccinations().equals(_hotel.showWrongVaccinations()),
+        "Snapshot wrong vaccinations differ");
+    for (int habitat = 0; habitat < _synthetic.habitats(); habitat++) {
+      String idHabitat = _synthetic.habitatId(habitat);
+      check(snapshot.showAnimalsInHabitat(idHabitat).equals(_hotel.showAnimalsInHabitat(idHabitat)),
+          "Snapshot animals of " + idHabitat + " differ");
+    }
+    double satisfaction = _hotel.satisfaction();
+    check(Math.abs(snapshot.satisfaction() - satisfaction) <= 1e-6 * Math.abs(satisfaction),
+        "Snapshot satisfaction " + snapshot.satisfaction() + ", expected " + satisfaction);
+  }
+
+  private void check(boolean condition, String failure) {
+    if (!condition) {
+      _failures.add(failure);
+    }
+  }
+
+  /**
+   * Runs an action repeatedly from several threads for some time. Exceptions thrown by the action
+   * are recorded as failures.
+   *
+   * @param threads the number of threads
+   * @param millis the duration of the run, in milliseconds
+   * @param action the action, given a random generator of its thread
+   *
+   * @throws InterruptedException if interrupted while waiting for the threads
+   */
+  private void run(int threads, long millis, Action action) throws InterruptedException {
+    List<Thread> workers = new ArrayList<Thread>(threads);
+    SplittableRandom seeds = new SplittableRandom(SEED);
+    _running = true;
+    for (int thread = 0; thread < threads; thread++) {
+      SplittableRandom random = seeds.split();
+      workers.add(Thread.ofPlatform().start(() -> {
+        while (_running) {
+          try {
+            action.run(random);
+          } catch (Exception | Error e) {
+            _failures.add(Thread.currentThread().getName() + ": " + e);
+          }
+        }
+      }));
+    }
+    Thread.sleep(millis);
+    _running = false;
+    for (Thread worker : workers) {
+      worker.join();
+    }
+  }
+
+  /**
+   * Operation run repeatedly by the threads of the check.
+   */
+  @FunctionalInterface
+  private interface Action {
+    void run(SplittableRandom random) throws Exception;
+  }
+}
@@ -0,0 +1,221 @@
+package hva.bench;
+
+import hva.core.ConcurrentHotel;
+import hva.core.Hotel;
+import hva.core.HotelSnapshot;
+import hva.core.enumerator.Influence;
+import hva.core.event.HotelEvent;
+import hva.core.event.HotelEventStream;
+import hva.core.exception.SequenceUnavailableException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Overhead and ordering of {@link HotelEventStream}.
+ *
+ * <p>
+ * Several threads transfer and vaccinate animals and change habitats of a
+ * {@link ConcurrentHotel}, first without a stream of events, then publishing to a stream nobody
+ * follows and finally to a followed stream, whose throughputs are compared. While the stream is
+ * followed, a follower keeps the habitat of every animal from the events alone, resuming its
+ * subscription from its position every so often. Every transfer must leave the habitat the
+ * follower expects, vaccinations must follow the order of the registry, and the follower must end
+ * with the habitats of the hotel. The process exits with a non-zero status if a check fails.
+ *
+ * <p>
+ * Run with {@code ./bench.sh events [-t threads] [-s seconds] [-n animals] [-c capacity]}.
+ */
+public class EventStreamFollower {
+
+  private static final long SEED = 42;
+  private static final int RESUME_EVERY = 10_000;
+
+  public static void main(String[] args) throws Exception {
+    int threads = Runtime.getRuntime().availableProcessors();
+    long seconds = 5;
+    int animals = 10_000;
+    int capacity = 4096;
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      switch (args[i]) {
+        case "-t" -> threads = Integer.parseInt(args[i + 1]);
+        case "-s" -> seconds = Long.parseLong(args[i + 1]);
+        case "-n" -> animals = Integer.parseInt(args[i + 1]);
+        case "-c" -> capacity = Integer.parseInt(args[i + 1]);
+        default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+      }
+    }
+
+    SyntheticHotel synthetic = SyntheticHotel.ofAnimals(animals, SEED);
+    Hotel hotel = HotelBenchmarks.importHotel(synthetic).getHotel();
+    ConcurrentHotel concurrent = new ConcurrentHotel(hotel);
+    ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<String>();
+
+    double without = mutate(synthetic, concurrent, threads, seconds, failures);
+    System.out.printf(Locale.ROOT, "without stream: %.0f mutations/s%n", without);
+
+    HotelEventStream stream = new HotelEventStream(capacity);
+    hotel.setEventSink(stream);
+    double unfollowed = mutate(synthetic, concurrent, threads, seconds, failures);
+    System.out.printf(Locale.ROOT, "unfollowed:     %.0f mutations/s (%+.1f%%)%n", unfollowed,
+        (unfollowed - without) * 100 / without);
+
+    HotelSnapshot start = concurrent.snapshot();
+    Map<String, String> habitats = habitatsOf(start);
+    int firstVaccination = start.showVaccinations().size();
+    long first = stream.position();
+    Follower follower = new Follower(stream, habitats, firstVaccination, failures);
+    follower.start();
+
+    double with = mutate(synthetic, concurrent, threads, seconds, failures);
+    follower.interrupt();
+    follower.join();
+    System.out.printf(Locale.ROOT, "followed:       %.0f mutations/s (%+.1f%%), %d events%n", with,
+        (with - without) * 100 / without, stream.position() - first);
+
+    if (follower._events != stream.position() - first) {
+      failures.add("The follower read " + follower._events + " events, expected "
+          + (stream.position() - first));
+    }
+    if (!habitats.equals(habitatsOf(concurrent.snapshot()))) {
+      failures.add("The habitats of the follower differ from the habitats of the hotel");
+    }
+
+    if (!failures.isEmpty()) {
+      failures.stream().limit(20).forEach(System.out::println);
+      System.out.println(failures.size() + " failure(s)");
+      System.exit(1);
+    }
+    System.out.println("The follower kept up with every event");
+  }
+
+  /**
+   * Runs transfers, vaccinations and changes of habitats from several threads for some time.
+   *
+   * @return the mutations per second
+   */
+  private static double mutate(SyntheticHotel synthetic, ConcurrentHotel hotel, int threads,
+      long seconds, ConcurrentLinkedQueue<String> failures) throws InterruptedException {
+    AtomicLong mutations = new AtomicLong();
+    long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+    List<Thread> mutators = new ArrayList<Thread>(threads);
+    SplittableRandom seeds = new SplittableRandom(SEED);
+    for (int t = 0; t < threads; t++) {
+      SplittableRandom random = seeds.split();
+      mutators.add(Thread.ofPlatform().start(() -> {
+        long done = 0;
+        while (System.nanoTime() < deadline) {
+          int animal = random.nextInt(synthetic.animals());
+          String habitat = synthetic.habitatId(random.nextInt(synthetic.habitats()));
+          try {
+            int operation = random.nextInt(10);
+            if (operation < 7) {
+              hotel.transferAnimal(synthetic.animalId(animal), habitat);
+            } else if (operation < 9) {
+              hotel.vaccinateAnimal(synthetic.animalId(animal), synthetic.vaccineId(animal),
+                  synthetic.vetFor(animal));
+            } else if (random.nextBoolean()) {
+              hotel.changeHabitatArea(habitat, 1 + random.nextInt(1_000));
+            } else {
+              hotel.changeHabitatSuitability(habitat,
+                  synthetic.speciesId(random.nextInt(synthetic.species())),
+                  Influence.values()[random.nextInt(3)]);
+            }
+            done++;
+          } catch (Exception e) {
+            failures.add(e.toString());
+          }
+        }
+        mutations.addAndGet(done);
+      }));
+    }
+    for (Thread mutator : mutators) {
+      mutator.join();
+    }
+    return mutations.get() / (double) seconds;
+  }
+
+  // Habitat of every animal, read from the last field of its line
+  private static Map<String, String> habitatsOf(HotelSnapshot snapshot) {
+    Map<String, String> habitats = new HashMap<String, String>();
+    for (String line : snapshot.showAllAnimals()) {
+      habitats.put(line.substring(line.indexOf('|') + 1, line.indexOf('|', 7)),
+          line.substring(line.lastIndexOf('|') + 1));
+    }
+    return habitats;
+  }
+
+  /**
+   * Thread following the stream until it is interrupted, after which it reads what is left.
+   */
+  private static class Follower extends Thread {
+    private final HotelEventStream _stream;
+    private final HotelEventStream.Subscription _subscription;
+    private final Map<String, String> _habitats;
+    private final ConcurrentLinkedQueue<String> _failures;
+    private int _nextVaccination;
+    private long _events;
+
+    Follower(HotelEventStream stream, Map<String, String> habitats, int firstVaccination,
+        ConcurrentLinkedQueue<String> failures) {
+      _stream = stream;
+      _subscription = stream.subscribe();
+      _habitats = habitats;
+      _nextVaccination = firstVaccination;
+      _failures = failures;
+    }
+
+    @Override
+    public void run() {
+      HotelEventStream.Subscription subscription = _subscription;
+      try {
+        try {
+          while (true) {
+            apply(subscription.next());
+            if (_events % RESUME_EVERY == 0) {
+              // Resume before closing, so that the position is held back throughout
+              HotelEventStream.Subscription resumed = _stream.subscribe(subscription.position());
+              subscription.close();
+              subscription = resumed;
+            }
+          }
+        } catch (InterruptedException e) {
+          HotelEvent event;
+          while ((event = subscription.poll()) != null) {
+            apply(event);
+          }
+        }
+      } catch (SequenceUnavailableException e) {
+        _failures.add(e.getMessage());
+      } finally {
+        subscription.close();
+      }
+    }
+
+    private void apply(HotelEvent event) {
+      _events++;
+      switch (event) {
+        case HotelEvent.AnimalTransferred transfer -> {
+          String previous = _habitats.put(transfer.animal(), transfer.habitat());
+          if (!transfer.previousHabitat().equals(previous)) {
+            _failures.add(transfer + " but the follower had it in " + previous);
+          }
+        }
+        case HotelEvent.VaccinationRecorded vaccination -> {
+          if (vaccination.index() != _nextVaccination++) {
+            _failures.add(vaccination + " but the follower expected index "
+                + (_nextVaccination - 1));
+          }
+        }
+        default -> {
+        }
+      }
+    }
+  }
+}
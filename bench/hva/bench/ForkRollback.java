@@ -0,0 +1,156 @@
+package hva.bench;
+
+import hva.core.Hotel;
+import hva.core.HotelFork;
+import hva.core.HotelManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * What-if analyses of a hotel through {@link HotelFork}s.
+ *
+ * <p>
+ * The check forks a synthetic hotel over and over, makes every kind of change inside the fork,
+ * including creations, vaccinations, seasons and nested forks which are either committed or
+ * discarded, and closes it. The hotel must then render exactly as it did before forking. A fork
+ * which is committed must pass its changes on to the sink of the hotel.
+ *
+ * <p>
+ * The measure compares a what-if transfer made inside a fork with the same transfer made on a deep
+ * copy of the hotel through serialization. The process exits with a non-zero status if a check
+ * fails.
+ *
+ * <p>
+ * Run with {@code ./bench.sh fork [-n animals] [-r rounds] [-m changes per round] [-o]}, where
+ * {@code -o} keeps the animals off-heap.
+ */
+public class ForkRollback {
+
+  private static final long SEED = 42;
+
+  public static void main(String[] args) throws Exception {
+    int animals = 20_000;
+    int rounds = 200;
+    int changes = 500;
+    boolean offHeap = false;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "-n" -> animals = Integer.parseInt(args[++i]);
+        case "-r" -> rounds = Integer.parseInt(args[++i]);
+        case "-m" -> changes = Integer.parseInt(args[++i]);
+        case "-o" -> offHeap = true;
+        default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+      }
+    }
+
+    // The manager reads where new hotels keep their animals when it is first used
+    System.setProperty("offheap", Boolean.toString(offHeap));
+    SyntheticHotel synthetic = SyntheticHotel.ofAnimals(animals, SEED);
+    HotelManager manager = new HotelManager();
+    manager.importFile(synthetic.writeTemporaryFile().toString());
+    Hotel hotel = manager.getHotel();
+    List<String> failures = new ArrayList<String>();
+    SplittableRandom random = new SplittableRandom(SEED);
+
+    List<String> before = HotelStates.state(hotel);
+    long start = System.nanoTime();
+    long undone = 0;
+    for (int round = 0; round < rounds; round++) {
+      try (HotelFork fork = hotel.fork()) {
+        change(synthetic, hotel, random, changes);
+        if (random.nextInt(4) == 0) {
+          try (HotelFork nested = hotel.fork()) {
+            change(synthetic, hotel, random, changes / 4);
+            if (random.nextBoolean()) {
+              nested.commit();
+            }
+          }
+        }
+        change(synthetic, hotel, random, changes / 4);
+        undone += fork.changes();
+      }
+      HotelStates.compare("Round " + round, before, HotelStates.state(hotel), failures);
+      if (failures.size() > 20) {
+        break;
+      }
+    }
+    long elapsed = System.nanoTime() - start;
+    System.out.printf(Locale.ROOT, "forked %d times and undid %d changes in %.0f ms%n", rounds,
+        undone, elapsed / 1e6);
+
+    long[] published = new long[1];
+    hotel.setEventSink(event -> published[0]++);
+    int committed;
+    try (HotelFork fork = hotel.fork()) {
+      change(synthetic, hotel, random, changes);
+      committed = fork.changes();
+      fork.commit();
+    }
+    hotel.setEventSink(null);
+    if (published[0] != committed) {
+      failures.add("Commit published " + published[0] + " events, expected " + committed);
+    }
+
+    measure(synthetic, hotel, random);
+
+    if (!failures.isEmpty()) {
+      failures.stream().limit(20).forEach(System.out::println);
+      System.out.println(failures.size() + " failure(s)");
+      System.exit(1);
+    }
+    System.out.println("Every fork left the hotel as it was");
+  }
+
+  // Times a what-if transfer in a fork against the same transfer on a deep copy
+  private static void measure(SyntheticHotel synthetic, Hotel hotel, SplittableRandom random)
+      throws Exception {
+    int iterations = 20;
+    long forked = 0;
+    long copied = 0;
+    for (int i = 0; i < iterations; i++) {
+      String animal = synthetic.animalId(random.nextInt(synthetic.animals()));
+      String habitat = synthetic.habitatId(random.nextInt(synthetic.habitats()));
+
+      long start = System.nanoTime();
+      try (HotelFork fork = hotel.fork()) {
+        hotel.transferAnimal(animal, habitat);
+        hotel.satisfaction();
+      }
+      forked += System.nanoTime() - start;
+
+      start = System.nanoTime();
+      Hotel copy = copy(hotel);
+      copy.transferAnimal(animal, habitat);
+      copy.satisfaction();
+      copied += System.nanoTime() - start;
+    }
+    System.out.printf(Locale.ROOT, "what-if transfer: %.2f ms in a fork, %.2f ms on a copy%n",
+        forked / 1e6 / iterations, copied / 1e6 / iterations);
+  }
+
+  private static Hotel copy(Hotel hotel) throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(hotel);
+    }
+    try (ObjectInputStream in =
+        new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      return (Hotel) in.readObject();
+    }
+  }
+
+  // Makes changes of every kind, ignoring refused ones
+  private static void change(SyntheticHotel synthetic, Hotel hotel, SplittableRandom random,
+      int changes) {
+    for (int i = 0; i < changes; i++) {
+      HotelStates.change(synthetic, hotel, random, "F");
+    }
+  }
+}
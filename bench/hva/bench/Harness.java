@@ -0,0 +1,176 @@
+package hva.bench;
+
+import java.io.PrintStream;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Class representing a minimal benchmark harness, in the spirit of JMH average time mode.
+ *
+ * <p>
+ * Each benchmark runs a number of warmup iterations, whose results are discarded, followed by a
+ * number of measurement iterations. An iteration invokes the workload in batches of growing size
+ * until the iteration time is over, so that reading the clock does not dominate short operations.
+ * The score is the mean time per operation over the measurement iterations, with its standard
+ * deviation.
+ *
+ * <p>
+ * Options, given before the benchmark filter: {@code -wi} warmup iterations, {@code -i}
+ * measurement iterations and {@code -r} milliseconds per iteration. The filter is a regular
+ * expression matched against the name of each benchmark.
+ */
+public class Harness {
+
+  /** Sink of the results of every operation, so that they are not optimized away. */
+  private static volatile Object _sink;
+
+  private final List<Benchmark> _benchmarks = new ArrayList<Benchmark>();
+  private int _warmupIterations = 3;
+  private int _iterations = 5;
+  private long _iterationNanos = 1_000_000_000L;
+  private Pattern _filter = Pattern.compile(".*");
+
+  /**
+   * A benchmark, identified by its name and parameters.
+   *
+   * @param name the name of the benchmark
+   * @param params a description of the parameters of the benchmark
+   * @param workload the supplier of a fresh workload
+   */
+  private record Benchmark(String name, String params, Supplier<Workload> workload) {
+  }
+
+  /*
+   * <------------------------ Constructor ------------------------>
+   */
+
+  /**
+   * Constructor which creates this harness from command line options.
+   *
+   * @param args the options and the optional benchmark filter
+   */
+  public Harness(String[] args) {
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "-wi" -> _warmupIterations = Integer.parseInt(args[++i]);
+        case "-i" -> _iterations = Integer.parseInt(args[++i]);
+        case "-r" -> _iterationNanos = Long.parseLong(args[++i]) * 1_000_000L;
+        default -> _filter = Pattern.compile(args[i]);
+      }
+    }
+  }
+
+  /*
+   * <------------------------ Sets ------------------------>
+   */
+
+  /**
+   * Registers a benchmark.
+   *
+   * @param name the name of the benchmark
+   * @param params a description of the parameters of the benchmark
+   * @param workload the supplier of a fresh workload
+   */
+  public void add(String name, String params, Supplier<Workload> workload) {
+    _benchmarks.add(new Benchmark(name, params, workload));
+  }
+
+  /*
+   * <------------------------ Others ------------------------>
+   */
+
+  /**
+   * Consumes a result so that the operation producing it is not optimized away.
+   *
+   * @param result the result of an operation
+   */
+  public static void consume(Object result) {
+    _sink = result;
+  }
+
+  /**
+   * Runs every registered benchmark matching the filter and prints their scores.
+   *
+   * @param out the destination of the report
+   *
+   * @throws Exception if a workload fails
+   */
+  public void run(PrintStream out) throws Exception {
+    out.printf(Locale.ROOT, "# Warmup: %d x %d ms, Measurement: %d x %d ms%n", _warmupIterations,
+        _iterationNanos / 1_000_000L, _iterations, _iterationNanos / 1_000_000L);
+    out.printf(Locale.ROOT, "%-28s %-24s %4s %14s %12s  %s%n", "Benchmark", "Params", "Cnt",
+        "Score", "StdDev", "Units");
+
+    for (Benchmark benchmark : _benchmarks) {
+      if (!_filter.matcher(benchmark.name()).find()) {
+        continue;
+      }
+
+      Workload workload = benchmark.workload().get();
+      workload.setUp();
+      for (int i = 0; i < _warmupIterations; i++) {
+        workload.setUpIteration();
+        iteration(workload);
+      }
+
+      double[] scores = new double[_iterations];
+      for (int i = 0; i < _iterations; i++) {
+        workload.setUpIteration();
+        scores[i] = iteration(workload);
+      }
+      report(out, benchmark, scores);
+    }
+  }
+
+  /**
+   * Runs one iteration of a workload.
+   *
+   * @param workload the workload
+   *
+   * @return the mean time per operation, in nanoseconds
+   *
+   * @throws Exception if the workload fails
+   */
+  private double iteration(Workload workload) throws Exception {
+    long operations = 0;
+    long batch = 1;
+    long start = System.nanoTime();
+    long elapsed;
+    do {
+      for (long i = 0; i < batch; i++) {
+        consume(workload.invoke());
+      }
+      operations += batch;
+      elapsed = System.nanoTime() - start;
+      if (elapsed < _iterationNanos / 100) {
+        batch *= 2;
+      }
+    } while (elapsed < _iterationNanos);
+    return (double) elapsed / operations;
+  }
+
+  /**
+   * Prints the score of a benchmark.
+   *
+   * @param out the destination of the report
+   * @param benchmark the benchmark
+   * @param scores the time per operation of each measurement iteration, in nanoseconds
+   */
+  private static void report(PrintStream out, Benchmark benchmark, double[] scores) {
+    double mean = 0;
+    for (double score : scores) {
+      mean += score / scores.length;
+    }
+    double variance = 0;
+    for (double score : scores) {
+      variance += (score - mean) * (score - mean) / Math.max(1, scores.length - 1);
+    }
+
+    out.printf(Locale.ROOT, "%-28s %-24s %4d %14.3f %12.3f  ns/op%n", benchmark.name(),
+        benchmark.params(), scores.length, mean, Math.sqrt(variance));
+  }
+}
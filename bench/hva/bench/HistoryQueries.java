@@ -0,0 +1,129 @@
+package hva.bench;
+
+import hva.core.Animal;
+import hva.core.Hotel;
+import hva.core.HotelHistory;
+import hva.core.HotelManager;
+import hva.core.HotelSnapshot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Queries of past seasons of a hotel through its {@link HotelHistory}.
+ *
+ * <p>
+ * A synthetic hotel is imported into a hotel which keeps a history, and then goes through a number
+ * of seasons of transfers, vaccinations and changes of habitats. The hotel is saved and loaded
+ * again halfway, so the second half is recorded by the history loaded with it. The state of the
+ * hotel and the satisfaction of one habitat are captured at the end of every season. The check
+ * reconstructs every season and compares it with what was captured, then reports the latency of
+ * the queries and the size of the history. The process exits with a non-zero status if a season
+ * differs.
+ *
+ * <p>
+ * Run with {@code ./bench.sh history [-n animals] [-s seasons] [-m mutations per season]}, the
+ * interval between keyframes being set by {@code -Dhistory} in the script.
+ */
+public class HistoryQueries {
+
+  private static final long SEED = 42;
+
+  public static void main(String[] args) throws Exception {
+    int animals = 5_000;
+    int seasons = 48;
+    int mutations = 5_000;
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      switch (args[i]) {
+        case "-n" -> animals = Integer.parseInt(args[i + 1]);
+        case "-s" -> seasons = Integer.parseInt(args[i + 1]);
+        case "-m" -> mutations = Integer.parseInt(args[i + 1]);
+        default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+      }
+    }
+
+    SyntheticHotel synthetic = SyntheticHotel.ofAnimals(animals, SEED);
+    String habitat = synthetic.habitatId(0);
+    List<String> failures = new ArrayList<String>();
+
+    HotelManager manager = new HotelManager();
+    if (manager.history() == null) {
+      throw new IllegalStateException("Run with -Dhistory=N to keep a history");
+    }
+    manager.importFile(synthetic.writeTemporaryFile().toString());
+
+    SplittableRandom random = new SplittableRandom(SEED);
+    List<List<String>> states = new ArrayList<List<String>>();
+    List<Double> habitatSatisfactions = new ArrayList<Double>();
+    long start = System.nanoTime();
+    for (int season = 0; season < seasons; season++) {
+      if (season == seasons / 2) {
+        Path file = Files.createTempFile("hva-history-", ".dat");
+        manager.saveAs(file.toString());
+        manager.load(file.toString());
+        Files.delete(file);
+      }
+      HotelStates.mutate(synthetic, manager.getHotel(), random, mutations, false);
+      states.add(HotelStates.state(manager.getHotel()));
+      habitatSatisfactions.add(habitatSatisfaction(manager.getHotel(), habitat));
+      manager.progressSeason();
+    }
+    long recorded = System.nanoTime() - start;
+    System.out.printf(Locale.ROOT, "recorded %d seasons of %d mutations in %.0f ms%n", seasons,
+        mutations, recorded / 1e6);
+
+    HotelHistory history = manager.history();
+    long slowest = 0;
+    long total = 0;
+    for (int season = 0; season < seasons; season++) {
+      start = System.nanoTime();
+      HotelSnapshot snapshot = history.seasonsAgo(seasons - season);
+      long elapsed = System.nanoTime() - start;
+      slowest = Math.max(slowest, elapsed);
+      total += elapsed;
+
+      double expected = habitatSatisfactions.get(season);
+      double actual = snapshot.habitatSatisfaction(habitat);
+      if (Math.abs(actual - expected) > 1e-9 * Math.max(1, Math.abs(expected))) {
+        failures.add("Season " + season + " has habitat satisfaction " + actual + ", expected "
+            + expected);
+      }
+      HotelStates.compare("Season " + season, states.get(season),
+          HotelStates.state(history.hotel(season)), failures);
+    }
+    System.out.printf(Locale.ROOT, "queried %d seasons in %.1f ms on average, %.1f ms at most%n",
+        seasons, total / 1e6 / seasons, slowest / 1e6);
+    System.out.printf(Locale.ROOT, "history of %d bytes, a saved file per season %d bytes%n",
+        history.bytes(), seasons * serializedBytes(manager.getHotel()));
+
+    if (!failures.isEmpty()) {
+      failures.stream().limit(20).forEach(System.out::println);
+      System.out.println(failures.size() + " failure(s)");
+      System.exit(1);
+    }
+    System.out.println("Every reconstructed season matches the hotel");
+  }
+
+  // Sum of the satisfaction of the animals of a habitat, identified by their lines
+  private static double habitatSatisfaction(Hotel hotel, String habitat) throws Exception {
+    double satisfaction = 0;
+    for (Animal animal : hotel.habitatAnimals(habitat)) {
+      satisfaction += hotel.animalSatisfaction(animal.toString().split("\\|")[1]);
+    }
+    return satisfaction;
+  }
+
+  private static long serializedBytes(Hotel hotel) throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(hotel);
+    }
+    return bytes.size();
+  }
+}
@@ -0,0 +1,274 @@
+package hva.bench;
+
+import hva.core.CaseInsensitiveHashMap;
+import hva.core.Hotel;
+import hva.core.HotelManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.Map;
+
+/**
+ * Benchmarks of the hot paths of {@link hva.core}.
+ *
+ * <p>
+ * Every hotel is a {@link SyntheticHotel} with a fixed seed, imported through
+ * {@link HotelManager#importFile(String)}, so the results can be compared between machines and
+ * between versions of the core.
+ *
+ * <p>
+ * Run with {@code ./bench.sh [-wi N] [-i N] [-r ms] [filter]}.
+ */
+public class HotelBenchmarks {
+
+  private static final long SEED = 42;
+
+  public static void main(String[] args) throws Exception {
+    Harness harness = new Harness(args);
+
+    harness.add("parseFile", "animals=10000", () -> parseFile(10_000));
+    for (int animals : new int[] {1_000, 10_000, 100_000}) {
+      harness.add("satisfaction", "animals=" + animals, () -> satisfaction(animals));
+    }
+    harness.add("vaccinateAnimal", "animals=10000", () -> vaccinateAnimal(10_000));
+    harness.add("progressSeason", "trees=100000", () -> progressSeason(100_000));
+    harness.add("saveAs", "animals=10000", () -> saveAs(10_000));
+    harness.add("load", "animals=10000", () -> load(10_000));
+    harness.add("hotelModified", "animals=10000", () -> hotelModified(10_000));
+    harness.add("caseInsensitiveGet", "keys=10000", () -> caseInsensitiveGet(10_000));
+
+    harness.run(System.out);
+  }
+
+  /**
+   * Creates a manager of a synthetic hotel.
+   *
+   * @param hotel the description of the hotel
+   *
+   * @return the manager, with the hotel imported
+   *
+   * @throws Exception if the hotel cannot be imported
+   */
+  static HotelManager importHotel(SyntheticHotel hotel) throws Exception {
+    HotelManager manager = new HotelManager();
+    manager.importFile(hotel.writeTemporaryFile().toString());
+    return manager;
+  }
+
+  /**
+   * Measures the import of a whole file by the parser into an empty hotel.
+   *
+   * @param animals the number of animals of the imported file
+   *
+   * @return the workload
+   */
+  private static Workload parseFile(int animals) {
+    return new Workload() {
+      private String _file;
+
+      @Override
+      public void setUp() throws Exception {
+        _file = SyntheticHotel.ofAnimals(animals, SEED).writeTemporaryFile().toString();
+      }
+
+      @Override
+      public Object invoke() throws Exception {
+        HotelManager manager = new HotelManager();
+        manager.importFile(_file);
+        return manager;
+      }
+    };
+  }
+
+  /**
+   * Measures the global satisfaction of a hotel.
+   *
+   * @param animals the number of animals of the hotel
+   *
+   * @return the workload
+   */
+  private static Workload satisfaction(int animals) {
+    return new Workload() {
+      private Hotel _hotel;
+
+      @Override
+      public void setUp() throws Exception {
+        _hotel = importHotel(SyntheticHotel.ofAnimals(animals, SEED)).getHotel();
+      }
+
+      @Override
+      public Object invoke() {
+        return _hotel.satisfaction();
+      }
+    };
+  }
+
+  /**
+   * Measures vaccinations by responsible vets, with and without damage. The hotel is imported
+   * again before every iteration, since every vaccination is recorded.
+   *
+   * @param animals the number of animals of the hotel
+   *
+   * @return the workload
+   */
+  private static Workload vaccinateAnimal(int animals) {
+    return new Workload() {
+      private final SyntheticHotel _synthetic = SyntheticHotel.ofAnimals(animals, SEED);
+      private String _file;
+      private Hotel _hotel;
+      private int _next;
+
+      @Override
+      public void setUp() throws Exception {
+        _file = _synthetic.writeTemporaryFile().toString();
+      }
+
+      @Override
+      public void setUpIteration() throws Exception {
+        HotelManager manager = new HotelManager();
+        manager.importFile(_file);
+        _hotel = manager.getHotel();
+      }
+
+      @Override
+      public Object invoke() throws Exception {
+        int animal = _next++ % animals;
+        return _hotel.vaccinateAnimal(_synthetic.animalId(animal), _synthetic.vaccineId(animal),
+            _synthetic.vetFor(animal));
+      }
+    };
+  }
+
+  /**
+   * Measures the change of season of a hotel with many trees.
+   *
+   * @param trees the number of trees of the hotel
+   *
+   * @return the workload
+   */
+  private static Workload progressSeason(int trees) {
+    return new Workload() {
+      private HotelManager _manager;
+
+      @Override
+      public void setUp() throws Exception {
+        int habitats = Math.max(1, trees / 10);
+        _manager = importHotel(new SyntheticHotel(4, habitats, trees, 0, 1, 1, 1, SEED));
+      }
+
+      @Override
+      public Object invoke() {
+        return _manager.progressSeason();
+      }
+    };
+  }
+
+  /**
+   * Measures saving a hotel to a file.
+   *
+   * @param animals the number of animals of the hotel
+   *
+   * @return the workload
+   */
+  private static Workload saveAs(int animals) {
+    return new Workload() {
+      private HotelManager _manager;
+      private String _file;
+
+      @Override
+      public void setUp() throws Exception {
+        _manager = importHotel(SyntheticHotel.ofAnimals(animals, SEED));
+        Path file = Files.createTempFile("hva-bench-", ".dat");
+        file.toFile().deleteOnExit();
+        _file = file.toString();
+      }
+
+      @Override
+      public Object invoke() throws Exception {
+        _manager.saveAs(_file);
+        return _manager;
+      }
+    };
+  }
+
+  /**
+   * Measures loading a hotel from a file.
+   *
+   * @param animals the number of animals of the hotel
+   *
+   * @return the workload
+   */
+  private static Workload load(int animals) {
+    return new Workload() {
+      private final HotelManager _manager = new HotelManager();
+      private String _file;
+
+      @Override
+      public void setUp() throws Exception {
+        HotelManager saved = importHotel(SyntheticHotel.ofAnimals(animals, SEED));
+        Path file = Files.createTempFile("hva-bench-", ".dat");
+        file.toFile().deleteOnExit();
+        _file = file.toString();
+        saved.saveAs(_file);
+      }
+
+      @Override
+      public Object invoke() throws Exception {
+        _manager.load(_file);
+        return _manager.getHotel();
+      }
+    };
+  }
+
+  /**
+   * Measures the check for unsaved changes of an unmodified hotel.
+   *
+   * @param animals the number of animals of the hotel
+   *
+   * @return the workload
+   */
+  private static Workload hotelModified(int animals) {
+    return new Workload() {
+      private HotelManager _manager;
+
+      @Override
+      public void setUp() throws Exception {
+        _manager = importHotel(SyntheticHotel.ofAnimals(animals, SEED));
+      }
+
+      @Override
+      public Object invoke() throws Exception {
+        return _manager.hotelModified();
+      }
+    };
+  }
+
+  /**
+   * Measures lookups in a case insensitive map with keys in a different case than stored.
+   *
+   * @param keys the number of keys of the map
+   *
+   * @return the workload
+   */
+  private static Workload caseInsensitiveGet(int keys) {
+    return new Workload() {
+      private final Map<String, Integer> _map = new CaseInsensitiveHashMap<Integer>();
+      private final String[] _keys = new String[keys];
+      private int _next;
+
+      @Override
+      public void setUp() {
+        for (int key = 0; key < keys; key++) {
+          _map.put("Key" + key, key);
+          _keys[key] = (key % 2 == 0 ? "KEY" : "key") + key;
+        }
+      }
+
+      @Override
+      public Object invoke() {
+        return _map.get(_keys[_next++ % keys]);
+      }
+    };
+  }
+}
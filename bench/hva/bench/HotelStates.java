@@ -0,0 +1,208 @@
+package hva.bench;
+
+import hva.core.Habitat;
+import hva.core.Hotel;
+import hva.core.Worker;
+import hva.core.enumerator.Influence;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Random changes of a synthetic hotel and the state the checks compare hotels by.
+ *
+ * <p>
+ * The state of a hotel is the lines of every entity and of the trees of every habitat, grouped by
+ * kind and sorted, followed by the registry of vaccinations and the satisfaction of the hotel. Two
+ * hotels with the same state render the same in every menu.
+ */
+public final class HotelStates {
+
+  // Counter of the entities created by changes, which keeps their identifiers unique
+  private static int _created;
+
+  private HotelStates() {
+  }
+
+  /*
+   * <------------------------ Changes ------------------------>
+   */
+
+  /**
+   * Runs transfers, vaccinations and changes of habitats, ignoring refused ones.
+   *
+   * @param synthetic the synthetic hotel the hotel was imported from
+   * @param hotel the hotel to change
+   * @param random the source of the choices
+   * @param mutations the number of mutations to try
+   * @param seasons whether one mutation in a thousand advances the season
+   * @return the number of mutations applied, each of which published one event
+   */
+  public static long mutate(SyntheticHotel synthetic, Hotel hotel, SplittableRandom random,
+      int mutations, boolean seasons) {
+    long applied = 0;
+    for (int i = 0; i < mutations; i++) {
+      int animal = random.nextInt(synthetic.animals());
+      String habitat = synthetic.habitatId(random.nextInt(synthetic.habitats()));
+      try {
+        int operation = random.nextInt(1_000);
+        if (operation < 700) {
+          hotel.transferAnimal(synthetic.animalId(animal), habitat);
+        } else if (operation < 900) {
+          hotel.vaccinateAnimal(synthetic.animalId(animal), synthetic.vaccineId(animal),
+              synthetic.vetFor(animal));
+        } else if (operation < 950) {
+          hotel.changeHabitatArea(habitat, 1 + random.nextInt(1_000));
+        } else if (operation < 999 || !seasons) {
+          hotel.changeHabitatSuitability(habitat,
+              synthetic.speciesId(random.nextInt(synthetic.species())),
+              Influence.values()[random.nextInt(3)]);
+        } else {
+          hotel.progressSeason();
+        }
+        applied++;
+      } catch (Exception e) {
+        // Refused mutations change nothing and publish nothing
+      }
+    }
+    return applied;
+  }
+
+  /**
+   * Makes a change of a random kind, including creations and seasons, unless it is refused.
+   *
+   * @param synthetic the synthetic hotel the hotel was imported from
+   * @param hotel the hotel to change
+   * @param random the source of the choices
+   * @param prefix the prefix of the identifiers of the entities created
+   * @return whether the change advanced the season, or {@code null} if nothing changed
+   */
+  public static Boolean change(SyntheticHotel synthetic, Hotel hotel, SplittableRandom random,
+      String prefix) {
+    int animal = random.nextInt(synthetic.animals());
+    String habitat = synthetic.habitatId(random.nextInt(synthetic.habitats()));
+    String species = synthetic.speciesId(random.nextInt(synthetic.species()));
+    String vet = synthetic.vetFor(animal);
+    try {
+      int operation = random.nextInt(1_000);
+      if (operation < 400) {
+        hotel.transferAnimal(synthetic.animalId(animal), habitat);
+      } else if (operation < 550) {
+        hotel.vaccinateAnimal(synthetic.animalId(animal), synthetic.vaccineId(animal), vet);
+      } else if (operation < 650) {
+        hotel.changeHabitatArea(habitat, 1 + random.nextInt(1_000));
+      } else if (operation < 750) {
+        hotel.changeHabitatSuitability(habitat, species, Influence.values()[random.nextInt(3)]);
+      } else if (operation < 790) {
+        // Adding a responsibility the vet has changes nothing
+        if (holds(hotel, vet, species)) {
+          return null;
+        }
+        hotel.addResponsibilityToWorker(vet, species);
+      } else if (operation < 830) {
+        hotel.removeResponsibilityFromWorker(vet, species);
+      } else if (operation < 860) {
+        hotel.addAnimal(prefix + "A" + ++_created, "Novo", species, habitat);
+      } else if (operation < 880) {
+        hotel.addTreeToHabitat(habitat, prefix + "T" + ++_created, "Nova", random.nextInt(10),
+            1 + random.nextInt(5), random.nextBoolean() ? "PERENE" : "CADUCA");
+      } else if (operation < 900) {
+        hotel.addSpecies(prefix + "E" + ++_created, "Espécie " + _created);
+      } else if (operation < 920) {
+        hotel.addHabitat(prefix + "H" + ++_created, "Novo", 1 + random.nextInt(1_000));
+      } else if (operation < 940) {
+        hotel.addWorker(prefix + "W" + ++_created, "Novo", random.nextBoolean() ? "VET" : "TRT");
+      } else if (operation < 960) {
+        hotel.addVaccine(prefix + "V" + ++_created, "Nova", species);
+      } else {
+        hotel.progressSeason();
+        return true;
+      }
+      return false;
+    } catch (Exception e) {
+      // Refused changes change nothing
+      return null;
+    }
+  }
+
+  // Whether a vet is responsible for a species, as its line lists
+  private static boolean holds(Hotel hotel, String vet, String species) {
+    for (Worker worker : hotel.workers()) {
+      String[] fields = worker.toString().split("\\|");
+      if (fields[1].equals(vet)) {
+        return fields.length > 3 && Arrays.asList(fields[3].split(",")).contains(species);
+      }
+    }
+    return false;
+  }
+
+  /*
+   * <------------------------ States ------------------------>
+   */
+
+  /**
+   * Returns the state of a hotel.
+   *
+   * @param hotel the hotel
+   * @return the lines of every entity and tree, grouped by kind and sorted, followed by the
+   *         registry of vaccinations and the satisfaction
+   * @throws Exception if the trees of a habitat cannot be listed
+   */
+  public static List<String> state(Hotel hotel) throws Exception {
+    List<String> lines = new ArrayList<String>();
+    for (Collection<?> entities : List.of(hotel.animals(), hotel.habitats(), hotel.workers(),
+        hotel.vaccines())) {
+      entities.stream().map(Object::toString).sorted().forEach(lines::add);
+    }
+    for (Habitat habitat : hotel.habitats()) {
+      hotel.habitatTrees(habitat.id()).stream().map(Object::toString).sorted()
+          .forEach(lines::add);
+    }
+    hotel.vaccineRegistry().forEach(registry -> lines.add(registry.toString()));
+    lines.add(String.format(Locale.ROOT, "%.6e", hotel.satisfaction()));
+    return lines;
+  }
+
+  /**
+   * Returns the SHA-256 digest of the state of a hotel, which is cheaper to keep than the state.
+   *
+   * @param hotel the hotel
+   * @return the digest of the lines of the state
+   * @throws Exception if the trees of a habitat cannot be listed
+   */
+  public static byte[] digest(Hotel hotel) throws Exception {
+    MessageDigest digest = MessageDigest.getInstance("SHA-256");
+    for (String line : state(hotel)) {
+      digest.update(line.getBytes(StandardCharsets.UTF_8));
+      digest.update((byte) '\n');
+    }
+    return digest.digest();
+  }
+
+  /**
+   * Adds a failure for every line of a state which differs from the one expected.
+   *
+   * @param what what the state is of, which starts the failures
+   * @param expected the state expected
+   * @param actual the state found
+   * @param failures the failures to add to
+   */
+  public static void compare(String what, List<String> expected, List<String> actual,
+      List<String> failures) {
+    if (expected.size() != actual.size()) {
+      failures.add(what + " has " + actual.size() + " lines, expected " + expected.size());
+      return;
+    }
+    for (int i = 0; i < expected.size(); i++) {
+      if (!expected.get(i).equals(actual.get(i))) {
+        failures.add(what + " has " + actual.get(i) + ", expected " + expected.get(i));
+      }
+    }
+  }
+}
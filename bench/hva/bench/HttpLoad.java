@@ -0,0 +1,133 @@
+package hva.bench;
+
+import hva.app.HttpService;
+import hva.core.ConcurrentHotel;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test of {@link HttpService}.
+ *
+ * <p>
+ * The service is started on a free local port over a synthetic hotel, and several clients, each on
+ * its own virtual thread, send a mix of lookups of animals, listings of habitats, global
+ * satisfactions and transfers for some time. Requests sent while warming up are not measured. The
+ * test reports the requests per second and the latency percentiles, and exits with a non-zero
+ * status if a request is not answered with success.
+ *
+ * <p>
+ * Run with {@code ./bench.sh http [-c clients] [-s seconds] [-w warmup seconds] [-n animals]}.
+ */
+public class HttpLoad {
+
+  private static final long SEED = 42;
+  private static final int SAMPLES = 1 << 16;
+
+  public static void main(String[] args) throws Exception {
+    int clients = 32;
+    long seconds = 5;
+    long warmup = 5;
+    int animals = 10_000;
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      switch (args[i]) {
+        case "-c" -> clients = Integer.parseInt(args[i + 1]);
+        case "-s" -> seconds = Long.parseLong(args[i + 1]);
+        case "-w" -> warmup = Long.parseLong(args[i + 1]);
+        case "-n" -> animals = Integer.parseInt(args[i + 1]);
+        default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+      }
+    }
+
+    SyntheticHotel synthetic = SyntheticHotel.ofAnimals(animals, SEED);
+    ConcurrentHotel hotel =
+        new ConcurrentHotel(HotelBenchmarks.importHotel(synthetic).getHotel());
+    ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<String>();
+    ConcurrentLinkedQueue<long[]> latencies = new ConcurrentLinkedQueue<long[]>();
+    AtomicLong requests = new AtomicLong();
+
+    try (HttpService service = new HttpService(hotel, 0);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+            .executor(executor).build()) {
+      String base = "http://127.0.0.1:" + service.port() + "/";
+      long measured = System.nanoTime() + warmup * 1_000_000_000L;
+      long deadline = measured + seconds * 1_000_000_000L;
+      List<Thread> threads = new ArrayList<Thread>(clients);
+      SplittableRandom seeds = new SplittableRandom(SEED);
+      for (int c = 0; c < clients; c++) {
+        SplittableRandom random = seeds.split();
+        threads.add(Thread.ofVirtual().start(() -> {
+          long[] sampled = new long[SAMPLES];
+          int samples = 0;
+          while (System.nanoTime() < deadline) {
+            int animal = random.nextInt(synthetic.animals());
+            int operation = random.nextInt(100);
+            HttpRequest request;
+            if (operation < 60) {
+              request = get(base + "animals/" + synthetic.animalId(animal) + "/satisfaction");
+            } else if (operation < 80) {
+              request = get(base + "habitats/" + synthetic.habitatId(animal) + "/animals");
+            } else if (operation < 85) {
+              request = get(base + "satisfaction");
+            } else {
+              request = HttpRequest.newBuilder(URI.create(base + "animals/"
+                  + synthetic.animalId(animal) + "/transfer?habitat="
+                  + synthetic.habitatId(random.nextInt(synthetic.habitats()))))
+                  .POST(HttpRequest.BodyPublishers.noBody()).build();
+            }
+            long start = System.nanoTime();
+            try {
+              HttpResponse<String> response =
+                  client.send(request, HttpResponse.BodyHandlers.ofString());
+              if (response.statusCode() / 100 != 2) {
+                failures.add(request.uri() + ": " + response.statusCode() + " " + response.body());
+              }
+            } catch (Exception e) {
+              failures.add(request.uri() + ": " + e);
+            }
+            if (start >= measured) {
+              sampled[samples++ % SAMPLES] = System.nanoTime() - start;
+              requests.incrementAndGet();
+            }
+          }
+          latencies.add(Arrays.copyOf(sampled, Math.min(samples, SAMPLES)));
+        }));
+      }
+      for (Thread thread : threads) {
+        thread.join();
+      }
+    }
+
+    long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+    System.out.printf(Locale.ROOT, "%d clients, %.0f requests/s%n", clients,
+        requests.get() / (double) seconds);
+    if (all.length > 0) {
+      System.out.printf(Locale.ROOT, "latency p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+          all[all.length / 2] / 1e6, all[(int) (all.length * 0.99)] / 1e6,
+          all[all.length - 1] / 1e6);
+    }
+
+    if (!failures.isEmpty()) {
+      failures.stream().limit(20).forEach(System.out::println);
+      System.out.println(failures.size() + " failure(s)");
+      System.exit(1);
+    }
+    System.out.println("Every request succeeded");
+  }
+
+  private static HttpRequest get(String uri) {
+    return HttpRequest.newBuilder(URI.create(uri)).GET().build();
+  }
+}
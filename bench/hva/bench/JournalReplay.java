@@ -0,0 +1,98 @@
+package hva.bench;
+
+import hva.core.Hotel;
+import hva.core.HotelJournal;
+import hva.core.HotelManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Recovery of a hotel from its {@link HotelJournal}.
+ *
+ * <p>
+ * A synthetic hotel is imported into a journaled hotel, which then goes through transfers,
+ * vaccinations, changes of habitats and seasons. The hotel is saved halfway, which snapshots it in
+ * the journal. The state of the hotel is captured a quarter of the way, before the snapshot, and at
+ * the end. The check reconstructs the first state by replaying the log from scratch, and recovers
+ * the last one from the snapshot and the events logged after it. Each must render the same lines
+ * and satisfaction as the hotel did. The process exits with a non-zero status if they differ.
+ *
+ * <p>
+ * Run with {@code ./bench.sh journal [-n animals] [-m mutations]}.
+ */
+public class JournalReplay {
+
+  private static final long SEED = 42;
+
+  public static void main(String[] args) throws Exception {
+    int animals = 20_000;
+    int mutations = 400_000;
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      switch (args[i]) {
+        case "-n" -> animals = Integer.parseInt(args[i + 1]);
+        case "-m" -> mutations = Integer.parseInt(args[i + 1]);
+        default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+      }
+    }
+
+    SyntheticHotel synthetic = SyntheticHotel.ofAnimals(animals, SEED);
+    Path directory = Files.createTempDirectory("hva-journal-");
+    List<String> failures = new ArrayList<String>();
+
+    HotelManager manager = new HotelManager();
+    manager.openJournal(directory.toString());
+    long start = System.nanoTime();
+    manager.importFile(synthetic.writeTemporaryFile().toString());
+    long imported = System.nanoTime() - start;
+
+    SplittableRandom random = new SplittableRandom(SEED);
+    start = System.nanoTime();
+    long applied = HotelStates.mutate(synthetic, manager.getHotel(), random, mutations / 4, true);
+    List<String> quarter = HotelStates.state(manager.getHotel());
+    long quarterApplied = applied;
+    applied += HotelStates.mutate(synthetic, manager.getHotel(), random, mutations / 4, true);
+    manager.saveAs(directory.resolve("hotel.dat").toString());
+    long tail = HotelStates.mutate(synthetic, manager.getHotel(), random,
+        mutations - mutations / 2, true);
+    applied += tail;
+    long mutated = System.nanoTime() - start;
+    List<String> last = HotelStates.state(manager.getHotel());
+    manager.create();
+
+    try (HotelJournal journal = new HotelJournal(directory, false)) {
+      long importEvents = journal.position() - applied;
+      System.out.printf(Locale.ROOT,
+          "logged %d import events in %.0f ms, %d mutations in %.0f ms%n", importEvents,
+          imported / 1e6, applied, mutated / 1e6);
+
+      start = System.nanoTime();
+      Hotel replayed = journal.reconstruct(importEvents + quarterApplied);
+      long elapsed = System.nanoTime() - start;
+      System.out.printf(Locale.ROOT,
+          "replayed %d events from scratch in %.0f ms (%.0f events/s)%n",
+          importEvents + quarterApplied, elapsed / 1e6,
+          (importEvents + quarterApplied) / (elapsed / 1e9));
+      HotelStates.compare("Reconstructed state", quarter, HotelStates.state(replayed), failures);
+
+      start = System.nanoTime();
+      Hotel recovered = journal.recover();
+      elapsed = System.nanoTime() - start;
+      System.out.printf(Locale.ROOT, "recovered the snapshot and %d events in %.0f ms%n",
+          tail, elapsed / 1e6);
+      recovered.setEventSink(null);
+      HotelStates.compare("Recovered state", last, HotelStates.state(recovered), failures);
+    }
+
+    if (!failures.isEmpty()) {
+      failures.stream().limit(20).forEach(System.out::println);
+      System.out.println(failures.size() + " failure(s)");
+      System.exit(1);
+    }
+    System.out.println("Every reconstructed state matches the hotel");
+  }
+}
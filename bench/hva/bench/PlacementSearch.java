@@ -0,0 +1,132 @@
+package hva.bench;
+
+import hva.core.Hotel;
+import hva.core.HotelManager;
+import hva.core.PlacementOptimizer;
+import hva.core.PlacementPlan;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Searches for the placement of the animals of a hotel through {@link PlacementOptimizer}.
+ *
+ * <p>
+ * A synthetic hotel is searched with some animals pinned, a habitat forbidden and a limit on the
+ * moves, first with one chain and then with a chain per core. The plan must keep to the constraints
+ * and be ranked, and applying it must change the satisfaction of the hotel by the gain it expects.
+ * A single undo must take the whole plan back, and a redo apply it again. Applying the plan again,
+ * once its animals left the habitats it found them in, must be refused without changing the hotel.
+ * The process exits with a non-zero status if a check fails.
+ *
+ * <p>
+ * Run with {@code ./bench.sh placement [-n animals] [-m moves]}.
+ */
+public class PlacementSearch {
+
+  private static final long SEED = 42;
+  private static final int PINNED = 50;
+
+  public static void main(String[] args) throws Exception {
+    int animals = 5_000;
+    int maxMoves = 500;
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      switch (args[i]) {
+        case "-n" -> animals = Integer.parseInt(args[i + 1]);
+        case "-m" -> maxMoves = Integer.parseInt(args[i + 1]);
+        default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+      }
+    }
+
+    List<String> failures = new ArrayList<String>();
+    SyntheticHotel synthetic = SyntheticHotel.ofAnimals(animals, SEED);
+    HotelManager manager = new HotelManager();
+    manager.importFile(synthetic.writeTemporaryFile().toString());
+    Hotel hotel = manager.getHotel();
+
+    Set<String> pinned = new HashSet<String>();
+    for (int animal = 0; animal < Math.min(PINNED, synthetic.animals()); animal++) {
+      pinned.add(synthetic.animalId(animal));
+    }
+    String forbidden = synthetic.habitatId(0);
+
+    PlacementPlan plan = null;
+    for (int chains : new int[] {1, Runtime.getRuntime().availableProcessors()}) {
+      PlacementOptimizer optimizer = new PlacementOptimizer(hotel);
+      optimizer.setMaxMoves(maxMoves);
+      optimizer.setChains(chains);
+      for (String animal : pinned) {
+        optimizer.pinAnimal(animal);
+      }
+      optimizer.forbidHabitat(forbidden);
+      long start = System.nanoTime();
+      plan = optimizer.optimize();
+      long searched = System.nanoTime() - start;
+      System.out.printf(Locale.ROOT, "%2d chain(s): %d moves, gain %.1f in %.0f ms%n", chains,
+          plan.moves().size(), plan.gain(), searched / 1e6);
+    }
+
+    if (plan.moves().size() > maxMoves) {
+      failures.add("Plan makes " + plan.moves().size() + " moves, at most " + maxMoves);
+    }
+    Set<String> moved = new HashSet<String>();
+    double previous = Double.POSITIVE_INFINITY;
+    for (PlacementPlan.Move move : plan.moves()) {
+      if (pinned.contains(move.animal())) {
+        failures.add("Plan moves pinned animal " + move.animal());
+      }
+      if (move.habitat().equals(forbidden)) {
+        failures.add("Plan moves " + move.animal() + " to forbidden habitat " + forbidden);
+      }
+      if (!moved.add(move.animal())) {
+        failures.add("Plan moves " + move.animal() + " more than once");
+      }
+      double own = hotel.previewTransfer(move.animal(), move.habitat()).satisfaction();
+      if (own > previous + 1e-6) {
+        failures.add("Move of " + move.animal() + " gains " + own + " after " + previous);
+      }
+      previous = own;
+    }
+
+    List<String> state = HotelStates.state(hotel);
+    double before = hotel.satisfaction();
+    long start = System.nanoTime();
+    hotel.applyPlacement(plan);
+    long applied = System.nanoTime() - start;
+    double after = hotel.satisfaction();
+    check("Applied plan", plan.gain(), after - before, failures);
+    System.out.printf(Locale.ROOT, "satisfaction %.1f -> %.1f, applied in %.1f ms%n", before,
+        after, applied / 1e6);
+    if (!plan.moves().isEmpty()) {
+      manager.undo();
+      HotelStates.compare("Undone plan", state, HotelStates.state(hotel), failures);
+      manager.redo();
+      check("Redone plan", plan.gain(), hotel.satisfaction() - before, failures);
+    }
+
+    if (!plan.moves().isEmpty()) {
+      try {
+        hotel.applyPlacement(plan);
+        failures.add("Stale plan was applied");
+      } catch (IllegalStateException e) {
+        check("Stale plan", 0, hotel.satisfaction() - after, failures);
+      }
+    }
+
+    if (!failures.isEmpty()) {
+      failures.stream().limit(20).forEach(System.out::println);
+      System.out.println(failures.size() + " failure(s)");
+      System.exit(1);
+    }
+    System.out.println("The plan keeps to its constraints and gains what it expects");
+  }
+
+  private static void check(String what, double expected, double actual, List<String> failures) {
+    if (Math.abs(actual - expected) > 1e-6 * Math.max(1, Math.abs(actual))) {
+      failures.add(what + " changed satisfaction by " + actual + ", expected " + expected);
+    }
+  }
+}
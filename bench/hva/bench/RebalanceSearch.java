@@ -0,0 +1,159 @@
+package hva.bench;
+
+import hva.core.CareTakerRebalancer;
+import hva.core.Hotel;
+import hva.core.HotelManager;
+import hva.core.RebalancePlan;
+import hva.core.Worker;
+import hva.core.enumerator.BalanceObjective;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Searches for the responsibilities of the caretakers of a hotel through
+ * {@link CareTakerRebalancer}.
+ *
+ * <p>
+ * A synthetic hotel, with most animals in a few habitats and caretakers responsible for none to
+ * several habitats, is rebalanced under each objective, first with one chain and then with a chain
+ * per core. The plan must keep to its limit of moves and to the number of caretakers responsible
+ * for each habitat, and applying it must leave the satisfactions of the caretakers with the balance
+ * it expects. A single undo must take the whole plan back, and a redo apply it again. Applying the
+ * plan again must be refused without changing the hotel. The process exits with a non-zero status
+ * if a check fails.
+ *
+ * <p>
+ * Run with {@code ./bench.sh rebalance [-c caretakers] [-m moves]}.
+ */
+public class RebalanceSearch {
+
+  private static final long SEED = 42;
+
+  public static void main(String[] args) throws Exception {
+    int careTakers = 3_000;
+    int maxMoves = 2_000;
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      switch (args[i]) {
+        case "-c" -> careTakers = Integer.parseInt(args[i + 1]);
+        case "-m" -> maxMoves = Integer.parseInt(args[i + 1]);
+        default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+      }
+    }
+
+    SyntheticHotel synthetic =
+        new SyntheticHotel(200, careTakers / 2, careTakers, 20 * careTakers, 50, careTakers, 100,
+            SEED);
+    synthetic.changeHabitatDistribution(SyntheticHotel.Distribution.ZIPF);
+    synthetic.changeResponsibilities(0, 6);
+    List<String> failures = new ArrayList<String>();
+
+    for (BalanceObjective objective : BalanceObjective.values()) {
+      HotelManager manager = new HotelManager();
+      manager.importFile(synthetic.writeTemporaryFile().toString());
+      Hotel hotel = manager.getHotel();
+      Map<String, Integer> responsible = responsible(hotel);
+
+      RebalancePlan plan = null;
+      for (int chains : new int[] {1, Runtime.getRuntime().availableProcessors()}) {
+        CareTakerRebalancer rebalancer = new CareTakerRebalancer(hotel);
+        rebalancer.setObjective(objective);
+        rebalancer.setMaxMoves(maxMoves);
+        rebalancer.setChains(chains);
+        long start = System.nanoTime();
+        plan = rebalancer.optimize();
+        long searched = System.nanoTime() - start;
+        System.out.printf(Locale.ROOT, "%-9s %2d chain(s): %d moves, %.1f -> %.1f in %.0f ms%n",
+            objective, chains, plan.moves().size(), plan.before(), plan.after(), searched / 1e6);
+      }
+
+      if (plan.moves().size() > maxMoves) {
+        failures.add(objective + " plan makes " + plan.moves().size() + " moves");
+      }
+      boolean better = objective == BalanceObjective.MINIMUM ? plan.after() >= plan.before()
+          : plan.after() <= plan.before();
+      if (!better) {
+        failures.add(objective + " plan worsens " + plan.before() + " to " + plan.after());
+      }
+      check(objective + " before", plan.before(), measure(objective, synthetic, hotel),
+          failures);
+
+      List<String> state = HotelStates.state(hotel);
+      hotel.applyRebalance(plan);
+      if (!plan.moves().isEmpty()) {
+        manager.undo();
+        HotelStates.compare(objective + " undone plan", state, HotelStates.state(hotel), failures);
+        manager.redo();
+      }
+      double after = measure(objective, synthetic, hotel);
+      check(objective + " after", plan.after(), after, failures);
+      if (!responsible.equals(responsible(hotel))) {
+        failures.add(objective + " plan changed the number of caretakers of a habitat");
+      }
+
+      if (!plan.moves().isEmpty()) {
+        try {
+          hotel.applyRebalance(plan);
+          failures.add(objective + " stale plan was applied");
+        } catch (IllegalStateException e) {
+          check(objective + " stale plan", after, measure(objective, synthetic, hotel), failures);
+        }
+      }
+    }
+
+    if (!failures.isEmpty()) {
+      failures.stream().limit(20).forEach(System.out::println);
+      System.out.println(failures.size() + " failure(s)");
+      System.exit(1);
+    }
+    System.out.println("Every plan keeps to its constraints and balances what it expects");
+  }
+
+  // The balance of the satisfactions of the caretakers, as the hotel computes them
+  private static double measure(BalanceObjective objective, SyntheticHotel synthetic, Hotel hotel)
+      throws Exception {
+    double[] satisfactions = new double[synthetic.careTakers()];
+    for (int careTaker = 0; careTaker < satisfactions.length; careTaker++) {
+      satisfactions[careTaker] = hotel.workerSatisfaction(synthetic.careTakerId(careTaker));
+    }
+    if (objective == BalanceObjective.MINIMUM) {
+      double minimum = Double.POSITIVE_INFINITY;
+      for (double satisfaction : satisfactions) {
+        minimum = Math.min(minimum, satisfaction);
+      }
+      return minimum;
+    }
+    double mean = 0;
+    for (double satisfaction : satisfactions) {
+      mean += satisfaction / satisfactions.length;
+    }
+    double squares = 0;
+    for (double satisfaction : satisfactions) {
+      squares += (satisfaction - mean) * (satisfaction - mean);
+    }
+    return Math.sqrt(squares / satisfactions.length);
+  }
+
+  // The number of caretakers responsible for each habitat, as their lines list
+  private static Map<String, Integer> responsible(Hotel hotel) {
+    Map<String, Integer> responsible = new HashMap<String, Integer>();
+    for (Worker worker : hotel.workers()) {
+      String[] fields = worker.toString().split("\\|");
+      if (fields[0].equals("TRT") && fields.length > 3) {
+        for (String habitat : fields[3].split(",")) {
+          responsible.merge(habitat, 1, Integer::sum);
+        }
+      }
+    }
+    return responsible;
+  }
+
+  private static void check(String what, double expected, double actual, List<String> failures) {
+    if (Math.abs(actual - expected) > 1e-6 * Math.max(1, Math.abs(actual))) {
+      failures.add(what + " measured " + actual + ", expected " + expected);
+    }
+  }
+}
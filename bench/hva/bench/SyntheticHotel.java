@@ -0,0 +1,583 @@
+package hva.bench;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Class representing a synthetic zoo hotel, written in the format read by {@link hva.core.Parser}.
+ *
+ * <p>
+ * Every choice (the species and habitat of an animal, the trees of a habitat, the responsibilities
+ * of a worker, the species of a vaccine) is a pure function of the seed and of the index of the
+ * entity, so the same configuration produces the same file on any machine, and benchmarks can
+ * find, for example, a vet responsible for the species of a given animal without keeping the
+ * generated entities. Nothing but the current line is held in memory, so files with hundreds of
+ * millions of lines are streamed at the speed of the disk.
+ *
+ * <p>
+ * Vet {@code V<i>} is always responsible for the species {@code E<j>} with {@code j % vets == i},
+ * plus a number of other species taken from {@link #changeResponsibilities(int, int)}. Caretakers
+ * get that many habitats and vaccines get a number of species taken from
+ * {@link #changeSpeciesPerVaccine(int, int)}, so vaccinations may or may not cause damage.
+ *
+ * <p>
+ * Can also be run on its own:
+ * {@code java -cp bench/classes hva.bench.SyntheticHotel --animals 100000000 -o big.import}, see
+ * {@link #main(String[])} for every option.
+ */
+public class SyntheticHotel {
+
+  /** Options accepted by {@link #main(String[])}. */
+  private static final List<String> OPTIONS = List.of("--species", "--habitats", "--trees",
+      "--animals", "--vets", "--caretakers", "--vaccines", "--seed", "--species-distribution",
+      "--habitat-distribution", "--responsibilities", "--vaccine-species", "-o");
+
+  /** Size of the buffer of generated characters, written to the output when full. */
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  /*
+   * Numbers of the independent random choices made about an entity. Choices about the k-th
+   * responsibility of an entity use the number EXTRA + k.
+   */
+  private static final int SPECIES = 0;
+  private static final int HABITAT = 1;
+  private static final int AGE = 2;
+  private static final int DIFFICULTY = 3;
+  private static final int AREA = 4;
+  private static final int COUNT = 5;
+  private static final int EXTRA = 16;
+
+  /**
+   * Enumeration of the distributions of the entities chosen by other entities.
+   *
+   * <p>
+   * UNIFORM picks every entity with the same probability. ZIPF picks the entity of rank {@code k}
+   * with a probability close to proportional to {@code 1 / (k + 1)}, so a few habitats or species
+   * hold most of the animals.
+   */
+  public enum Distribution {
+    UNIFORM, ZIPF;
+
+    /**
+     * Picks one of {@code n} entities.
+     *
+     * @param bits the random bits of the choice
+     * @param n the number of entities
+     *
+     * @return the index of the chosen entity, between zero and {@code n - 1}
+     */
+    int sample(long bits, int n) {
+      if (this == UNIFORM) {
+        return below(bits, n);
+      }
+      double uniform = (bits >>> 11) * 0x1.0p-53;
+      return Math.min(n - 1, (int) Math.exp(uniform * Math.log(n + 1.0)) - 1);
+    }
+  }
+
+  private final int _species;
+  private final int _habitats;
+  private final int _trees;
+  private final int _animals;
+  private final int _vets;
+  private final int _careTakers;
+  private final int _vaccines;
+  private final long _seed;
+  private Distribution _speciesDistribution = Distribution.UNIFORM;
+  private Distribution _habitatDistribution = Distribution.UNIFORM;
+  private int _minResponsibilities = 1;
+  private int _maxResponsibilities = 2;
+  private int _minSpeciesPerVaccine = 1;
+  private int _maxSpeciesPerVaccine = 2;
+
+  private Writer _out;
+  private final StringBuilder _line = new StringBuilder(BUFFER_SIZE + 256);
+  private final char[] _chars = new char[BUFFER_SIZE + 256];
+  private long _lines;
+
+  /*
+   * <------------------------ Constructor ------------------------>
+   */
+
+  /**
+   * Constructor which describes a synthetic hotel.
+   *
+   * @param species the number of species
+   * @param habitats the number of habitats
+   * @param trees the number of trees, spread over the habitats
+   * @param animals the number of animals
+   * @param vets the number of vets, at most the number of species
+   * @param careTakers the number of caretakers
+   * @param vaccines the number of vaccines
+   * @param seed the seed of every random choice
+   */
+  public SyntheticHotel(int species, int habitats, int trees, int animals, int vets,
+      int careTakers, int vaccines, long seed) {
+    if (species < 1 || habitats < 1 || vets > species || Math.min(trees, animals) < 0
+        || Math.min(vets, Math.min(careTakers, vaccines)) < 0) {
+      throw new IllegalArgumentException("A synthetic hotel needs species, habitats and at most "
+          + "one vet per species");
+    }
+    _species = species;
+    _habitats = habitats;
+    _trees = trees;
+    _animals = animals;
+    _vets = vets;
+    _careTakers = careTakers;
+    _vaccines = vaccines;
+    _seed = seed;
+  }
+
+  /**
+   * Describes a synthetic hotel with the given number of animals and proportional counts of the
+   * other entities.
+   *
+   * @param animals the number of animals
+   * @param seed the seed of every random choice
+   *
+   * @return the description of the hotel
+   */
+  public static SyntheticHotel ofAnimals(int animals, long seed) {
+    int species = Math.max(4, animals / 100);
+    int habitats = Math.max(2, animals / 50);
+    return new SyntheticHotel(species, habitats, 2 * habitats, animals, Math.max(1, species / 4),
+        Math.max(1, habitats / 4), Math.max(1, species / 2), seed);
+  }
+
+  /*
+   * <------------------------ Gets ------------------------>
+   */
+
+  public int animals() {
+    return _animals;
+  }
+
+  public int species() {
+    return _species;
+  }
+
+  public int trees() {
+    return _trees;
+  }
+
+  public int habitats() {
+    return _habitats;
+  }
+
+  public int vets() {
+    return _vets;
+  }
+
+  public int careTakers() {
+    return _careTakers;
+  }
+
+  public int vaccines() {
+    return _vaccines;
+  }
+
+  /**
+   * Retrieves the identifier of a habitat.
+   *
+   * @param habitat the index of the habitat, taken modulo the number of habitats
+   *
+   * @return the identifier of the habitat
+   */
+  public String habitatId(int habitat) {
+    return "H" + Math.floorMod(habitat, _habitats);
+  }
+
+  /**
+   * Retrieves the identifier of a species.
+   *
+   * @param species the index of the species, taken modulo the number of species
+   *
+   * @return the identifier of the species
+   */
+  public String speciesId(int species) {
+    return "E" + Math.floorMod(species, _species);
+  }
+
+  /**
+   * Retrieves the identifier of an animal.
+   *
+   * @param animal the index of the animal
+   *
+   * @return the identifier of the animal
+   */
+  public String animalId(int animal) {
+    return "A" + animal;
+  }
+
+  /**
+   * Retrieves the identifier of a caretaker.
+   *
+   * @param careTaker the index of the caretaker, taken modulo the number of caretakers
+   *
+   * @return the identifier of the caretaker
+   */
+  public String careTakerId(int careTaker) {
+    return "TRT" + Math.floorMod(careTaker, _careTakers);
+  }
+
+  /**
+   * Retrieves the identifier of a vaccine.
+   *
+   * @param vaccine the index of the vaccine, taken modulo the number of vaccines
+   *
+   * @return the identifier of the vaccine
+   */
+  public String vaccineId(int vaccine) {
+    return "VAC" + Math.floorMod(vaccine, _vaccines);
+  }
+
+  /**
+   * Retrieves the identifier of a vet responsible for the species of an animal.
+   *
+   * @param animal the index of the animal
+   *
+   * @return the identifier of the vet
+   */
+  public String vetFor(int animal) {
+    return "V" + speciesOf(animal) % _vets;
+  }
+
+  /*
+   * <------------------------ Sets ------------------------>
+   */
+
+  /**
+   * Changes the distribution of the species of the animals.
+   *
+   * @param distribution the new distribution
+   */
+  public void changeSpeciesDistribution(Distribution distribution) {
+    _speciesDistribution = distribution;
+  }
+
+  /**
+   * Changes the distribution of the animals over the habitats.
+   *
+   * @param distribution the new distribution
+   */
+  public void changeHabitatDistribution(Distribution distribution) {
+    _habitatDistribution = distribution;
+  }
+
+  /**
+   * Changes the number of responsibilities of each worker, chosen uniformly in a range. Vets are
+   * also responsible for their own share of the species.
+   *
+   * @param min the minimum number of responsibilities
+   * @param max the maximum number of responsibilities
+   */
+  public void changeResponsibilities(int min, int max) {
+    checkRange(min, max);
+    _minResponsibilities = min;
+    _maxResponsibilities = max;
+  }
+
+  /**
+   * Changes the number of species of each vaccine, chosen uniformly in a range.
+   *
+   * @param min the minimum number of species
+   * @param max the maximum number of species
+   */
+  public void changeSpeciesPerVaccine(int min, int max) {
+    checkRange(min, max);
+    _minSpeciesPerVaccine = min;
+    _maxSpeciesPerVaccine = max;
+  }
+
+  /*
+   * <------------------------ Others ------------------------>
+   */
+
+  /**
+   * Writes this hotel to a temporary import file, deleted when the virtual machine exits.
+   *
+   * @return the path of the file
+   *
+   * @throws IOException if the file cannot be written
+   */
+  public Path writeTemporaryFile() throws IOException {
+    Path file = Files.createTempFile("hva-bench-", ".import");
+    file.toFile().deleteOnExit();
+    try (OutputStream out = Files.newOutputStream(file)) {
+      write(out);
+    }
+    return file;
+  }
+
+  /**
+   * Writes this hotel in the import format, one entity per line, encoded in UTF-8.
+   *
+   * <p>
+   * Species come first, then trees, habitats, animals, caretakers, vets and vaccines, so every
+   * entity is declared before it is referenced.
+   *
+   * @param out the destination of the lines, which is flushed but not closed
+   *
+   * @return the number of lines written
+   *
+   * @throws IOException if the lines cannot be written
+   */
+  public long write(OutputStream out) throws IOException {
+    _out = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+    _lines = 0;
+
+    for (int species = 0; species < _species; species++) {
+      _line.append("ESPÉCIE|E").append(species).append("|Espécie ").append(species);
+      endLine();
+    }
+    for (int tree = 0; tree < _trees; tree++) {
+      _line.append("ÁRVORE|T").append(tree).append("|Árvore").append(tree % 10).append('|')
+          .append(below(bits(tree, AGE), 20)).append('|')
+          .append(1 + below(bits(tree, DIFFICULTY), 5)).append('|')
+          .append(tree % 2 == 0 ? "CADUCA" : "PERENE");
+      endLine();
+    }
+    for (int habitat = 0; habitat < _habitats; habitat++) {
+      _line.append("HABITAT|H").append(habitat).append("|Habitat ").append(habitat).append('|')
+          .append(10 + below(bits(habitat, AREA), 200));
+      char separator = '|';
+      for (int tree = habitat; tree < _trees; tree += _habitats) {
+        _line.append(separator).append('T').append(tree);
+        separator = ',';
+      }
+      endLine();
+    }
+    for (int animal = 0; animal < _animals; animal++) {
+      _line.append("ANIMAL|").append('A').append(animal).append("|Nome").append(animal % 50)
+          .append("|E").append(speciesOf(animal)).append("|H")
+          .append(_habitatDistribution.sample(bits(animal, HABITAT), _habitats));
+      endLine();
+    }
+    for (int careTaker = 0; careTaker < _careTakers; careTaker++) {
+      _line.append("TRATADOR|TRT").append(careTaker).append("|Tratador ").append(careTaker);
+      char separator = '|';
+      int count = between(bits(careTaker, COUNT), _minResponsibilities, _maxResponsibilities);
+      for (int k = 0; k < count; k++) {
+        _line.append(separator).append('H').append(below(bits(careTaker, EXTRA + k), _habitats));
+        separator = ',';
+      }
+      endLine();
+    }
+    for (int vet = 0; vet < _vets; vet++) {
+      _line.append("VETERINÁRIO|V").append(vet).append("|Veterinário ").append(vet);
+      char separator = '|';
+      for (int species = vet; species < _species; species += _vets) {
+        _line.append(separator).append('E').append(species);
+        separator = ',';
+      }
+      int count = between(bits(vet, COUNT), _minResponsibilities, _maxResponsibilities);
+      for (int k = 0; k < count; k++) {
+        _line.append(separator).append('E').append(below(bits(vet, EXTRA + k), _species));
+        separator = ',';
+      }
+      endLine();
+    }
+    for (int vaccine = 0; vaccine < _vaccines; vaccine++) {
+      _line.append("VACINA|VAC").append(vaccine).append("|Vacina ").append(vaccine);
+      char separator = '|';
+      int count = between(bits(vaccine, COUNT), _minSpeciesPerVaccine, _maxSpeciesPerVaccine);
+      for (int k = 0; k < count; k++) {
+        _line.append(separator).append('E').append(below(bits(vaccine, EXTRA + k), _species));
+        separator = ',';
+      }
+      endLine();
+    }
+
+    drain();
+    _out.flush();
+    return _lines;
+  }
+
+  /**
+   * Ends the current line, writing the buffered lines to the output when the buffer is full.
+   *
+   * @throws IOException if the lines cannot be written
+   */
+  private void endLine() throws IOException {
+    _line.append('\n');
+    _lines++;
+    if (_line.length() >= BUFFER_SIZE) {
+      drain();
+    }
+  }
+
+  /**
+   * Writes the buffered lines to the output and empties the buffer.
+   *
+   * @throws IOException if the lines cannot be written
+   */
+  private void drain() throws IOException {
+    int length = _line.length();
+    char[] chars = length <= _chars.length ? _chars : new char[length];
+    _line.getChars(0, length, chars, 0);
+    _out.write(chars, 0, length);
+    _line.setLength(0);
+  }
+
+  /**
+   * Retrieves the index of the species of an animal.
+   *
+   * @param animal the index of the animal
+   *
+   * @return the index of the species of the animal
+   */
+  private int speciesOf(int animal) {
+    return _speciesDistribution.sample(bits(animal, SPECIES), _species);
+  }
+
+  /**
+   * Computes the random bits of one choice about one entity, with the SplitMix64 finalizer.
+   *
+   * @param entity the index of the entity
+   * @param choice the number of the choice
+   *
+   * @return random bits that only depend on the seed, the entity and the choice
+   */
+  private long bits(long entity, int choice) {
+    long bits = _seed + entity * 0x9E3779B97F4A7C15L + choice * 0xD1B54A32D192ED03L;
+    bits = (bits ^ (bits >>> 30)) * 0xBF58476D1CE4E5B9L;
+    bits = (bits ^ (bits >>> 27)) * 0x94D049BB133111EBL;
+    return bits ^ (bits >>> 31);
+  }
+
+  /**
+   * Maps random bits uniformly to a number below a bound.
+   *
+   * @param bits the random bits
+   * @param bound the exclusive upper bound, positive
+   *
+   * @return a number between zero and {@code bound - 1}
+   */
+  private static int below(long bits, int bound) {
+    return (int) (((bits >>> 32) * bound) >>> 32);
+  }
+
+  /**
+   * Maps random bits uniformly to a number in a range.
+   *
+   * @param bits the random bits
+   * @param min the inclusive lower bound
+   * @param max the inclusive upper bound
+   *
+   * @return a number between {@code min} and {@code max}
+   */
+  private static int between(long bits, int min, int max) {
+    return min + below(bits, max - min + 1);
+  }
+
+  /**
+   * Checks a range of counts.
+   *
+   * @param min the inclusive lower bound
+   * @param max the inclusive upper bound
+   *
+   * @throws IllegalArgumentException if the range is empty or negative
+   */
+  private static void checkRange(int min, int max) {
+    if (min < 0 || max < min) {
+      throw new IllegalArgumentException("Invalid range " + min + "-" + max);
+    }
+  }
+
+  /**
+   * Generates an import file.
+   *
+   * <p>
+   * Options: {@code --species}, {@code --habitats}, {@code --trees}, {@code --animals},
+   * {@code --vets}, {@code --caretakers} and {@code --vaccines} set the counts, which default to
+   * {@link #ofAnimals(int, long)}; {@code --seed} the seed; {@code --species-distribution} and
+   * {@code --habitat-distribution} either {@code uniform} or {@code zipf};
+   * {@code --responsibilities} and {@code --vaccine-species} a range such as {@code 1-3}; and
+   * {@code -o} the output file, the standard output by default. A summary is printed to the
+   * standard error.
+   *
+   * @param args the options
+   *
+   * @throws IOException if the file cannot be written
+   */
+  public static void main(String[] args) throws IOException {
+    Map<String, String> options = new HashMap<String, String>();
+    for (int i = 0; i < args.length; i += 2) {
+      if (i + 1 == args.length || !OPTIONS.contains(args[i])) {
+        throw new IllegalArgumentException("Invalid option " + args[i]);
+      }
+      options.put(args[i], args[i + 1]);
+    }
+
+    int animals = Integer.parseInt(options.getOrDefault("--animals", "1000"));
+    long seed = Long.parseLong(options.getOrDefault("--seed", "42"));
+    SyntheticHotel defaults = ofAnimals(animals, seed);
+    SyntheticHotel hotel = new SyntheticHotel(
+        count(options, "--species", defaults._species),
+        count(options, "--habitats", defaults._habitats),
+        count(options, "--trees", defaults._trees), animals,
+        count(options, "--vets", defaults._vets),
+        count(options, "--caretakers", defaults._careTakers),
+        count(options, "--vaccines", defaults._vaccines), seed);
+
+    String value = options.get("--species-distribution");
+    if (value != null) {
+      hotel.changeSpeciesDistribution(Distribution.valueOf(value.toUpperCase(Locale.ROOT)));
+    }
+    value = options.get("--habitat-distribution");
+    if (value != null) {
+      hotel.changeHabitatDistribution(Distribution.valueOf(value.toUpperCase(Locale.ROOT)));
+    }
+    value = options.get("--responsibilities");
+    if (value != null) {
+      String[] range = value.split("-");
+      hotel.changeResponsibilities(Integer.parseInt(range[0]), Integer.parseInt(range[1]));
+    }
+    value = options.get("--vaccine-species");
+    if (value != null) {
+      String[] range = value.split("-");
+      hotel.changeSpeciesPerVaccine(Integer.parseInt(range[0]), Integer.parseInt(range[1]));
+    }
+
+    long start = System.nanoTime();
+    long lines;
+    String output = options.get("-o");
+    if (output == null) {
+      lines = hotel.write(System.out);
+    } else {
+      try (OutputStream out = new BufferedOutputStream(new FileOutputStream(output), 1 << 20)) {
+        lines = hotel.write(out);
+      }
+    }
+    double seconds = (System.nanoTime() - start) / 1e9;
+    System.err.printf(Locale.ROOT, "%d lines in %.2f s (%.0f lines/s)%n", lines, seconds,
+        lines / seconds);
+  }
+
+  /**
+   * Reads a count option.
+   *
+   * @param options the options, by name
+   * @param name the name of the option
+   * @param defaultCount the count used when the option is absent
+   *
+   * @return the count
+   */
+  private static int count(Map<String, String> options, String name, int defaultCount) {
+    String value = options.get(name);
+    return value == null ? defaultCount : Integer.parseInt(value);
+  }
+}
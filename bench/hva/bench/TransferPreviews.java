@@ -0,0 +1,124 @@
+package hva.bench;
+
+import hva.core.Hotel;
+import hva.core.HotelManager;
+import hva.core.TransferPreview;
+import hva.core.exception.ResponsibilityNotFoundException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Previews of transfers through {@link Hotel#previewTransfer(String, String)}.
+ *
+ * <p>
+ * A synthetic hotel goes through random transfers, areas changed and responsibilities of caretakers
+ * added and removed. Each transfer is previewed first, and the preview must equal the change in the
+ * satisfaction of the hotel the transfer then makes, and its part for the animal the change in the
+ * satisfaction of the animal. The measure compares a preview with the full scan of the
+ * satisfaction of the hotel it replaces, on hotels of growing size. The process exits with a
+ * non-zero status if a preview differs.
+ *
+ * <p>
+ * Run with {@code ./bench.sh preview [-n animals] [-t transfers]}.
+ */
+public class TransferPreviews {
+
+  private static final long SEED = 42;
+
+  public static void main(String[] args) throws Exception {
+    int animals = 5_000;
+    int transfers = 5_000;
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      switch (args[i]) {
+        case "-n" -> animals = Integer.parseInt(args[i + 1]);
+        case "-t" -> transfers = Integer.parseInt(args[i + 1]);
+        default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+      }
+    }
+
+    List<String> failures = new ArrayList<String>();
+    SyntheticHotel synthetic = SyntheticHotel.ofAnimals(animals, SEED);
+    Hotel hotel = hotel(synthetic);
+    SplittableRandom random = new SplittableRandom(SEED);
+    double satisfaction = hotel.satisfaction();
+    for (int i = 0; i < transfers && failures.size() <= 20; i++) {
+      String habitat = synthetic.habitatId(random.nextInt(synthetic.habitats()));
+      try {
+        int operation = random.nextInt(10);
+        if (operation == 0) {
+          hotel.changeHabitatArea(habitat, 1 + random.nextInt(1_000));
+        } else if (operation == 1) {
+          hotel.addResponsibilityToWorker(
+              synthetic.careTakerId(random.nextInt(synthetic.careTakers())), habitat);
+        } else if (operation == 2) {
+          hotel.removeResponsibilityFromWorker(
+              synthetic.careTakerId(random.nextInt(synthetic.careTakers())), habitat);
+        } else {
+          String animal = synthetic.animalId(random.nextInt(synthetic.animals()));
+          TransferPreview preview = hotel.previewTransfer(animal, habitat);
+          double before = hotel.animalSatisfaction(animal);
+          hotel.transferAnimal(animal, habitat);
+          check("Animal " + animal + " to " + habitat, preview.animal(),
+              hotel.animalSatisfaction(animal) - before, failures);
+          double after = hotel.satisfaction();
+          check("Transfer of " + animal + " to " + habitat, preview.satisfaction(),
+              after - satisfaction, failures);
+        }
+      } catch (ResponsibilityNotFoundException e) {
+        // Removing a responsibility the caretaker does not have changes nothing
+      }
+      satisfaction = hotel.satisfaction();
+    }
+    System.out.printf(Locale.ROOT, "previewed %d transfers%n", transfers);
+
+    for (int size = animals / 4; size <= animals * 16; size *= 4) {
+      SyntheticHotel scaled = SyntheticHotel.ofAnimals(size, SEED);
+      measure(scaled, hotel(scaled), random);
+    }
+
+    if (!failures.isEmpty()) {
+      failures.stream().limit(20).forEach(System.out::println);
+      System.out.println(failures.size() + " failure(s)");
+      System.exit(1);
+    }
+    System.out.println("Every preview matches its transfer");
+  }
+
+  // Times previews against the scans of the satisfaction of the hotel they replace
+  private static void measure(SyntheticHotel synthetic, Hotel hotel, SplittableRandom random)
+      throws Exception {
+    int iterations = 200_000;
+    double sink = 0;
+    long start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      sink += hotel.previewTransfer(synthetic.animalId(random.nextInt(synthetic.animals())),
+          synthetic.habitatId(random.nextInt(synthetic.habitats()))).satisfaction();
+    }
+    long previewed = System.nanoTime() - start;
+
+    int scans = 20;
+    start = System.nanoTime();
+    for (int i = 0; i < scans; i++) {
+      sink += hotel.satisfaction();
+    }
+    long scanned = System.nanoTime() - start;
+    System.out.printf(Locale.ROOT, "%8d animals: preview %.0f ns, scan %.0f us (%s)%n",
+        synthetic.animals(), (double) previewed / iterations, scanned / 1e3 / scans,
+        sink != 0 ? "ok" : "-");
+  }
+
+  private static Hotel hotel(SyntheticHotel synthetic) throws Exception {
+    HotelManager manager = new HotelManager();
+    manager.importFile(synthetic.writeTemporaryFile().toString());
+    return manager.getHotel();
+  }
+
+  private static void check(String what, double expected, double actual, List<String> failures) {
+    if (Math.abs(actual - expected) > 1e-6 * Math.max(1, Math.abs(actual))) {
+      failures.add(what + " changed satisfaction by " + actual + ", previewed " + expected);
+    }
+  }
+}
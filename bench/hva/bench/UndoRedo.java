@@ -0,0 +1,159 @@
+package hva.bench;
+
+import hva.core.Hotel;
+import hva.core.HotelHistory;
+import hva.core.HotelJournal;
+import hva.core.HotelManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Undoing and redoing the changes of a hotel through its {@link HotelManager}.
+ *
+ * <p>
+ * A synthetic hotel is imported into a journaled hotel which keeps a history, and then goes
+ * through a random walk of changes of every kind, undos and redos. The digest of the state of the
+ * hotel is kept after every change, so that every undo and redo must bring the hotel back to the
+ * digest of the step it lands on. At the end, the journal must recover the hotel as it is, and the
+ * history must reconstruct every season as it ended, with the seasons undone taken back.
+ *
+ * <p>
+ * The measure compares undoing a change with reloading a save of the hotel. The process exits with
+ * a non-zero status if a check fails.
+ *
+ * <p>
+ * Run with {@code ./bench.sh undo [-n animals] [-s steps]}, the limit of the changes kept being set
+ * by {@code -Dundo} in the script.
+ */
+public class UndoRedo {
+
+  private static final long SEED = 42;
+
+  public static void main(String[] args) throws Exception {
+    int animals = 2_000;
+    int steps = 10_000;
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      switch (args[i]) {
+        case "-n" -> animals = Integer.parseInt(args[i + 1]);
+        case "-s" -> steps = Integer.parseInt(args[i + 1]);
+        default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+      }
+    }
+
+    SyntheticHotel synthetic = SyntheticHotel.ofAnimals(animals, SEED);
+    Path directory = Files.createTempDirectory("hva-undo-");
+    List<String> failures = new ArrayList<String>();
+
+    HotelManager manager = new HotelManager();
+    manager.openJournal(directory.toString());
+    HotelHistory history = manager.history();
+    if (history == null) {
+      throw new IllegalStateException("Run with -Dhistory=N to keep a history");
+    }
+    manager.importFile(synthetic.writeTemporaryFile().toString());
+    Hotel hotel = manager.getHotel();
+
+    // The digests of the branch of changes being walked, and the position of the hotel in it
+    List<byte[]> digests = new ArrayList<byte[]>(List.of(HotelStates.digest(hotel)));
+    List<Boolean> seasons = new ArrayList<Boolean>(List.of(false));
+    List<byte[]> seasonEnds = new ArrayList<byte[]>();
+    int position = 0;
+
+    SplittableRandom random = new SplittableRandom(SEED);
+    long undone = 0;
+    long redone = 0;
+    long undoing = 0;
+    for (int step = 0; step < steps && failures.size() <= 20; step++) {
+      int choice = random.nextInt(10);
+      if (choice < 3) {
+        long start = System.nanoTime();
+        boolean done = manager.undo();
+        undoing += System.nanoTime() - start;
+        if (done != position > 0) {
+          failures.add("Step " + step + " undid " + done + " at position " + position);
+        } else if (done) {
+          if (seasons.get(position)) {
+            seasonEnds.remove(seasonEnds.size() - 1);
+          }
+          check("Undo at step " + step, digests.get(--position), hotel, failures);
+          undone++;
+        }
+      } else if (choice < 5) {
+        boolean done = manager.redo();
+        if (done != position < digests.size() - 1) {
+          failures.add("Step " + step + " redid " + done + " at position " + position);
+        } else if (done) {
+          if (seasons.get(position + 1)) {
+            seasonEnds.add(digests.get(position));
+          }
+          check("Redo at step " + step, digests.get(++position), hotel, failures);
+          redone++;
+        }
+      } else {
+        byte[] before = digests.get(position);
+        Boolean season = HotelStates.change(synthetic, hotel, random, "U");
+        if (season != null) {
+          digests.subList(position + 1, digests.size()).clear();
+          seasons.subList(position + 1, seasons.size()).clear();
+          if (season) {
+            seasonEnds.add(before);
+          }
+          digests.add(HotelStates.digest(hotel));
+          seasons.add(season);
+          position++;
+        }
+      }
+    }
+    System.out.printf(Locale.ROOT, "walked %d steps: %d changes kept, %d undone, %d redone%n",
+        steps, position, undone, redone);
+    System.out.printf(Locale.ROOT, "undo took %.1f us on average%n", undoing / 1e3 / undone);
+
+    if (history.seasons() != seasonEnds.size()) {
+      failures.add("History has " + history.seasons() + " seasons, expected " + seasonEnds.size());
+    } else {
+      for (int season = 0; season < seasonEnds.size(); season++) {
+        check("Season " + season, seasonEnds.get(season), history.hotel(season), failures);
+      }
+    }
+
+    Path file = Files.createTempFile("hva-undo-", ".dat");
+    manager.saveAs(file.toString());
+    hotel.transferAnimal(synthetic.animalId(0), synthetic.habitatId(1));
+    long start = System.nanoTime();
+    manager.undo();
+    long undo = System.nanoTime() - start;
+    start = System.nanoTime();
+    manager.load(file.toString());
+    long load = System.nanoTime() - start;
+    Files.delete(file);
+    System.out.printf(Locale.ROOT, "undoing a transfer: %.3f ms, reloading the save: %.0f ms%n",
+        undo / 1e6, load / 1e6);
+
+    manager.create();
+    try (HotelJournal journal = new HotelJournal(directory, false)) {
+      Hotel recovered = journal.recover();
+      recovered.setEventSink(null);
+      check("Recovered", digests.get(position), recovered, failures);
+    }
+
+    if (!failures.isEmpty()) {
+      failures.stream().limit(20).forEach(System.out::println);
+      System.out.println(failures.size() + " failure(s)");
+      System.exit(1);
+    }
+    System.out.println("Every undo and redo matches the hotel");
+  }
+
+  private static void check(String what, byte[] expected, Hotel hotel, List<String> failures)
+      throws Exception {
+    if (!Arrays.equals(expected, HotelStates.digest(hotel))) {
+      failures.add(what + " differs from the hotel it should be");
+    }
+  }
+}
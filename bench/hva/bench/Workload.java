@@ -0,0 +1,41 @@
+package hva.bench;
+
+/**
+ * Interface representing the operation measured by a benchmark.
+ *
+ * <p>
+ * {@link #setUp()} runs once before the warmup, {@link #setUpIteration()} before every warmup and
+ * measurement iteration, so that operations that grow the hotel (such as vaccinations) start each
+ * iteration from the same state.
+ *
+ * @see Harness
+ */
+public interface Workload {
+
+  /**
+   * Prepares the state shared by every iteration.
+   *
+   * @throws Exception if the state cannot be prepared
+   */
+  default void setUp() throws Exception {
+    // Nothing to prepare by default.
+  }
+
+  /**
+   * Prepares the state of one iteration.
+   *
+   * @throws Exception if the state cannot be prepared
+   */
+  default void setUpIteration() throws Exception {
+    // Nothing to prepare by default.
+  }
+
+  /**
+   * Performs the measured operation once.
+   *
+   * @return the result of the operation, consumed so that it is not optimized away
+   *
+   * @throws Exception if the operation fails, which aborts the benchmark
+   */
+  Object invoke() throws Exception;
+}
@@ -1,6 +1,7 @@
 package hva.app;
 
 import hva.core.exception.ImportFileException;
+import hva.core.exception.UnavailableFileException;
 import pt.tecnico.uilib.Dialog;
 
 public class App {
@@ -8,6 +9,14 @@ public class App {
   public static void main(String[] args) {
     try (var ui = Dialog.UI) {
       var manager = new hva.core.HotelManager();
+      String journal = System.getProperty("journal");
+      if (journal != null) {
+        try {
+          manager.openJournal(journal);
+        } catch (UnavailableFileException e) {
+          e.printStackTrace();
+        }
+      }
       String datafile = System.getProperty("import");
       if (datafile != null) {
         try {
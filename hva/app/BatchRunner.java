@@ -0,0 +1,240 @@
+package hva.app;
+
+import hva.core.Hotel;
+import hva.core.HotelManager;
+import hva.core.exception.ImportFileException;
+
+import pt.tecnico.uilib.Dialog;
+import pt.tecnico.uilib.InteractionDriver;
+import pt.tecnico.uilib.forms.Field;
+import pt.tecnico.uilib.forms.Form;
+import pt.tecnico.uilib.menus.Command;
+import pt.tecnico.uilib.menus.CommandException;
+import pt.tecnico.uilib.menus.Menu;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Headless entry point of the application, which runs a script of commands against a hotel
+ * without the menus.
+ *
+ * <p>
+ * Each line of the script is a command, named after the class of its menu command without the
+ * {@code Do} prefix, followed by the answers to its prompts, in the order the command asks them,
+ * separated by {@code |}. For example:
+ *
+ * <pre>
+ * RegisterAnimal|A1|Bobi|E1|H1
+ * TransferToHabitat|A1|H2
+ * VaccinateAnimal|VAC1|V1|A1
+ * ShowAllAnimals
+ * SaveFile|hotel.dat
+ * </pre>
+ *
+ * <p>
+ * Blank lines and lines starting with {@code #} are ignored. Every line runs the menu command
+ * itself, whose prompts are answered by the fields of the line and whose output is printed as the
+ * menus print it, including the errors, which are printed after the title of the command. Prompts
+ * a command asks only sometimes take optional fields: {@code RegisterAnimal} takes the name of
+ * the species after the habitat, which is required if the species is new, and {@code SaveFile}
+ * takes the file to save to, which is used if the hotel has no file yet. Confirmations are always
+ * refused, so {@code NewFile} and {@code OpenFile} never save the current hotel. Malformed lines,
+ * and lines of commands which open a menu, are reported on the standard error, with their number,
+ * and skipped.
+ *
+ * <p>
+ * The runner installs itself as the {@link Dialog#UI} of the menus, so it must not be used while
+ * the menus are open.
+ *
+ * <p>
+ * Run with {@code java -cp po-uilib.jar:. [-Dimport=file] hva.app.BatchRunner [script]}, which
+ * reads the script from the standard input if no file is given.
+ */
+public class BatchRunner {
+
+  private static final int BUFFER = 1 << 16;
+
+  private final HotelManager _manager;
+  private final PrintWriter _out;
+  private final Script _script;
+  private final Map<String, Command<?>> _commands = new HashMap<String, Command<?>>();
+  private Hotel _hotel;
+
+  /*
+   * <------------------------ Constructor ------------------------>
+   */
+
+  /**
+   * Constructor which creates a runner of scripts against the hotel of a manager.
+   *
+   * @param manager the manager of the hotel
+   * @param out where the output of the commands is written
+   */
+  public BatchRunner(HotelManager manager, PrintWriter out) {
+    _manager = manager;
+    _out = out;
+    _script = new Script(out);
+    Dialog.UI = new Dialog(_script);
+  }
+
+  public static void main(String[] args) throws IOException {
+    HotelManager manager = new HotelManager();
+    String datafile = System.getProperty("import");
+    if (datafile != null) {
+      try {
+        manager.importFile(datafile);
+      } catch (ImportFileException e) {
+        e.printStackTrace();
+      }
+    }
+
+    try (Reader script = args.length > 0 ? new InputStreamReader(new FileInputStream(args[0]),
+        StandardCharsets.UTF_8) : new InputStreamReader(System.in, StandardCharsets.UTF_8);
+        PrintWriter out = new PrintWriter(new BufferedWriter(
+            new OutputStreamWriter(System.out, StandardCharsets.UTF_8), BUFFER))) {
+      new BatchRunner(manager, out).run(new BufferedReader(script, BUFFER));
+    }
+  }
+
+  /*
+   * <------------------------ Others ------------------------>
+   */
+
+  /**
+   * Runs every command of a script.
+   *
+   * @param script the script
+   *
+   * @return the number of commands run, including those which failed
+   *
+   * @throws IOException if the script cannot be read
+   */
+  public long run(BufferedReader script) throws IOException {
+    long commands = 0;
+    String line;
+    for (int number = 1; (line = script.readLine()) != null; number++) {
+      if (line.isBlank() || line.startsWith("#")) {
+        continue;
+      }
+      String[] fields = line.split("\\|", -1);
+      Command<?> command = commands().get(fields[0]);
+      try {
+        if (command == null) {
+          throw new IllegalArgumentException("Unknown command " + fields[0]);
+        }
+        _script.answer(fields);
+        command.performCommand();
+      } catch (CommandException e) {
+        _out.println(command.title() + ": " + e);
+      } catch (IllegalArgumentException e) {
+        _out.flush();
+        System.err.println("Line " + number + ": " + e.getMessage());
+        continue;
+      }
+      commands++;
+    }
+    _out.flush();
+    return commands;
+  }
+
+  /**
+   * Retrieves the commands of every menu by name, which are created again whenever the manager
+   * changes hotel, since the commands of the submenus keep the hotel they were created with.
+   *
+   * @return the commands of the menus
+   */
+  private Map<String, Command<?>> commands() {
+    Hotel hotel = _manager.getHotel();
+    if (_commands.isEmpty() || hotel != _hotel) {
+      _hotel = hotel;
+      _commands.clear();
+      for (Menu menu : List.of(new hva.app.main.Menu(_manager), new hva.app.animal.Menu(hotel),
+          new hva.app.employee.Menu(hotel), new hva.app.habitat.Menu(hotel),
+          new hva.app.vaccine.Menu(hotel), new hva.app.search.Menu(hotel))) {
+        for (Command<?> command : menu.entries()) {
+          _commands.put(command.getClass().getSimpleName().substring("Do".length()), command);
+        }
+      }
+    }
+    return _commands;
+  }
+
+  private static String field(String[] fields, int index) {
+    if (index >= fields.length) {
+      throw new IllegalArgumentException(fields[0] + " is missing answer " + index);
+    }
+    return fields[index];
+  }
+
+  /**
+   * Driver of the forms and displays of the commands, which answers their prompts with the fields
+   * of a line of the script and prints what they display.
+   */
+  private static final class Script implements InteractionDriver {
+    private final PrintWriter _out;
+    private String[] _fields;
+    private int _next;
+
+    Script(PrintWriter out) {
+      _out = out;
+    }
+
+    /**
+     * Answers the next prompts with the fields of a line.
+     *
+     * @param fields the name of the command followed by its answers
+     */
+    void answer(String[] fields) {
+      _fields = fields;
+      _next = 1;
+    }
+
+    @Override
+    public void open(Menu menu) {
+      throw new IllegalArgumentException("Command " + _fields[0]
+          + " cannot run without the menus");
+    }
+
+    @Override
+    public void fill(Form form) {
+      for (Field<?> field : form.entries()) {
+        if (field.isReadOnly()) {
+          continue;
+        }
+        // Confirmations are refused: only their fields read "n" as false, and any other field
+        // takes its answer below
+        if (field.parse("n") && Boolean.FALSE.equals(field.value())) {
+          continue;
+        }
+        String answer = field(_fields, _next++);
+        if (!field.parse(answer)) {
+          throw new IllegalArgumentException(_fields[0] + " does not accept " + answer
+              + " as answer " + (_next - 1));
+        }
+      }
+    }
+
+    @Override
+    public void render(String title, String text) {
+      if (!text.isEmpty()) {
+        _out.println(text);
+      }
+    }
+
+    @Override
+    public void close() {
+      // The output belongs to the runner
+    }
+  }
+}
@@ -0,0 +1,388 @@
+package hva.app;
+
+import hva.app.exception.Message;
+import hva.core.ConcurrentHotel;
+import hva.core.HotelManager;
+import hva.core.HotelSnapshot;
+import hva.core.VaccineRegistry;
+import hva.core.enumerator.Influence;
+import hva.core.enumerator.VaccineDamage;
+import hva.core.exception.AnimalNotFoundException;
+import hva.core.exception.DuplicateAnimalException;
+import hva.core.exception.HabitatNotFoundException;
+import hva.core.exception.ImportFileException;
+import hva.core.exception.ResponsibilityNotFoundException;
+import hva.core.exception.SpeciesNotFoundException;
+import hva.core.exception.VaccineNotFoundException;
+import hva.core.exception.WorkerNotAuthorizedException;
+import hva.core.exception.WorkerNotFoundException;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Serial;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * Embedded HTTP service which serves the state of a hotel to local clients, such as dashboards.
+ *
+ * <p>
+ * The service only listens on the loopback address and handles every request on its own virtual
+ * thread. Every access goes through a {@link ConcurrentHotel}: listings, including those of one
+ * habitat, animal or vet, are walked from its lock-free {@link HotelSnapshot} straight into the
+ * response, and satisfactions of one entity and mutations take its locks. Responses are plain text,
+ * with the same lines as the commands of the application, and are streamed in chunks as they are
+ * walked, so no listing is copied whole.
+ *
+ * <p>
+ * Read endpoints ({@code GET}):
+ * <ul>
+ * <li>{@code /satisfaction}, {@code /animals/<id>/satisfaction} and
+ * {@code /employees/<id>/satisfaction};
+ * <li>{@code /animals}, {@code /employees}, {@code /habitats}, {@code /vaccines},
+ * {@code /vaccinations} and {@code /vaccinations/wrong};
+ * <li>{@code /habitats/<id>/trees}, {@code /habitats/<id>/animals},
+ * {@code /animals/<id>/vaccinations} and {@code /employees/<id>/vaccinations}.
+ * </ul>
+ *
+ * <p>
+ * Mutation endpoints, whose arguments are query parameters:
+ * <ul>
+ * <li>{@code POST /animals?id=&name=&species=&habitat=};
+ * <li>{@code POST /animals/<id>/transfer?habitat=};
+ * <li>{@code POST /animals/<id>/vaccinate?vaccine=&vet=}, which answers the warning of the
+ * application if the vaccine harmed the animal;
+ * <li>{@code POST /habitats/<id>/area?value=} and
+ * {@code POST /habitats/<id>/influence?species=&value=};
+ * <li>{@code POST} and {@code DELETE /employees/<id>/responsibilities?responsibility=};
+ * <li>{@code POST /season}, which answers the new season.
+ * </ul>
+ *
+ * <p>
+ * Unknown entities are answered with 404, duplicated entities and refused vaccinations or
+ * responsibilities with 409, and missing or malformed parameters with 400, each with the message
+ * of the application.
+ *
+ * <p>
+ * Run with {@code java -cp po-uilib.jar:. [-Dimport=file] [-Dport=8080] hva.app.HttpService}.
+ *
+ * <p>
+ * The server writes the headers and the body of a response apart, so small responses on a
+ * kept-alive connection wait for the delayed acknowledgement of the client unless the JDK server
+ * sets {@code TCP_NODELAY}. {@link #main(String[])} turns it on, but a service started by another
+ * program needs {@code -Dsun.net.httpserver.nodelay=true} on its command line, since the JDK
+ * server reads it once, when its first server is created.
+ */
+public class HttpService implements AutoCloseable {
+
+  private static final int DEFAULT_PORT = 8080;
+  private static final int BUFFER = 8192;
+
+  private final ConcurrentHotel _hotel;
+  private final HttpServer _server;
+  private final ExecutorService _executor = Executors.newVirtualThreadPerTaskExecutor();
+
+  /*
+   * <------------------------ Constructor ------------------------>
+   */
+
+  /**
+   * Constructor which starts a service of a hotel on a local port.
+   *
+   * @param hotel the hotel, which must only be accessed through the façade from now on
+   * @param port the port, or 0 for any free port
+   *
+   * @throws IOException if the port cannot be bound
+   */
+  public HttpService(ConcurrentHotel hotel, int port) throws IOException {
+    _hotel = hotel;
+    _server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+    _server.createContext("/", this::handle);
+    _server.setExecutor(_executor);
+    _server.start();
+  }
+
+  public static void main(String[] args) throws IOException {
+    // Read when the first server is created, so it must be set before
+    System.getProperties().putIfAbsent("sun.net.httpserver.nodelay", "true");
+
+    HotelManager manager = new HotelManager();
+    String datafile = System.getProperty("import");
+    if (datafile != null) {
+      try {
+        manager.importFile(datafile);
+      } catch (ImportFileException e) {
+        e.printStackTrace();
+      }
+    }
+
+    int port = Integer.getInteger("port", DEFAULT_PORT);
+    HttpService service = new HttpService(new ConcurrentHotel(manager.getHotel()), port);
+    System.out.println("http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":"
+        + service.port() + "/");
+  }
+
+  /*
+   * <------------------------ Gets ------------------------>
+   */
+
+  /**
+   * Retrieves the port this service listens on.
+   *
+   * @return the port of this service
+   */
+  public int port() {
+    return _server.getAddress().getPort();
+  }
+
+  /*
+   * <------------------------ Others ------------------------>
+   */
+
+  /**
+   * Stops this service, waiting at most a second for the requests being handled.
+   */
+  @Override
+  public void close() {
+    _server.stop(1);
+    _executor.close();
+  }
+
+  /**
+   * Handles a request, answering its failures with their status and message.
+   *
+   * @param exchange the request and its response
+   *
+   * @throws IOException if the response cannot be written
+   */
+  private void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      String[] path = exchange.getRequestURI().getPath().substring(1).split("/");
+      Map<String, String> parameters = parameters(exchange.getRequestURI().getRawQuery());
+      try {
+        switch (exchange.getRequestMethod()) {
+          case "GET" -> get(exchange, path);
+          case "POST" -> post(exchange, path, parameters);
+          case "DELETE" -> delete(exchange, path, parameters);
+          default -> throw new Failure(405, "Method not allowed");
+        }
+      } catch (Failure e) {
+        send(exchange, e._status, Stream.of(e.getMessage()));
+      } catch (Exception e) {
+        Failure failure = failure(e);
+        send(exchange, failure._status, Stream.of(failure.getMessage()));
+      }
+    }
+  }
+
+  private void get(HttpExchange exchange, String[] path) throws Exception {
+    Stream<String> lines = switch (String.join("/", path)) {
+      case "satisfaction" -> Stream.of(Long.toString(Math.round(_hotel.snapshot().satisfaction())));
+      case "animals" -> _hotel.snapshot().animalLines();
+      case "employees" -> _hotel.snapshot().employeeLines();
+      case "habitats" -> _hotel.snapshot().habitatLines();
+      case "vaccines" -> _hotel.snapshot().vaccineLines();
+      case "vaccinations" -> _hotel.snapshot().vaccinationLines();
+      case "vaccinations/wrong" -> _hotel.snapshot().wrongVaccinationLines();
+      default -> path.length == 3 ? get(path[0], path[1], path[2]) : null;
+    };
+    if (lines == null) {
+      throw new Failure(404, "Not found");
+    }
+    send(exchange, 200, lines);
+  }
+
+  private Stream<String> get(String collection, String id, String property) throws Exception {
+    return switch (collection + "/" + property) {
+      case "animals/satisfaction" ->
+        Stream.of(Long.toString(Math.round(_hotel.animalSatisfaction(id))));
+      case "animals/vaccinations" -> _hotel.snapshot().medicalActLinesOnAnimal(id);
+      case "employees/satisfaction" ->
+        Stream.of(Long.toString(Math.round(_hotel.workerSatisfaction(id))));
+      case "employees/vaccinations" -> {
+        try {
+          yield _hotel.snapshot().medicalActLinesByVeterinarian(id);
+        } catch (WorkerNotFoundException e) {
+          throw new Failure(404, Message.unknownVeterinarianKey(e.id()));
+        }
+      }
+      case "habitats/trees" -> _hotel.snapshot().treeLinesInHabitat(id);
+      case "habitats/animals" -> _hotel.snapshot().animalLinesInHabitat(id);
+      default -> null;
+    };
+  }
+
+  private void post(HttpExchange exchange, String[] path, Map<String, String> parameters)
+      throws Exception {
+    String action = path.length == 3 ? path[0] + "/" + path[2] : String.join("/", path);
+    switch (action) {
+      case "animals" -> {
+        _hotel.addAnimal(parameter(parameters, "id"), parameter(parameters, "name"),
+            parameter(parameters, "species"), parameter(parameters, "habitat"));
+        send(exchange, 201, Stream.empty());
+      }
+      case "animals/transfer" -> {
+        _hotel.transferAnimal(path[1], parameter(parameters, "habitat"));
+        send(exchange, 200, Stream.empty());
+      }
+      case "animals/vaccinate" -> {
+        String idVaccine = parameter(parameters, "vaccine");
+        try {
+          VaccineRegistry vaccineRegistry =
+              _hotel.vaccinateAnimal(path[1], idVaccine, parameter(parameters, "vet"));
+          send(exchange, 200, vaccineRegistry.vaccineDamage() == VaccineDamage.NORMAL
+              ? Stream.empty()
+              : Stream.of(hva.app.vaccine.Message.wrongVaccine(idVaccine, path[1])));
+        } catch (WorkerNotFoundException e) {
+          throw new Failure(404, Message.unknownVeterinarianKey(e.id()));
+        }
+      }
+      case "habitats/area" -> {
+        _hotel.changeHabitatArea(path[1], integer(parameters, "value"));
+        send(exchange, 200, Stream.empty());
+      }
+      case "habitats/influence" -> {
+        _hotel.changeHabitatSuitability(path[1], parameter(parameters, "species"),
+            influence(parameters, "value"));
+        send(exchange, 200, Stream.empty());
+      }
+      case "employees/responsibilities" -> {
+        _hotel.addResponsibilityToWorker(path[1], parameter(parameters, "responsibility"));
+        send(exchange, 200, Stream.empty());
+      }
+      case "season" -> send(exchange, 200, Stream.of(_hotel.progressSeason().toString()));
+      default -> throw new Failure(404, "Not found");
+    }
+  }
+
+  private void delete(HttpExchange exchange, String[] path, Map<String, String> parameters)
+      throws Exception {
+    if (path.length != 3 || !path[0].equals("employees") || !path[2].equals("responsibilities")) {
+      throw new Failure(404, "Not found");
+    }
+    _hotel.removeResponsibilityFromWorker(path[1], parameter(parameters, "responsibility"));
+    send(exchange, 200, Stream.empty());
+  }
+
+  /**
+   * Streams the lines of a response, in chunks, as they are walked.
+   *
+   * @param exchange the request and its response
+   * @param status the status of the response
+   * @param lines the lines of the response, which are walked once
+   *
+   * @throws IOException if the response cannot be written
+   */
+  private static void send(HttpExchange exchange, int status, Stream<String> lines)
+      throws IOException {
+    Iterator<String> walk = lines.iterator();
+    exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+    exchange.sendResponseHeaders(status, walk.hasNext() ? 0 : -1);
+    if (!walk.hasNext()) {
+      return;
+    }
+    try (Writer body = new BufferedWriter(
+        new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), BUFFER)) {
+      while (walk.hasNext()) {
+        body.write(walk.next());
+        body.write('\n');
+      }
+    }
+  }
+
+  /**
+   * Maps a failure of the hotel to the status and message of its response.
+   *
+   * @param e the failure
+   *
+   * @return the failure of the response
+   */
+  private static Failure failure(Exception e) {
+    return switch (e) {
+      case AnimalNotFoundException a -> new Failure(404, Message.unknownAnimalKey(a.id()));
+      case HabitatNotFoundException h -> new Failure(404, Message.unknownHabitatKey(h.id()));
+      case SpeciesNotFoundException s -> new Failure(404, Message.unknownSpeciesKey(s.id()));
+      case VaccineNotFoundException v -> new Failure(404, Message.unknownVaccineKey(v.id()));
+      case WorkerNotFoundException w -> new Failure(404, Message.unknownEmployeeKey(w.id()));
+      case DuplicateAnimalException a -> new Failure(409, Message.duplicateAnimalKey(a.id()));
+      case WorkerNotAuthorizedException w ->
+        new Failure(409, Message.notAuthorized(w.idWorker(), w.idResponsibility()));
+      case ResponsibilityNotFoundException r ->
+        new Failure(409, Message.noResponsibility(r.idWorker(), r.idResponsibility()));
+      case IllegalArgumentException i -> new Failure(400, i.getMessage());
+      default -> new Failure(500, e.toString());
+    };
+  }
+
+  private static Map<String, String> parameters(String query) {
+    Map<String, String> parameters = new HashMap<String, String>();
+    if (query != null) {
+      for (String parameter : query.split("&")) {
+        int separator = parameter.indexOf('=');
+        if (separator > 0) {
+          parameters.put(decode(parameter.substring(0, separator)),
+              decode(parameter.substring(separator + 1)));
+        }
+      }
+    }
+    return parameters;
+  }
+
+  private static String decode(String encoded) {
+    return URLDecoder.decode(encoded, StandardCharsets.UTF_8);
+  }
+
+  private static String parameter(Map<String, String> parameters, String name) {
+    String value = parameters.get(name);
+    if (value == null) {
+      throw new IllegalArgumentException("Missing parameter " + name);
+    }
+    return value;
+  }
+
+  private static int integer(Map<String, String> parameters, String name) {
+    try {
+      return Integer.parseInt(parameter(parameters, name));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Parameter " + name + " is not a number");
+    }
+  }
+
+  private static Influence influence(Map<String, String> parameters, String name) {
+    return switch (parameter(parameters, name)) {
+      case "POS" -> Influence.POS;
+      case "NEG" -> Influence.NEG;
+      case "NEU" -> Influence.NEU;
+      default ->
+        throw new IllegalArgumentException("Parameter " + name + " is not POS, NEG or NEU");
+    };
+  }
+
+  /**
+   * Failure of a request, with the status of its response.
+   */
+  private static class Failure extends Exception {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final int _status;
+
+    Failure(int status, String message) {
+      super(message);
+      _status = status;
+    }
+  }
+}
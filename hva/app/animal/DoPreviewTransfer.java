@@ -0,0 +1,38 @@
+package hva.app.animal;
+
+import hva.core.Hotel;
+
+import hva.core.exception.AnimalNotFoundException;
+import hva.core.exception.HabitatNotFoundException;
+
+import hva.app.exception.UnknownAnimalKeyException;
+import hva.app.exception.UnknownHabitatKeyException;
+
+import pt.tecnico.uilib.menus.Command;
+import pt.tecnico.uilib.menus.CommandException;
+
+/**
+ * Shows the change in global satisfaction that transferring a given animal to a habitat would
+ * make, without transferring it.
+ */
+class DoPreviewTransfer extends Command<Hotel> {
+
+  DoPreviewTransfer(Hotel receiver) {
+    super(Label.PREVIEW_TRANSFER, receiver);
+    addStringField("animalKey", Prompt.animalKey());
+    addStringField("habitatKey", hva.app.habitat.Prompt.habitatKey());
+  }
+
+  @Override
+  protected final void execute() throws CommandException {
+    try {
+      _display.add(Math.round(_receiver.previewTransfer(stringField("animalKey"),
+          stringField("habitatKey")).satisfaction()));
+      _display.display();
+    } catch (AnimalNotFoundException e) {
+      throw new UnknownAnimalKeyException(e.id());
+    } catch (HabitatNotFoundException e) {
+      throw new UnknownHabitatKeyException(e.id());
+    }
+  }
+}
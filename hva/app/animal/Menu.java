@@ -7,7 +7,8 @@ public class Menu extends pt.tecnico.uilib.menus.Menu {
           new DoShowAllAnimals(receiver),
           new DoRegisterAnimal(receiver),
           new DoTransferToHabitat(receiver),
-          new DoShowSatisfactionOfAnimal(receiver)
+          new DoShowSatisfactionOfAnimal(receiver),
+          new DoPreviewTransfer(receiver)
           );
   }
 
@@ -0,0 +1,21 @@
+package hva.app.main;
+
+import hva.core.HotelManager;
+
+import pt.tecnico.uilib.menus.Command;
+
+/**
+ * Command for redoing the last change of the current zoo hotel that was undone.
+ **/
+class DoRedo extends Command<HotelManager> {
+  DoRedo(HotelManager receiver) {
+    super(Label.REDO, receiver);
+  }
+
+  @Override
+  protected final void execute() {
+    if (!_receiver.redo()) {
+      _display.popup(Message.nothingToRedo());
+    }
+  }
+}
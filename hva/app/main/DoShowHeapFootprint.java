@@ -0,0 +1,22 @@
+package hva.app.main;
+
+import hva.core.HotelManager;
+
+import pt.tecnico.uilib.menus.Command;
+
+/**
+ * Command for showing the estimated heap retained by the current zoo hotel, per category of
+ * entity, and its projection for a growth factor.
+ **/
+class DoShowHeapFootprint extends Command<HotelManager> {
+  DoShowHeapFootprint(HotelManager receiver) {
+    super(Label.SHOW_HEAP_FOOTPRINT, receiver);
+    addRealField("growthFactor", Prompt.growthFactor());
+  }
+
+  @Override
+  protected final void execute() {
+    _display.addAll(_receiver.heapFootprint().report(realField("growthFactor")));
+    _display.display();
+  }
+}
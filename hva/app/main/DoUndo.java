@@ -0,0 +1,21 @@
+package hva.app.main;
+
+import hva.core.HotelManager;
+
+import pt.tecnico.uilib.menus.Command;
+
+/**
+ * Command for undoing the last change made to the current zoo hotel.
+ **/
+class DoUndo extends Command<HotelManager> {
+  DoUndo(HotelManager receiver) {
+    super(Label.UNDO, receiver);
+  }
+
+  @Override
+  protected final void execute() {
+    if (!_receiver.undo()) {
+      _display.popup(Message.nothingToUndo());
+    }
+  }
+}
@@ -15,4 +15,8 @@ public interface Label {
 
   String ADVANCE_SEASON = "Avançar estação do ano";
   String SHOW_GLOBAL_SATISFACTION = "Ver satisfação global";
+  String SHOW_HEAP_FOOTPRINT = "Ver ocupação de memória";
+
+  String UNDO = "Desfazer alteração";
+  String REDO = "Refazer alteração";
 }
@@ -13,7 +13,10 @@ public class Menu extends pt.tecnico.uilib.menus.Menu {
           new DoOpenEmployeesMenu(receiver),
           new DoOpenHabitatsMenu(receiver),
           new DoOpenVaccinesMenu(receiver),
-          new DoOpenLookupsMenu(receiver)
+          new DoOpenLookupsMenu(receiver),
+          new DoShowHeapFootprint(receiver),
+          new DoUndo(receiver),
+          new DoRedo(receiver)
           );
   }
 }
@@ -8,4 +8,12 @@ public interface Message {
   static String fileNotFound(String filename) {
     return "O ficheiro '" + filename + "' não existe.";
   }
+
+  static String nothingToUndo() {
+    return "Não há alterações para desfazer.";
+  }
+
+  static String nothingToRedo() {
+    return "Não há alterações para refazer.";
+  }
 }
@@ -16,4 +16,8 @@ public interface Prompt {
   static String saveBeforeExit() {
     return "Guardar antes de fechar? ";
   }
+
+  static String growthFactor() {
+    return "Fator de crescimento: ";
+  }
 }
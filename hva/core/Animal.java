@@ -3,12 +3,9 @@ package hva.core;
 import java.io.Serial;
 import java.io.Serializable;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
-import java.util.stream.Collectors;
-
 /**
  * Class representing an animal in the zoo hotel.
  * 
@@ -19,38 +16,35 @@ import java.util.stream.Collectors;
  * <p>
  * The animal can be transfered to another habitat through {@link #transferAnimal(Habitat)}, and it
  * can calculate its {@link #satisfaction()}.
+ * 
+ * <p>
+ * An animal is a view over its record in the {@link EntityStore} of its hotel, identified by its
+ * handle. Views of the same record are equal.
  */
 public class Animal implements Serializable, Comparable<Animal> {
 
   @Serial
-  private static final long serialVersionUID = 1L;
+  private static final long serialVersionUID = 2L;
 
-  private final String _id;
-  private final String _name;
-  private final Species _species;
-  private Habitat _habitat;
-  private final List<VaccineRegistry> _vaccineRegistry = new ArrayList<VaccineRegistry>();
+  private final EntityStore _store;
+  private final int _handle;
+  private VaccinationHistory _vaccineRegistry;
 
   /*
    * <------------------------ Constructor ------------------------>
    */
 
   /**
-   * Constructor which creates this animal.
+   * Constructor which creates a view of an animal.
    *
-   * @param id the String identifier of this animal
-   * @param name the String name of this animal
-   * @param species the Species of this animal
-   * @param habitat the Habitat of this animal
+   * @param store the store in which the record of this animal is kept
+   * @param handle the handle of this animal
    *
-   * @see Species
-   * @see Habitat
+   * @see EntityStore#addAnimal(String, String, Species, Habitat)
    */
-  Animal(String id, String name, Species species, Habitat habitat) {
-    _id = id;
-    _name = name;
-    _species = species;
-    _habitat = habitat;
+  Animal(EntityStore store, int handle) {
+    _store = store;
+    _handle = handle;
   }
 
   /*
@@ -66,7 +60,7 @@ public class Animal implements Serializable, Comparable<Animal> {
    * @return the identifier of this animal
    */
   String id() {
-    return _id;
+    return _store.animalId(_handle);
   }
 
   /**
@@ -78,7 +72,7 @@ public class Animal implements Serializable, Comparable<Animal> {
    * @return the name of this animal
    */
   String name() {
-    return _name;
+    return _store.animalName(_handle);
   }
 
   /**
@@ -90,7 +84,28 @@ public class Animal implements Serializable, Comparable<Animal> {
    * @return the species of this animal
    */
   Species species() {
-    return _species;
+    return _store.species(_store.animalSpecies(_handle));
+  }
+
+  /**
+   * Retrieves the habitat of this animal.
+   *
+   * @return the habitat where this animal currently lives
+   */
+  Habitat habitat() {
+    return _store.habitat(_store.animalHabitat(_handle));
+  }
+
+  /**
+   * Retrieves the handle of this animal.
+   *
+   * <p>
+   * The handle is the dense index of this animal in the {@link EntityStore} of its hotel.
+   *
+   * @return the handle of this animal
+   */
+  int handle() {
+    return _handle;
   }
 
   /**
@@ -99,14 +114,35 @@ public class Animal implements Serializable, Comparable<Animal> {
    * <p>
    * This method provides a way to access the collection of vaccine registries without allowing
    * modifications to the underlying collection. The returned collection is a read-only view, and
-   * any attempts to modify it will result in an {@code UnsupportedOperationException}.
+   * any attempts to modify it will result in an {@code UnsupportedOperationException}. No list is
+   * allocated by this method.
    * 
    * @return an unmodifiable collecion of the vaccine registries of this animal
    * 
    * @see VaccineRegistry
+   * @see VaccinationHistory
    */
   List<VaccineRegistry> vaccineRegistry() {
-    return Collections.unmodifiableList(_vaccineRegistry);
+    return _vaccineRegistry == null ? Collections.emptyList() : _vaccineRegistry;
+  }
+
+  /**
+   * Estimates the heap retained by this animal.
+   *
+   * <p>
+   * Only this view and its vaccination history are accounted. The identifier, name and attributes
+   * of this animal are kept by its {@link AnimalStore}, which accounts for them.
+   *
+   * @return the estimated number of bytes retained by this animal
+   *
+   * @see HeapFootprint
+   */
+  long retainedBytes() {
+    long bytes = HeapFootprint.object(2 * HeapFootprint.REFERENCE + Integer.BYTES);
+    if (_vaccineRegistry != null) {
+      bytes += _vaccineRegistry.retainedBytes();
+    }
+    return bytes;
   }
 
   /*
@@ -122,7 +158,23 @@ public class Animal implements Serializable, Comparable<Animal> {
    * @see VaccineRegistry
    */
   void addVaccineRegistry(VaccineRegistry vaccineReg) {
-    _vaccineRegistry.add(vaccineReg);
+    _store.retainAnimal(this);
+    if (_vaccineRegistry == null) {
+      _vaccineRegistry = new VaccinationHistory();
+    }
+    _vaccineRegistry.append(vaccineReg);
+  }
+
+  /**
+   * This method removes the last vaccine register of this animal.
+   * 
+   * @see Vet#unrecord(VaccineRegistry)
+   */
+  void removeLastVaccineRegistry() {
+    _vaccineRegistry.removeLastRecord();
+    if (_vaccineRegistry.isEmpty()) {
+      _vaccineRegistry = null;
+    }
   }
 
   /*
@@ -137,9 +189,9 @@ public class Animal implements Serializable, Comparable<Animal> {
    * @see Habitat
    */
   void transferAnimal(Habitat habitat) {
-    _habitat.removeAnimal(this);
+    habitat().removeAnimal(this);
     habitat.addAnimal(this);
-    _habitat = habitat;
+    _store.moveAnimal(_handle, habitat.handle());
   }
 
   /**
@@ -154,13 +206,10 @@ public class Animal implements Serializable, Comparable<Animal> {
    * @return the satisfaction of this animal
    * 
    * @see Habitat
+   * @see EntityStore#animalSatisfaction(int)
    */
   double satisfaction() {
-    int sameSpecies = _habitat.sameSpeciesCount(_species);
-    int population = _habitat.animals().size();
-
-    return (20 + (3 * (sameSpecies - 1)) - (2 * (population - sameSpecies))
-        + ((double) _habitat.area() / population) + _habitat.suitability(_species).value());
+    return _store.animalSatisfaction(_handle);
   }
 
   /**
@@ -184,14 +233,21 @@ public class Animal implements Serializable, Comparable<Animal> {
    */
   @Override
   public String toString() {
-    String health = "VOID";
+    StringBuilder animal = new StringBuilder(64).append("ANIMAL|").append(id()).append('|')
+        .append(name()).append('|').append(species().id()).append('|');
 
-    if (!_vaccineRegistry.isEmpty()) {
-      health = _vaccineRegistry.stream().map(vaccineReg -> vaccineReg.vaccineDamage().toString())
-          .collect(Collectors.joining(","));
+    if (_vaccineRegistry == null) {
+      animal.append("VOID");
+    } else {
+      for (int i = 0; i < _vaccineRegistry.size(); i++) {
+        if (i > 0) {
+          animal.append(',');
+        }
+        animal.append(_vaccineRegistry.get(i).vaccineDamage());
+      }
     }
 
-    return String.format("ANIMAL|%s|%s|%s|%s|%s", _id, _name, _species.id(), health, _habitat.id());
+    return animal.append('|').append(habitat().id()).toString();
   }
 
   /**
@@ -211,6 +267,38 @@ public class Animal implements Serializable, Comparable<Animal> {
    */
   @Override
   public int compareTo(Animal animal) {
-    return _id.compareToIgnoreCase(animal.id());
+    return id().compareToIgnoreCase(animal.id());
+  }
+
+  /**
+   * Returns a hash code value for this animal.
+   * 
+   * @return A hash code value for this animal, its handle
+   */
+  @Override
+  public int hashCode() {
+    return _handle;
+  }
+
+  /**
+   * Indicates whether some other object is "equal to" this one.
+   * 
+   * <p>
+   * Two animals are equal if they are views of the same record of the same store.
+   * 
+   * @param obj The reference object with which to compare.
+   * 
+   * @return {@code true} if this object is the same as the obj argument; {@code false} otherwise.
+   */
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    Animal animal = (Animal) obj;
+    return _store == animal._store && _handle == animal._handle;
   }
 }
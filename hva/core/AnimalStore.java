@@ -0,0 +1,317 @@
+package hva.core;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+import java.util.Arrays;
+
+import hva.core.enumerator.FootprintCategory;
+
+/**
+ * Abstract class representing the storage of the animals of a zoo hotel.
+ *
+ * <p>
+ * Each animal is a fixed-width record addressed by its dense handle, holding its identifier, name,
+ * the handles of its {@link Species} and {@link Habitat}, and its links in the list of animals of
+ * its habitat. The rest of the hotel sees the records through {@link Animal} views.
+ *
+ * <p>
+ * The animals of each habitat are kept in an intrusive doubly linked list threaded through the
+ * records, so transfers are constant time and no per-habitat collections of animals are needed.
+ *
+ * @see HeapAnimalStore
+ * @see OffHeapAnimalStore
+ * @see EntityStore
+ */
+public abstract class AnimalStore implements Serializable {
+
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  /** Handle used to mark the absence of an animal. */
+  static final int NONE = -1;
+
+  private int[] _firstInHabitat = new int[0];
+
+  /*
+   * <------------------------ Gets ------------------------>
+   */
+
+  /**
+   * Retrieves the number of animals in this store.
+   *
+   * @return the number of animals, which is also the next animal handle
+   */
+  abstract int count();
+
+  /**
+   * Finds the handle of the animal with the given identifier.
+   *
+   * <p>
+   * Identifiers are compared in a case-insensitive manner.
+   *
+   * @param id the identifier of the animal
+   *
+   * @return the handle of the animal, or {@link #NONE} if it does not exist
+   */
+  abstract int find(String id);
+
+  /**
+   * Retrieves the identifier of an animal.
+   *
+   * @param animal the handle of the animal
+   *
+   * @return the identifier of the animal
+   */
+  abstract String id(int animal);
+
+  /**
+   * Retrieves the name of an animal.
+   *
+   * @param animal the handle of the animal
+   *
+   * @return the name of the animal
+   */
+  abstract String name(int animal);
+
+  /**
+   * Retrieves the handle of the species of an animal.
+   *
+   * @param animal the handle of the animal
+   *
+   * @return the handle of the species of the animal
+   */
+  abstract int species(int animal);
+
+  /**
+   * Retrieves the handle of the habitat of an animal.
+   *
+   * @param animal the handle of the animal
+   *
+   * @return the handle of the habitat of the animal
+   */
+  abstract int habitat(int animal);
+
+  /**
+   * Retrieves a view of an animal.
+   *
+   * @param animal the handle of the animal
+   *
+   * @return the animal with the given handle
+   */
+  abstract Animal animal(int animal);
+
+  /**
+   * Retrieves the first animal in the list of animals of a habitat.
+   *
+   * @param habitat the handle of the habitat
+   *
+   * @return the handle of the first animal, or {@link #NONE} if the habitat has no animals
+   *
+   * @see #nextInHabitat(int)
+   */
+  int firstInHabitat(int habitat) {
+    return habitat < _firstInHabitat.length ? _firstInHabitat[habitat] : NONE;
+  }
+
+  /**
+   * Retrieves the animal that follows the given one in the list of animals of its habitat.
+   *
+   * @param animal the handle of the animal
+   *
+   * @return the handle of the next animal, or {@link #NONE} if it is the last one
+   *
+   * @see #firstInHabitat(int)
+   */
+  abstract int nextInHabitat(int animal);
+
+  /**
+   * Retrieves the animal that precedes the given one in the list of animals of its habitat.
+   *
+   * @param animal the handle of the animal
+   *
+   * @return the handle of the previous animal, or {@link #NONE} if it is the first one
+   */
+  abstract int previousInHabitat(int animal);
+
+  /*
+   * <------------------------ Sets ------------------------>
+   */
+
+  /**
+   * Stores a new animal record.
+   *
+   * @param id the identifier of the animal
+   * @param name the name of the animal
+   * @param species the handle of the species of the animal
+   * @param habitat the handle of the habitat of the animal
+   *
+   * @return the handle of the animal
+   */
+  int add(String id, String name, int species, int habitat) {
+    int animal = append(id, name, species, habitat);
+    link(animal);
+    return animal;
+  }
+
+  /**
+   * Removes the animal stored last, unlinking it from its habitat.
+   *
+   * @see Hotel#undo(hva.core.event.HotelEvent)
+   */
+  void removeLast() {
+    unlink(count() - 1);
+    truncate();
+  }
+
+  /**
+   * Reserves the head of the list of animals of a new habitat.
+   *
+   * <p>
+   * Habitats are reserved when they are registered, so that moving animals never grows the shared
+   * array of heads and moves between distinct habitats touch distinct memory.
+   *
+   * @param habitat the handle of the habitat
+   */
+  void addHabitat(int habitat) {
+    if (habitat >= _firstInHabitat.length) {
+      int length = _firstInHabitat.length;
+      _firstInHabitat = Arrays.copyOf(_firstInHabitat, Math.max(habitat + 1, length * 2));
+      Arrays.fill(_firstInHabitat, length, _firstInHabitat.length, NONE);
+    }
+  }
+
+  /**
+   * Moves an animal to another habitat.
+   *
+   * @param animal the handle of the animal
+   * @param habitat the handle of the new habitat of the animal
+   */
+  void move(int animal, int habitat) {
+    unlink(animal);
+    setHabitat(animal, habitat);
+    link(animal);
+  }
+
+  /**
+   * Keeps the given view alive for as long as this store.
+   *
+   * <p>
+   * Views hold the on-heap state of an animal, such as its vaccination history. Stores that create
+   * views on demand must return the retained view from then on.
+   *
+   * @param animal the view to be retained
+   */
+  abstract void retain(Animal animal);
+
+  /**
+   * Appends a new record to this store without linking it to its habitat.
+   *
+   * @param id the identifier of the animal
+   * @param name the name of the animal
+   * @param species the handle of the species of the animal
+   * @param habitat the handle of the habitat of the animal
+   *
+   * @return the handle of the animal
+   */
+  abstract int append(String id, String name, int species, int habitat);
+
+  /**
+   * Discards the last record of this store, which is no longer linked to its habitat.
+   */
+  abstract void truncate();
+
+  /**
+   * Changes the handle of the habitat stored in the record of an animal.
+   *
+   * @param animal the handle of the animal
+   * @param habitat the handle of the habitat
+   */
+  abstract void setHabitat(int animal, int habitat);
+
+  /**
+   * Changes the next animal stored in the record of an animal.
+   *
+   * @param animal the handle of the animal
+   * @param next the handle of the next animal, or {@link #NONE}
+   */
+  abstract void setNextInHabitat(int animal, int next);
+
+  /**
+   * Changes the previous animal stored in the record of an animal.
+   *
+   * @param animal the handle of the animal
+   * @param previous the handle of the previous animal, or {@link #NONE}
+   */
+  abstract void setPreviousInHabitat(int animal, int previous);
+
+  /*
+   * <------------------------ Others ------------------------>
+   */
+
+  /**
+   * Replaces the Strings of the records of this store by their canonical copies.
+   *
+   * <p>
+   * Stores that keep their Strings outside the heap have nothing to share and keep this default,
+   * which does nothing.
+   *
+   * @param strings the pool of canonical Strings of the hotel
+   */
+  void canonicalizeStrings(StringPool strings) {
+    // Nothing is kept on the heap by default.
+  }
+
+  /**
+   * Accounts for the heap retained by this store and its animals.
+   *
+   * <p>
+   * Every animal of this store is accounted in {@link FootprintCategory#ANIMALS}. Stores extend
+   * this method to account for their own records.
+   *
+   * @param footprint the estimate to which this store is added
+   *
+   * @see HeapFootprint
+   */
+  void measure(HeapFootprint footprint) {
+    footprint.addOverhead(FootprintCategory.ANIMALS,
+        HeapFootprint.array(_firstInHabitat.length, Integer.BYTES));
+  }
+
+  /**
+   * Inserts an animal at the head of the list of animals of its habitat.
+   *
+   * @param animal the handle of the animal
+   */
+  private void link(int animal) {
+    int habitat = habitat(animal);
+    addHabitat(habitat);
+
+    int first = _firstInHabitat[habitat];
+    setPreviousInHabitat(animal, NONE);
+    setNextInHabitat(animal, first);
+    if (first != NONE) {
+      setPreviousInHabitat(first, animal);
+    }
+    _firstInHabitat[habitat] = animal;
+  }
+
+  /**
+   * Removes an animal from the list of animals of its habitat.
+   *
+   * @param animal the handle of the animal
+   */
+  private void unlink(int animal) {
+    int previous = previousInHabitat(animal);
+    int next = nextInHabitat(animal);
+
+    if (previous == NONE) {
+      _firstInHabitat[habitat(animal)] = next;
+    } else {
+      setNextInHabitat(previous, next);
+    }
+    if (next != NONE) {
+      setPreviousInHabitat(next, previous);
+    }
+  }
+}
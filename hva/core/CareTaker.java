@@ -22,11 +22,11 @@ import hva.core.exception.HabitatNotFoundException;
 public class CareTaker extends Worker {
 
   @Serial
-  private static final long serialVersionUID = 1L;
+  private static final long serialVersionUID = 2L;
 
   private CareTakerSatisfactionFormula _careTakerSatisfactionFormula =
       new CareTakerSatisfactionDefaultFormula();
-  private final Map<String, Habitat> _responsibilities = new CaseInsensitiveHashMap<Habitat>();
+  private final Map<String, Habitat> _responsibilities;
 
   /*
    * <------------------------ Constructor ------------------------>
@@ -44,6 +44,7 @@ public class CareTaker extends Worker {
    */
   CareTaker(String id, String name, Hotel hotel) {
     super(id, name, hotel);
+    _responsibilities = new CaseInsensitiveHashMap<Habitat>(hotel.strings());
   }
 
   /*
@@ -66,6 +67,22 @@ public class CareTaker extends Worker {
     return Collections.unmodifiableCollection(_responsibilities.values());
   }
 
+  /**
+   * Estimates the heap retained by this caretaker, excluding its Strings and responsibilities.
+   *
+   * <p>
+   * The satisfaction formula and the map of responsibilities are accounted with this caretaker.
+   *
+   * @return the estimated number of bytes retained by this caretaker
+   *
+   * @see Worker#retainedBytes()
+   */
+  @Override
+  long retainedBytes() {
+    return HeapFootprint.object(5 * HeapFootprint.REFERENCE + Integer.BYTES)
+        + HeapFootprint.object(0) + HeapFootprint.map(_responsibilities);
+  }
+
   /*
    * <------------------------ Sets ------------------------>
    */
@@ -86,15 +103,45 @@ public class CareTaker extends Worker {
    * 
    * @param id the identifier of the habitat
    * 
+   * @return whether this caretaker was already added to the habitat
+   * 
    * @throws HabitatNotFoundException If the given habitat does not exist.
    * 
    * @see Worker#addResponsibility(String)
    * @see Habitat
    */
-  void addResponsibility(String id) throws HabitatNotFoundException {
+  boolean addResponsibility(String id) throws HabitatNotFoundException {
     Habitat habitat = hotel().habitatExistsWithException(id);
-    _responsibilities.put(id, habitat);
-    habitat.addCareTaker(this);
+    if (_responsibilities.put(id, habitat) == null) {
+      habitat.changeResponsibleCareTakers(1);
+    }
+    return habitat.addCareTaker(this);
+  }
+
+  /**
+   * This method checks whether a habitat is a responsibility of this caretaker.
+   * 
+   * @param id the identifier of the habitat
+   * 
+   * @return whether the habitat is a responsibility of this caretaker
+   * 
+   * @see Worker#hasResponsibility(String)
+   */
+  boolean hasResponsibility(String id) {
+    return _responsibilities.containsKey(id);
+  }
+
+  /**
+   * This method removes this caretaker from a habitat it is no longer responsible for.
+   * 
+   * @param id the identifier of the habitat
+   * 
+   * @throws HabitatNotFoundException If the given habitat does not exist.
+   * 
+   * @see Worker#detachResponsibility(String)
+   */
+  void detachResponsibility(String id) throws HabitatNotFoundException {
+    hotel().habitatExistsWithException(id).removeCareTaker(this);
   }
 
   /**
@@ -108,9 +155,11 @@ public class CareTaker extends Worker {
    * @see Habitat
    */
   void removeResponsibility(String id) throws HabitatNotFoundException {
-    if (_responsibilities.remove(id) == null) {
+    Habitat habitat = _responsibilities.remove(id);
+    if (habitat == null) {
       throw new HabitatNotFoundException(id);
     }
+    habitat.changeResponsibleCareTakers(-1);
   }
 
   /*
@@ -156,6 +205,6 @@ public class CareTaker extends Worker {
           _responsibilities.values().stream().sorted().map(h -> h.id()).toList());
     }
 
-    return String.format("TRT|%s|%s%s", id(), name(), responsibilities.toString());
+    return "TRT|" + id() + "|" + name() + responsibilities;
   }
 }
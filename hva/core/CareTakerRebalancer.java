@@ -0,0 +1,587 @@
+package hva.core;
+
+import hva.core.enumerator.BalanceObjective;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Class representing a search for the responsibilities of the caretakers of a hotel which share
+ * its work most evenly.
+ *
+ * <p>
+ * The satisfaction of a caretaker is 300 less the work of the habitats it is responsible for, each
+ * divided by the number of caretakers of the habitat, as
+ * {@link CareTakerSatisfactionDefaultFormula} computes it. The work of every habitat is computed
+ * once, and the search then passes responsibilities for habitats from a caretaker to another, so
+ * that every habitat keeps the number of caretakers responsible for it, moving at most a given
+ * number of responsibilities. A move changes the work of the two caretakers and, when it changes
+ * the number of caretakers of the habitat, of the others responsible for it, so it is evaluated in
+ * the time of updating those, with the running sums of the work and a tree of the most and least
+ * loaded caretakers.
+ *
+ * <p>
+ * A caretaker whose responsibility for a habitat was removed is still counted by the habitat, as
+ * {@link Habitat#responsibleCareTakers()} describes, so the search counts the caretakers of a
+ * habitat as those it had and those the plan adds to it.
+ *
+ * <p>
+ * The search is a simulated annealing which proposes passing a responsibility of the most loaded
+ * caretaker or of a random one to the least loaded caretaker or to a random one. Several chains
+ * anneal independently from different seeds, one per core by default, and the best balance found
+ * by any chain becomes the plan. The hotel is only read, and it must not change while the search
+ * runs.
+ *
+ * @see RebalancePlan
+ * @see Hotel#applyRebalance(RebalancePlan)
+ */
+public class CareTakerRebalancer {
+
+  private static final double SATISFACTION = 300;
+  private static final int TEMPERATURE_SAMPLES = 1_000;
+  private static final double COOLING = 1e-3;
+  private static final long RELOAD_MASK = (1 << 16) - 1;
+
+  private final Hotel _hotel;
+  private BalanceObjective _objective = BalanceObjective.MINIMUM;
+  private int _maxMoves = Integer.MAX_VALUE;
+  private long _iterations;
+  private int _chains = Runtime.getRuntime().availableProcessors();
+  private long _seed = 42;
+
+  /*
+   * <------------------------ Constructor ------------------------>
+   */
+
+  /**
+   * Constructor which creates a rebalancer of the responsibilities of the caretakers of a hotel,
+   * raising the lowest satisfaction of a caretaker, with no limit on the moves.
+   *
+   * @param hotel the hotel
+   */
+  public CareTakerRebalancer(Hotel hotel) {
+    _hotel = hotel;
+  }
+
+  /*
+   * <------------------------ Sets ------------------------>
+   */
+
+  /**
+   * Changes the measure of the balance the search improves.
+   *
+   * @param objective the objective
+   */
+  public void setObjective(BalanceObjective objective) {
+    _objective = objective;
+  }
+
+  /**
+   * Limits the number of responsibilities the plan moves.
+   *
+   * @param maxMoves the largest number of moves
+   *
+   * @throws IllegalArgumentException if the limit is negative
+   */
+  public void setMaxMoves(int maxMoves) {
+    if (maxMoves < 0) {
+      throw new IllegalArgumentException("Negative number of moves: " + maxMoves);
+    }
+    _maxMoves = maxMoves;
+  }
+
+  /**
+   * Changes the number of moves each chain proposes, which is by default 100 per responsibility,
+   * and at least 100000.
+   *
+   * @param iterations the number of proposals per chain
+   */
+  public void setIterations(long iterations) {
+    _iterations = iterations;
+  }
+
+  /**
+   * Changes the number of chains annealed in parallel, which is by default the number of cores.
+   *
+   * @param chains the number of chains
+   *
+   * @throws IllegalArgumentException if the number is not positive
+   */
+  public void setChains(int chains) {
+    if (chains < 1) {
+      throw new IllegalArgumentException("Chains must be positive: " + chains);
+    }
+    _chains = chains;
+  }
+
+  /**
+   * Changes the seed of the random choices, so that a search may be repeated.
+   *
+   * @param seed the seed
+   */
+  public void setSeed(long seed) {
+    _seed = seed;
+  }
+
+  /*
+   * <------------------------ Others ------------------------>
+   */
+
+  /**
+   * Searches for the responsibilities of the caretakers which balance their work best under the
+   * objective and the limit of this rebalancer.
+   *
+   * <p>
+   * Once a chain ends at the best balance it found, every responsibility it moved is given back
+   * to a caretaker who had it if that does not worsen the balance, so that the plan makes no move
+   * the balance does not need. The plan is empty if no balance better than the current one was
+   * found.
+   *
+   * @return the plan of the best balance found
+   */
+  public RebalancePlan optimize() {
+    Model model = new Model(_hotel.store(), _objective, _maxMoves);
+    Chain current = new Chain(model, _seed);
+    double before = current.measure();
+    if (model._careTakers.length < 2 || model._candidates.length == 0) {
+      return new RebalancePlan(_objective, List.of(), before, before);
+    }
+    long iterations =
+        _iterations > 0 ? _iterations : Math.max(100_000, 100L * model._responsibilities);
+
+    Chain best = IntStream.range(0, _chains).parallel()
+        .mapToObj(chain -> new Chain(model, _seed + chain * 0x9E3779B97F4A7C15L).anneal(iterations))
+        .max(Comparator.comparingDouble(chain -> chain._score))
+        .orElseThrow();
+    if (best._score <= current._score) {
+      return new RebalancePlan(_objective, List.of(), before, before);
+    }
+    return new RebalancePlan(_objective, moves(model, best), before, best.measure());
+  }
+
+  // Pairs the caretakers each habitat lost with those it gained, habitat by habitat
+  private static List<RebalancePlan.Move> moves(Model model, Chain balance) {
+    List<RebalancePlan.Move> moves = new ArrayList<RebalancePlan.Move>();
+    for (int habitat : model._candidates) {
+      int[] initial = model._responsible[habitat];
+      int[] responsible = Arrays.copyOf(balance._habitatResponsible[habitat],
+          balance._habitatSize[habitat]);
+      int[] added = Arrays.stream(responsible).filter(c -> !model.initial(habitat, c)).toArray();
+      int[] removed = Arrays.stream(initial).filter(c -> !contains(responsible, c)).toArray();
+      for (int i = 0; i < added.length; i++) {
+        moves.add(new RebalancePlan.Move(model._habitats[habitat].id(),
+            model._careTakers[removed[i]].id(), model._careTakers[added[i]].id()));
+      }
+    }
+    return moves;
+  }
+
+  private static boolean contains(int[] values, int value) {
+    for (int v : values) {
+      if (v == value) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Class representing what the chains read of the hotel, which none of them changes.
+   */
+  private static final class Model {
+    private final BalanceObjective _objective;
+    private final int _maxMoves;
+    private final CareTaker[] _careTakers;
+    private final Habitat[] _habitats;
+    private final double[] _work;
+    private final int[] _sharing;
+    private final int[][] _attached;
+    private final int[][] _responsible;
+    private final int[][] _responsibilitiesOf;
+    private final int[] _candidates;
+    private final int _responsibilities;
+
+    private Model(EntityStore store, BalanceObjective objective, int maxMoves) {
+      _objective = objective;
+      _maxMoves = maxMoves;
+
+      // Caretakers are numbered apart from vets, by the handle of the worker
+      int[] index = new int[store.workerCount()];
+      int careTakers = 0;
+      for (int worker = 0; worker < index.length; worker++) {
+        index[worker] = store.worker(worker) instanceof CareTaker ? careTakers++ : -1;
+      }
+      _careTakers = new CareTaker[careTakers];
+      for (int worker = 0; worker < index.length; worker++) {
+        if (index[worker] >= 0) {
+          _careTakers[index[worker]] = (CareTaker) store.worker(worker);
+        }
+      }
+
+      int habitats = store.habitatCount();
+      _habitats = new Habitat[habitats];
+      _work = new double[habitats];
+      _sharing = new int[habitats];
+      _attached = new int[habitats][];
+      int[] counts = new int[habitats];
+      for (int habitat = 0; habitat < habitats; habitat++) {
+        Habitat current = store.habitat(habitat);
+        _habitats[habitat] = current;
+        double work = current.area() + 3 * current.population();
+        for (Tree tree : current.trees()) {
+          work += tree.totalCleaningEffort();
+        }
+        _work[habitat] = work;
+        _sharing[habitat] = current.careTakers().size();
+        _attached[habitat] = current.careTakers().stream()
+            .mapToInt(careTaker -> index[careTaker.handle()]).sorted().toArray();
+      }
+
+      _responsibilitiesOf = new int[careTakers][];
+      int responsibilities = 0;
+      for (int careTaker = 0; careTaker < careTakers; careTaker++) {
+        _responsibilitiesOf[careTaker] = _careTakers[careTaker].responsibilities().stream()
+            .mapToInt(Habitat::handle).toArray();
+        for (int habitat : _responsibilitiesOf[careTaker]) {
+          counts[habitat]++;
+        }
+        responsibilities += _responsibilitiesOf[careTaker].length;
+      }
+      _responsibilities = responsibilities;
+      _responsible = new int[habitats][];
+      for (int habitat = 0; habitat < habitats; habitat++) {
+        _responsible[habitat] = new int[counts[habitat]];
+      }
+      Arrays.fill(counts, 0);
+      for (int careTaker = 0; careTaker < careTakers; careTaker++) {
+        for (int habitat : _responsibilitiesOf[careTaker]) {
+          _responsible[habitat][counts[habitat]++] = careTaker;
+        }
+      }
+      _candidates =
+          IntStream.range(0, habitats).filter(habitat -> counts[habitat] > 0).toArray();
+    }
+
+    // Whether a caretaker is counted by a habitat before the plan
+    private boolean attached(int habitat, int careTaker) {
+      return Arrays.binarySearch(_attached[habitat], careTaker) >= 0;
+    }
+
+    // Whether a caretaker is responsible for a habitat before the plan
+    private boolean initial(int habitat, int careTaker) {
+      return contains(_responsible[habitat], careTaker);
+    }
+  }
+
+  /**
+   * Class representing one chain of the annealing, with its own responsibilities and the work of
+   * each caretaker under them.
+   */
+  private static final class Chain {
+    private final Model _model;
+    private final SplittableRandom _random;
+    private final int[][] _habitatResponsible;
+    private final int[] _habitatSize;
+    private final int[][] _responsibilities;
+    private final int[] _responsibilitiesSize;
+    private final int[] _sharing;
+    private final double[] _load;
+    private final int _leaves;
+    private final double[] _most;
+    private final double[] _least;
+    private double _sum;
+    private double _squares;
+    private int _moved;
+    private double _score;
+
+    // The move proposed last
+    private int _habitat;
+    private int _from;
+    private int _to;
+
+    private Chain(Model model, long seed) {
+      _model = model;
+      _random = new SplittableRandom(seed);
+      int habitats = model._habitats.length;
+      int careTakers = model._careTakers.length;
+      _habitatResponsible = new int[habitats][];
+      _habitatSize = new int[habitats];
+      for (int habitat = 0; habitat < habitats; habitat++) {
+        _habitatResponsible[habitat] = model._responsible[habitat].clone();
+        _habitatSize[habitat] = model._responsible[habitat].length;
+      }
+      _responsibilities = new int[careTakers][];
+      _responsibilitiesSize = new int[careTakers];
+      for (int careTaker = 0; careTaker < careTakers; careTaker++) {
+        _responsibilities[careTaker] = model._responsibilitiesOf[careTaker].clone();
+        _responsibilitiesSize[careTaker] = model._responsibilitiesOf[careTaker].length;
+      }
+      _sharing = model._sharing.clone();
+      _load = new double[careTakers];
+      _leaves = Integer.highestOneBit(Math.max(1, careTakers - 1)) * 2;
+      _most = new double[2 * _leaves];
+      _least = new double[2 * _leaves];
+      reload();
+    }
+
+    // Anneals the responsibilities and leaves them at the best balance they went through
+    private Chain anneal(long iterations) {
+      double temperature = initialTemperature();
+      double cooling = Math.pow(COOLING, 1.0 / iterations);
+      double best = _score;
+      int[] trail = new int[96];
+      int trailSize = 0;
+
+      for (long i = 1; i <= iterations; i++, temperature *= cooling) {
+        if ((i & RELOAD_MASK) == 0) {
+          reload();
+        }
+        if (!propose()) {
+          continue;
+        }
+        int habitat = _habitat;
+        int from = _from;
+        int to = _to;
+        move(habitat, from, to);
+        double score = score();
+        double delta = score - _score;
+        if (delta < 0 && _random.nextDouble() >= Math.exp(delta / temperature)) {
+          move(habitat, to, from);
+          continue;
+        }
+        if (trailSize + 3 > trail.length) {
+          trail = Arrays.copyOf(trail, trail.length * 2);
+        }
+        trail[trailSize++] = habitat;
+        trail[trailSize++] = from;
+        trail[trailSize++] = to;
+        _score = score;
+        if (_score > best) {
+          best = _score;
+          trailSize = 0;
+        }
+      }
+
+      // The moves since the best balance are undone, last first
+      while (trailSize > 0) {
+        int to = trail[--trailSize];
+        int from = trail[--trailSize];
+        int habitat = trail[--trailSize];
+        move(habitat, to, from);
+      }
+      reload();
+      prune();
+      reload();
+      return this;
+    }
+
+    // Gives responsibilities back to the caretakers who had them, unless that worsens the balance
+    private void prune() {
+      for (int habitat : _model._candidates) {
+        int[] added = Arrays.stream(_habitatResponsible[habitat], 0, _habitatSize[habitat])
+            .filter(careTaker -> !_model.initial(habitat, careTaker)).toArray();
+        for (int previous : _model._responsible[habitat]) {
+          if (indexOf(_habitatResponsible[habitat], _habitatSize[habitat], previous) >= 0) {
+            continue;
+          }
+          for (int i = 0; i < added.length; i++) {
+            if (added[i] < 0) {
+              continue;
+            }
+            move(habitat, added[i], previous);
+            double score = score();
+            if (score >= _score) {
+              _score = score;
+              added[i] = -1;
+              break;
+            }
+            move(habitat, previous, added[i]);
+          }
+        }
+      }
+    }
+
+    // Mean change of random proposals, at which half of the worsening ones are accepted at first
+    private double initialTemperature() {
+      double sum = 0;
+      int samples = 0;
+      for (int i = 0; i < TEMPERATURE_SAMPLES; i++) {
+        if (propose()) {
+          move(_habitat, _from, _to);
+          sum += Math.abs(score() - _score);
+          move(_habitat, _to, _from);
+          samples++;
+        }
+      }
+      return samples > 0 && sum > 0 ? sum / samples / Math.log(2) : 1;
+    }
+
+    /**
+     * Proposes passing a responsibility from a caretaker to another, within the limit of moves.
+     *
+     * @return whether a move was proposed
+     */
+    private boolean propose() {
+      int from;
+      int habitat;
+      if (_random.nextBoolean()) {
+        from = mostLoaded();
+        if (_responsibilitiesSize[from] == 0) {
+          return false;
+        }
+        habitat = _responsibilities[from][_random.nextInt(_responsibilitiesSize[from])];
+      } else {
+        habitat = _model._candidates[_random.nextInt(_model._candidates.length)];
+        from = _habitatResponsible[habitat][_random.nextInt(_habitatSize[habitat])];
+      }
+      int to = _random.nextBoolean() ? leastLoaded() : _random.nextInt(_load.length);
+      if (to == from || indexOf(_habitatResponsible[habitat], _habitatSize[habitat], to) >= 0) {
+        return false;
+      }
+      int moved = _moved + (_model.initial(habitat, from) ? 1 : 0)
+          - (_model.initial(habitat, to) ? 1 : 0);
+      if (moved > _model._maxMoves) {
+        return false;
+      }
+      _habitat = habitat;
+      _from = from;
+      _to = to;
+      return true;
+    }
+
+    // Passes the responsibility for a habitat from a caretaker to another
+    private void move(int habitat, int from, int to) {
+      int sharing = _sharing[habitat];
+      int after = sharing - (_model.attached(habitat, from) ? 0 : 1)
+          + (_model.attached(habitat, to) ? 0 : 1);
+      double work = _model._work[habitat];
+      change(from, -work / sharing);
+      _habitatSize[habitat] = remove(_habitatResponsible[habitat], _habitatSize[habitat], from);
+      _responsibilitiesSize[from] =
+          remove(_responsibilities[from], _responsibilitiesSize[from], habitat);
+      if (after != sharing) {
+        double share = work / after - work / sharing;
+        for (int i = 0; i < _habitatSize[habitat]; i++) {
+          change(_habitatResponsible[habitat][i], share);
+        }
+      }
+      _habitatResponsible[habitat] =
+          add(_habitatResponsible[habitat], _habitatSize[habitat]++, to);
+      _responsibilities[to] = add(_responsibilities[to], _responsibilitiesSize[to]++, habitat);
+      change(to, work / after);
+      _sharing[habitat] = after;
+      _moved += (_model.initial(habitat, from) ? 1 : 0) - (_model.initial(habitat, to) ? 1 : 0);
+    }
+
+    private void change(int careTaker, double delta) {
+      double load = _load[careTaker];
+      double changed = load + delta;
+      _load[careTaker] = changed;
+      _sum += delta;
+      _squares += changed * changed - load * load;
+      update(careTaker);
+    }
+
+    // Recomputes the work of every caretaker, which rounding errors of the moves drift from
+    private void reload() {
+      Arrays.fill(_load, 0);
+      for (int habitat : _model._candidates) {
+        double share = _model._work[habitat] / _sharing[habitat];
+        for (int i = 0; i < _habitatSize[habitat]; i++) {
+          _load[_habitatResponsible[habitat][i]] += share;
+        }
+      }
+      _sum = 0;
+      _squares = 0;
+      Arrays.fill(_most, Double.NEGATIVE_INFINITY);
+      Arrays.fill(_least, Double.POSITIVE_INFINITY);
+      for (int careTaker = 0; careTaker < _load.length; careTaker++) {
+        _sum += _load[careTaker];
+        _squares += _load[careTaker] * _load[careTaker];
+        _most[_leaves + careTaker] = _load[careTaker];
+        _least[_leaves + careTaker] = _load[careTaker];
+      }
+      for (int node = _leaves - 1; node > 0; node--) {
+        _most[node] = Math.max(_most[2 * node], _most[2 * node + 1]);
+        _least[node] = Math.min(_least[2 * node], _least[2 * node + 1]);
+      }
+      _score = score();
+    }
+
+    // The balance to maximize, from the running sums and the tree
+    private double score() {
+      if (_model._objective == BalanceObjective.MINIMUM) {
+        return SATISFACTION - _most[1];
+      }
+      double mean = _sum / _load.length;
+      return -Math.sqrt(Math.max(0, _squares / _load.length - mean * mean));
+    }
+
+    // The balance of the current responsibilities, computed anew
+    private double measure() {
+      if (_load.length == 0) {
+        return 0;
+      }
+      if (_model._objective == BalanceObjective.MINIMUM) {
+        return SATISFACTION - Arrays.stream(_load).max().getAsDouble();
+      }
+      double mean = Arrays.stream(_load).average().getAsDouble();
+      return Math.sqrt(Arrays.stream(_load).map(load -> (load - mean) * (load - mean)).sum()
+          / _load.length);
+    }
+
+    private void update(int careTaker) {
+      int node = _leaves + careTaker;
+      _most[node] = _load[careTaker];
+      _least[node] = _load[careTaker];
+      for (node /= 2; node > 0; node /= 2) {
+        _most[node] = Math.max(_most[2 * node], _most[2 * node + 1]);
+        _least[node] = Math.min(_least[2 * node], _least[2 * node + 1]);
+      }
+    }
+
+    private int mostLoaded() {
+      int node = 1;
+      while (node < _leaves) {
+        node = _most[2 * node] >= _most[2 * node + 1] ? 2 * node : 2 * node + 1;
+      }
+      return node - _leaves;
+    }
+
+    private int leastLoaded() {
+      int node = 1;
+      while (node < _leaves) {
+        node = _least[2 * node] <= _least[2 * node + 1] ? 2 * node : 2 * node + 1;
+      }
+      return node - _leaves;
+    }
+
+    private static int indexOf(int[] values, int size, int value) {
+      for (int i = 0; i < size; i++) {
+        if (values[i] == value) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    // Removes a value from the first elements of an array, returning how many are left
+    private static int remove(int[] values, int size, int value) {
+      values[indexOf(values, size, value)] = values[--size];
+      return size;
+    }
+
+    // Sets an element of an array, growing it if it is full
+    private static int[] add(int[] values, int size, int value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, Math.max(4, 2 * size));
+      }
+      values[size] = value;
+      return values;
+    }
+  }
+}
@@ -39,7 +39,7 @@ public class CareTakerSatisfactionDefaultFormula
     double workInHabitat;
 
     for (Habitat currentHabitat : careTaker.responsibilities()) {
-      workInHabitat = currentHabitat.area() + 3 * currentHabitat.animals().size();
+      workInHabitat = currentHabitat.area() + 3 * currentHabitat.population();
 
       for (Tree currentTree : currentHabitat.trees()) {
         workInHabitat += currentTree.totalCleaningEffort();
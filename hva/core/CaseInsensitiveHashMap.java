@@ -1,15 +1,41 @@
 package hva.core;
 
+import java.io.Serial;
 import java.util.HashMap;
 
 /**
  * Our implementation of a HashMap that treats its keys as case insensitive.
+ *
+ * <p>
+ * Keys are stored in lowercase. When the map is given a {@link StringPool}, the stored keys are
+ * the canonical ones, shared with every other map of the same pool.
  */
 public class CaseInsensitiveHashMap<V> extends HashMap<String, V> {
 
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  private final StringPool _pool;
+
+  /**
+   * Constructor which creates a map that does not share its keys.
+   */
+  public CaseInsensitiveHashMap() {
+    this(null);
+  }
+
+  /**
+   * Constructor which creates a map that shares its keys through a pool.
+   *
+   * @param pool the pool of canonical Strings of the keys, or null to not share them
+   */
+  public CaseInsensitiveHashMap(StringPool pool) {
+    _pool = pool;
+  }
+
   @Override
   public V put(String key, V value) {
-    return super.put(key.toLowerCase(), value);
+    return super.put(_pool == null ? key.toLowerCase() : _pool.canonicalLowerCase(key), value);
   }
 
   @Override
@@ -0,0 +1,890 @@
+package hva.core;
+
+import hva.core.enumerator.Influence;
+import hva.core.enumerator.SeasonType;
+import hva.core.enumerator.VaccineDamage;
+import hva.core.exception.AnimalNotFoundException;
+import hva.core.exception.DuplicateAnimalException;
+import hva.core.exception.DuplicateHabitatException;
+import hva.core.exception.DuplicateSpeciesException;
+import hva.core.exception.DuplicateTreeException;
+import hva.core.exception.DuplicateVaccineException;
+import hva.core.exception.DuplicateWorkerException;
+import hva.core.exception.HabitatNotFoundException;
+import hva.core.exception.ResponsibilityNotFoundException;
+import hva.core.exception.SpeciesNotFoundException;
+import hva.core.exception.UnrecognizedTreeTypeException;
+import hva.core.exception.UnrecognizedWorkerTypeException;
+import hva.core.exception.VaccineNotFoundException;
+import hva.core.exception.WorkerNotAuthorizedException;
+import hva.core.exception.WorkerNotFoundException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Class representing a thread-safe façade of a zoo hotel, for several clients working on it at
+ * once.
+ *
+ * <p>
+ * The hotel and its entities are not synchronized, so every access goes through this façade. Its
+ * locks are:
+ * <ul>
+ * <li>the registry lock, taken for writing by the operations that add entities, change
+ * responsibilities or advance the season, and for reading by every other operation;
+ * <li>a stripe of species locks and a stripe of habitat locks, selected by the handle of the
+ * species or habitat, which guard the state of the animals of a species and the population, area
+ * and suitability of a habitat;
+ * <li>the vaccination lock, which guards the registry of vaccinations shared by every species.
+ * </ul>
+ *
+ * <p>
+ * Transfers lock the species of the animal for reading and the habitats involved for writing,
+ * vaccinations lock the species of the animal for writing, and changes to a habitat lock that
+ * habitat for writing, so mutations of distinct habitats and species run in parallel. Queries lock
+ * what they read for reading and run in parallel with each other. Queries that scan the hotel lock
+ * every stripe for reading.
+ *
+ * <p>
+ * Locks are always taken in the same order, which rules out deadlocks: the registry lock, then the
+ * species locks in ascending order, then the habitat locks in ascending order, then the vaccination
+ * lock.
+ *
+ * <p>
+ * Entities must not escape the locks, so listings are returned already rendered, with the same
+ * lines and order as the commands of the application.
+ *
+ * <p>
+ * Readers which must not wait for writers take a {@link #snapshot()} instead, and query it without
+ * any lock. Every mutation advances the version of the hotel and records the entities it changed,
+ * so a snapshot is refreshed only when the hotel changed, and only for the changed entities.
+ *
+ * @see Hotel
+ * @see HotelSnapshot
+ */
+public class ConcurrentHotel {
+
+  /** Number of locks of each stripe, a power of two. */
+  private static final int STRIPES = 64;
+
+  private final Hotel _hotel;
+  private final ReentrantReadWriteLock _registry = new ReentrantReadWriteLock();
+  private final ReentrantReadWriteLock[] _speciesLocks = stripe();
+  private final ReentrantReadWriteLock[] _habitatLocks = stripe();
+  private final Lock _vaccinationLock = new ReentrantLock();
+
+  private final AtomicLong _version = new AtomicLong();
+  private final Set<Animal> _changedAnimals = ConcurrentHashMap.newKeySet();
+  private final Set<Habitat> _changedHabitats = ConcurrentHashMap.newKeySet();
+  private final Set<Species> _changedSpecies = ConcurrentHashMap.newKeySet();
+  private final Set<Vaccine> _changedVaccines = ConcurrentHashMap.newKeySet();
+  private final Set<Worker> _changedWorkers = ConcurrentHashMap.newKeySet();
+  private final Object _snapshotLock = new Object();
+  private volatile HotelSnapshot _snapshot;
+
+  /*
+   * <------------------------ Constructor ------------------------>
+   */
+
+  /**
+   * Constructor which creates a façade of a hotel.
+   *
+   * <p>
+   * Once the façade is created, the hotel must only be accessed through it. Mutations of distinct
+   * habitats and species publish their events one at a time, in the order they finish.
+   *
+   * @param hotel the hotel
+   */
+  public ConcurrentHotel(Hotel hotel) {
+    _hotel = hotel;
+    hotel.shareEvents();
+  }
+
+  /*
+   * <------------------------ Gets ------------------------>
+   */
+
+  /**
+   * Returns a snapshot of the hotel, whose queries take no lock.
+   *
+   * <p>
+   * If the hotel did not change since the last snapshot, that snapshot is returned without taking
+   * any lock. Otherwise the changed entities, and the workers responsible for them, are rendered
+   * again while every lock is held for reading, which is as brief as the changes are few.
+   *
+   * @return a snapshot of the hotel as it is now
+   *
+   * @see HotelSnapshot
+   */
+  public HotelSnapshot snapshot() {
+    HotelSnapshot snapshot = _snapshot;
+    if (snapshot != null && snapshot.version() == _version.get()) {
+      return snapshot;
+    }
+    synchronized (_snapshotLock) {
+      lockAll();
+      try {
+        long version = _version.get();
+        snapshot = _snapshot;
+        if (snapshot == null) {
+          _changedAnimals.clear();
+          _changedHabitats.clear();
+          _changedSpecies.clear();
+          _changedVaccines.clear();
+          _changedWorkers.clear();
+          snapshot = HotelSnapshot.of(_hotel, version);
+        } else if (snapshot.version() != version) {
+          snapshot = snapshot.refresh(_hotel, version, drain(_changedAnimals),
+              drain(_changedHabitats), drain(_changedSpecies), drain(_changedVaccines),
+              drain(_changedWorkers));
+        }
+        _snapshot = snapshot;
+        return snapshot;
+      } finally {
+        unlockAll();
+      }
+    }
+  }
+
+  /**
+   * Returns the satisfaction of the hotel.
+   *
+   * @return the satisfaction of the hotel
+   *
+   * @see Hotel#satisfaction()
+   */
+  public double satisfaction() {
+    lockAll();
+    try {
+      return _hotel.satisfaction();
+    } finally {
+      unlockAll();
+    }
+  }
+
+  /**
+   * Returns the satisfaction of an animal.
+   *
+   * @param id the identifier of the animal
+   *
+   * @return the satisfaction of the animal
+   *
+   * @throws AnimalNotFoundException If an animal with the given identifier does not exist.
+   *
+   * @see Hotel#animalSatisfaction(String)
+   */
+  public double animalSatisfaction(String id) throws AnimalNotFoundException {
+    _registry.readLock().lock();
+    try {
+      Animal animal = _hotel.animalExistsWithException(id);
+      Lock species = speciesLock(animal.species()).readLock();
+      species.lock();
+      try {
+        while (true) {
+          Habitat habitat = animal.habitat();
+          Lock habitatLock = habitatLock(habitat).readLock();
+          habitatLock.lock();
+          try {
+            // The animal may have moved before its habitat was locked
+            if (animal.habitat() == habitat) {
+              return _hotel.animalSatisfaction(id);
+            }
+          } finally {
+            habitatLock.unlock();
+          }
+        }
+      } finally {
+        species.unlock();
+      }
+    } finally {
+      _registry.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the satisfaction of a worker.
+   *
+   * @param id the identifier of the worker
+   *
+   * @return the satisfaction of the worker
+   *
+   * @throws WorkerNotFoundException If a worker with the given identifier does not exist.
+   *
+   * @see Hotel#workerSatisfaction(String)
+   */
+  public double workerSatisfaction(String id) throws WorkerNotFoundException {
+    lockAll();
+    try {
+      return _hotel.workerSatisfaction(id);
+    } finally {
+      unlockAll();
+    }
+  }
+
+  /**
+   * Renders every animal, sorted by identifier.
+   *
+   * @return the lines of the animals
+   */
+  public List<String> showAllAnimals() {
+    lockAll();
+    try {
+      return lines(_hotel.animals().stream().sorted());
+    } finally {
+      unlockAll();
+    }
+  }
+
+  /**
+   * Renders every worker, sorted by identifier.
+   *
+   * @return the lines of the workers
+   */
+  public List<String> showAllEmployees() {
+    lockAll();
+    try {
+      return lines(_hotel.workers().stream().sorted());
+    } finally {
+      unlockAll();
+    }
+  }
+
+  /**
+   * Renders every habitat, sorted by identifier, each followed by its trees, sorted by identifier.
+   *
+   * @return the lines of the habitats and their trees
+   */
+  public List<String> showAllHabitats() {
+    lockAll();
+    try {
+      List<String> lines = new ArrayList<String>();
+      for (Habitat habitat : _hotel.habitats().stream().sorted().toList()) {
+        lines.add(habitat.toString());
+        lines.addAll(lines(habitat.trees().stream().sorted()));
+      }
+      return lines;
+    } finally {
+      unlockAll();
+    }
+  }
+
+  /**
+   * Renders every vaccine, sorted by identifier.
+   *
+   * @return the lines of the vaccines
+   */
+  public List<String> showAllVaccines() {
+    lockAll();
+    try {
+      return lines(_hotel.vaccines().stream().sorted());
+    } finally {
+      unlockAll();
+    }
+  }
+
+  /**
+   * Renders every vaccination, in the order they were applied.
+   *
+   * @return the lines of the vaccinations
+   */
+  public List<String> showVaccinations() {
+    lockAll();
+    try {
+      return lines(_hotel.vaccineRegistry().stream());
+    } finally {
+      unlockAll();
+    }
+  }
+
+  /**
+   * Renders every vaccination which harmed the animal, in the order they were applied.
+   *
+   * @return the lines of the wrong vaccinations
+   */
+  public List<String> showWrongVaccinations() {
+    lockAll();
+    try {
+      return lines(_hotel.vaccineRegistry().stream()
+          .filter(vaccineRegistry -> vaccineRegistry.vaccineDamage() != VaccineDamage.NORMAL));
+    } finally {
+      unlockAll();
+    }
+  }
+
+  /**
+   * Renders the animals of a habitat, sorted by identifier.
+   *
+   * @param idHabitat the identifier of the habitat
+   *
+   * @return the lines of the animals of the habitat
+   *
+   * @throws HabitatNotFoundException If a habitat with the given identifier does not exist.
+   */
+  public List<String> showAnimalsInHabitat(String idHabitat) throws HabitatNotFoundException {
+    lockAll();
+    try {
+      return lines(_hotel.habitatAnimals(idHabitat).stream().sorted());
+    } finally {
+      unlockAll();
+    }
+  }
+
+  /**
+   * Renders the trees of a habitat, sorted by identifier.
+   *
+   * @param idHabitat the identifier of the habitat
+   *
+   * @return the lines of the trees of the habitat
+   *
+   * @throws HabitatNotFoundException If a habitat with the given identifier does not exist.
+   */
+  public List<String> showAllTreesInHabitat(String idHabitat) throws HabitatNotFoundException {
+    _registry.readLock().lock();
+    try {
+      Lock habitat = habitatLock(_hotel.habitatExistsWithException(idHabitat)).readLock();
+      habitat.lock();
+      try {
+        return lines(_hotel.habitatTrees(idHabitat).stream().sorted());
+      } finally {
+        habitat.unlock();
+      }
+    } finally {
+      _registry.readLock().unlock();
+    }
+  }
+
+  /**
+   * Renders the vaccinations of an animal, in the order they were applied.
+   *
+   * @param idAnimal the identifier of the animal
+   *
+   * @return the lines of the vaccinations of the animal
+   *
+   * @throws AnimalNotFoundException If an animal with the given identifier does not exist.
+   */
+  public List<String> showMedicalActsOnAnimal(String idAnimal) throws AnimalNotFoundException {
+    _registry.readLock().lock();
+    try {
+      Lock species = speciesLock(_hotel.animalExistsWithException(idAnimal).species()).readLock();
+      species.lock();
+      try {
+        return lines(_hotel.animalVaccinations(idAnimal).stream());
+      } finally {
+        species.unlock();
+      }
+    } finally {
+      _registry.readLock().unlock();
+    }
+  }
+
+  /**
+   * Renders the vaccinations applied by a vet, in the order they were applied.
+   *
+   * @param idVet the identifier of the vet
+   *
+   * @return the lines of the vaccinations applied by the vet
+   *
+   * @throws WorkerNotFoundException If a vet with the given identifier does not exist.
+   */
+  public List<String> showMedicalActsByVeterinarian(String idVet) throws WorkerNotFoundException {
+    lockAll();
+    try {
+      return lines(_hotel.vetVaccinations(idVet).stream());
+    } finally {
+      unlockAll();
+    }
+  }
+
+  /**
+   * Estimates the heap retained by the hotel, per category of entity.
+   *
+   * @return the estimate of the heap retained by the hotel
+   *
+   * @see Hotel#heapFootprint()
+   */
+  public HeapFootprint heapFootprint() {
+    lockAll();
+    try {
+      return _hotel.heapFootprint();
+    } finally {
+      unlockAll();
+    }
+  }
+
+  /*
+   * <------------------------ Sets ------------------------>
+   */
+
+  /**
+   * Adds an animal to the hotel.
+   *
+   * @param idAnimal the identifier of the animal
+   * @param name the name of the animal
+   * @param idSpecies the identifier of the species of the animal
+   * @param idHabitat the identifier of the habitat of the animal
+   *
+   * @throws DuplicateAnimalException If an animal with the given identifier already exists.
+   * @throws SpeciesNotFoundException If a species with the given identifier does not exist.
+   * @throws HabitatNotFoundException If a habitat with the given identifier does not exist.
+   *
+   * @see Hotel#addAnimal(String, String, String, String)
+   */
+  public void addAnimal(String idAnimal, String name, String idSpecies, String idHabitat)
+      throws DuplicateAnimalException, SpeciesNotFoundException, HabitatNotFoundException {
+    _registry.writeLock().lock();
+    try {
+      _hotel.addAnimal(idAnimal, name, idSpecies, idHabitat);
+      Animal animal = _hotel.animalExists(idAnimal);
+      _changedAnimals.add(animal);
+      _changedHabitats.add(animal.habitat());
+      _changedSpecies.add(animal.species());
+      _version.incrementAndGet();
+    } finally {
+      _registry.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Adds a species to the hotel.
+   *
+   * @param idSpecies the identifier of the species
+   * @param name the name of the species
+   *
+   * @throws DuplicateSpeciesException If a species with the given identifier or name already
+   *         exists.
+   *
+   * @see Hotel#addSpecies(String, String)
+   */
+  public void addSpecies(String idSpecies, String name) throws DuplicateSpeciesException {
+    _registry.writeLock().lock();
+    try {
+      _hotel.addSpecies(idSpecies, name);
+      _version.incrementAndGet();
+    } finally {
+      _registry.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Adds a worker to the hotel.
+   *
+   * @param idWorker the identifier of the worker
+   * @param name the name of the worker
+   * @param type the type of the worker
+   *
+   * @throws DuplicateWorkerException If a worker with the given identifier already exists.
+   * @throws UnrecognizedWorkerTypeException If the type of the worker is not recognized.
+   *
+   * @see Hotel#addWorker(String, String, String)
+   */
+  public void addWorker(String idWorker, String name, String type)
+      throws DuplicateWorkerException, UnrecognizedWorkerTypeException {
+    _registry.writeLock().lock();
+    try {
+      _changedWorkers.add(_hotel.addWorker(idWorker, name, type));
+      _version.incrementAndGet();
+    } finally {
+      _registry.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Adds a habitat to the hotel.
+   *
+   * @param idHabitat the identifier of the habitat
+   * @param name the name of the habitat
+   * @param area the area of the habitat
+   *
+   * @throws DuplicateHabitatException If a habitat with the given identifier already exists.
+   *
+   * @see Hotel#addHabitat(String, String, int)
+   */
+  public void addHabitat(String idHabitat, String name, int area)
+      throws DuplicateHabitatException {
+    _registry.writeLock().lock();
+    try {
+      _hotel.addHabitat(idHabitat, name, area);
+      _changedHabitats.add(_hotel.habitatExists(idHabitat));
+      _version.incrementAndGet();
+    } finally {
+      _registry.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Adds a tree to a habitat of the hotel.
+   *
+   * @param idHabitat the identifier of the habitat
+   * @param idTree the identifier of the tree
+   * @param name the name of the tree
+   * @param age the age of the tree
+   * @param cleanDiff the cleaning difficulty of the tree
+   * @param type the type of the tree
+   *
+   * @return the line of the new tree
+   *
+   * @throws HabitatNotFoundException If a habitat with the given identifier does not exist.
+   * @throws UnrecognizedTreeTypeException If the type of the tree is not recognized.
+   * @throws DuplicateTreeException If a tree with the given identifier already exists.
+   *
+   * @see Hotel#addTreeToHabitat(String, String, String, int, int, String)
+   */
+  public String addTreeToHabitat(String idHabitat, String idTree, String name, int age,
+      int cleanDiff, String type)
+      throws HabitatNotFoundException, UnrecognizedTreeTypeException, DuplicateTreeException {
+    _registry.writeLock().lock();
+    try {
+      String tree =
+          _hotel.addTreeToHabitat(idHabitat, idTree, name, age, cleanDiff, type).toString();
+      _changedHabitats.add(_hotel.habitatExists(idHabitat));
+      _version.incrementAndGet();
+      return tree;
+    } finally {
+      _registry.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Adds a vaccine to the hotel.
+   *
+   * @param idVaccine the identifier of the vaccine
+   * @param name the name of the vaccine
+   * @param idSpecies the identifiers of the species of the vaccine, separated by commas
+   *
+   * @throws DuplicateVaccineException If a vaccine with the given identifier already exists.
+   * @throws SpeciesNotFoundException If a species with one of the given identifiers does not
+   *         exist.
+   *
+   * @see Hotel#addVaccine(String, String, String)
+   */
+  public void addVaccine(String idVaccine, String name, String idSpecies)
+      throws DuplicateVaccineException, SpeciesNotFoundException {
+    _registry.writeLock().lock();
+    try {
+      _hotel.addVaccine(idVaccine, name, idSpecies);
+      _changedVaccines.add(_hotel.vaccineExists(idVaccine));
+      _version.incrementAndGet();
+    } finally {
+      _registry.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Advances the season of the hotel.
+   *
+   * @return the new season
+   *
+   * @see Hotel#progressSeason()
+   */
+  public SeasonType progressSeason() {
+    _registry.writeLock().lock();
+    try {
+      SeasonType season = _hotel.progressSeason();
+      _changedHabitats.addAll(_hotel.habitats());
+      _version.incrementAndGet();
+      return season;
+    } finally {
+      _registry.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Adds a responsibility to a worker.
+   *
+   * @param idWorker the identifier of the worker
+   * @param idResponsibility the identifier of the habitat or species
+   *
+   * @throws WorkerNotFoundException If a worker with the given identifier does not exist.
+   * @throws ResponsibilityNotFoundException If the responsibility does not exist.
+   *
+   * @see Hotel#addResponsibilityToWorker(String, String)
+   */
+  public void addResponsibilityToWorker(String idWorker, String idResponsibility)
+      throws WorkerNotFoundException, ResponsibilityNotFoundException {
+    _registry.writeLock().lock();
+    try {
+      _hotel.addResponsibilityToWorker(idWorker, idResponsibility);
+      changedResponsibility(idWorker, idResponsibility);
+      _version.incrementAndGet();
+    } finally {
+      _registry.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes a responsibility from a worker.
+   *
+   * @param idWorker the identifier of the worker
+   * @param idResponsibility the identifier of the habitat or species
+   *
+   * @throws WorkerNotFoundException If a worker with the given identifier does not exist.
+   * @throws ResponsibilityNotFoundException If the worker does not have the responsibility.
+   *
+   * @see Hotel#removeResponsibilityFromWorker(String, String)
+   */
+  public void removeResponsibilityFromWorker(String idWorker, String idResponsibility)
+      throws WorkerNotFoundException, ResponsibilityNotFoundException {
+    _registry.writeLock().lock();
+    try {
+      _hotel.removeResponsibilityFromWorker(idWorker, idResponsibility);
+      changedResponsibility(idWorker, idResponsibility);
+      _version.incrementAndGet();
+    } finally {
+      _registry.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Transfers an animal to a habitat.
+   *
+   * <p>
+   * Only the habitats the animal leaves and enters are locked for writing.
+   *
+   * @param idAnimal the identifier of the animal
+   * @param idHabitat the identifier of the habitat
+   *
+   * @throws AnimalNotFoundException If an animal with the given identifier does not exist.
+   * @throws HabitatNotFoundException If a habitat with the given identifier does not exist.
+   *
+   * @see Hotel#transferAnimal(String, String)
+   */
+  public void transferAnimal(String idAnimal, String idHabitat)
+      throws AnimalNotFoundException, HabitatNotFoundException {
+    _registry.readLock().lock();
+    try {
+      Animal animal = _hotel.animalExistsWithException(idAnimal);
+      Habitat target = _hotel.habitatExistsWithException(idHabitat);
+      Lock species = speciesLock(animal.species()).readLock();
+      species.lock();
+      try {
+        while (true) {
+          Habitat source = animal.habitat();
+          Lock first = habitatLock(Math.min(stripe(source), stripe(target))).writeLock();
+          Lock second = habitatLock(Math.max(stripe(source), stripe(target))).writeLock();
+          first.lock();
+          second.lock();
+          try {
+            // The animal may have moved before its habitat was locked
+            if (animal.habitat() == source) {
+              _hotel.transferAnimal(idAnimal, idHabitat);
+              _changedAnimals.add(animal);
+              _changedHabitats.add(source);
+              _changedHabitats.add(target);
+              _version.incrementAndGet();
+              return;
+            }
+          } finally {
+            second.unlock();
+            first.unlock();
+          }
+        }
+      } finally {
+        species.unlock();
+      }
+    } finally {
+      _registry.readLock().unlock();
+    }
+  }
+
+  /**
+   * Changes the area of a habitat.
+   *
+   * @param idHabitat the identifier of the habitat
+   * @param area the new area of the habitat
+   *
+   * @throws HabitatNotFoundException If a habitat with the given identifier does not exist.
+   *
+   * @see Hotel#changeHabitatArea(String, int)
+   */
+  public void changeHabitatArea(String idHabitat, int area) throws HabitatNotFoundException {
+    _registry.readLock().lock();
+    try {
+      Habitat changed = _hotel.habitatExistsWithException(idHabitat);
+      Lock habitat = habitatLock(changed).writeLock();
+      habitat.lock();
+      try {
+        _hotel.changeHabitatArea(idHabitat, area);
+        _changedHabitats.add(changed);
+        _version.incrementAndGet();
+      } finally {
+        habitat.unlock();
+      }
+    } finally {
+      _registry.readLock().unlock();
+    }
+  }
+
+  /**
+   * Changes the influence of a habitat on a species.
+   *
+   * @param idHabitat the identifier of the habitat
+   * @param idSpecies the identifier of the species
+   * @param influence the new influence of the habitat on the species
+   *
+   * @throws HabitatNotFoundException If a habitat with the given identifier does not exist.
+   * @throws SpeciesNotFoundException If a species with the given identifier does not exist.
+   *
+   * @see Hotel#changeHabitatSuitability(String, String, Influence)
+   */
+  public void changeHabitatSuitability(String idHabitat, String idSpecies, Influence influence)
+      throws HabitatNotFoundException, SpeciesNotFoundException {
+    _registry.readLock().lock();
+    try {
+      Habitat changed = _hotel.habitatExistsWithException(idHabitat);
+      Lock habitat = habitatLock(changed).writeLock();
+      habitat.lock();
+      try {
+        _hotel.changeHabitatSuitability(idHabitat, idSpecies, influence);
+        _changedHabitats.add(changed);
+        _version.incrementAndGet();
+      } finally {
+        habitat.unlock();
+      }
+    } finally {
+      _registry.readLock().unlock();
+    }
+  }
+
+  /**
+   * Vaccinates an animal.
+   *
+   * <p>
+   * Only the species of the animal is locked for writing, while the vaccination is recorded in the
+   * registry shared by every species.
+   *
+   * @param idAnimal the identifier of the animal
+   * @param idVaccine the identifier of the vaccine
+   * @param idVet the identifier of the vet
+   *
+   * @return the registry of the vaccination
+   *
+   * @throws AnimalNotFoundException If an animal with the given identifier does not exist.
+   * @throws VaccineNotFoundException If a vaccine with the given identifier does not exist.
+   * @throws WorkerNotFoundException If a vet with the given identifier does not exist.
+   * @throws WorkerNotAuthorizedException If the vet is not responsible for the species of the
+   *         animal.
+   *
+   * @see Hotel#vaccinateAnimal(String, String, String)
+   */
+  public VaccineRegistry vaccinateAnimal(String idAnimal, String idVaccine, String idVet)
+      throws AnimalNotFoundException, VaccineNotFoundException, WorkerNotFoundException,
+      WorkerNotAuthorizedException {
+    _registry.readLock().lock();
+    try {
+      Animal animal = _hotel.animalExistsWithException(idAnimal);
+      Lock species = speciesLock(animal.species()).writeLock();
+      species.lock();
+      try {
+        _vaccinationLock.lock();
+        try {
+          VaccineRegistry vaccination = _hotel.vaccinateAnimal(idAnimal, idVaccine, idVet);
+          _changedAnimals.add(animal);
+          _changedVaccines.add(_hotel.vaccineExists(idVaccine));
+          _version.incrementAndGet();
+          return vaccination;
+        } finally {
+          _vaccinationLock.unlock();
+        }
+      } finally {
+        species.unlock();
+      }
+    } finally {
+      _registry.readLock().unlock();
+    }
+  }
+
+  /*
+   * <------------------------ Others ------------------------>
+   */
+
+  /**
+   * Locks the registry and every stripe for reading, in the order of the locks.
+   */
+  private void lockAll() {
+    _registry.readLock().lock();
+    for (ReentrantReadWriteLock lock : _speciesLocks) {
+      lock.readLock().lock();
+    }
+    for (ReentrantReadWriteLock lock : _habitatLocks) {
+      lock.readLock().lock();
+    }
+  }
+
+  /**
+   * Unlocks what {@link #lockAll()} locked, in the reverse order.
+   */
+  private void unlockAll() {
+    for (int stripe = STRIPES - 1; stripe >= 0; stripe--) {
+      _habitatLocks[stripe].readLock().unlock();
+    }
+    for (int stripe = STRIPES - 1; stripe >= 0; stripe--) {
+      _speciesLocks[stripe].readLock().unlock();
+    }
+    _registry.readLock().unlock();
+  }
+
+  /**
+   * Records a change of a responsibility of a worker, which changes the worker and the work of
+   * every other worker responsible for the same habitat or species.
+   *
+   * @param idWorker the identifier of the worker
+   * @param idResponsibility the identifier of the habitat or species
+   */
+  private void changedResponsibility(String idWorker, String idResponsibility) {
+    Worker worker = _hotel.workerExists(idWorker);
+    _changedWorkers.add(worker);
+    if (worker instanceof Vet) {
+      _changedSpecies.add(_hotel.speciesExists(idResponsibility));
+    } else {
+      _changedHabitats.add(_hotel.habitatExists(idResponsibility));
+    }
+  }
+
+  /**
+   * Removes and returns every entity of a set of changed entities.
+   *
+   * @param changed the set of changed entities
+   *
+   * @return the entities which were in the set
+   */
+  private static <T> List<T> drain(Set<T> changed) {
+    List<T> drained = new ArrayList<T>(changed);
+    changed.removeAll(drained);
+    return drained;
+  }
+
+  private ReentrantReadWriteLock speciesLock(Species species) {
+    return _speciesLocks[species.handle() & (STRIPES - 1)];
+  }
+
+  private ReentrantReadWriteLock habitatLock(Habitat habitat) {
+    return habitatLock(stripe(habitat));
+  }
+
+  private ReentrantReadWriteLock habitatLock(int stripe) {
+    return _habitatLocks[stripe];
+  }
+
+  private static int stripe(Habitat habitat) {
+    return habitat.handle() & (STRIPES - 1);
+  }
+
+  private static ReentrantReadWriteLock[] stripe() {
+    ReentrantReadWriteLock[] locks = new ReentrantReadWriteLock[STRIPES];
+    for (int stripe = 0; stripe < STRIPES; stripe++) {
+      locks[stripe] = new ReentrantReadWriteLock();
+    }
+    return locks;
+  }
+
+  private static List<String> lines(Stream<?> entities) {
+    return entities.map(Object::toString).toList();
+  }
+}
@@ -84,7 +84,7 @@ public class Deciduos extends Tree {
    */
   @Override
   public String toString() {
-    return String.format("ÁRVORE|%s|%s|%d|%d|CADUCA|%s", id(), name(), age(), cleaningDifficulty(),
-        leafState());
+    return "ÁRVORE|" + id() + "|" + name() + "|" + age() + "|" + cleaningDifficulty() + "|CADUCA|"
+        + leafState();
   }
 }
@@ -0,0 +1,736 @@
+package hva.core;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import hva.core.enumerator.FootprintCategory;
+
+/**
+ * Class representing the core store of the entities of a zoo hotel.
+ *
+ * <p>
+ * Every {@link Animal}, {@link Species}, {@link Habitat}, {@link Tree} and {@link Worker} receives
+ * a dense integer handle when it is registered here. Handles are assigned in registration order,
+ * starting at zero, and never change.
+ *
+ * <p>
+ * The attributes read by the satisfaction formulas (habitat and species of each animal, area and
+ * population of each habitat, age and cleaning difficulty of each tree) are kept in primitive
+ * arrays indexed by handle, so the hot loops read contiguous memory instead of following references
+ * between entities. The entities themselves read and write these attributes through this store.
+ *
+ * <p>
+ * Animals are kept by an {@link AnimalStore}, either on the heap or, for very large hotels, in
+ * off-heap memory. In both cases the rest of the hotel sees them through {@link Animal} views.
+ *
+ * @see Hotel
+ * @see AnimalStore
+ */
+public class EntityStore implements Serializable {
+
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final StringPool _strings;
+  private final AnimalStore _animals;
+
+  private int _speciesCount;
+  private Species[] _species = new Species[INITIAL_CAPACITY];
+
+  private int _habitatCount;
+  private Habitat[] _habitats = new Habitat[INITIAL_CAPACITY];
+  private int[] _habitatArea = new int[INITIAL_CAPACITY];
+  private int[] _habitatPopulation = new int[INITIAL_CAPACITY];
+
+  private int _treeCount;
+  private Tree[] _trees = new Tree[INITIAL_CAPACITY];
+  private int[] _treeAge = new int[INITIAL_CAPACITY];
+  private int[] _treeCleaningDifficulty = new int[INITIAL_CAPACITY];
+
+  private int _workerCount;
+  private Worker[] _workers = new Worker[INITIAL_CAPACITY];
+
+  /*
+   * <------------------------ Constructor ------------------------>
+   */
+
+  /**
+   * Constructor which creates this store.
+   *
+   * @param offHeapAnimals whether the animals are kept in off-heap memory
+   * @param strings the pool of canonical Strings of the hotel
+   *
+   * @see HeapAnimalStore
+   * @see OffHeapAnimalStore
+   */
+  EntityStore(boolean offHeapAnimals, StringPool strings) {
+    _strings = strings;
+    _animals = offHeapAnimals ? new OffHeapAnimalStore(this) : new HeapAnimalStore(this);
+  }
+
+  /*
+   * <------------------------ Gets ------------------------>
+   */
+
+  /**
+   * Retrieves the pool of canonical Strings of the hotel of this store.
+   *
+   * @return the pool of canonical Strings
+   */
+  StringPool strings() {
+    return _strings;
+  }
+
+  /**
+   * Retrieves the number of animals in this store.
+   *
+   * @return the number of animals, which is also the next animal handle
+   */
+  int animalCount() {
+    return _animals.count();
+  }
+
+  /**
+   * Retrieves the animal with the given handle.
+   *
+   * @param animal the handle of the animal
+   *
+   * @return the animal with the given handle
+   */
+  Animal animal(int animal) {
+    return _animals.animal(animal);
+  }
+
+  /**
+   * Finds the animal with the given identifier.
+   *
+   * @param id the identifier of the animal
+   *
+   * @return the animal with the given identifier or {@code null} if it does not exist
+   */
+  Animal findAnimal(String id) {
+    int animal = _animals.find(id);
+    return animal == AnimalStore.NONE ? null : _animals.animal(animal);
+  }
+
+  /**
+   * Retrieves the identifier of an animal.
+   *
+   * @param animal the handle of the animal
+   *
+   * @return the identifier of the animal
+   */
+  String animalId(int animal) {
+    return _animals.id(animal);
+  }
+
+  /**
+   * Retrieves the name of an animal.
+   *
+   * @param animal the handle of the animal
+   *
+   * @return the name of the animal
+   */
+  String animalName(int animal) {
+    return _animals.name(animal);
+  }
+
+  /**
+   * Retrieves the handle of the species of an animal.
+   *
+   * @param animal the handle of the animal
+   *
+   * @return the handle of the species of the animal
+   */
+  int animalSpecies(int animal) {
+    return _animals.species(animal);
+  }
+
+  /**
+   * Retrieves the handle of the habitat of an animal.
+   *
+   * @param animal the handle of the animal
+   *
+   * @return the handle of the habitat of the animal
+   */
+  int animalHabitat(int animal) {
+    return _animals.habitat(animal);
+  }
+
+  /**
+   * Retrieves all the animals in this store.
+   *
+   * <p>
+   * The returned collection is a read-only view backed by this store, in handle order.
+   *
+   * @return a collection of all the animals
+   */
+  Collection<Animal> animals() {
+    return new AbstractCollection<Animal>() {
+      @Override
+      public Iterator<Animal> iterator() {
+        return new Iterator<Animal>() {
+          private int _next;
+
+          @Override
+          public boolean hasNext() {
+            return _next < _animals.count();
+          }
+
+          @Override
+          public Animal next() {
+            if (!hasNext()) {
+              throw new NoSuchElementException();
+            }
+            return _animals.animal(_next++);
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return _animals.count();
+      }
+    };
+  }
+
+  /**
+   * Retrieves all the animals living in a habitat.
+   *
+   * <p>
+   * The returned collection is a read-only view backed by this store, which follows the links
+   * between the animals of the habitat instead of copying them.
+   *
+   * @param habitat the handle of the habitat
+   *
+   * @return a collection of the animals of the habitat
+   */
+  Collection<Animal> habitatAnimals(int habitat) {
+    return new AbstractCollection<Animal>() {
+      @Override
+      public Iterator<Animal> iterator() {
+        return new Iterator<Animal>() {
+          private int _next = _animals.firstInHabitat(habitat);
+
+          @Override
+          public boolean hasNext() {
+            return _next != AnimalStore.NONE;
+          }
+
+          @Override
+          public Animal next() {
+            if (!hasNext()) {
+              throw new NoSuchElementException();
+            }
+            int animal = _next;
+            _next = _animals.nextInHabitat(animal);
+            return _animals.animal(animal);
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return _habitatPopulation[habitat];
+      }
+    };
+  }
+
+  /**
+   * Retrieves the number of species in this store.
+   *
+   * @return the number of species, which is also the next species handle
+   */
+  int speciesCount() {
+    return _speciesCount;
+  }
+
+  /**
+   * Retrieves the species with the given handle.
+   *
+   * @param species the handle of the species
+   *
+   * @return the species with the given handle
+   */
+  Species species(int species) {
+    return _species[species];
+  }
+
+  /**
+   * Retrieves the number of habitats in this store.
+   *
+   * @return the number of habitats, which is also the next habitat handle
+   */
+  int habitatCount() {
+    return _habitatCount;
+  }
+
+  /**
+   * Retrieves the habitat with the given handle.
+   *
+   * @param habitat the handle of the habitat
+   *
+   * @return the habitat with the given handle
+   */
+  Habitat habitat(int habitat) {
+    return _habitats[habitat];
+  }
+
+  /**
+   * Retrieves the area of a habitat.
+   *
+   * @param habitat the handle of the habitat
+   *
+   * @return the area of the habitat
+   */
+  int habitatArea(int habitat) {
+    return _habitatArea[habitat];
+  }
+
+  /**
+   * Retrieves the number of animals living in a habitat.
+   *
+   * @param habitat the handle of the habitat
+   *
+   * @return the population of the habitat
+   */
+  int habitatPopulation(int habitat) {
+    return _habitatPopulation[habitat];
+  }
+
+  /**
+   * Retrieves the number of trees in this store.
+   *
+   * @return the number of trees, which is also the next tree handle
+   */
+  int treeCount() {
+    return _treeCount;
+  }
+
+  /**
+   * Retrieves the tree with the given handle.
+   *
+   * @param tree the handle of the tree
+   *
+   * @return the tree with the given handle
+   */
+  Tree tree(int tree) {
+    return _trees[tree];
+  }
+
+  /**
+   * Retrieves the age of a tree.
+   *
+   * @param tree the handle of the tree
+   *
+   * @return the age of the tree
+   */
+  int treeAge(int tree) {
+    return _treeAge[tree];
+  }
+
+  /**
+   * Retrieves the cleaning difficulty of a tree.
+   *
+   * @param tree the handle of the tree
+   *
+   * @return the cleaning difficulty of the tree
+   */
+  int treeCleaningDifficulty(int tree) {
+    return _treeCleaningDifficulty[tree];
+  }
+
+  /**
+   * Retrieves the number of workers in this store.
+   *
+   * @return the number of workers, which is also the next worker handle
+   */
+  int workerCount() {
+    return _workerCount;
+  }
+
+  /**
+   * Retrieves the worker with the given handle.
+   *
+   * @param worker the handle of the worker
+   *
+   * @return the worker with the given handle
+   */
+  Worker worker(int worker) {
+    return _workers[worker];
+  }
+
+  /*
+   * <------------------------ Sets ------------------------>
+   */
+
+  /**
+   * Registers an animal in this store.
+   *
+   * <p>
+   * The population of the habitat of the animal is increased accordingly.
+   *
+   * @param id the identifier of the animal
+   * @param name the name of the animal
+   * @param species the species of the animal
+   * @param habitat the habitat of the animal
+   *
+   * @return the view of the registered animal
+   *
+   * @see Hotel#addAnimal(String, String, String, String)
+   */
+  Animal addAnimal(String id, String name, Species species, Habitat habitat) {
+    int animal = _animals.add(id, name, species.handle(), habitat.handle());
+    _habitatPopulation[habitat.handle()]++;
+    return _animals.animal(animal);
+  }
+
+  /**
+   * Keeps the view of an animal alive, so it can hold on-heap state.
+   *
+   * @param animal the view to be retained
+   *
+   * @see AnimalStore#retain(Animal)
+   */
+  void retainAnimal(Animal animal) {
+    _animals.retain(animal);
+  }
+
+  /**
+   * Moves an animal to another habitat, updating the population of both habitats.
+   *
+   * @param animal the handle of the animal
+   * @param habitat the handle of the new habitat of the animal
+   *
+   * @see Animal#transferAnimal(Habitat)
+   */
+  void moveAnimal(int animal, int habitat) {
+    _habitatPopulation[_animals.habitat(animal)]--;
+    _habitatPopulation[habitat]++;
+    _animals.move(animal, habitat);
+  }
+
+  /**
+   * Removes the animal registered last from this store.
+   *
+   * <p>
+   * The population of the habitat of the animal is decreased accordingly.
+   *
+   * @see Hotel#undo(hva.core.event.HotelEvent)
+   */
+  void removeLastAnimal() {
+    _habitatPopulation[_animals.habitat(_animals.count() - 1)]--;
+    _animals.removeLast();
+  }
+
+  /**
+   * Registers a species in this store.
+   *
+   * @param species the species to be registered
+   *
+   * @return the handle of the species
+   *
+   * @see Species#Species(String, String, EntityStore)
+   */
+  int addSpecies(Species species) {
+    if (_speciesCount == _species.length) {
+      _species = Arrays.copyOf(_species, _speciesCount * 2);
+    }
+    _species[_speciesCount] = species;
+    return _speciesCount++;
+  }
+
+  /**
+   * Removes the species registered last from this store.
+   */
+  void removeLastSpecies() {
+    _species[--_speciesCount] = null;
+  }
+
+  /**
+   * Registers a habitat in this store.
+   *
+   * @param habitat the habitat to be registered
+   * @param area the area of the habitat
+   *
+   * @return the handle of the habitat
+   *
+   * @see Habitat#Habitat(String, String, int, EntityStore)
+   */
+  int addHabitat(Habitat habitat, int area) {
+    if (_habitatCount == _habitats.length) {
+      int capacity = _habitatCount * 2;
+      _habitats = Arrays.copyOf(_habitats, capacity);
+      _habitatArea = Arrays.copyOf(_habitatArea, capacity);
+      _habitatPopulation = Arrays.copyOf(_habitatPopulation, capacity);
+    }
+    _habitats[_habitatCount] = habitat;
+    _habitatArea[_habitatCount] = area;
+    _animals.addHabitat(_habitatCount);
+    return _habitatCount++;
+  }
+
+  /**
+   * Removes the habitat registered last from this store, which must have no animals.
+   */
+  void removeLastHabitat() {
+    _habitats[--_habitatCount] = null;
+    _habitatArea[_habitatCount] = 0;
+  }
+
+  /**
+   * Changes the area of a habitat.
+   *
+   * @param habitat the handle of the habitat
+   * @param area the new area of the habitat
+   */
+  void changeHabitatArea(int habitat, int area) {
+    _habitatArea[habitat] = area;
+  }
+
+  /**
+   * Registers a tree in this store.
+   *
+   * @param tree the tree to be registered
+   * @param age the age of the tree
+   * @param cleaningDifficulty the cleaning difficulty of the tree
+   *
+   * @return the handle of the tree
+   *
+   * @see Tree#Tree(String, String, int, int, Hotel)
+   */
+  int addTree(Tree tree, int age, int cleaningDifficulty) {
+    if (_treeCount == _trees.length) {
+      int capacity = _treeCount * 2;
+      _trees = Arrays.copyOf(_trees, capacity);
+      _treeAge = Arrays.copyOf(_treeAge, capacity);
+      _treeCleaningDifficulty = Arrays.copyOf(_treeCleaningDifficulty, capacity);
+    }
+    _trees[_treeCount] = tree;
+    _treeAge[_treeCount] = age;
+    _treeCleaningDifficulty[_treeCount] = cleaningDifficulty;
+    return _treeCount++;
+  }
+
+  /**
+   * Increases the age of a tree by one.
+   *
+   * @param tree the handle of the tree
+   *
+   * @see Tree#grow()
+   */
+  void growTree(int tree) {
+    _treeAge[tree]++;
+  }
+
+  /**
+   * Decreases the age of a tree by one.
+   *
+   * @param tree the handle of the tree
+   *
+   * @see Tree#revert()
+   */
+  void shrinkTree(int tree) {
+    _treeAge[tree]--;
+  }
+
+  /**
+   * Removes the tree registered last from this store.
+   */
+  void removeLastTree() {
+    _trees[--_treeCount] = null;
+  }
+
+  /**
+   * Registers a worker in this store.
+   *
+   * @param worker the worker to be registered
+   *
+   * @return the handle of the worker
+   *
+   * @see Worker#Worker(String, String, Hotel)
+   */
+  int addWorker(Worker worker) {
+    if (_workerCount == _workers.length) {
+      _workers = Arrays.copyOf(_workers, _workerCount * 2);
+    }
+    _workers[_workerCount] = worker;
+    return _workerCount++;
+  }
+
+  /**
+   * Removes the worker registered last from this store.
+   */
+  void removeLastWorker() {
+    _workers[--_workerCount] = null;
+  }
+
+  /*
+   * <------------------------ Others ------------------------>
+   */
+
+  /**
+   * Calculates the satisfaction of an animal.
+   *
+   * <p>
+   * It follows the formula:
+   * <p>
+   * satisfaction = 20 + 3*sameSpecies - 2*differentSpecies + area/population + suitability
+   *
+   * @param animal the handle of the animal
+   *
+   * @return the satisfaction of the animal
+   *
+   * @see Animal#satisfaction()
+   */
+  double animalSatisfaction(int animal) {
+    int habitat = _animals.habitat(animal);
+    Habitat currentHabitat = _habitats[habitat];
+    Species species = _species[_animals.species(animal)];
+    int sameSpecies = currentHabitat.sameSpeciesCount(species);
+    int population = _habitatPopulation[habitat];
+
+    return (20 + (3 * (sameSpecies - 1)) - (2 * (population - sameSpecies))
+        + ((double) _habitatArea[habitat] / population)
+        + currentHabitat.suitability(species).value());
+  }
+
+  /**
+   * Calculates the change in satisfaction that transferring an animal to a habitat would make.
+   *
+   * <p>
+   * The change follows from the animal formula in closed form, from the population, area and
+   * suitability of the two habitats and the number of animals of the species of the animal in each:
+   * each animal of the same species left behind loses 3 and each of another species gains 2, and
+   * the area of the habitat is shared by one animal fewer, which adds area/population to the
+   * animals left behind. The habitat joined sees the opposite, and the caretaker formula gains
+   * 3/caretakers for each caretaker of the habitat left and loses as much for each of the habitat
+   * joined. Only the counters of the two habitats are read, whatever the size of the hotel.
+   *
+   * @param animal the handle of the animal
+   * @param to the habitat the animal would be transferred to
+   *
+   * @return the change in satisfaction, split by whose satisfaction changes
+   *
+   * @see #animalSatisfaction(int)
+   * @see CareTakerSatisfactionDefaultFormula
+   */
+  TransferPreview previewTransfer(int animal, Habitat to) {
+    int habitat = _animals.habitat(animal);
+    Habitat from = _habitats[habitat];
+    if (from == to) {
+      return new TransferPreview(0, 0, 0, 0);
+    }
+    Species species = _species[_animals.species(animal)];
+
+    int population = _habitatPopulation[habitat];
+    int sameSpecies = from.sameSpeciesCount(species);
+    int area = _habitatArea[habitat];
+    double left = -3 * (sameSpecies - 1) + 2 * (population - sameSpecies)
+        + (population > 1 ? (double) area / population : 0);
+
+    int toPopulation = _habitatPopulation[to.handle()];
+    int toSameSpecies = to.sameSpeciesCount(species);
+    int toArea = _habitatArea[to.handle()];
+    double joined = 3 * toSameSpecies - 2 * (toPopulation - toSameSpecies)
+        - (toPopulation > 0 ? (double) toArea / (toPopulation + 1) : 0);
+    double moved = 20 + 3 * toSameSpecies - 2 * (toPopulation - toSameSpecies)
+        + (double) toArea / (toPopulation + 1) + to.suitability(species).value();
+
+    double careTakers = 0;
+    if (from.responsibleCareTakers() > 0) {
+      careTakers += 3.0 * from.responsibleCareTakers() / from.careTakers().size();
+    }
+    if (to.responsibleCareTakers() > 0) {
+      careTakers -= 3.0 * to.responsibleCareTakers() / to.careTakers().size();
+    }
+    return new TransferPreview(moved - animalSatisfaction(animal), left, joined, careTakers);
+  }
+
+  /**
+   * Calculates the sum of the satisfaction of every animal in this store.
+   *
+   * @return the total satisfaction of the animals
+   *
+   * @see #animalSatisfaction(int)
+   * @see Hotel#satisfaction()
+   */
+  double animalsSatisfaction() {
+    double totalSatisfaction = 0;
+
+    for (int animal = 0; animal < _animals.count(); animal++) {
+      totalSatisfaction += animalSatisfaction(animal);
+    }
+
+    return totalSatisfaction;
+  }
+
+  /**
+   * Shares the Strings of the animals of this store through the pool of canonical Strings.
+   *
+   * @see AnimalStore#canonicalizeStrings(StringPool)
+   */
+  void canonicalizeStrings() {
+    _animals.canonicalizeStrings(_strings);
+  }
+
+  /**
+   * Accounts for the heap retained by this store and the entities registered in it.
+   *
+   * <p>
+   * The arrays in which the entities and their attributes are kept are accounted with the category
+   * of the entities.
+   *
+   * @param footprint the estimate to which this store is added
+   *
+   * @see HeapFootprint
+   * @see AnimalStore#measure(HeapFootprint)
+   */
+  void measure(HeapFootprint footprint) {
+    _animals.measure(footprint);
+
+    footprint.addOverhead(FootprintCategory.SPECIES,
+        HeapFootprint.array(_species.length, HeapFootprint.REFERENCE));
+    for (int species = 0; species < _speciesCount; species++) {
+      footprint.addEntity(FootprintCategory.SPECIES, _species[species].retainedBytes());
+      footprint.addString(_species[species].id());
+      footprint.addString(_species[species].name());
+    }
+
+    footprint.addOverhead(FootprintCategory.HABITATS,
+        HeapFootprint.array(_habitats.length, HeapFootprint.REFERENCE)
+            + HeapFootprint.array(_habitatArea.length, Integer.BYTES)
+            + HeapFootprint.array(_habitatPopulation.length, Integer.BYTES));
+    for (int habitat = 0; habitat < _habitatCount; habitat++) {
+      footprint.addEntity(FootprintCategory.HABITATS, _habitats[habitat].retainedBytes());
+      footprint.addString(_habitats[habitat].id());
+      footprint.addString(_habitats[habitat].name());
+    }
+
+    footprint.addOverhead(FootprintCategory.TREES,
+        HeapFootprint.array(_trees.length, HeapFootprint.REFERENCE)
+            + HeapFootprint.array(_treeAge.length, Integer.BYTES)
+            + HeapFootprint.array(_treeCleaningDifficulty.length, Integer.BYTES));
+    for (int tree = 0; tree < _treeCount; tree++) {
+      footprint.addEntity(FootprintCategory.TREES, _trees[tree].retainedBytes());
+      footprint.addString(_trees[tree].id());
+      footprint.addString(_trees[tree].name());
+    }
+
+    footprint.addOverhead(FootprintCategory.WORKERS,
+        HeapFootprint.array(_workers.length, HeapFootprint.REFERENCE));
+    for (int worker = 0; worker < _workerCount; worker++) {
+      footprint.addEntity(FootprintCategory.WORKERS, _workers[worker].retainedBytes());
+      footprint.addString(_workers[worker].id());
+      footprint.addString(_workers[worker].name());
+    }
+  }
+}
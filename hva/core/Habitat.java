@@ -1,10 +1,9 @@
 package hva.core;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import hva.core.enumerator.Influence;
@@ -20,19 +19,35 @@ import java.io.Serializable;
  * 
  * <p>
  * The habitat can return its {@link #sameSpeciesCount(Species)}.
+ * 
+ * <p>
+ * The population and suitability of each species are kept in arrays indexed by the handle of the
+ * species, so the satisfaction formulas read them without hashing. Species with handles beyond
+ * {@link #DENSE_SPECIES_LIMIT} are kept in sparse maps instead, so that hotels with huge numbers of
+ * species do not pay for dense arrays in every habitat.
  */
 public class Habitat implements Serializable, Comparable<Habitat> {
 
   @Serial
-  private static final long serialVersionUID = 1L;
+  private static final long serialVersionUID = 2L;
+
+  /** Number of species handles kept in the dense arrays of a habitat. */
+  static final int DENSE_SPECIES_LIMIT = 1 << 12;
+
+  /** Influences by code. Code zero is an unset, neutral suitability. */
+  private static final Influence[] INFLUENCES = Influence.values();
 
   private final String _id;
   private final String _name;
-  private int _area;
-  private final Map<Species, List<Animal>> _animals = new HashMap<Species, List<Animal>>();
-  private final Map<Species, Influence> _suitability = new HashMap<Species, Influence>();
-  private final Map<String, CareTaker> _careTakers = new CaseInsensitiveHashMap<CareTaker>();
-  private final Map<String, Tree> _trees = new CaseInsensitiveHashMap<Tree>();
+  private final EntityStore _store;
+  private final int _handle;
+  private int[] _speciesPopulation = new int[0];
+  private byte[] _suitability = new byte[0];
+  private Map<Species, Integer> _sparsePopulation;
+  private Map<Species, Influence> _sparseSuitability;
+  private final Map<String, CareTaker> _careTakers;
+  private int _responsibleCareTakers;
+  private final Map<String, Tree> _trees;
 
   /*
    * <------------------------ Constructor ------------------------>
@@ -44,11 +59,17 @@ public class Habitat implements Serializable, Comparable<Habitat> {
    * @param id the identifier of this habitat
    * @param name the name of this habitat
    * @param area the area of this habitat
+   * @param store the store in which the hot attributes of this habitat are kept
+   * 
+   * @see EntityStore
    */
-  Habitat(String id, String name, int area) {
+  Habitat(String id, String name, int area, EntityStore store) {
     _id = id;
     _name = name;
-    _area = area;
+    _store = store;
+    _handle = store.addHabitat(this, area);
+    _careTakers = new CaseInsensitiveHashMap<CareTaker>(store.strings());
+    _trees = new CaseInsensitiveHashMap<Tree>(store.strings());
   }
 
   /*
@@ -67,13 +88,43 @@ public class Habitat implements Serializable, Comparable<Habitat> {
     return _id;
   }
 
+  /**
+   * Retrieves the name of this habitat.
+   *
+   * @return the name of this habitat
+   */
+  String name() {
+    return _name;
+  }
+
   /**
    * Retrieves the area of this habitat.
    * 
    * @return the area of this habitat
    */
   int area() {
-    return _area;
+    return _store.habitatArea(_handle);
+  }
+
+  /**
+   * Retrieves the number of animals living in this habitat.
+   * 
+   * @return the population of this habitat
+   */
+  int population() {
+    return _store.habitatPopulation(_handle);
+  }
+
+  /**
+   * Retrieves the handle of this habitat.
+   * 
+   * <p>
+   * The handle is the dense index of this habitat in the {@link EntityStore} of its hotel.
+   * 
+   * @return the handle of this habitat
+   */
+  int handle() {
+    return _handle;
   }
 
   /**
@@ -90,7 +141,15 @@ public class Habitat implements Serializable, Comparable<Habitat> {
    * @see Influence
    */
   Influence suitability(Species species) {
-    return _suitability.getOrDefault(species, Influence.NEU);
+    int ordinal = species.handle();
+    if (ordinal < _suitability.length) {
+      int code = _suitability[ordinal];
+      return code == 0 ? Influence.NEU : INFLUENCES[code - 1];
+    }
+    if (ordinal < DENSE_SPECIES_LIMIT || _sparseSuitability == null) {
+      return Influence.NEU;
+    }
+    return _sparseSuitability.getOrDefault(species, Influence.NEU);
   }
 
   /**
@@ -99,15 +158,16 @@ public class Habitat implements Serializable, Comparable<Habitat> {
    * <p>
    * This method provides a way to access the collection of animals without allowing modifications
    * to the underlying collection. The returned collection is a read-only view, and any attempts to
-   * modify it will result in an {@code UnsupportedOperationException}.
+   * modify it will result in an {@code UnsupportedOperationException}. No list is allocated by this
+   * method, the view follows the animals of this habitat in the store.
    * 
    * @return an unmodifiable collection of the animals
    * 
-   * @see Collections#unmodifiableCollection(Collection)
+   * @see EntityStore#habitatAnimals(int)
    * @see Animal
    */
   Collection<Animal> animals() {
-    return _animals.values().stream().flatMap(List::stream).toList();
+    return _store.habitatAnimals(_handle);
   }
 
   /**
@@ -127,6 +187,19 @@ public class Habitat implements Serializable, Comparable<Habitat> {
     return Collections.unmodifiableCollection(_careTakers.values());
   }
 
+  /**
+   * Retrieves the number of caretakers which have this habitat as a responsibility.
+   * 
+   * <p>
+   * A caretaker whose responsibility for this habitat was removed is still counted by
+   * {@link #careTakers()}, which divides the work of the habitat, but not by this method.
+   * 
+   * @return the number of caretakers responsible for this habitat
+   */
+  int responsibleCareTakers() {
+    return _responsibleCareTakers;
+  }
+
   /**
    * Retrieves all the trees in this habitat.
    * 
@@ -144,6 +217,29 @@ public class Habitat implements Serializable, Comparable<Habitat> {
     return Collections.unmodifiableCollection(_trees.values());
   }
 
+  /**
+   * Estimates the heap retained by this habitat, excluding its Strings, caretakers and trees.
+   *
+   * <p>
+   * The population and suitability of each species, and the maps of caretakers and trees, are
+   * accounted with this habitat.
+   *
+   * @return the estimated number of bytes retained by this habitat
+   *
+   * @see HeapFootprint
+   */
+  long retainedBytes() {
+    long bytes = HeapFootprint.object(9 * HeapFootprint.REFERENCE + 2 * Integer.BYTES)
+        + HeapFootprint.array(_speciesPopulation.length, Integer.BYTES)
+        + HeapFootprint.array(_suitability.length, Byte.BYTES)
+        + HeapFootprint.map(_sparsePopulation) + HeapFootprint.map(_sparseSuitability)
+        + HeapFootprint.map(_careTakers) + HeapFootprint.map(_trees);
+    if (_sparsePopulation != null) {
+      bytes += _sparsePopulation.size() * (long) HeapFootprint.object(Integer.BYTES);
+    }
+    return bytes;
+  }
+
   /*
    * <------------------------ Sets ------------------------>
    */
@@ -154,7 +250,7 @@ public class Habitat implements Serializable, Comparable<Habitat> {
    * @param area the new area of this habitat
    */
   void changeArea(int area) {
-    _area = area;
+    _store.changeHabitatArea(_handle, area);
   }
 
   /**
@@ -171,10 +267,21 @@ public class Habitat implements Serializable, Comparable<Habitat> {
    * @see Species
    */
   void changeSuitability(Species species, Influence influence) {
-    if (influence == Influence.NEU) {
-      _suitability.remove(species);
+    int ordinal = species.handle();
+    if (ordinal < DENSE_SPECIES_LIMIT) {
+      if (ordinal >= _suitability.length) {
+        _suitability = Arrays.copyOf(_suitability, denseCapacity(ordinal, _suitability.length));
+      }
+      _suitability[ordinal] = (byte) (influence.ordinal() + 1);
+    } else if (influence == Influence.NEU) {
+      if (_sparseSuitability != null) {
+        _sparseSuitability.remove(species);
+      }
     } else {
-      _suitability.put(species, influence);
+      if (_sparseSuitability == null) {
+        _sparseSuitability = new HashMap<Species, Influence>();
+      }
+      _sparseSuitability.put(species, influence);
     }
   }
 
@@ -187,7 +294,20 @@ public class Habitat implements Serializable, Comparable<Habitat> {
    * @see Animal
    */
   void addAnimal(Animal animal) {
-    _animals.computeIfAbsent(animal.species(), k -> new ArrayList<Animal>()).add(animal);
+    Species species = animal.species();
+    int ordinal = species.handle();
+    if (ordinal < DENSE_SPECIES_LIMIT) {
+      if (ordinal >= _speciesPopulation.length) {
+        _speciesPopulation =
+            Arrays.copyOf(_speciesPopulation, denseCapacity(ordinal, _speciesPopulation.length));
+      }
+      _speciesPopulation[ordinal]++;
+    } else {
+      if (_sparsePopulation == null) {
+        _sparsePopulation = new HashMap<Species, Integer>();
+      }
+      _sparsePopulation.merge(species, 1, Integer::sum);
+    }
   }
 
   /**
@@ -195,14 +315,23 @@ public class Habitat implements Serializable, Comparable<Habitat> {
    * 
    * @param animal The animal to be removed.
    * 
+   * @throws IllegalStateException if this habitat counts no animal of the species of the animal,
+   *         which means the population of this habitat is out of step with its animals.
+   * 
    * @see Hotel#transferAnimal(String, String)
    * @see Animal
    */
   void removeAnimal(Animal animal) {
-    List<Animal> speciesAnimals = _animals.get(animal.species());
-    speciesAnimals.remove(animal);
-    if (speciesAnimals.isEmpty()) {
-      _animals.remove(animal.species());
+    Species species = animal.species();
+    int ordinal = species.handle();
+    if (ordinal < _speciesPopulation.length && _speciesPopulation[ordinal] > 0) {
+      _speciesPopulation[ordinal]--;
+    } else if (ordinal >= DENSE_SPECIES_LIMIT && _sparsePopulation != null
+        && _sparsePopulation.containsKey(species)) {
+      _sparsePopulation.computeIfPresent(species, (key, count) -> count > 1 ? count - 1 : null);
+    } else {
+      throw new IllegalStateException(
+          "Habitat " + _id + " has no animal of species " + species.id() + " to remove");
     }
   }
 
@@ -218,16 +347,29 @@ public class Habitat implements Serializable, Comparable<Habitat> {
     _trees.put(tree.id(), tree);
   }
 
+  /**
+   * Removes a tree from this habitat.
+   * 
+   * @param tree The tree to be removed.
+   * 
+   * @see Hotel#undo(hva.core.event.HotelEvent)
+   */
+  void removeTree(Tree tree) {
+    _trees.remove(tree.id());
+  }
+
   /**
    * Adds a caretaker to this habitat.
    * 
    * @param careTaker The caretaker to be added.
    * 
+   * @return whether the caretaker was already added to this habitat
+   * 
    * @see CareTaker#addResponsibility(String)
    * @see CareTaker
    */
-  void addCareTaker(CareTaker careTaker) {
-    _careTakers.put(careTaker.id(), careTaker);
+  boolean addCareTaker(CareTaker careTaker) {
+    return _careTakers.put(careTaker.id(), careTaker) != null;
   }
 
   /**
@@ -242,6 +384,18 @@ public class Habitat implements Serializable, Comparable<Habitat> {
     _careTakers.remove(careTaker.id());
   }
 
+  /**
+   * Counts a caretaker which gained or lost this habitat as a responsibility.
+   * 
+   * @param delta 1 if the caretaker gained the responsibility, -1 if it lost it
+   * 
+   * @see CareTaker#addResponsibility(String)
+   * @see CareTaker#removeResponsibility(String)
+   */
+  void changeResponsibleCareTakers(int delta) {
+    _responsibleCareTakers += delta;
+  }
+
   /*
    * <------------------------ Others ------------------------>
    */
@@ -256,7 +410,26 @@ public class Habitat implements Serializable, Comparable<Habitat> {
    * @see Species
    */
   int sameSpeciesCount(Species species) {
-    return _animals.getOrDefault(species, new ArrayList<Animal>()).size();
+    int ordinal = species.handle();
+    if (ordinal < _speciesPopulation.length) {
+      return _speciesPopulation[ordinal];
+    }
+    if (ordinal < DENSE_SPECIES_LIMIT || _sparsePopulation == null) {
+      return 0;
+    }
+    return _sparsePopulation.getOrDefault(species, 0);
+  }
+
+  /**
+   * Computes the new length of a dense array so that it holds the given species handle.
+   * 
+   * @param ordinal the handle of the species
+   * @param length the current length of the array
+   * 
+   * @return the new length, at least twice the current one and at most the dense limit
+   */
+  private static int denseCapacity(int ordinal, int length) {
+    return Math.min(DENSE_SPECIES_LIMIT, Math.max(ordinal + 1, 2 * length));
   }
 
   /**
@@ -274,7 +447,7 @@ public class Habitat implements Serializable, Comparable<Habitat> {
    */
   @Override
   public String toString() {
-    return String.format("HABITAT|%s|%s|%d|%d", _id, _name, _area, _trees.size());
+    return "HABITAT|" + _id + "|" + _name + "|" + area() + "|" + _trees.size();
   }
 
   /**
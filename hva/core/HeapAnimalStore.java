@@ -0,0 +1,197 @@
+package hva.core;
+
+import java.io.Serial;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import hva.core.enumerator.FootprintCategory;
+
+/**
+ * Class representing the default, on-heap storage of the animals of a zoo hotel.
+ *
+ * <p>
+ * The records are kept in parallel arrays indexed by handle and every animal has a single view,
+ * created when it is added and kept for the lifetime of this store.
+ *
+ * @see AnimalStore
+ */
+public class HeapAnimalStore extends AnimalStore {
+
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final EntityStore _store;
+  private int _count;
+  private String[] _ids = new String[INITIAL_CAPACITY];
+  private String[] _names = new String[INITIAL_CAPACITY];
+  private int[] _species = new int[INITIAL_CAPACITY];
+  private int[] _habitat = new int[INITIAL_CAPACITY];
+  private int[] _next = new int[INITIAL_CAPACITY];
+  private int[] _previous = new int[INITIAL_CAPACITY];
+  private Animal[] _animals = new Animal[INITIAL_CAPACITY];
+  private final Map<String, Animal> _index = new CaseInsensitiveHashMap<Animal>();
+
+  /*
+   * <------------------------ Constructor ------------------------>
+   */
+
+  /**
+   * Constructor which creates this store.
+   *
+   * @param store the entity store the views of this store belong to
+   */
+  HeapAnimalStore(EntityStore store) {
+    _store = store;
+  }
+
+  /*
+   * <------------------------ Gets ------------------------>
+   */
+
+  @Override
+  int count() {
+    return _count;
+  }
+
+  @Override
+  int find(String id) {
+    Animal animal = _index.get(id);
+    return animal == null ? NONE : animal.handle();
+  }
+
+  @Override
+  String id(int animal) {
+    return _ids[animal];
+  }
+
+  @Override
+  String name(int animal) {
+    return _names[animal];
+  }
+
+  @Override
+  int species(int animal) {
+    return _species[animal];
+  }
+
+  @Override
+  int habitat(int animal) {
+    return _habitat[animal];
+  }
+
+  @Override
+  Animal animal(int animal) {
+    return _animals[animal];
+  }
+
+  @Override
+  int nextInHabitat(int animal) {
+    return _next[animal];
+  }
+
+  @Override
+  int previousInHabitat(int animal) {
+    return _previous[animal];
+  }
+
+  /*
+   * <------------------------ Sets ------------------------>
+   */
+
+  @Override
+  void retain(Animal animal) {
+    // Every view is already retained.
+  }
+
+  @Override
+  int append(String id, String name, int species, int habitat) {
+    if (_count == _ids.length) {
+      int capacity = _count * 2;
+      _ids = Arrays.copyOf(_ids, capacity);
+      _names = Arrays.copyOf(_names, capacity);
+      _species = Arrays.copyOf(_species, capacity);
+      _habitat = Arrays.copyOf(_habitat, capacity);
+      _next = Arrays.copyOf(_next, capacity);
+      _previous = Arrays.copyOf(_previous, capacity);
+      _animals = Arrays.copyOf(_animals, capacity);
+    }
+
+    int animal = _count++;
+    _ids[animal] = id;
+    _names[animal] = _store.strings().canonical(name);
+    _species[animal] = species;
+    _habitat[animal] = habitat;
+    _animals[animal] = new Animal(_store, animal);
+    _index.put(id, _animals[animal]);
+    return animal;
+  }
+
+  @Override
+  void truncate() {
+    int animal = --_count;
+    _index.remove(_ids[animal]);
+    _ids[animal] = null;
+    _names[animal] = null;
+    _animals[animal] = null;
+  }
+
+  @Override
+  void setHabitat(int animal, int habitat) {
+    _habitat[animal] = habitat;
+  }
+
+  @Override
+  void setNextInHabitat(int animal, int next) {
+    _next[animal] = next;
+  }
+
+  @Override
+  void setPreviousInHabitat(int animal, int previous) {
+    _previous[animal] = previous;
+  }
+
+  /*
+   * <------------------------ Others ------------------------>
+   */
+
+  @Override
+  void canonicalizeStrings(StringPool strings) {
+    for (int animal = 0; animal < _count; animal++) {
+      _names[animal] = strings.canonical(_names[animal]);
+    }
+  }
+
+  /**
+   * Accounts for the heap retained by this store and its animals.
+   *
+   * <p>
+   * The columns of the records are accounted with the animals, and the index of identifiers with
+   * the indexes of the hotel.
+   *
+   * @param footprint the estimate to which this store is added
+   *
+   * @see AnimalStore#measure(HeapFootprint)
+   */
+  @Override
+  void measure(HeapFootprint footprint) {
+    super.measure(footprint);
+    int capacity = _ids.length;
+    footprint.addOverhead(FootprintCategory.ANIMALS,
+        HeapFootprint.object(10 * HeapFootprint.REFERENCE + Integer.BYTES)
+            + 3 * HeapFootprint.array(capacity, HeapFootprint.REFERENCE)
+            + 4 * HeapFootprint.array(capacity, Integer.BYTES));
+    for (int animal = 0; animal < _count; animal++) {
+      footprint.addEntity(FootprintCategory.ANIMALS, _animals[animal].retainedBytes());
+      footprint.addString(_ids[animal]);
+      footprint.addString(_names[animal]);
+    }
+
+    footprint.addOverhead(FootprintCategory.INDEXES, HeapFootprint.map(_index));
+    for (String key : _index.keySet()) {
+      footprint.addString(key);
+    }
+  }
+}
@@ -0,0 +1,280 @@
+package hva.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import hva.core.enumerator.FootprintCategory;
+
+/**
+ * Class representing an estimate of the heap retained by a zoo hotel, per category of entity.
+ *
+ * <p>
+ * The estimate follows the layout of objects in a 64-bit HotSpot JVM with compressed references:
+ * 12 byte object headers, 16 byte array headers, 4 byte references and sizes aligned to 8 bytes.
+ * Each entity accounts for its own fields, arrays and internal maps. The entities it refers to are
+ * accounted in their own categories, and every String is accounted once in
+ * {@link FootprintCategory#STRINGS}, however many entities share it. The case-insensitive maps by
+ * which the hotel finds its entities are accounted in {@link FootprintCategory#INDEXES}.
+ *
+ * <p>
+ * The capacity of the tables of maps is not visible, so it is estimated as the smallest one that
+ * holds their entries. Records of animals kept outside the heap are not accounted.
+ *
+ * @see Hotel#heapFootprint()
+ */
+public class HeapFootprint {
+
+  /** Size of a reference with compressed references. */
+  static final int REFERENCE = 4;
+
+  private static final int OBJECT_HEADER = 12;
+  private static final int ARRAY_HEADER = 16;
+  private static final int STRING_SHALLOW_SIZE = 24;
+  private static final int MAP_ENTRY = object(3 * REFERENCE + Integer.BYTES);
+  private static final int MAP_SHALLOW_SIZE = object(5 * REFERENCE + 4 * Integer.BYTES);
+  private static final int MINIMUM_TABLE_CAPACITY = 16;
+  private static final double LOAD_FACTOR = 0.75;
+
+  private static final FootprintCategory[] CATEGORIES = FootprintCategory.values();
+
+  private final long[] _counts = new long[CATEGORIES.length];
+  private final long[] _bytes = new long[CATEGORIES.length];
+  private final Set<String> _strings = Collections.newSetFromMap(new IdentityHashMap<>());
+
+  /*
+   * <------------------------ Gets ------------------------>
+   */
+
+  /**
+   * Retrieves the number of entities of a category.
+   *
+   * @param category the category
+   *
+   * @return the number of entities of the category
+   */
+  public long count(FootprintCategory category) {
+    return _counts[category.ordinal()];
+  }
+
+  /**
+   * Retrieves the estimated heap retained by a category.
+   *
+   * @param category the category
+   *
+   * @return the estimated number of bytes retained by the category
+   */
+  public long bytes(FootprintCategory category) {
+    return _bytes[category.ordinal()];
+  }
+
+  /**
+   * Retrieves the estimated heap retained by each entity of a category, on average.
+   *
+   * @param category the category
+   *
+   * @return the estimated number of bytes per entity, or zero if the category has no entities
+   */
+  public long bytesPerEntity(FootprintCategory category) {
+    long count = count(category);
+    return count == 0 ? 0 : bytes(category) / count;
+  }
+
+  /**
+   * Retrieves the estimated heap retained by the whole hotel.
+   *
+   * @return the estimated number of bytes retained by every category
+   */
+  public long totalBytes() {
+    long total = 0;
+    for (long bytes : _bytes) {
+      total += bytes;
+    }
+    return total;
+  }
+
+  /**
+   * Projects the heap retained by a category when the hotel grows.
+   *
+   * <p>
+   * Every category grows linearly with the number of entities, so the projection scales the
+   * current estimate by the growth factor.
+   *
+   * @param category the category
+   * @param growthFactor the ratio between the future and current number of entities
+   *
+   * @return the projected number of bytes retained by the category
+   */
+  public long projectedBytes(FootprintCategory category, double growthFactor) {
+    return Math.round(bytes(category) * growthFactor);
+  }
+
+  /**
+   * Projects the heap retained by the whole hotel when it grows.
+   *
+   * @param growthFactor the ratio between the future and current number of entities
+   *
+   * @return the projected number of bytes retained by every category
+   */
+  public long projectedTotalBytes(double growthFactor) {
+    return Math.round(totalBytes() * growthFactor);
+  }
+
+  /*
+   * <------------------------ Sets ------------------------>
+   */
+
+  /**
+   * Accounts for an entity of a category.
+   *
+   * @param category the category of the entity
+   * @param bytes the estimated number of bytes retained by the entity
+   */
+  void addEntity(FootprintCategory category, long bytes) {
+    _counts[category.ordinal()]++;
+    _bytes[category.ordinal()] += bytes;
+  }
+
+  /**
+   * Accounts for memory of a category which does not belong to any single entity, such as the
+   * arrays in which the entities are kept.
+   *
+   * @param category the category
+   * @param bytes the estimated number of bytes
+   */
+  void addOverhead(FootprintCategory category, long bytes) {
+    _bytes[category.ordinal()] += bytes;
+  }
+
+  /**
+   * Accounts for a String, unless this same String was already accounted.
+   *
+   * @param value the String, which may be null
+   */
+  void addString(String value) {
+    if (value != null && _strings.add(value)) {
+      addEntity(FootprintCategory.STRINGS, string(value));
+    }
+  }
+
+  /*
+   * <------------------------ Others ------------------------>
+   */
+
+  /**
+   * Estimates the size of an object.
+   *
+   * @param fieldBytes the total size of the fields of the object
+   *
+   * @return the estimated number of bytes of the object
+   */
+  static int object(int fieldBytes) {
+    return align(OBJECT_HEADER + fieldBytes);
+  }
+
+  /**
+   * Estimates the size of an array.
+   *
+   * @param length the length of the array
+   * @param elementBytes the size of each element of the array
+   *
+   * @return the estimated number of bytes of the array
+   */
+  static long array(int length, int elementBytes) {
+    return align(ARRAY_HEADER + (long) length * elementBytes);
+  }
+
+  /**
+   * Estimates the heap retained by a String.
+   *
+   * <p>
+   * Strings with Latin-1 characters only are stored with one byte per character, the others with
+   * two.
+   *
+   * @param value the String
+   *
+   * @return the estimated number of bytes retained by the String
+   */
+  static long string(String value) {
+    int bytesPerChar = 1;
+    for (int i = 0; i < value.length() && bytesPerChar == 1; i++) {
+      if (value.charAt(i) > 0xFF) {
+        bytesPerChar = 2;
+      }
+    }
+    return STRING_SHALLOW_SIZE + array(value.length(), bytesPerChar);
+  }
+
+  /**
+   * Estimates the heap retained by a hash map, excluding its keys and values.
+   *
+   * @param map the map, which may be null
+   *
+   * @return the estimated number of bytes of the map, its table and its entries
+   */
+  static long map(Map<?, ?> map) {
+    if (map == null) {
+      return 0;
+    }
+    long bytes = MAP_SHALLOW_SIZE + (long) map.size() * MAP_ENTRY;
+    if (!map.isEmpty()) {
+      int capacity = MINIMUM_TABLE_CAPACITY;
+      while (map.size() > capacity * LOAD_FACTOR) {
+        capacity <<= 1;
+      }
+      bytes += array(capacity, REFERENCE);
+    }
+    return bytes;
+  }
+
+  /**
+   * Rounds a size up to the 8 byte alignment of objects in the heap.
+   *
+   * @param size the size to be aligned
+   *
+   * @return the aligned size
+   */
+  private static int align(int size) {
+    return (size + 7) & ~7;
+  }
+
+  /**
+   * Rounds a size up to the 8 byte alignment of objects in the heap.
+   *
+   * @param size the size to be aligned
+   *
+   * @return the aligned size
+   */
+  private static long align(long size) {
+    return (size + 7) & ~7L;
+  }
+
+  /**
+   * Returns a report of this estimate, one line per category followed by the total.
+   *
+   * <p>
+   * Each category follows the format:
+   * <p>
+   * categoria|numeroEntidades|bytes|bytesPorEntidade|bytesProjetados
+   * <p>
+   * The total follows the format:
+   * <p>
+   * TOTAL|bytes|bytesProjetados
+   *
+   * @param growthFactor the ratio between the future and current number of entities
+   *
+   * @return the lines of the report
+   */
+  public List<String> report(double growthFactor) {
+    List<String> lines = new ArrayList<String>(CATEGORIES.length + 1);
+    for (FootprintCategory category : CATEGORIES) {
+      lines.add(category + "|" + count(category) + "|" + bytes(category) + "|"
+          + bytesPerEntity(category) + "|" + projectedBytes(category, growthFactor));
+    }
+    lines.add("TOTAL|" + totalBytes() + "|" + projectedTotalBytes(growthFactor));
+    return lines;
+  }
+}
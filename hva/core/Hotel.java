@@ -1,5 +1,6 @@
 package hva.core;
 
+import hva.core.enumerator.FootprintCategory;
 import hva.core.enumerator.Influence;
 import hva.core.enumerator.SeasonType;
 import hva.core.exception.AnimalNotFoundException;
@@ -19,6 +20,12 @@ import hva.core.exception.UnrecognizedWorkerTypeException;
 import hva.core.exception.VaccineNotFoundException;
 import hva.core.exception.WorkerNotAuthorizedException;
 import hva.core.exception.WorkerNotFoundException;
+import hva.core.event.HotelEvent;
+import hva.core.event.HotelEventSink;
+import hva.core.jfr.SatisfactionEvent;
+import hva.core.jfr.SeasonEvent;
+import hva.core.metrics.Metrics;
+import hva.core.metrics.Timer;
 
 import java.io.IOException;
 import java.io.Serial;
@@ -27,6 +34,7 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -43,18 +51,78 @@ import java.util.HashSet;
  */
 public class Hotel implements Serializable {
 
+  /**
+   * Version of the saved format. Version 2 keeps the attributes of the entities in their
+   * {@link EntityStore} and shares strings through a {@link StringPool}, so files saved by version 1
+   * are refused.
+   */
   @Serial
-  private static final long serialVersionUID = 1L;
+  private static final long serialVersionUID = 2L;
+
+  private static final Timer ADD_ANIMAL_TIMER = Metrics.timer("Hotel.addAnimal");
+  private static final Timer ADD_SPECIES_TIMER = Metrics.timer("Hotel.addSpecies");
+  private static final Timer ADD_WORKER_TIMER = Metrics.timer("Hotel.addWorker");
+  private static final Timer ADD_HABITAT_TIMER = Metrics.timer("Hotel.addHabitat");
+  private static final Timer ADD_TREE_TO_HABITAT_TIMER = Metrics.timer("Hotel.addTreeToHabitat");
+  private static final Timer ADD_TREE_TIMER = Metrics.timer("Hotel.addTree");
+  private static final Timer ADD_VACCINE_TIMER = Metrics.timer("Hotel.addVaccine");
+  private static final Timer PROGRESS_SEASON_TIMER = Metrics.timer("Hotel.progressSeason");
+  private static final Timer SATISFACTION_TIMER = Metrics.timer("Hotel.satisfaction");
+  private static final Timer TRANSFER_ANIMAL_TIMER = Metrics.timer("Hotel.transferAnimal");
+  private static final Timer ANIMAL_SATISFACTION_TIMER = Metrics.timer("Hotel.animalSatisfaction");
+  private static final Timer PREVIEW_TRANSFER_TIMER = Metrics.timer("Hotel.previewTransfer");
+  private static final Timer APPLY_PLACEMENT_TIMER = Metrics.timer("Hotel.applyPlacement");
+  private static final Timer APPLY_REBALANCE_TIMER = Metrics.timer("Hotel.applyRebalance");
+  private static final Timer ADD_RESPONSIBILITY_TO_WORKER_TIMER =
+      Metrics.timer("Hotel.addResponsibilityToWorker");
+  private static final Timer REMOVE_RESPONSIBILITY_FROM_WORKER_TIMER =
+      Metrics.timer("Hotel.removeResponsibilityFromWorker");
+  private static final Timer WORKER_SATISFACTION_TIMER = Metrics.timer("Hotel.workerSatisfaction");
+  private static final Timer CHANGE_HABITAT_AREA_TIMER = Metrics.timer("Hotel.changeHabitatArea");
+  private static final Timer CHANGE_HABITAT_SUITABILITY_TIMER =
+      Metrics.timer("Hotel.changeHabitatSuitability");
+  private static final Timer VACCINATE_ANIMAL_TIMER = Metrics.timer("Hotel.vaccinateAnimal");
 
   private SeasonState _season = new SeasonSpring();
-  private final Map<String, Species> _species = new CaseInsensitiveHashMap<Species>();
-  private final Map<String, Vaccine> _vaccines = new CaseInsensitiveHashMap<Vaccine>();
-  private final Map<String, Animal> _animals = new CaseInsensitiveHashMap<Animal>();
-  private final Map<String, Habitat> _habitats = new CaseInsensitiveHashMap<Habitat>();
-  private final Map<String, Tree> _trees = new CaseInsensitiveHashMap<Tree>();
-  private final Map<String, Worker> _workers = new CaseInsensitiveHashMap<Worker>();
+  private final StringPool _strings = new StringPool();
+  private final EntityStore _store;
+  private final Map<String, Species> _species = new CaseInsensitiveHashMap<Species>(_strings);
+  private final Map<String, Species> _speciesByName = new CaseInsensitiveHashMap<Species>(_strings);
+  private final Map<String, Vaccine> _vaccines = new CaseInsensitiveHashMap<Vaccine>(_strings);
+  private final Map<String, Habitat> _habitats = new CaseInsensitiveHashMap<Habitat>(_strings);
+  private final Map<String, Tree> _trees = new CaseInsensitiveHashMap<Tree>(_strings);
+  private final Map<String, Worker> _workers = new CaseInsensitiveHashMap<Worker>(_strings);
   private final List<VaccineRegistry> _vaccineRegistry = new ArrayList<VaccineRegistry>();
   private final Set<SeasonObservers> _observers = new HashSet<SeasonObservers>();
+  private transient HotelEventSink _events;
+  private transient Object _eventLock;
+
+  /*
+   * <------------------------ Constructor ------------------------>
+   */
+
+  /**
+   * Constructor which creates an empty hotel keeping its animals on the heap.
+   */
+  public Hotel() {
+    this(false);
+  }
+
+  /**
+   * Constructor which creates an empty hotel.
+   * 
+   * <p>
+   * Hotels with tens of millions of animals may keep them in off-heap memory, so that the heap
+   * used by the hotel does not grow with the number of animals.
+   * 
+   * @param offHeapAnimals whether the animals are kept in off-heap memory
+   * 
+   * @see HeapAnimalStore
+   * @see OffHeapAnimalStore
+   */
+  public Hotel(boolean offHeapAnimals) {
+    _store = new EntityStore(offHeapAnimals, _strings);
+  }
 
   /*
    * <------------------------ Gets ------------------------>
@@ -74,7 +142,7 @@ public class Hotel implements Serializable {
    * @see Animal
    */
   public Collection<Animal> animals() {
-    return Collections.unmodifiableCollection(_animals.values());
+    return Collections.unmodifiableCollection(_store.animals());
   }
 
   /**
@@ -145,6 +213,28 @@ public class Hotel implements Serializable {
     return Collections.unmodifiableList(_vaccineRegistry);
   }
 
+  /**
+   * Retrieves the species with the given name.
+   * 
+   * <p>
+   * Species names are unique in this hotel and are compared in a case-insensitive manner.
+   * 
+   * @param name the name of the species
+   * 
+   * @return the species with the given name
+   * 
+   * @throws SpeciesNotFoundException If a species with the given name does not exist.
+   * 
+   * @see Species
+   */
+  public Species speciesByName(String name) throws SpeciesNotFoundException {
+    Species species = speciesNameExists(name);
+    if (species == null) {
+      throw new SpeciesNotFoundException(name);
+    }
+    return species;
+  }
+
   /**
    * Returns the current season of this hotel.
    * 
@@ -161,10 +251,147 @@ public class Hotel implements Serializable {
     return _season;
   }
 
+  /**
+   * Returns the entity store of this hotel.
+   * 
+   * <p>
+   * The store assigns the dense handles of the entities of this hotel and keeps their hot
+   * attributes in primitive arrays.
+   * 
+   * @return the entity store of the hotel
+   * 
+   * @see EntityStore
+   */
+  EntityStore store() {
+    return _store;
+  }
+
+  /**
+   * Returns the pool of canonical Strings of this hotel.
+   * 
+   * <p>
+   * Identifiers, names and the lowercase keys of the case insensitive maps of this hotel and of its
+   * entities are shared through this pool.
+   * 
+   * @return the pool of canonical Strings of the hotel
+   * 
+   * @see StringPool
+   */
+  StringPool strings() {
+    return _strings;
+  }
+
+  /**
+   * Returns the number of bytes saved by sharing equal Strings in this hotel.
+   * 
+   * <p>
+   * The count is an estimate of the heap that duplicate identifiers, names and keys would retain,
+   * and restarts when the hotel is loaded from a file.
+   * 
+   * @return the estimated number of bytes saved
+   * 
+   * @see StringPool#savedBytes()
+   */
+  public long stringBytesSaved() {
+    return _strings.savedBytes();
+  }
+
+  /**
+   * Estimates the heap retained by this hotel, per category of entity.
+   * 
+   * <p>
+   * The estimate walks every entity of this hotel, so it takes time proportional to the size of the
+   * hotel.
+   * 
+   * @return the estimate of the heap retained by this hotel
+   * 
+   * @see HeapFootprint
+   */
+  public HeapFootprint heapFootprint() {
+    HeapFootprint footprint = new HeapFootprint();
+    _strings.measure(footprint);
+    _store.measure(footprint);
+
+    for (Vaccine vaccine : _vaccines.values()) {
+      footprint.addEntity(FootprintCategory.VACCINES, vaccine.retainedBytes());
+      footprint.addString(vaccine.id());
+      footprint.addString(vaccine.name());
+    }
+
+    footprint.addOverhead(FootprintCategory.VACCINE_REGISTRIES,
+        HeapFootprint.object(HeapFootprint.REFERENCE + 2 * Integer.BYTES)
+            + HeapFootprint.array(_vaccineRegistry.size(), HeapFootprint.REFERENCE));
+    for (VaccineRegistry vaccineRegistry : _vaccineRegistry) {
+      footprint.addEntity(FootprintCategory.VACCINE_REGISTRIES, vaccineRegistry.retainedBytes());
+    }
+
+    List<Map<String, ?>> registries =
+        List.of(_species, _speciesByName, _vaccines, _habitats, _trees, _workers);
+    for (Map<String, ?> registry : registries) {
+      footprint.addOverhead(FootprintCategory.INDEXES, HeapFootprint.map(registry));
+      registry.keySet().forEach(footprint::addString);
+    }
+    return footprint;
+  }
+
   /*
    * <------------------------ Sets ------------------------>
    */
 
+  /**
+   * Publishes the changes made to this hotel from now on to a sink of events.
+   * 
+   * <p>
+   * Every change made through a mutator of this hotel, or by importing a file, is published once it
+   * succeeds. The sink is not saved with the hotel.
+   * 
+   * @param events the sink, or {@code null} to stop publishing
+   * 
+   * @see HotelEvent
+   * @see hva.core.event.HotelEventStream
+   * @see hva.core.event.HotelEventLog
+   */
+  public void setEventSink(HotelEventSink events) {
+    _events = events;
+  }
+
+  /**
+   * Makes this hotel publish its events one at a time, for the threads that change it at once.
+   * 
+   * <p>
+   * The sinks of a hotel are not thread-safe, so a hotel changed by several threads must be shared
+   * before they start. Changes must not be undone while the hotel is shared.
+   * 
+   * @see ConcurrentHotel
+   * @see HotelCommandLoop
+   */
+  void shareEvents() {
+    if (_eventLock == null) {
+      _eventLock = new Object();
+    }
+  }
+
+  /**
+   * Forks this hotel, so that the changes made to it from now on may be discarded.
+   * 
+   * <p>
+   * Forking copies nothing: the hotel itself becomes the fork, and the fork records the events of
+   * its changes. Closing the fork undoes them in reverse order, restoring the hotel as it was when
+   * it forked, unless the fork was committed. What-if analyses run on the hotel inside a fork and
+   * read the results before closing it.
+   * 
+   * <p>
+   * Forks may be nested and must be closed in the reverse order they were made. The changes made
+   * inside a fork reach the sink of the hotel only when the fork is committed.
+   * 
+   * @return the fork
+   * 
+   * @see HotelFork
+   */
+  public HotelFork fork() {
+    return new HotelFork(this);
+  }
+
   /**
    * Adds a new animal to the hotel.
    * 
@@ -189,20 +416,24 @@ public class Hotel implements Serializable {
    */
   public Animal addAnimal(String idAnimal, String name, String idSpecies, String idHabitat)
       throws DuplicateAnimalException, SpeciesNotFoundException, HabitatNotFoundException {
+    long start = ADD_ANIMAL_TIMER.start();
+    try {
+      // Exception Checks
+      if (animalExists(idAnimal) != null) {
+        throw new DuplicateAnimalException(idAnimal);
+      }
+      Species species = speciesExistsWithException(idSpecies);
+      Habitat habitat = habitatExistsWithException(idHabitat);
 
-    // Exception Checks
-    if (animalExists(idAnimal) != null) {
-      throw new DuplicateAnimalException(idAnimal);
+      Animal animal = createAnimal(idAnimal, name, species, habitat);
+      if (_events != null) {
+        publish(new HotelEvent.AnimalAdded(animal.id(), animal.name(), species.id(),
+            habitat.id()));
+      }
+      return animal;
+    } finally {
+      ADD_ANIMAL_TIMER.stop(start);
     }
-    Species species = speciesExistsWithException(idSpecies);
-    Habitat habitat = habitatExistsWithException(idHabitat);
-
-    // Create and Add Animal
-    Animal animal = new Animal(idAnimal, name, species, habitat);
-    _animals.put(idAnimal, animal);
-    species.addAnimal(animal);
-    habitat.addAnimal(animal);
-    return animal;
   }
 
   /**
@@ -221,17 +452,21 @@ public class Hotel implements Serializable {
    * @see Species
    */
   public Species addSpecies(String idSpecies, String name) throws DuplicateSpeciesException {
+    long start = ADD_SPECIES_TIMER.start();
+    try {
+      // Exception Checks
+      if (speciesExists(idSpecies) != null || speciesNameExists(name) != null) {
+        throw new DuplicateSpeciesException(idSpecies);
+      }
 
-    // Exception Checks
-    if (speciesExists(idSpecies) != null
-        || _species.values().stream().anyMatch(species -> species.name().equalsIgnoreCase(name))) {
-      throw new DuplicateSpeciesException(idSpecies);
+      Species species = createSpecies(idSpecies, name);
+      if (_events != null) {
+        publish(new HotelEvent.SpeciesAdded(species.id(), species.name()));
+      }
+      return species;
+    } finally {
+      ADD_SPECIES_TIMER.stop(start);
     }
-
-    // Create and Add Species
-    Species species = new Species(idSpecies, name);
-    _species.put(idSpecies, species);
-    return species;
   }
 
   /**
@@ -253,21 +488,21 @@ public class Hotel implements Serializable {
    */
   public Worker addWorker(String idWorker, String name, String type)
       throws DuplicateWorkerException, UnrecognizedWorkerTypeException {
+    long start = ADD_WORKER_TIMER.start();
+    try {
+      // Exception Checks
+      if (workerExists(idWorker) != null) {
+        throw new DuplicateWorkerException(idWorker);
+      }
 
-    // Exception Checks
-    if (workerExists(idWorker) != null) {
-      throw new DuplicateWorkerException(idWorker);
-    }
-
-    // Create and Add Worker
-    Worker worker;
-    switch (type) {
-      case "VET" -> worker = new Vet(idWorker, name, this);
-      case "TRT" -> worker = new CareTaker(idWorker, name, this);
-      default -> throw new UnrecognizedWorkerTypeException(type);
+      Worker worker = createWorker(idWorker, name, type);
+      if (_events != null) {
+        publish(new HotelEvent.WorkerAdded(worker.id(), worker.name(), type));
+      }
+      return worker;
+    } finally {
+      ADD_WORKER_TIMER.stop(start);
     }
-    _workers.put(idWorker, worker);
-    return worker;
   }
 
   /**
@@ -288,16 +523,21 @@ public class Hotel implements Serializable {
    */
   public Habitat addHabitat(String idHabitat, String name, int area)
       throws DuplicateHabitatException {
+    long start = ADD_HABITAT_TIMER.start();
+    try {
+      // Exception Checks
+      if (habitatExists(idHabitat) != null) {
+        throw new DuplicateHabitatException(idHabitat);
+      }
 
-    // Exception Checks
-    if (habitatExists(idHabitat) != null) {
-      throw new DuplicateHabitatException(idHabitat);
+      Habitat habitat = createHabitat(idHabitat, name, area);
+      if (_events != null) {
+        publish(new HotelEvent.HabitatAdded(habitat.id(), habitat.name(), area));
+      }
+      return habitat;
+    } finally {
+      ADD_HABITAT_TIMER.stop(start);
     }
-
-    // Create and Add Habitat
-    Habitat habitat = new Habitat(idHabitat, name, area);
-    _habitats.put(idHabitat, habitat);
-    return habitat;
   }
 
   /**
@@ -328,13 +568,17 @@ public class Hotel implements Serializable {
   public Tree addTreeToHabitat(String idHabitat, String idTree, String name, int age, int cleanDiff,
       String type)
       throws HabitatNotFoundException, UnrecognizedTreeTypeException, DuplicateTreeException {
-
-    // Exception Checks
-    Habitat habitat = habitatExistsWithException(idHabitat);
-
-    Tree tree = addTree(idTree, name, age, cleanDiff, type);
-    habitat.addTree(tree);
-    return tree;
+    long start = ADD_TREE_TO_HABITAT_TIMER.start();
+    try {
+      // Exception Checks
+      Habitat habitat = habitatExistsWithException(idHabitat);
+
+      Tree tree = addTree(idTree, name, age, cleanDiff, type);
+      plantTree(habitat, tree);
+      return tree;
+    } finally {
+      ADD_TREE_TO_HABITAT_TIMER.stop(start);
+    }
   }
 
   /**
@@ -360,23 +604,21 @@ public class Hotel implements Serializable {
    */
   public Tree addTree(String idTree, String name, int age, int cleanDiff, String type)
       throws DuplicateTreeException, UnrecognizedTreeTypeException {
+    long start = ADD_TREE_TIMER.start();
+    try {
+      // Exception Checks
+      if (treeExists(idTree) != null) {
+        throw new DuplicateTreeException(idTree);
+      }
 
-    // Exception Checks
-    if (treeExists(idTree) != null) {
-      throw new DuplicateTreeException(idTree);
-    }
-
-    // Create and Add Tree
-    Tree tree;
-    switch (type) {
-      case "PERENE" -> tree = new Evergreen(idTree, name, age, cleanDiff, this);
-      case "CADUCA" -> tree = new Deciduos(idTree, name, age, cleanDiff, this);
-      default -> throw new UnrecognizedTreeTypeException(type);
+      Tree tree = createTree(idTree, name, age, cleanDiff, type);
+      if (_events != null) {
+        publish(new HotelEvent.TreeAdded(tree.id(), tree.name(), age, cleanDiff, type));
+      }
+      return tree;
+    } finally {
+      ADD_TREE_TIMER.stop(start);
     }
-
-    _trees.put(idTree, tree);
-    addObserver(tree);
-    return tree;
   }
 
   /**
@@ -400,27 +642,32 @@ public class Hotel implements Serializable {
    */
   public Vaccine addVaccine(String idVaccine, String name, String idSpecies)
       throws DuplicateVaccineException, SpeciesNotFoundException {
+    long start = ADD_VACCINE_TIMER.start();
+    try {
+      // Exception Checks
+      if (vaccineExists(idVaccine) != null) {
+        throw new DuplicateVaccineException(idVaccine);
+      }
 
-    // Exception Checks
-    if (vaccineExists(idVaccine) != null) {
-      throw new DuplicateVaccineException(idVaccine);
-    }
+      String[] idsSpecies = idSpecies.split("\\s*,\\s*");
+      List<Species> allSpecies = new ArrayList<Species>();
 
-    String[] idsSpecies = idSpecies.split("\\s*,\\s*");
-    List<Species> allSpecies = new ArrayList<Species>();
+      // Add Check due to parser allowing for vaccines with no species.
+      if (!idSpecies.isBlank()) {
+        for (String id : idsSpecies) {
+          Species species = speciesExistsWithException(id);
+          allSpecies.add(species);
+        }
+      }
 
-    // Add Check due to parser allowing for vaccines with no species.
-    if (!idSpecies.isBlank()) {
-      for (String id : idsSpecies) {
-        Species species = speciesExistsWithException(id);
-        allSpecies.add(species);
+      Vaccine vaccine = createVaccine(idVaccine, name, allSpecies);
+      if (_events != null) {
+        publish(new HotelEvent.VaccineAdded(vaccine.id(), vaccine.name(), idSpecies));
       }
+      return vaccine;
+    } finally {
+      ADD_VACCINE_TIMER.stop(start);
     }
-
-    // Create and Add Vaccine
-    Vaccine vaccine = new Vaccine(idVaccine, name, allSpecies);
-    _vaccines.put(idVaccine, vaccine);
-    return vaccine;
   }
 
   /*
@@ -440,11 +687,25 @@ public class Hotel implements Serializable {
    * @see Tree
    */
   public SeasonType progressSeason() {
-    _season = _season.next();
-    for (SeasonObservers observer : _observers) {
-      observer.update();
+    long start = PROGRESS_SEASON_TIMER.start();
+    SeasonEvent event = new SeasonEvent();
+    event.begin();
+    try {
+      SeasonType previous = _season.seasonType();
+      advanceSeason();
+
+      if (event.shouldCommit()) {
+        event.season = _season.seasonType().name();
+        event.observers = _observers.size();
+        event.commit();
+      }
+      if (_events != null) {
+        publish(new HotelEvent.SeasonAdvanced(previous, _season.seasonType()));
+      }
+      return _season.seasonType();
+    } finally {
+      PROGRESS_SEASON_TIMER.stop(start);
     }
-    return _season.seasonType();
   }
 
   /**
@@ -456,25 +717,33 @@ public class Hotel implements Serializable {
    * 
    * @return the satisfaction of the hotel
    * 
-   * @see Animal#satisfaction()
+   * @see EntityStore#animalsSatisfaction()
    * @see Worker#satisfaction()
    * @see Animal
    * @see Worker
    */
   public double satisfaction() {
-    Collection<Animal> animals = _animals.values();
-    Collection<Worker> workers = _workers.values();
-    double totalSatisfaction = 0;
+    long start = SATISFACTION_TIMER.start();
+    SatisfactionEvent event = new SatisfactionEvent();
+    event.begin();
+    try {
+      Collection<Worker> workers = _workers.values();
+      double totalSatisfaction = _store.animalsSatisfaction();
 
-    for (Animal animal : animals) {
-      totalSatisfaction += animal.satisfaction();
-    }
+      for (Worker worker : workers) {
+        totalSatisfaction += worker.satisfaction();
+      }
 
-    for (Worker worker : workers) {
-      totalSatisfaction += worker.satisfaction();
+      if (event.shouldCommit()) {
+        event.animals = _store.animalCount();
+        event.workers = workers.size();
+        event.satisfaction = totalSatisfaction;
+        event.commit();
+      }
+      return totalSatisfaction;
+    } finally {
+      SATISFACTION_TIMER.stop(start);
     }
-
-    return totalSatisfaction;
   }
 
   /**
@@ -496,9 +765,18 @@ public class Hotel implements Serializable {
    */
   public void transferAnimal(String idAnimal, String idHabitat)
       throws AnimalNotFoundException, HabitatNotFoundException {
-    Animal animal = animalExistsWithException(idAnimal);
-    Habitat habitat = habitatExistsWithException(idHabitat);
-    animal.transferAnimal(habitat);
+    long start = TRANSFER_ANIMAL_TIMER.start();
+    try {
+      Animal animal = animalExistsWithException(idAnimal);
+      Habitat habitat = habitatExistsWithException(idHabitat);
+      Habitat previous = animal.habitat();
+      animal.transferAnimal(habitat);
+      if (_events != null) {
+        publish(new HotelEvent.AnimalTransferred(animal.id(), previous.id(), habitat.id()));
+      }
+    } finally {
+      TRANSFER_ANIMAL_TIMER.stop(start);
+    }
   }
 
   /**
@@ -516,7 +794,133 @@ public class Hotel implements Serializable {
    * @see Animal
    */
   public double animalSatisfaction(String id) throws AnimalNotFoundException {
-    return animalExistsWithException(id).satisfaction();
+    long start = ANIMAL_SATISFACTION_TIMER.start();
+    try {
+      return animalExistsWithException(id).satisfaction();
+    } finally {
+      ANIMAL_SATISFACTION_TIMER.stop(start);
+    }
+  }
+
+  /**
+   * Previews the change in the satisfaction of this hotel that transferring an animal to a habitat
+   * would make, without transferring it.
+   * 
+   * <p>
+   * The change is computed from the counters kept for the two habitats, in constant time however
+   * many animals, habitats and workers this hotel has, and equals the difference of
+   * {@link #satisfaction()} before and after the transfer up to rounding.
+   * 
+   * @param idAnimal the identifier of the animal
+   * @param idHabitat the identifier of the habitat
+   * 
+   * @return the change in satisfaction, split by whose satisfaction changes
+   * 
+   * @throws AnimalNotFoundException If the animal with the given identifier does not exist.
+   * @throws HabitatNotFoundException If the habitat with the given identifier does not exist.
+   * 
+   * @see #transferAnimal(String, String)
+   * @see TransferPreview
+   */
+  public TransferPreview previewTransfer(String idAnimal, String idHabitat)
+      throws AnimalNotFoundException, HabitatNotFoundException {
+    long start = PREVIEW_TRANSFER_TIMER.start();
+    try {
+      Animal animal = animalExistsWithException(idAnimal);
+      Habitat habitat = habitatExistsWithException(idHabitat);
+      return _store.previewTransfer(animal.handle(), habitat);
+    } finally {
+      PREVIEW_TRANSFER_TIMER.stop(start);
+    }
+  }
+
+  /**
+   * Transfers the animals of a plan to their habitats, all of them or none.
+   * 
+   * <p>
+   * Every move is checked before any animal is transferred, so a plan made before the hotel changed
+   * transfers nothing. The transfers are made inside a fork, which undoes them if one fails, and
+   * each is published as a transfer once they all succeed, the whole plan being a single change to
+   * undo.
+   * 
+   * @param plan the plan
+   * 
+   * @throws AnimalNotFoundException If an animal of the plan does not exist.
+   * @throws HabitatNotFoundException If a habitat of the plan does not exist.
+   * @throws IllegalStateException If an animal of the plan is no longer in the habitat it was in
+   *         when the plan was made.
+   * 
+   * @see PlacementOptimizer#optimize()
+   * @see #fork()
+   */
+  public void applyPlacement(PlacementPlan plan)
+      throws AnimalNotFoundException, HabitatNotFoundException {
+    long start = APPLY_PLACEMENT_TIMER.start();
+    try {
+      for (PlacementPlan.Move move : plan.moves()) {
+        Animal animal = animalExistsWithException(move.animal());
+        habitatExistsWithException(move.habitat());
+        if (animal.habitat() != habitatExistsWithException(move.previousHabitat())) {
+          throw new IllegalStateException("Animal " + move.animal() + " left habitat "
+              + move.previousHabitat() + " after the plan was made");
+        }
+      }
+      try (HotelFork fork = fork()) {
+        for (PlacementPlan.Move move : plan.moves()) {
+          transferAnimal(move.animal(), move.habitat());
+        }
+        fork.commit();
+      }
+    } finally {
+      APPLY_PLACEMENT_TIMER.stop(start);
+    }
+  }
+
+  /**
+   * Passes the responsibilities of a plan from caretaker to caretaker, all of them or none.
+   * 
+   * <p>
+   * Every move is checked before any responsibility is changed, so a plan made before the
+   * responsibilities changed changes nothing. The changes are made inside a fork, which undoes them
+   * if one fails, and each is published as a responsibility added and removed once they all
+   * succeed, the whole plan being a single change to undo.
+   * 
+   * @param plan the plan
+   * 
+   * @throws WorkerNotFoundException If a caretaker of the plan does not exist.
+   * @throws ResponsibilityNotFoundException If a habitat of the plan does not exist.
+   * @throws IllegalStateException If a caretaker of the plan no longer has the responsibility it is
+   *         to pass, or already has the one it is to receive.
+   * 
+   * @see CareTakerRebalancer#optimize()
+   * @see #fork()
+   */
+  public void applyRebalance(RebalancePlan plan)
+      throws WorkerNotFoundException, ResponsibilityNotFoundException {
+    long start = APPLY_REBALANCE_TIMER.start();
+    try {
+      for (RebalancePlan.Move move : plan.moves()) {
+        Worker previous = workerExistsWithException(move.previousCareTaker());
+        Worker careTaker = workerExistsWithException(move.careTaker());
+        if (habitatExists(move.habitat()) == null) {
+          throw new ResponsibilityNotFoundException(move.careTaker(), move.habitat());
+        }
+        if (!(previous instanceof CareTaker) || !previous.hasResponsibility(move.habitat())
+            || !(careTaker instanceof CareTaker) || careTaker.hasResponsibility(move.habitat())) {
+          throw new IllegalStateException("Responsibility for " + move.habitat()
+              + " changed after the plan was made");
+        }
+      }
+      try (HotelFork fork = fork()) {
+        for (RebalancePlan.Move move : plan.moves()) {
+          addResponsibilityToWorker(move.careTaker(), move.habitat());
+          removeResponsibilityFromWorker(move.previousCareTaker(), move.habitat());
+        }
+        fork.commit();
+      }
+    } finally {
+      APPLY_REBALANCE_TIMER.stop(start);
+    }
   }
 
   /**
@@ -537,11 +941,22 @@ public class Hotel implements Serializable {
    */
   public void addResponsibilityToWorker(String idWorker, String idResponsibility)
       throws WorkerNotFoundException, ResponsibilityNotFoundException {
-    Worker worker = workerExistsWithException(idWorker);
+    long start = ADD_RESPONSIBILITY_TO_WORKER_TIMER.start();
     try {
-      worker.addResponsibility(idResponsibility);
-    } catch (HabitatNotFoundException | SpeciesNotFoundException e) {
-      throw new ResponsibilityNotFoundException(idWorker, idResponsibility);
+      Worker worker = workerExistsWithException(idWorker);
+      boolean held = worker.hasResponsibility(idResponsibility);
+      boolean attached;
+      try {
+        attached = worker.addResponsibility(idResponsibility);
+      } catch (HabitatNotFoundException | SpeciesNotFoundException e) {
+        throw new ResponsibilityNotFoundException(idWorker, idResponsibility);
+      }
+      if (_events != null && !held) {
+        publish(
+            new HotelEvent.ResponsibilityAdded(worker.id(), idResponsibility, attached));
+      }
+    } finally {
+      ADD_RESPONSIBILITY_TO_WORKER_TIMER.stop(start);
     }
   }
 
@@ -563,11 +978,19 @@ public class Hotel implements Serializable {
    */
   public void removeResponsibilityFromWorker(String idWorker, String idResponsibility)
       throws WorkerNotFoundException, ResponsibilityNotFoundException {
-    Worker worker = workerExistsWithException(idWorker);
+    long start = REMOVE_RESPONSIBILITY_FROM_WORKER_TIMER.start();
     try {
-      worker.removeResponsibility(idResponsibility);
-    } catch (HabitatNotFoundException | SpeciesNotFoundException e) {
-      throw new ResponsibilityNotFoundException(idWorker, idResponsibility);
+      Worker worker = workerExistsWithException(idWorker);
+      try {
+        worker.removeResponsibility(idResponsibility);
+      } catch (HabitatNotFoundException | SpeciesNotFoundException e) {
+        throw new ResponsibilityNotFoundException(idWorker, idResponsibility);
+      }
+      if (_events != null) {
+        publish(new HotelEvent.ResponsibilityRemoved(worker.id(), idResponsibility));
+      }
+    } finally {
+      REMOVE_RESPONSIBILITY_FROM_WORKER_TIMER.stop(start);
     }
   }
 
@@ -586,7 +1009,12 @@ public class Hotel implements Serializable {
    * @see Worker
    */
   public double workerSatisfaction(String id) throws WorkerNotFoundException {
-    return workerExistsWithException(id).satisfaction();
+    long start = WORKER_SATISFACTION_TIMER.start();
+    try {
+      return workerExistsWithException(id).satisfaction();
+    } finally {
+      WORKER_SATISFACTION_TIMER.stop(start);
+    }
   }
 
   /**
@@ -603,7 +1031,17 @@ public class Hotel implements Serializable {
    * @see Habitat
    */
   public void changeHabitatArea(String idHabitat, int area) throws HabitatNotFoundException {
-    habitatExistsWithException(idHabitat).changeArea(area);
+    long start = CHANGE_HABITAT_AREA_TIMER.start();
+    try {
+      Habitat habitat = habitatExistsWithException(idHabitat);
+      int previous = habitat.area();
+      habitat.changeArea(area);
+      if (_events != null) {
+        publish(new HotelEvent.HabitatAreaChanged(habitat.id(), previous, area));
+      }
+    } finally {
+      CHANGE_HABITAT_AREA_TIMER.stop(start);
+    }
   }
 
   /**
@@ -625,10 +1063,20 @@ public class Hotel implements Serializable {
    */
   public void changeHabitatSuitability(String idHabitat, String idSpecies, Influence influence)
       throws HabitatNotFoundException, SpeciesNotFoundException {
-    Habitat habitat = habitatExistsWithException(idHabitat);
-    Species species = speciesExistsWithException(idSpecies);
-
-    habitat.changeSuitability(species, influence);
+    long start = CHANGE_HABITAT_SUITABILITY_TIMER.start();
+    try {
+      Habitat habitat = habitatExistsWithException(idHabitat);
+      Species species = speciesExistsWithException(idSpecies);
+
+      Influence previous = habitat.suitability(species);
+      habitat.changeSuitability(species, influence);
+      if (_events != null) {
+        publish(new HotelEvent.HabitatInfluenceChanged(habitat.id(), species.id(),
+            previous, influence));
+      }
+    } finally {
+      CHANGE_HABITAT_SUITABILITY_TIMER.stop(start);
+    }
   }
 
   /**
@@ -677,20 +1125,28 @@ public class Hotel implements Serializable {
   public VaccineRegistry vaccinateAnimal(String idAnimal, String idVaccine, String idVet)
       throws AnimalNotFoundException, VaccineNotFoundException, WorkerNotFoundException,
       WorkerNotAuthorizedException {
+    long start = VACCINATE_ANIMAL_TIMER.start();
+    try {
+      // Exception Checks
+      Animal animal = animalExistsWithException(idAnimal);
+      Vaccine vaccine = vaccineExistsWithException(idVaccine);
+      Worker worker = workerExistsWithException(idVet);
+      if (!(worker instanceof Vet)) {
+        throw new WorkerNotFoundException(idVet);
+      }
 
-    // Exception Checks
-    Animal animal = animalExistsWithException(idAnimal);
-    Vaccine vaccine = vaccineExistsWithException(idVaccine);
-    Worker worker = workerExistsWithException(idVet);
-    if (!(worker instanceof Vet)) {
-      throw new WorkerNotFoundException(idVet);
+      // Vaccinate Animal
+      VaccineRegistry vaccineRegistry = ((Vet) worker).vaccinate(animal, vaccine);
+      vaccine.apply();
+      _vaccineRegistry.add(vaccineRegistry);
+      if (_events != null) {
+        publish(new HotelEvent.VaccinationRecorded(_vaccineRegistry.size() - 1,
+            animal.id(), vaccine.id(), worker.id(), vaccineRegistry.vaccineDamage()));
+      }
+      return vaccineRegistry;
+    } finally {
+      VACCINATE_ANIMAL_TIMER.stop(start);
     }
-
-    // Vaccinate Animal
-    VaccineRegistry vaccineRegistry = ((Vet) worker).vaccinate(animal, vaccine);
-    vaccine.apply();
-    _vaccineRegistry.add(vaccineRegistry);
-    return vaccineRegistry;
   }
 
   /**
@@ -775,7 +1231,7 @@ public class Hotel implements Serializable {
    * @see Animal
    */
   Animal animalExists(String id) {
-    return _animals.get(id);
+    return _store.findAnimal(id);
   }
 
   /**
@@ -840,6 +1296,24 @@ public class Hotel implements Serializable {
     return species;
   }
 
+  /**
+   * Finds a species with the given name.
+   * 
+   * <p>
+   * This method returns the species with the given name, compared in a case-insensitive manner, or
+   * {@code null} if it does not exist. The lookup is served by an index kept in step with the
+   * species identifiers, so it does not scan the registered species.
+   * 
+   * @param name the name of the species
+   * 
+   * @return The species with the given name or {@code null} if it does not exist.
+   * 
+   * @see Species
+   */
+  Species speciesNameExists(String name) {
+    return _speciesByName.get(name);
+  }
+
   /**
    * Finds a worker with the given identifier.
    * 
@@ -1020,6 +1494,45 @@ public class Hotel implements Serializable {
     _observers.remove(observer);
   }
 
+  /**
+   * Fills the pool of canonical Strings of this hotel after it is loaded.
+   * 
+   * <p>
+   * Strings that were shared when the hotel was saved are still shared after it is loaded, but the
+   * table of the pool is not saved. This method puts the keys of the registries of this hotel and
+   * the identifiers and names of its entities back in the pool, so that new entities and
+   * responsibilities share them.
+   * 
+   * @see StringPool
+   */
+  void canonicalizeStrings() {
+    List<Map<String, ?>> registries =
+        List.of(_species, _speciesByName, _vaccines, _habitats, _trees, _workers);
+    for (Map<String, ?> registry : registries) {
+      registry.keySet().forEach(_strings::canonical);
+    }
+
+    for (Species species : _species.values()) {
+      _strings.canonical(species.id());
+      _strings.canonical(species.name());
+    }
+    for (Habitat habitat : _habitats.values()) {
+      _strings.canonical(habitat.id());
+    }
+    for (Vaccine vaccine : _vaccines.values()) {
+      _strings.canonical(vaccine.id());
+    }
+    for (Tree tree : _trees.values()) {
+      _strings.canonical(tree.id());
+      _strings.canonical(tree.name());
+    }
+    for (Worker worker : _workers.values()) {
+      _strings.canonical(worker.id());
+      _strings.canonical(worker.name());
+    }
+    _store.canonicalizeStrings();
+  }
+
   /**
    * Read text input file and create corresponding domain entities.
    * 
@@ -1032,4 +1545,325 @@ public class Hotel implements Serializable {
     Parser parser = new Parser(this);
     parser.parseFile(filename);
   }
+
+  /**
+   * Places a tree of this hotel in a habitat.
+   * 
+   * @param habitat the habitat
+   * @param tree the tree
+   * 
+   * @see Parser
+   */
+  void plantTree(Habitat habitat, Tree tree) {
+    habitat.addTree(tree);
+    if (_events != null) {
+      publish(new HotelEvent.TreePlanted(habitat.id(), tree.id()));
+    }
+  }
+
+  /**
+   * Returns the sink the changes made to this hotel are published to.
+   * 
+   * @return the sink, or {@code null} if changes are not published
+   * 
+   * @see HotelHistory
+   */
+  HotelEventSink eventSink() {
+    return _events;
+  }
+
+  // Publishes an event to the sink, holding the lock of the events if the hotel is shared
+  private void publish(HotelEvent event) {
+    Object lock = _eventLock;
+    if (lock == null) {
+      _events.publish(event);
+      return;
+    }
+    synchronized (lock) {
+      _events.publish(event);
+    }
+  }
+
+  /**
+   * Applies a batch of events published by this hotel, such as those read from its log.
+   * 
+   * <p>
+   * Events are applied without the checks, timers and events of the mutators, so they must be
+   * applied in order from the state in which they were published. Changes that only the last event
+   * of the batch decides are coalesced: an animal transferred many times is moved once, to its last
+   * habitat, and only the last area of a habitat and the last influence of a habitat on a species
+   * are applied, after the other events of the batch, or before the next undone change, which is
+   * undone once the changes before it are applied. Nothing is published while replaying.
+   * 
+   * @param events the events, in the order of their sequences
+   * 
+   * @throws UnrecognizedEntryException If an event refers to an entity this hotel does not have.
+   * 
+   * @see HotelJournal
+   */
+  void replay(List<HotelEvent> events) throws UnrecognizedEntryException {
+    Map<Animal, Habitat> transfers = new HashMap<Animal, Habitat>();
+    Map<Habitat, Integer> areas = new HashMap<Habitat, Integer>();
+    Map<Habitat, Map<Species, Influence>> influences =
+        new HashMap<Habitat, Map<Species, Influence>>();
+
+    for (HotelEvent event : events) {
+      try {
+        switch (event) {
+          case HotelEvent.SpeciesAdded added -> createSpecies(added.species(), added.name());
+          case HotelEvent.WorkerAdded added ->
+              createWorker(added.worker(), added.name(), added.type());
+          case HotelEvent.HabitatAdded added ->
+              createHabitat(added.habitat(), added.name(), added.area());
+          case HotelEvent.TreeAdded added -> createTree(added.tree(), added.name(), added.age(),
+              added.cleaningDifficulty(), added.type());
+          case HotelEvent.TreePlanted planted -> existing(_habitats.get(planted.habitat()), event)
+              .addTree(existing(_trees.get(planted.tree()), event));
+          case HotelEvent.VaccineAdded added -> {
+            List<Species> allSpecies = new ArrayList<Species>();
+            if (!added.species().isBlank()) {
+              for (String id : added.species().split("\\s*,\\s*")) {
+                allSpecies.add(existing(_species.get(id), event));
+              }
+            }
+            createVaccine(added.vaccine(), added.name(), allSpecies);
+          }
+          case HotelEvent.AnimalAdded added -> createAnimal(added.animal(), added.name(),
+              existing(_species.get(added.species()), event),
+              existing(_habitats.get(added.habitat()), event));
+          case HotelEvent.AnimalTransferred transfer ->
+              transfers.put(existing(_store.findAnimal(transfer.animal()), event),
+                  existing(_habitats.get(transfer.habitat()), event));
+          case HotelEvent.HabitatAreaChanged change ->
+              areas.put(existing(_habitats.get(change.habitat()), event), change.area());
+          case HotelEvent.HabitatInfluenceChanged change -> influences
+              .computeIfAbsent(existing(_habitats.get(change.habitat()), event),
+                  habitat -> new HashMap<Species, Influence>())
+              .put(existing(_species.get(change.species()), event), change.influence());
+          case HotelEvent.ResponsibilityAdded added -> existing(_workers.get(added.worker()), event)
+              .addResponsibility(added.responsibility());
+          case HotelEvent.ResponsibilityRemoved removed ->
+              existing(_workers.get(removed.worker()), event)
+                  .removeResponsibility(removed.responsibility());
+          case HotelEvent.VaccinationRecorded vaccination -> {
+            Animal animal = existing(_store.findAnimal(vaccination.animal()), event);
+            Vaccine vaccine = existing(_vaccines.get(vaccination.vaccine()), event);
+            Vet vet = (Vet) existing(_workers.get(vaccination.vet()), event);
+            _vaccineRegistry.add(vet.record(animal, vaccine, vaccination.damage()));
+            vaccine.apply();
+          }
+          case HotelEvent.SeasonAdvanced advanced -> advanceSeason();
+          case HotelEvent.Undone undone -> {
+            applyCoalesced(transfers, areas, influences);
+            undo(undone.event());
+          }
+        }
+      } catch (UnrecognizedWorkerTypeException | UnrecognizedTreeTypeException
+          | HabitatNotFoundException | SpeciesNotFoundException | ClassCastException e) {
+        throw new UnrecognizedEntryException(event.toString(), e);
+      }
+    }
+    applyCoalesced(transfers, areas, influences);
+  }
+
+  // Applies the changes coalesced by a replay so far and clears them
+  private static void applyCoalesced(Map<Animal, Habitat> transfers, Map<Habitat, Integer> areas,
+      Map<Habitat, Map<Species, Influence>> influences) {
+    for (Map.Entry<Animal, Habitat> transfer : transfers.entrySet()) {
+      if (transfer.getKey().habitat() != transfer.getValue()) {
+        transfer.getKey().transferAnimal(transfer.getValue());
+      }
+    }
+    for (Map.Entry<Habitat, Integer> area : areas.entrySet()) {
+      area.getKey().changeArea(area.getValue());
+    }
+    for (Map.Entry<Habitat, Map<Species, Influence>> habitat : influences.entrySet()) {
+      for (Map.Entry<Species, Influence> influence : habitat.getValue().entrySet()) {
+        habitat.getKey().changeSuitability(influence.getKey(), influence.getValue());
+      }
+    }
+    transfers.clear();
+    areas.clear();
+    influences.clear();
+  }
+
+  /**
+   * Undoes an event published by this hotel, which must be the last event applied to it.
+   * 
+   * <p>
+   * Each event is undone by its inverse: an animal transferred goes back to the habitat it left, an
+   * area or influence changed is set back to the value it overwrote, a responsibility added is
+   * removed and the other way around, a vaccination is removed from the registries it was appended
+   * to, an entity created is removed, and a season advanced goes back after the trees undo their
+   * growth in it. An undone change is undone by redoing it. Nothing is copied, so undoing costs as
+   * much as the change did. Nothing is published while undoing.
+   * 
+   * @param event the event
+   * 
+   * @throws UnrecognizedEntryException If the event is not the last applied to this hotel.
+   * 
+   * @see HotelFork
+   */
+  void undo(HotelEvent event) throws UnrecognizedEntryException {
+    try {
+      switch (event) {
+        case HotelEvent.SpeciesAdded added -> {
+          Species species = existing(_species.remove(added.species()), event);
+          _speciesByName.remove(species.name());
+          _store.removeLastSpecies();
+        }
+        case HotelEvent.WorkerAdded added -> {
+          existing(_workers.remove(added.worker()), event);
+          _store.removeLastWorker();
+        }
+        case HotelEvent.HabitatAdded added -> {
+          existing(_habitats.remove(added.habitat()), event);
+          _store.removeLastHabitat();
+        }
+        case HotelEvent.TreeAdded added -> {
+          removeObserver(existing(_trees.remove(added.tree()), event));
+          _store.removeLastTree();
+        }
+        case HotelEvent.TreePlanted planted -> existing(_habitats.get(planted.habitat()), event)
+            .removeTree(existing(_trees.get(planted.tree()), event));
+        case HotelEvent.VaccineAdded added -> existing(_vaccines.remove(added.vaccine()), event);
+        case HotelEvent.AnimalAdded added -> {
+          Animal animal = existing(_store.findAnimal(added.animal()), event);
+          animal.species().removeAnimal(animal);
+          animal.habitat().removeAnimal(animal);
+          _store.removeLastAnimal();
+        }
+        case HotelEvent.AnimalTransferred transfer ->
+            existing(_store.findAnimal(transfer.animal()), event)
+                .transferAnimal(existing(_habitats.get(transfer.previousHabitat()), event));
+        case HotelEvent.HabitatAreaChanged change ->
+            existing(_habitats.get(change.habitat()), event).changeArea(change.previousArea());
+        case HotelEvent.HabitatInfluenceChanged change ->
+            existing(_habitats.get(change.habitat()), event).changeSuitability(
+                existing(_species.get(change.species()), event), change.previousInfluence());
+        case HotelEvent.ResponsibilityAdded added -> {
+          Worker worker = existing(_workers.get(added.worker()), event);
+          worker.removeResponsibility(added.responsibility());
+          if (!added.attached()) {
+            worker.detachResponsibility(added.responsibility());
+          }
+        }
+        case HotelEvent.ResponsibilityRemoved removed ->
+            existing(_workers.get(removed.worker()), event)
+                .addResponsibility(removed.responsibility());
+        case HotelEvent.VaccinationRecorded vaccination -> {
+          if (vaccination.index() != _vaccineRegistry.size() - 1) {
+            throw new UnrecognizedEntryException(event.toString());
+          }
+          Vet vet = (Vet) existing(_workers.get(vaccination.vet()), event);
+          Vaccine vaccine = existing(_vaccines.get(vaccination.vaccine()), event);
+          vet.unrecord(_vaccineRegistry.remove(vaccination.index()));
+          vaccine.unapply();
+        }
+        case HotelEvent.SeasonAdvanced advanced -> {
+          for (SeasonObservers observer : _observers) {
+            observer.revert();
+          }
+          _season = seasonState(advanced.previousSeason());
+        }
+        case HotelEvent.Undone undone -> replay(List.of(undone.event()));
+      }
+    } catch (HabitatNotFoundException | SpeciesNotFoundException | ClassCastException e) {
+      throw new UnrecognizedEntryException(event.toString(), e);
+    }
+  }
+
+  // State of a season of the given type
+  private static SeasonState seasonState(SeasonType season) {
+    return switch (season) {
+      case SPRING -> new SeasonSpring();
+      case SUMMER -> new SeasonSummer();
+      case FALL -> new SeasonFall();
+      case WINTER -> new SeasonWinter();
+    };
+  }
+
+  // Returns the entity an event refers to, which must exist
+  private static <T> T existing(T entity, HotelEvent event) throws UnrecognizedEntryException {
+    if (entity == null) {
+      throw new UnrecognizedEntryException(event.toString());
+    }
+    return entity;
+  }
+
+  // Moves this hotel to the next season and lets the trees follow it
+  private void advanceSeason() {
+    _season = _season.next();
+    for (SeasonObservers observer : _observers) {
+      observer.update();
+    }
+  }
+
+  // Creates and registers an animal, the identifier being known to be new
+  private Animal createAnimal(String idAnimal, String name, Species species, Habitat habitat) {
+    Animal animal = _store.addAnimal(idAnimal, name, species, habitat);
+    species.addAnimal(animal);
+    habitat.addAnimal(animal);
+    return animal;
+  }
+
+  // Creates and registers a species, the identifier and name being known to be new
+  private Species createSpecies(String idSpecies, String name) {
+    idSpecies = _strings.canonical(idSpecies);
+    name = _strings.canonical(name);
+    Species species = new Species(idSpecies, name, _store);
+    _species.put(idSpecies, species);
+    _speciesByName.put(name, species);
+    return species;
+  }
+
+  // Creates and registers a worker, the identifier being known to be new
+  private Worker createWorker(String idWorker, String name, String type)
+      throws UnrecognizedWorkerTypeException {
+    idWorker = _strings.canonical(idWorker);
+    name = _strings.canonical(name);
+    Worker worker;
+    switch (type) {
+      case "VET" -> worker = new Vet(idWorker, name, this);
+      case "TRT" -> worker = new CareTaker(idWorker, name, this);
+      default -> throw new UnrecognizedWorkerTypeException(type);
+    }
+    _workers.put(idWorker, worker);
+    return worker;
+  }
+
+  // Creates and registers a habitat, the identifier being known to be new
+  private Habitat createHabitat(String idHabitat, String name, int area) {
+    idHabitat = _strings.canonical(idHabitat);
+    name = _strings.canonical(name);
+    Habitat habitat = new Habitat(idHabitat, name, area, _store);
+    _habitats.put(idHabitat, habitat);
+    return habitat;
+  }
+
+  // Creates and registers a tree, the identifier being known to be new
+  private Tree createTree(String idTree, String name, int age, int cleanDiff, String type)
+      throws UnrecognizedTreeTypeException {
+    idTree = _strings.canonical(idTree);
+    name = _strings.canonical(name);
+    Tree tree;
+    switch (type) {
+      case "PERENE" -> tree = new Evergreen(idTree, name, age, cleanDiff, this);
+      case "CADUCA" -> tree = new Deciduos(idTree, name, age, cleanDiff, this);
+      default -> throw new UnrecognizedTreeTypeException(type);
+    }
+
+    _trees.put(idTree, tree);
+    addObserver(tree);
+    return tree;
+  }
+
+  // Creates and registers a vaccine, the identifier being known to be new
+  private Vaccine createVaccine(String idVaccine, String name, List<Species> allSpecies) {
+    idVaccine = _strings.canonical(idVaccine);
+    name = _strings.canonical(name);
+    Vaccine vaccine = new Vaccine(idVaccine, name, allSpecies, _strings);
+    _vaccines.put(idVaccine, vaccine);
+    return vaccine;
+  }
 }
@@ -0,0 +1,573 @@
+package hva.core;
+
+import hva.core.enumerator.Influence;
+import hva.core.enumerator.SeasonType;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Class representing a zoo hotel owned by a single mutator thread, an alternative to the locks of
+ * {@link ConcurrentHotel}.
+ *
+ * <p>
+ * Clients submit mutations, which mirror the mutators of {@link Hotel}, and get back futures of
+ * their results. Mutations are queued on a lock-free queue, and the mutator thread drains it in
+ * batches: it applies every mutation of a batch in the order they were submitted, publishes the
+ * version of the hotel once for the whole batch, and only then completes the futures of the batch.
+ *
+ * <p>
+ * Mutations only record the entities they changed. The {@link HotelSnapshot} of the hotel is
+ * refreshed by the mutator thread when a reader asks for it and it is out of date, so an entity
+ * changed by many mutations is rendered again once, and mutations read by nobody cost nothing to
+ * the snapshot. A client which waited for its future always finds its mutation in the next
+ * {@link #snapshot()}.
+ *
+ * <p>
+ * A mutation which fails completes its future exceptionally, with the exception or error thrown
+ * by the hotel, and does not affect the other mutations of its batch. Futures are completed by the
+ * mutator thread, so actions chained to them without an executor must be brief.
+ *
+ * <p>
+ * Once the loop is created, the hotel must only be accessed through it.
+ *
+ * @see Hotel
+ * @see HotelSnapshot
+ */
+public final class HotelCommandLoop implements AutoCloseable {
+
+  /** Largest number of mutations applied before their futures are completed. */
+  private static final int BATCH = 1024;
+
+  private final Hotel _hotel;
+  private final ConcurrentLinkedQueue<Command<?>> _queue = new ConcurrentLinkedQueue<Command<?>>();
+  private final Thread _mutator;
+  private volatile boolean _parked;
+  private volatile boolean _closed;
+  private volatile HotelSnapshot _snapshot;
+  private volatile long _published;
+
+  // Confined to the mutator thread
+  private final List<Command<?>> _batch = new ArrayList<Command<?>>(BATCH);
+  private final Set<Animal> _changedAnimals = new HashSet<Animal>();
+  private final Set<Habitat> _changedHabitats = new HashSet<Habitat>();
+  private final Set<Species> _changedSpecies = new HashSet<Species>();
+  private final Set<Vaccine> _changedVaccines = new HashSet<Vaccine>();
+  private final Set<Worker> _changedWorkers = new HashSet<Worker>();
+  private long _version;
+
+  /*
+   * <------------------------ Constructor ------------------------>
+   */
+
+  /**
+   * Constructor which takes ownership of a hotel and starts its mutator thread.
+   *
+   * @param hotel the hotel
+   */
+  public HotelCommandLoop(Hotel hotel) {
+    _hotel = hotel;
+    hotel.shareEvents();
+    _snapshot = HotelSnapshot.of(hotel, _version);
+    _mutator = Thread.ofPlatform().name("hotel-mutator").daemon().start(this::run);
+  }
+
+  /*
+   * <------------------------ Gets ------------------------>
+   */
+
+  /**
+   * Returns a snapshot of the hotel with every mutation whose future has completed.
+   *
+   * <p>
+   * If the latest snapshot is out of date, the mutator thread is asked to refresh it, after the
+   * mutations already queued.
+   *
+   * @return a snapshot of the hotel
+   *
+   * @throws IllegalStateException if the snapshot is out of date and the loop is closed
+   *
+   * @see HotelSnapshot
+   */
+  public HotelSnapshot snapshot() {
+    HotelSnapshot snapshot = _snapshot;
+    if (snapshot.version() == _published) {
+      return snapshot;
+    }
+    if (Thread.currentThread() == _mutator) {
+      return refresh();
+    }
+    return submit(new Command<HotelSnapshot>(hotel -> refresh(), false)).join();
+  }
+
+  /*
+   * <------------------------ Sets ------------------------>
+   */
+
+  /**
+   * Submits the addition of an animal.
+   *
+   * @param idAnimal the identifier of the animal
+   * @param name the name of the animal
+   * @param idSpecies the identifier of the species of the animal
+   * @param idHabitat the identifier of the habitat of the animal
+   *
+   * @return the future of the addition
+   *
+   * @see Hotel#addAnimal(String, String, String, String)
+   */
+  public CompletableFuture<Void> addAnimal(String idAnimal, String name, String idSpecies,
+      String idHabitat) {
+    return submit(hotel -> {
+      Animal animal = hotel.addAnimal(idAnimal, name, idSpecies, idHabitat);
+      _changedAnimals.add(animal);
+      _changedHabitats.add(animal.habitat());
+      _changedSpecies.add(animal.species());
+      return null;
+    });
+  }
+
+  /**
+   * Submits the addition of a species.
+   *
+   * @param idSpecies the identifier of the species
+   * @param name the name of the species
+   *
+   * @return the future of the addition
+   *
+   * @see Hotel#addSpecies(String, String)
+   */
+  public CompletableFuture<Void> addSpecies(String idSpecies, String name) {
+    return submit(hotel -> {
+      hotel.addSpecies(idSpecies, name);
+      return null;
+    });
+  }
+
+  /**
+   * Submits the addition of a worker.
+   *
+   * @param idWorker the identifier of the worker
+   * @param name the name of the worker
+   * @param type the type of the worker
+   *
+   * @return the future of the addition
+   *
+   * @see Hotel#addWorker(String, String, String)
+   */
+  public CompletableFuture<Void> addWorker(String idWorker, String name, String type) {
+    return submit(hotel -> {
+      _changedWorkers.add(hotel.addWorker(idWorker, name, type));
+      return null;
+    });
+  }
+
+  /**
+   * Submits the addition of a habitat.
+   *
+   * @param idHabitat the identifier of the habitat
+   * @param name the name of the habitat
+   * @param area the area of the habitat
+   *
+   * @return the future of the addition
+   *
+   * @see Hotel#addHabitat(String, String, int)
+   */
+  public CompletableFuture<Void> addHabitat(String idHabitat, String name, int area) {
+    return submit(hotel -> {
+      _changedHabitats.add(hotel.addHabitat(idHabitat, name, area));
+      return null;
+    });
+  }
+
+  /**
+   * Submits the addition of a tree to a habitat.
+   *
+   * @param idHabitat the identifier of the habitat
+   * @param idTree the identifier of the tree
+   * @param name the name of the tree
+   * @param age the age of the tree
+   * @param cleanDiff the cleaning difficulty of the tree
+   * @param type the type of the tree
+   *
+   * @return the future of the line of the new tree
+   *
+   * @see Hotel#addTreeToHabitat(String, String, String, int, int, String)
+   */
+  public CompletableFuture<String> addTreeToHabitat(String idHabitat, String idTree, String name,
+      int age, int cleanDiff, String type) {
+    return submit(hotel -> {
+      String tree =
+          hotel.addTreeToHabitat(idHabitat, idTree, name, age, cleanDiff, type).toString();
+      _changedHabitats.add(hotel.habitatExists(idHabitat));
+      return tree;
+    });
+  }
+
+  /**
+   * Submits the addition of a vaccine.
+   *
+   * @param idVaccine the identifier of the vaccine
+   * @param name the name of the vaccine
+   * @param idSpecies the identifiers of the species of the vaccine, separated by commas
+   *
+   * @return the future of the addition
+   *
+   * @see Hotel#addVaccine(String, String, String)
+   */
+  public CompletableFuture<Void> addVaccine(String idVaccine, String name, String idSpecies) {
+    return submit(hotel -> {
+      _changedVaccines.add(hotel.addVaccine(idVaccine, name, idSpecies));
+      return null;
+    });
+  }
+
+  /**
+   * Submits the advance of the season.
+   *
+   * @return the future of the new season
+   *
+   * @see Hotel#progressSeason()
+   */
+  public CompletableFuture<SeasonType> progressSeason() {
+    return submit(hotel -> {
+      SeasonType season = hotel.progressSeason();
+      _changedHabitats.addAll(hotel.habitats());
+      return season;
+    });
+  }
+
+  /**
+   * Submits the addition of a responsibility to a worker.
+   *
+   * @param idWorker the identifier of the worker
+   * @param idResponsibility the identifier of the habitat or species
+   *
+   * @return the future of the addition
+   *
+   * @see Hotel#addResponsibilityToWorker(String, String)
+   */
+  public CompletableFuture<Void> addResponsibilityToWorker(String idWorker,
+      String idResponsibility) {
+    return submit(hotel -> {
+      hotel.addResponsibilityToWorker(idWorker, idResponsibility);
+      changedResponsibility(idWorker, idResponsibility);
+      return null;
+    });
+  }
+
+  /**
+   * Submits the removal of a responsibility from a worker.
+   *
+   * @param idWorker the identifier of the worker
+   * @param idResponsibility the identifier of the habitat or species
+   *
+   * @return the future of the removal
+   *
+   * @see Hotel#removeResponsibilityFromWorker(String, String)
+   */
+  public CompletableFuture<Void> removeResponsibilityFromWorker(String idWorker,
+      String idResponsibility) {
+    return submit(hotel -> {
+      hotel.removeResponsibilityFromWorker(idWorker, idResponsibility);
+      changedResponsibility(idWorker, idResponsibility);
+      return null;
+    });
+  }
+
+  /**
+   * Submits the transfer of an animal to a habitat.
+   *
+   * @param idAnimal the identifier of the animal
+   * @param idHabitat the identifier of the habitat
+   *
+   * @return the future of the transfer
+   *
+   * @see Hotel#transferAnimal(String, String)
+   */
+  public CompletableFuture<Void> transferAnimal(String idAnimal, String idHabitat) {
+    return submit(hotel -> {
+      Animal animal = hotel.animalExistsWithException(idAnimal);
+      Habitat source = animal.habitat();
+      hotel.transferAnimal(idAnimal, idHabitat);
+      _changedAnimals.add(animal);
+      _changedHabitats.add(source);
+      _changedHabitats.add(animal.habitat());
+      return null;
+    });
+  }
+
+  /**
+   * Submits the change of the area of a habitat.
+   *
+   * @param idHabitat the identifier of the habitat
+   * @param area the new area of the habitat
+   *
+   * @return the future of the change
+   *
+   * @see Hotel#changeHabitatArea(String, int)
+   */
+  public CompletableFuture<Void> changeHabitatArea(String idHabitat, int area) {
+    return submit(hotel -> {
+      hotel.changeHabitatArea(idHabitat, area);
+      _changedHabitats.add(hotel.habitatExists(idHabitat));
+      return null;
+    });
+  }
+
+  /**
+   * Submits the change of the influence of a habitat on a species.
+   *
+   * @param idHabitat the identifier of the habitat
+   * @param idSpecies the identifier of the species
+   * @param influence the new influence of the habitat on the species
+   *
+   * @return the future of the change
+   *
+   * @see Hotel#changeHabitatSuitability(String, String, Influence)
+   */
+  public CompletableFuture<Void> changeHabitatSuitability(String idHabitat, String idSpecies,
+      Influence influence) {
+    return submit(hotel -> {
+      hotel.changeHabitatSuitability(idHabitat, idSpecies, influence);
+      _changedHabitats.add(hotel.habitatExists(idHabitat));
+      return null;
+    });
+  }
+
+  /**
+   * Submits the vaccination of an animal.
+   *
+   * @param idAnimal the identifier of the animal
+   * @param idVaccine the identifier of the vaccine
+   * @param idVet the identifier of the vet
+   *
+   * @return the future of the registry of the vaccination
+   *
+   * @see Hotel#vaccinateAnimal(String, String, String)
+   */
+  public CompletableFuture<VaccineRegistry> vaccinateAnimal(String idAnimal, String idVaccine,
+      String idVet) {
+    return submit(hotel -> {
+      VaccineRegistry vaccination = hotel.vaccinateAnimal(idAnimal, idVaccine, idVet);
+      _changedAnimals.add(hotel.animalExists(idAnimal));
+      _changedVaccines.add(hotel.vaccineExists(idVaccine));
+      return vaccination;
+    });
+  }
+
+  /*
+   * <------------------------ Others ------------------------>
+   */
+
+  /**
+   * Stops accepting mutations and waits for the mutator thread to apply every mutation already
+   * submitted. Mutations submitted while the loop closes are completed exceptionally.
+   *
+   * <p>
+   * An interruption does not cut the wait short, since the hotel belongs to the mutator thread
+   * until it ends, but the interrupt status of the thread is restored once it has.
+   */
+  @Override
+  public void close() {
+    _closed = true;
+    LockSupport.unpark(_mutator);
+    boolean interrupted = false;
+    while (true) {
+      try {
+        _mutator.join();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    rejectQueued();
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Queues a mutation and wakes the mutator thread if it is parked.
+   *
+   * @param mutation the mutation
+   *
+   * @return the future of the result of the mutation
+   *
+   * @throws IllegalStateException if the loop is closed
+   */
+  private <T> CompletableFuture<T> submit(Mutation<T> mutation) {
+    return submit(new Command<T>(mutation, true));
+  }
+
+  private <T> CompletableFuture<T> submit(Command<T> command) {
+    if (_closed) {
+      throw closed();
+    }
+    _queue.offer(command);
+    if (_parked) {
+      LockSupport.unpark(_mutator);
+    }
+    // The loop may have been closed, and its queue drained, since the check above
+    if (_closed && _queue.remove(command)) {
+      command._future.completeExceptionally(closed());
+    }
+    return command._future;
+  }
+
+  /**
+   * Body of the mutator thread: applies the mutations in batches until the loop is closed and its
+   * queue is empty.
+   */
+  private void run() {
+    while (true) {
+      Command<?> command;
+      while (_batch.size() < BATCH && (command = _queue.poll()) != null) {
+        _batch.add(command);
+      }
+      if (!_batch.isEmpty()) {
+        applyBatch();
+      } else if (_closed) {
+        refresh();
+        return;
+      } else {
+        // A submitter either sees the flag or its mutation is seen by the check of the queue
+        _parked = true;
+        if (_queue.isEmpty() && !_closed) {
+          LockSupport.park(this);
+        }
+        _parked = false;
+      }
+    }
+  }
+
+  /**
+   * Applies every mutation of the batch, publishes the version of the hotel once and completes the
+   * futures.
+   *
+   * <p>
+   * The version advances with every mutation applied, so a refresh queued in the batch after some
+   * mutations sees the snapshot is out of date and renders them.
+   */
+  private void applyBatch() {
+    long version = _version;
+    for (Command<?> command : _batch) {
+      if (command.apply(_hotel) && command._mutates) {
+        _version++;
+      }
+    }
+    if (_version != version) {
+      _published = _version;
+    }
+    for (Command<?> command : _batch) {
+      command.complete();
+    }
+    _batch.clear();
+  }
+
+  /**
+   * Renders again the entities changed since the latest snapshot, on the mutator thread.
+   *
+   * @return the refreshed snapshot
+   */
+  private HotelSnapshot refresh() {
+    if (_snapshot.version() != _version) {
+      _snapshot = _snapshot.refresh(_hotel, _version, _changedAnimals, _changedHabitats,
+          _changedSpecies, _changedVaccines, _changedWorkers);
+      _changedAnimals.clear();
+      _changedHabitats.clear();
+      _changedSpecies.clear();
+      _changedVaccines.clear();
+      _changedWorkers.clear();
+    }
+    return _snapshot;
+  }
+
+  /**
+   * Records a change of a responsibility of a worker, which changes the worker and the work of
+   * every other worker responsible for the same habitat or species.
+   *
+   * @param idWorker the identifier of the worker
+   * @param idResponsibility the identifier of the habitat or species
+   */
+  private void changedResponsibility(String idWorker, String idResponsibility) {
+    Worker worker = _hotel.workerExists(idWorker);
+    _changedWorkers.add(worker);
+    if (worker instanceof Vet) {
+      _changedSpecies.add(_hotel.speciesExists(idResponsibility));
+    } else {
+      _changedHabitats.add(_hotel.habitatExists(idResponsibility));
+    }
+  }
+
+  private void rejectQueued() {
+    Command<?> command;
+    while ((command = _queue.poll()) != null) {
+      command._future.completeExceptionally(closed());
+    }
+  }
+
+  private static IllegalStateException closed() {
+    return new IllegalStateException("The command loop is closed");
+  }
+
+  /**
+   * Mutation of the hotel, applied by the mutator thread.
+   *
+   * @param <T> the type of the result of the mutation
+   */
+  @FunctionalInterface
+  private interface Mutation<T> {
+    T apply(Hotel hotel) throws Exception;
+  }
+
+  /**
+   * Queued mutation, or refresh of the snapshot, with its future and, once applied, its result or
+   * failure.
+   *
+   * @param <T> the type of the result of the mutation
+   */
+  private static final class Command<T> {
+    private final Mutation<T> _mutation;
+    private final boolean _mutates;
+    private final CompletableFuture<T> _future = new CompletableFuture<T>();
+    private T _result;
+    private Throwable _failure;
+
+    Command(Mutation<T> mutation, boolean mutates) {
+      _mutation = mutation;
+      _mutates = mutates;
+    }
+
+    /**
+     * Applies the mutation, keeping its result or failure for {@link #complete()}.
+     *
+     * @param hotel the hotel
+     *
+     * @return true if the mutation succeeded
+     */
+    boolean apply(Hotel hotel) {
+      try {
+        _result = _mutation.apply(hotel);
+        return true;
+      } catch (Throwable e) {
+        // An error must not end the mutator thread and leave the futures of the batch pending
+        _failure = e;
+        return false;
+      }
+    }
+
+    void complete() {
+      if (_failure == null) {
+        _future.complete(_result);
+      } else {
+        _future.completeExceptionally(_failure);
+      }
+    }
+  }
+}
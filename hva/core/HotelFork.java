@@ -0,0 +1,129 @@
+package hva.core;
+
+import hva.core.event.HotelEvent;
+import hva.core.event.HotelEventSink;
+import hva.core.exception.UnrecognizedEntryException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class representing a fork of a hotel, whose changes are discarded when it is closed unless they
+ * are committed.
+ *
+ * <p>
+ * The fork takes the place of the sink of events of the hotel and records every change made to the
+ * hotel while it is open. Forking is constant time and closing costs as much as the changes it
+ * undoes, whatever the size of the hotel. Committing passes the recorded events on to the sink the
+ * hotel had when it forked, which may be an enclosing fork, as a single change.
+ *
+ * <pre>
+ * try (HotelFork fork = hotel.fork()) {
+ *   hotel.transferAnimal(idAnimal, idHabitat);
+ *   gain = hotel.satisfaction() - before;
+ * }
+ * </pre>
+ *
+ * @see Hotel#fork()
+ * @see Hotel#undo(HotelEvent)
+ */
+public class HotelFork implements HotelEventSink, AutoCloseable {
+
+  private final Hotel _hotel;
+  private final HotelEventSink _next;
+  private final List<HotelEvent> _events = new ArrayList<HotelEvent>();
+  private boolean _closed;
+
+  /*
+   * <------------------------ Constructor ------------------------>
+   */
+
+  /**
+   * Constructor which forks a hotel.
+   *
+   * @param hotel the hotel
+   *
+   * @see Hotel#fork()
+   */
+  HotelFork(Hotel hotel) {
+    _hotel = hotel;
+    _next = hotel.eventSink();
+    hotel.setEventSink(this);
+  }
+
+  /*
+   * <------------------------ Gets ------------------------>
+   */
+
+  /**
+   * Returns the number of changes made to the hotel since it forked.
+   *
+   * @return the number of events recorded by this fork
+   */
+  public int changes() {
+    return _events.size();
+  }
+
+  /*
+   * <------------------------ Others ------------------------>
+   */
+
+  /**
+   * Records a change made to the hotel.
+   *
+   * @param event the event of the change
+   *
+   * @return the sequence of the event in this fork
+   */
+  @Override
+  public long publish(HotelEvent event) {
+    _events.add(event);
+    return _events.size() - 1;
+  }
+
+  /**
+   * Keeps the changes made to the hotel since it forked and closes this fork.
+   *
+   * @throws IllegalStateException if this fork is closed, or a fork made after it is still open
+   */
+  public void commit() {
+    detach();
+    if (_next != null && !_events.isEmpty()) {
+      _next.publishAll(_events);
+    }
+  }
+
+  /**
+   * Discards the changes made to the hotel since it forked, unless they were committed.
+   *
+   * @throws IllegalStateException if a fork made after this one is still open
+   */
+  @Override
+  public void close() {
+    if (_closed) {
+      return;
+    }
+    detach();
+
+    // The fork recorded these events from the hotel itself, so failing to undo one is a defect
+    try {
+      for (int i = _events.size() - 1; i >= 0; i--) {
+        _hotel.undo(_events.get(i));
+      }
+    } catch (UnrecognizedEntryException e) {
+      throw new IllegalStateException("Fork cannot be undone", e);
+    }
+  }
+
+  // Gives the hotel back its previous sink
+  private void detach() {
+    if (_closed) {
+      throw new IllegalStateException("Fork is closed");
+    }
+    if (_hotel.eventSink() != this) {
+      throw new IllegalStateException("Forks must be closed in the reverse order they were made");
+    }
+    _hotel.setEventSink(_next);
+    _closed = true;
+  }
+}
@@ -0,0 +1,426 @@
+package hva.core;
+
+import hva.core.enumerator.SeasonType;
+import hva.core.event.HotelEvent;
+import hva.core.event.HotelEventSink;
+import hva.core.exception.UnrecognizedEntryException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serial;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Class representing the history of a hotel, season by season, from which the hotel of any past
+ * season is reconstructed.
+ *
+ * <p>
+ * The history follows the events of the hotel and keeps, for each season that ended, the delta of
+ * the season: the events published during it, in which every animal transferred is moved once to
+ * its last habitat and every area and influence changed is set once to its last value, leaving out
+ * those which ended the season as they began it. Every {@code interval} seasons, and when the
+ * history starts, it also keeps a keyframe: the hotel serialized as the season begins. Deltas and
+ * keyframes are kept compressed.
+ *
+ * <p>
+ * A past season is reconstructed from the last keyframe taken before it and the deltas of the
+ * seasons since, so no reconstruction applies more than {@code interval} deltas. The history is
+ * serializable, so it may be saved along with its hotel and follow it again once loaded.
+ *
+ * <p>
+ * Undoing a change to an area, an influence or the habitat of an animal is recorded as the change
+ * back, and undoing the advance of a season takes that season back from the history.
+ *
+ * @see Hotel#replay(List)
+ * @see HotelManager#history()
+ */
+public final class HotelHistory implements HotelEventSink, Serializable {
+
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  private final int _interval;
+  private final List<byte[]> _keyframes = new ArrayList<byte[]>();
+  private final List<byte[]> _deltas = new ArrayList<byte[]>();
+  private final List<SeasonType> _seasons = new ArrayList<SeasonType>();
+  private long _published;
+  private transient Hotel _hotel;
+  private transient HotelEventSink _next;
+  private transient List<HotelEvent> _events;
+  private transient Map<String, HotelEvent.AnimalTransferred> _transfers;
+  private transient Map<String, HotelEvent.HabitatAreaChanged> _areas;
+  private transient Map<String, HotelEvent.HabitatInfluenceChanged> _influences;
+
+  /*
+   * <------------------------ Constructor ------------------------>
+   */
+
+  /**
+   * Constructor which starts the history of a hotel in its current season, taking its first
+   * keyframe and following its events from now on.
+   *
+   * <p>
+   * Events are passed on to the sink the hotel published to, if any.
+   *
+   * @param hotel the hotel
+   * @param interval the number of seasons between keyframes
+   *
+   * @throws IllegalArgumentException if the interval is not positive
+   * @throws UncheckedIOException if the hotel cannot be serialized
+   */
+  public HotelHistory(Hotel hotel, int interval) {
+    if (interval < 1) {
+      throw new IllegalArgumentException("Interval must be positive: " + interval);
+    }
+    _interval = interval;
+    clearSeason();
+    _keyframes.add(compress(hotel));
+    follow(hotel);
+  }
+
+  /*
+   * <------------------------ Gets ------------------------>
+   */
+
+  /**
+   * Returns the number of seasons that ended since this history started, which is the number of
+   * the current season.
+   *
+   * @return the number of past seasons
+   */
+  public synchronized int seasons() {
+    return _seasons.size();
+  }
+
+  /**
+   * Returns the type of a past season.
+   *
+   * @param season the number of the season, starting at 0 for the season in which this history
+   *        started
+   *
+   * @return the type of the season
+   *
+   * @throws IllegalArgumentException if the season has not ended yet
+   */
+  public synchronized SeasonType seasonType(int season) {
+    checkSeason(season);
+    return _seasons.get(season);
+  }
+
+  /**
+   * Returns the number of bytes this history keeps compressed, in its keyframes and its deltas.
+   *
+   * @return the size of this history
+   */
+  public synchronized long bytes() {
+    long bytes = 0;
+    for (byte[] keyframe : _keyframes) {
+      bytes += keyframe.length;
+    }
+    for (byte[] delta : _deltas) {
+      bytes += delta.length;
+    }
+    return bytes;
+  }
+
+  /*
+   * <------------------------ Others ------------------------>
+   */
+
+  /**
+   * Reconstructs the view of the hotel as it was when a past season ended.
+   *
+   * @param season the number of the season, starting at 0 for the season in which this history
+   *        started
+   *
+   * @return the snapshot of the hotel at the end of the season, whose version is the season
+   *
+   * @throws IllegalArgumentException if the season has not ended yet
+   */
+  public HotelSnapshot season(int season) {
+    return HotelSnapshot.of(hotel(season), season);
+  }
+
+  /**
+   * Reconstructs the view of the hotel as it was when the season some seasons ago ended.
+   *
+   * @param seasonsAgo how many seasons ago the season was, 1 being the season before the current
+   *        one
+   *
+   * @return the snapshot of the hotel at the end of the season
+   *
+   * @throws IllegalArgumentException if the season is not a past season of this history
+   */
+  public HotelSnapshot seasonsAgo(int seasonsAgo) {
+    int season;
+    synchronized (this) {
+      season = _seasons.size() - seasonsAgo;
+    }
+    return season(season);
+  }
+
+  /**
+   * Reconstructs the hotel as it was when a past season ended.
+   *
+   * <p>
+   * The hotel is a copy, unrelated to the hotel of this history and to this history.
+   *
+   * @param season the number of the season, starting at 0 for the season in which this history
+   *        started
+   *
+   * @return the hotel at the end of the season
+   *
+   * @throws IllegalArgumentException if the season has not ended yet
+   */
+  public Hotel hotel(int season) {
+    byte[] keyframe;
+    List<byte[]> deltas;
+    List<SeasonType> seasons;
+    int first = season - season % _interval;
+    synchronized (this) {
+      checkSeason(season);
+      keyframe = _keyframes.get(season / _interval);
+      deltas = List.copyOf(_deltas.subList(first, season + 1));
+      seasons = List.copyOf(_seasons.subList(first, season + 1));
+    }
+
+    // The history recorded every byte it reads, so failing to read them is a defect
+    try {
+      Hotel hotel = decompress(keyframe);
+      for (int i = 0; i < deltas.size(); i++) {
+        if (i > 0) {
+          hotel.replay(List.of(new HotelEvent.SeasonAdvanced(seasons.get(i - 1), seasons.get(i))));
+        }
+        hotel.replay(decode(deltas.get(i)));
+      }
+      return hotel;
+    } catch (IOException | ClassNotFoundException | UnrecognizedEntryException e) {
+      throw new IllegalStateException("Unreadable history of season " + season, e);
+    }
+  }
+
+  /**
+   * Records an event of the hotel, closing the current season if the event advanced it, and passes
+   * it on to the next sink.
+   *
+   * @param event the event
+   *
+   * @return the sequence of the event in the next sink, or in this history if there is none
+   *
+   * @throws UncheckedIOException if the keyframe of the new season cannot be taken
+   */
+  @Override
+  public long publish(HotelEvent event) {
+    long sequence;
+    synchronized (this) {
+      record(event);
+      sequence = _published++;
+    }
+    return _next != null ? _next.publish(event) : sequence;
+  }
+
+  /**
+   * Follows the events of a hotel, which must be the hotel of this history, as it was when this
+   * history was saved along with it.
+   *
+   * @param hotel the hotel
+   *
+   * @see HotelManager#load(String)
+   */
+  void follow(Hotel hotel) {
+    _hotel = hotel;
+    _next = hotel.eventSink();
+    hotel.setEventSink(this);
+  }
+
+  // Adds an event to the delta of the current season, or closes the season
+  private void record(HotelEvent event) {
+    switch (event) {
+      case HotelEvent.AnimalTransferred transfer -> _transfers.merge(transfer.animal(), transfer,
+          (first, last) -> new HotelEvent.AnimalTransferred(last.animal(),
+              first.previousHabitat(), last.habitat()));
+      case HotelEvent.HabitatAreaChanged change -> _areas.merge(change.habitat(), change,
+          (first, last) -> new HotelEvent.HabitatAreaChanged(last.habitat(), first.previousArea(),
+              last.area()));
+      case HotelEvent.HabitatInfluenceChanged change -> _influences.merge(
+          change.habitat() + "|" + change.species(), change,
+          (first, last) -> new HotelEvent.HabitatInfluenceChanged(last.habitat(), last.species(),
+              first.previousInfluence(), last.influence()));
+      case HotelEvent.SeasonAdvanced advanced -> {
+        _deltas.add(encode(delta()));
+        _seasons.add(advanced.previousSeason());
+        clearSeason();
+        if (_seasons.size() % _interval == 0) {
+          _keyframes.add(compress(_hotel));
+        }
+      }
+      case HotelEvent.Undone undone -> {
+        switch (undone.event()) {
+          case HotelEvent.AnimalTransferred transfer -> record(new HotelEvent.AnimalTransferred(
+              transfer.animal(), transfer.habitat(), transfer.previousHabitat()));
+          case HotelEvent.HabitatAreaChanged change -> record(new HotelEvent.HabitatAreaChanged(
+              change.habitat(), change.area(), change.previousArea()));
+          case HotelEvent.HabitatInfluenceChanged change ->
+              record(new HotelEvent.HabitatInfluenceChanged(change.habitat(), change.species(),
+                  change.influence(), change.previousInfluence()));
+          case HotelEvent.SeasonAdvanced advanced -> reopenSeason();
+          default -> _events.add(event);
+        }
+      }
+      default -> _events.add(event);
+    }
+  }
+
+  // Takes back the last season that ended, whose delta becomes the delta of the current season
+  private void reopenSeason() {
+    int season = _seasons.size() - 1;
+    if (_seasons.size() % _interval == 0) {
+      _keyframes.remove(_keyframes.size() - 1);
+    }
+    _seasons.remove(season);
+    List<HotelEvent> delta;
+    try {
+      delta = decode(_deltas.remove(season));
+    } catch (IOException | UnrecognizedEntryException e) {
+      throw new IllegalStateException("Unreadable history of season " + season, e);
+    }
+    clearSeason();
+    for (HotelEvent event : delta) {
+      record(event);
+    }
+  }
+
+  // Events of the current season, with the coalesced changes that did not cancel out last
+  private List<HotelEvent> delta() {
+    List<HotelEvent> delta = new ArrayList<HotelEvent>(_events);
+    for (HotelEvent.AnimalTransferred transfer : _transfers.values()) {
+      if (!transfer.previousHabitat().equals(transfer.habitat())) {
+        delta.add(transfer);
+      }
+    }
+    for (HotelEvent.HabitatAreaChanged change : _areas.values()) {
+      if (change.previousArea() != change.area()) {
+        delta.add(change);
+      }
+    }
+    for (HotelEvent.HabitatInfluenceChanged change : _influences.values()) {
+      if (change.previousInfluence() != change.influence()) {
+        delta.add(change);
+      }
+    }
+    return delta;
+  }
+
+  // Starts an empty delta for the current season
+  private void clearSeason() {
+    _events = new ArrayList<HotelEvent>();
+    _transfers = new LinkedHashMap<String, HotelEvent.AnimalTransferred>();
+    _areas = new LinkedHashMap<String, HotelEvent.HabitatAreaChanged>();
+    _influences = new LinkedHashMap<String, HotelEvent.HabitatInfluenceChanged>();
+  }
+
+  private void checkSeason(int season) {
+    if (season < 0 || season >= _seasons.size()) {
+      throw new IllegalArgumentException("Season has not ended: " + season);
+    }
+  }
+
+  // Compressed lines of some events
+  private static byte[] encode(List<HotelEvent> events) {
+    StringBuilder lines = new StringBuilder();
+    for (HotelEvent event : events) {
+      lines.append(event).append('\n');
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DeflaterOutputStream out = new DeflaterOutputStream(bytes)) {
+      out.write(lines.toString().getBytes(StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static List<HotelEvent> decode(byte[] delta)
+      throws IOException, UnrecognizedEntryException {
+    List<HotelEvent> events = new ArrayList<HotelEvent>();
+    try (InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(delta))) {
+      String lines = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+      for (String line : lines.split("\n")) {
+        if (!line.isEmpty()) {
+          events.add(HotelEvent.parse(line));
+        }
+      }
+    }
+    return events;
+  }
+
+  // Compressed serialization of a hotel, favouring speed since it is taken as the season advances
+  private static byte[] compress(Hotel hotel) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    try (ObjectOutputStream out =
+        new ObjectOutputStream(new DeflaterOutputStream(bytes, deflater, 1 << 16))) {
+      out.writeObject(hotel);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      deflater.end();
+    }
+    return bytes.toByteArray();
+  }
+
+  private static Hotel decompress(byte[] keyframe) throws IOException, ClassNotFoundException {
+    try (ObjectInputStream in =
+        new ObjectInputStream(new InflaterInputStream(new ByteArrayInputStream(keyframe)))) {
+      Hotel hotel = (Hotel) in.readObject();
+      hotel.canonicalizeStrings();
+      return hotel;
+    }
+  }
+
+  /**
+   * Custom serialization of the history, which also writes the delta of the current season.
+   *
+   * @param out the ObjectOutputStream object used to write the object
+   *
+   * @throws IOException if an I/O error occurs while writing the object
+   */
+  @Serial
+  private synchronized void writeObject(ObjectOutputStream out) throws IOException {
+    out.defaultWriteObject();
+    out.writeObject(encode(delta()));
+  }
+
+  /**
+   * Custom deserialization of the history, which reads the delta of the current season.
+   *
+   * @param in the ObjectInputStream object used to read the object
+   *
+   * @throws ClassNotFoundException if the class of a serialized object cannot be found
+   * @throws IOException if an I/O error occurs while reading the object
+   */
+  @Serial
+  private void readObject(ObjectInputStream in) throws ClassNotFoundException, IOException {
+    in.defaultReadObject();
+    clearSeason();
+    try {
+      for (HotelEvent event : decode((byte[]) in.readObject())) {
+        record(event);
+      }
+    } catch (UnrecognizedEntryException e) {
+      throw new IOException("Error deserializing HotelHistory", e);
+    }
+  }
+}
@@ -0,0 +1,174 @@
+package hva.core;
+
+import hva.core.event.HotelEvent;
+import hva.core.event.HotelEventLog;
+import hva.core.exception.UnrecognizedEntryException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * Class representing the durable record of a hotel: the log of its events and a snapshot of it.
+ *
+ * <p>
+ * The log is the authoritative state, and the hotel is a projection of it. The snapshot is the
+ * hotel serialized after some number of logged events, so recovering the hotel loads the snapshot
+ * and replays only the events logged after it, in large batches through the replay path of the
+ * hotel. Earlier states are reconstructed the same way, from an empty hotel, or from the snapshot
+ * if it was taken before them.
+ *
+ * <p>
+ * The journal keeps its files in a directory: {@code events.log} and {@code snapshot.ser}.
+ *
+ * @see HotelEventLog
+ * @see Hotel#replay(List)
+ */
+public class HotelJournal implements AutoCloseable {
+
+  private static final String LOG = "events.log";
+  private static final String SNAPSHOT = "snapshot.ser";
+  private static final int BATCH = 8192;
+
+  private final Path _directory;
+  private final boolean _offHeapAnimals;
+  private final HotelEventLog _log;
+
+  /*
+   * <------------------------ Constructor ------------------------>
+   */
+
+  /**
+   * Constructor which opens the journal kept in a directory, creating it if it does not exist.
+   *
+   * @param directory the directory of the journal
+   * @param offHeapAnimals whether the hotels reconstructed from scratch keep their animals in
+   *        off-heap memory
+   *
+   * @throws IOException if the directory or the log cannot be created or read
+   */
+  public HotelJournal(Path directory, boolean offHeapAnimals) throws IOException {
+    Files.createDirectories(directory);
+    _directory = directory;
+    _offHeapAnimals = offHeapAnimals;
+    _log = new HotelEventLog(directory.resolve(LOG));
+  }
+
+  /*
+   * <------------------------ Gets ------------------------>
+   */
+
+  /**
+   * Returns the number of events in the log of this journal.
+   *
+   * @return the position of the log
+   */
+  public long position() {
+    return _log.position();
+  }
+
+  /*
+   * <------------------------ Others ------------------------>
+   */
+
+  /**
+   * Recovers the hotel of this journal, whose changes are logged from now on.
+   *
+   * @return the hotel in the state of the last logged event
+   *
+   * @throws IOException if the snapshot or the log cannot be read
+   * @throws UnrecognizedEntryException if the log holds a line which is not an event of the hotel
+   */
+  public Hotel recover() throws IOException, UnrecognizedEntryException {
+    Hotel hotel = reconstruct(_log.position());
+    hotel.setEventSink(_log);
+    return hotel;
+  }
+
+  /**
+   * Reconstructs the hotel of this journal as it was after a number of events, without logging its
+   * changes.
+   *
+   * @param position the number of events applied to the hotel
+   *
+   * @return the hotel in the state after the given number of events
+   *
+   * @throws IOException if the snapshot or the log cannot be read
+   * @throws UnrecognizedEntryException if the log holds a line which is not an event of the hotel
+   * @throws IllegalArgumentException if the position is negative or past the end of the log
+   */
+  public Hotel reconstruct(long position) throws IOException, UnrecognizedEntryException {
+    if (position < 0 || position > _log.position()) {
+      throw new IllegalArgumentException("Position out of the log: " + position);
+    }
+
+    Hotel hotel = null;
+    long from = 0;
+    Path snapshot = _directory.resolve(SNAPSHOT);
+    if (Files.exists(snapshot)) {
+      try (ObjectInputStream in =
+          new ObjectInputStream(new BufferedInputStream(Files.newInputStream(snapshot)))) {
+        long taken = in.readLong();
+        if (taken <= position) {
+          hotel = (Hotel) in.readObject();
+          hotel.canonicalizeStrings();
+          from = taken;
+        }
+      } catch (ClassNotFoundException e) {
+        throw new IOException(e);
+      }
+    }
+    if (hotel == null) {
+      hotel = new Hotel(_offHeapAnimals);
+    }
+
+    try (HotelEventLog.Cursor cursor = _log.read(from)) {
+      while (cursor.position() < position) {
+        List<HotelEvent> batch = cursor.next((int) Math.min(BATCH, position - cursor.position()));
+        if (batch.isEmpty()) {
+          break;
+        }
+        hotel.replay(batch);
+      }
+    }
+    return hotel;
+  }
+
+  /**
+   * Replaces the snapshot of this journal by a hotel in the state of the last logged event.
+   *
+   * <p>
+   * The hotel must not change while the snapshot is taken. The snapshot is written aside and then
+   * moved over the previous one, so a crash leaves either of them whole.
+   *
+   * @param hotel the hotel recovered from this journal
+   *
+   * @throws IOException if the snapshot cannot be written
+   */
+  public void snapshot(Hotel hotel) throws IOException {
+    Path temporary = _directory.resolve(SNAPSHOT + ".tmp");
+    try (ObjectOutputStream out =
+        new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+      out.writeLong(_log.position());
+      out.writeObject(hotel);
+    }
+    Files.move(temporary, _directory.resolve(SNAPSHOT), StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Closes the log of this journal.
+   *
+   * @throws IOException if the log cannot be closed
+   */
+  @Override
+  public void close() throws IOException {
+    _log.close();
+  }
+}
@@ -5,14 +5,19 @@ import hva.core.exception.ImportFileException;
 import hva.core.exception.MissingFileAssociationException;
 import hva.core.exception.UnavailableFileException;
 import hva.core.exception.UnrecognizedEntryException;
+import hva.core.jfr.PersistenceEvent;
+import hva.core.metrics.Metrics;
+import hva.core.metrics.Timer;
 
 import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.nio.file.Path;
 
 import java.util.Arrays;
 
@@ -20,10 +25,27 @@ import java.util.Arrays;
  * Class representing the manager of this application. It manages the current zoo hotel.
  **/
 public class HotelManager {
+  /** Whether new hotels keep their animals off-heap, set with -Doffheap=true */
+  private static final boolean OFF_HEAP_ANIMALS = Boolean.getBoolean("offheap");
+  /** Seasons between keyframes of the history of new hotels, set with -Dhistory=N; 0 keeps none */
+  private static final int HISTORY_INTERVAL = Integer.getInteger("history", 0);
+  /** Changes of the hotel that may be undone, set with -Dundo=N; 0 keeps none */
+  private static final int UNDO_LIMIT = Integer.getInteger("undo", 100);
+
+  private static final Timer CREATE_TIMER = Metrics.timer("HotelManager.create");
+  private static final Timer SAVE_TIMER = Metrics.timer("HotelManager.save");
+  private static final Timer SAVE_AS_TIMER = Metrics.timer("HotelManager.saveAs");
+  private static final Timer LOAD_TIMER = Metrics.timer("HotelManager.load");
+  private static final Timer IMPORT_FILE_TIMER = Metrics.timer("HotelManager.importFile");
+  private static final Timer HOTEL_MODIFIED_TIMER = Metrics.timer("HotelManager.hotelModified");
+
   /** The current zoo hotel */
-  private Hotel _hotel = new Hotel();
+  private Hotel _hotel = new Hotel(OFF_HEAP_ANIMALS);
   private String _filePath = "";
   private byte[] _originalSerializedHotel;
+  private HotelJournal _journal;
+  private HotelHistory _history = startHistory(_hotel);
+  private HotelUndoStack _undo = startUndo(_hotel);
 
   public HotelManager() {
     try {
@@ -59,6 +81,40 @@ public class HotelManager {
     return _filePath;
   }
 
+  /**
+   * Returns the history of the current zoo hotel, from which its past seasons are reconstructed.
+   * 
+   * <p>
+   * New hotels keep a history only if the application is started with {@code -Dhistory=N}, which
+   * takes a keyframe of the hotel every {@code N} seasons. A history saved with a hotel is loaded
+   * and kept along with it.
+   *
+   * @return the history of the hotel, or {@code null} if it keeps none
+   * 
+   * @see HotelHistory
+   */
+  public HotelHistory history() {
+    return _history;
+  }
+
+  /**
+   * Returns whether there is a change of the current zoo hotel to undo.
+   *
+   * @return whether a change was made and not undone
+   */
+  public boolean canUndo() {
+    return _undo != null && _undo.canUndo();
+  }
+
+  /**
+   * Returns whether there is a change of the current zoo hotel to redo.
+   *
+   * @return whether a change was undone and no change was made since
+   */
+  public boolean canRedo() {
+    return _undo != null && _undo.canRedo();
+  }
+
   /*
    * <------------------------ Others ------------------------>
    */
@@ -86,6 +142,44 @@ public class HotelManager {
     return _hotel.satisfaction();
   }
 
+  /**
+   * Estimates the heap retained by the hotel, per category of entity.
+   * 
+   * @return the estimate of the heap retained by the hotel
+   * 
+   * @see Hotel#heapFootprint()
+   */
+  public HeapFootprint heapFootprint() {
+    return _hotel.heapFootprint();
+  }
+
+  /**
+   * Undoes the last change made to the current zoo hotel since it was created, loaded or imported,
+   * that was not undone.
+   * 
+   * <p>
+   * The hotel keeps the last {@code N} changes made to it if the application is started with
+   * {@code -Dundo=N}, or the last 100 by default.
+   * 
+   * @return whether there was a change to undo
+   * 
+   * @see HotelUndoStack#undo()
+   */
+  public boolean undo() {
+    return _undo != null && _undo.undo();
+  }
+
+  /**
+   * Redoes the last change of the current zoo hotel undone, if no change was made since.
+   * 
+   * @return whether there was a change to redo
+   * 
+   * @see HotelUndoStack#redo()
+   */
+  public boolean redo() {
+    return _undo != null && _undo.redo();
+  }
+
   /**
    * Creates a new hotel.
    *
@@ -94,9 +188,17 @@ public class HotelManager {
    * @see Hotel
    **/
   public void create() throws IOException {
-    _hotel = new Hotel();
-    _filePath = "";
-    _originalSerializedHotel = serializeHotel(_hotel);
+    long start = CREATE_TIMER.start();
+    try {
+      closeJournal();
+      _hotel = new Hotel(OFF_HEAP_ANIMALS);
+      _history = startHistory(_hotel);
+      _undo = startUndo(_hotel);
+      _filePath = "";
+      _originalSerializedHotel = serializeHotel(_hotel);
+    } finally {
+      CREATE_TIMER.stop(start);
+    }
   }
 
   /**
@@ -107,7 +209,12 @@ public class HotelManager {
    * @throws IOException if there is some error while serializing the state of the network to disk.
    **/
   public void save() throws FileNotFoundException, MissingFileAssociationException, IOException {
-    saveAs(_filePath);
+    long start = SAVE_TIMER.start();
+    try {
+      saveAs(_filePath);
+    } finally {
+      SAVE_TIMER.stop(start);
+    }
   }
 
   /**
@@ -122,16 +229,29 @@ public class HotelManager {
    **/
   public void saveAs(String filePath)
       throws FileNotFoundException, MissingFileAssociationException, IOException {
+    long start = SAVE_AS_TIMER.start();
+    PersistenceEvent event = new PersistenceEvent();
+    event.begin();
+    try {
+      if (filePath.isBlank()) {
+        throw new MissingFileAssociationException();
+      }
 
-    if (filePath.isBlank()) {
-      throw new MissingFileAssociationException();
-    }
-
-    _originalSerializedHotel = serializeHotel(_hotel);
-    _filePath = filePath;
-    try (FileOutputStream fileOut = new FileOutputStream(filePath);
-        ObjectOutputStream out = new ObjectOutputStream(fileOut)) {
-      out.writeObject(_hotel);
+      _originalSerializedHotel = serializeHotel(_hotel);
+      _filePath = filePath;
+      try (FileOutputStream fileOut = new FileOutputStream(filePath);
+          ObjectOutputStream out = new ObjectOutputStream(fileOut)) {
+        out.writeObject(_hotel);
+        if (_history != null) {
+          out.writeObject(_history);
+        }
+      }
+      if (_journal != null) {
+        _journal.snapshot(_hotel);
+      }
+      commit(event, "save", filePath, _originalSerializedHotel.length);
+    } finally {
+      SAVE_AS_TIMER.stop(start);
     }
   }
 
@@ -142,30 +262,118 @@ public class HotelManager {
    *         while processing this file.
    **/
   public void load(String filePath) throws UnavailableFileException {
+    long start = LOAD_TIMER.start();
+    PersistenceEvent event = new PersistenceEvent();
+    event.begin();
     try (FileInputStream fileIn = new FileInputStream(filePath);
         ObjectInputStream in = new ObjectInputStream(fileIn)) {
-      _hotel = (Hotel) in.readObject();
+      Hotel hotel = (Hotel) in.readObject();
+      HotelHistory history = readHistory(in);
+      closeJournal();
+      _hotel = hotel;
+      _hotel.canonicalizeStrings();
+      if (history != null) {
+        history.follow(_hotel);
+        _history = history;
+      } else {
+        _history = startHistory(_hotel);
+      }
+      _undo = startUndo(_hotel);
       _filePath = filePath;
       _originalSerializedHotel = serializeHotel(_hotel);
+      commit(event, "load", filePath, _originalSerializedHotel.length);
     } catch (IOException | ClassNotFoundException e) {
       throw new UnavailableFileException(filePath);
+    } finally {
+      LOAD_TIMER.stop(start);
     }
   }
 
   /**
    * Read text input file and initializes the current zoo hotel (which should be empty) with the
-   * domain entities represented in the import file.
+   * domain entities represented in the import file. The entities imported are not changes that may
+   * be undone.
    *
    * @param filename name of the text input file
    * 
    * @throws ImportFileException if some error happens during the processing of the import file.
    **/
   public void importFile(String filename) throws ImportFileException {
+    long start = IMPORT_FILE_TIMER.start();
     try {
       _originalSerializedHotel = serializeHotel(_hotel);
       _hotel.importFile(filename);
     } catch (IOException | UnrecognizedEntryException e) {
       throw new ImportFileException(filename, e);
+    } finally {
+      if (_undo != null) {
+        _undo.clear();
+      }
+      IMPORT_FILE_TIMER.stop(start);
+    }
+  }
+
+  /**
+   * Recovers the hotel from the journal kept in a directory, whose changes are logged from now on.
+   * 
+   * <p>
+   * Saving the hotel also takes a snapshot of it in the journal, so that the next recovery replays
+   * only the events logged after the save. Creating or loading another hotel closes the journal.
+   * 
+   * @param directory the directory of the journal, created if it does not exist
+   * 
+   * @throws UnavailableFileException if the journal cannot be read or holds a line which is not an
+   *         event of the hotel
+   * 
+   * @see HotelJournal
+   */
+  public void openJournal(String directory) throws UnavailableFileException {
+    try {
+      HotelJournal journal = new HotelJournal(Path.of(directory), OFF_HEAP_ANIMALS);
+      try {
+        Hotel hotel = journal.recover();
+        closeJournal();
+        _journal = journal;
+        _hotel = hotel;
+        _history = startHistory(_hotel);
+        _undo = startUndo(_hotel);
+        _filePath = "";
+        _originalSerializedHotel = serializeHotel(_hotel);
+      } catch (IOException | UnrecognizedEntryException e) {
+        journal.close();
+        throw e;
+      }
+    } catch (IOException | UnrecognizedEntryException e) {
+      throw new UnavailableFileException(directory);
+    }
+  }
+
+  // Starts the history of a hotel if new hotels keep one
+  private static HotelHistory startHistory(Hotel hotel) {
+    return HISTORY_INTERVAL > 0 ? new HotelHistory(hotel, HISTORY_INTERVAL) : null;
+  }
+
+  // Starts following the changes of a hotel to undo them, unless they are not to be undone
+  private static HotelUndoStack startUndo(Hotel hotel) {
+    return UNDO_LIMIT > 0 ? new HotelUndoStack(hotel, UNDO_LIMIT) : null;
+  }
+
+  // Reads the history saved after a hotel, which files saved without one do not have
+  private static HotelHistory readHistory(ObjectInputStream in)
+      throws IOException, ClassNotFoundException {
+    try {
+      return (HotelHistory) in.readObject();
+    } catch (EOFException e) {
+      return null;
+    }
+  }
+
+  // Stops logging the changes of the current hotel and closes its journal
+  private void closeJournal() throws IOException {
+    if (_journal != null) {
+      _hotel.setEventSink(null);
+      _journal.close();
+      _journal = null;
     }
   }
 
@@ -194,7 +402,38 @@ public class HotelManager {
    * @throws IOException if an I/O error occurs during serialization.
    **/
   public boolean hotelModified() throws IOException {
-    return _originalSerializedHotel == null
-        || !Arrays.equals(_originalSerializedHotel, serializeHotel(_hotel));
+    long start = HOTEL_MODIFIED_TIMER.start();
+    PersistenceEvent event = new PersistenceEvent();
+    event.begin();
+    try {
+      if (_originalSerializedHotel == null) {
+        return true;
+      }
+      byte[] serializedHotel = serializeHotel(_hotel);
+      commit(event, "hotelModified", _filePath, serializedHotel.length);
+      return !Arrays.equals(_originalSerializedHotel, serializedHotel);
+    } finally {
+      HOTEL_MODIFIED_TIMER.stop(start);
+    }
+  }
+
+  /**
+   * Commits a Flight Recorder event of a persistence operation, if it is being recorded.
+   * 
+   * @param event the event, begun when the operation started
+   * @param operation the name of the operation
+   * @param filePath the file of the operation
+   * @param bytes the size of the serialized hotel
+   * 
+   * @see PersistenceEvent
+   */
+  private static void commit(PersistenceEvent event, String operation, String filePath,
+      long bytes) {
+    if (event.shouldCommit()) {
+      event.operation = operation;
+      event.file = filePath;
+      event.bytes = bytes;
+      event.commit();
+    }
   }
 }
@@ -0,0 +1,496 @@
+package hva.core;
+
+import hva.core.enumerator.VaccineDamage;
+import hva.core.exception.AnimalNotFoundException;
+import hva.core.exception.HabitatNotFoundException;
+import hva.core.exception.WorkerNotFoundException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Class representing an immutable view of a zoo hotel at one moment.
+ *
+ * <p>
+ * A snapshot keeps the rendered lines of the animals, habitats, vaccines, vaccinations and workers
+ * of the hotel, and the satisfaction of the animals of each habitat, so its queries read no entity
+ * and need no lock. Every listing can also be walked as a stream, which copies no line, so it can
+ * be written out as it is walked. Queries of one snapshot are consistent with each other, since
+ * they all see the hotel as it was when the snapshot was taken.
+ *
+ * <p>
+ * Snapshots are refreshed rather than rebuilt: a refresh renders again only the entities changed
+ * since the previous snapshot, and the workers responsible for them, and shares everything else
+ * with it through persistent maps. The previous snapshot stays valid, so readers holding it are
+ * never disturbed.
+ *
+ * <p>
+ * The satisfaction of the hotel is kept as a running sum, which a refresh corrects by the entries
+ * of the habitats and workers it renders again, so it may differ from {@link Hotel#satisfaction()}
+ * in the last digits of rounding.
+ *
+ * @see ConcurrentHotel#snapshot()
+ * @see PersistentSortedMap
+ */
+public class HotelSnapshot {
+
+  private final long _version;
+  private final PersistentSortedMap<String, String> _animals;
+  private final PersistentSortedMap<String, HabitatEntry> _habitats;
+  private final PersistentSortedMap<String, String> _vaccines;
+  private final PersistentSortedMap<Integer, String> _vaccinations;
+  private final PersistentSortedMap<Integer, String> _wrongVaccinations;
+  private final PersistentSortedMap<String, PersistentSortedMap<Integer, String>>
+      _animalVaccinations;
+  private final PersistentSortedMap<String, PersistentSortedMap<Integer, String>>
+      _vetVaccinations;
+  private final PersistentSortedMap<String, WorkerEntry> _workers;
+  private final double _satisfaction;
+
+  /*
+   * <------------------------ Constructor ------------------------>
+   */
+
+  /**
+   * Constructor which creates the snapshot of an empty hotel.
+   */
+  private HotelSnapshot() {
+    this(-1, new PersistentSortedMap<String, String>(String.CASE_INSENSITIVE_ORDER),
+        new PersistentSortedMap<String, HabitatEntry>(String.CASE_INSENSITIVE_ORDER),
+        new PersistentSortedMap<String, String>(String.CASE_INSENSITIVE_ORDER),
+        new PersistentSortedMap<Integer, String>(Integer::compare),
+        new PersistentSortedMap<Integer, String>(Integer::compare),
+        new PersistentSortedMap<String, PersistentSortedMap<Integer, String>>(
+            String.CASE_INSENSITIVE_ORDER),
+        new PersistentSortedMap<String, PersistentSortedMap<Integer, String>>(
+            String.CASE_INSENSITIVE_ORDER),
+        new PersistentSortedMap<String, WorkerEntry>(String.CASE_INSENSITIVE_ORDER), 0);
+  }
+
+  private HotelSnapshot(long version, PersistentSortedMap<String, String> animals,
+      PersistentSortedMap<String, HabitatEntry> habitats,
+      PersistentSortedMap<String, String> vaccines,
+      PersistentSortedMap<Integer, String> vaccinations,
+      PersistentSortedMap<Integer, String> wrongVaccinations,
+      PersistentSortedMap<String, PersistentSortedMap<Integer, String>> animalVaccinations,
+      PersistentSortedMap<String, PersistentSortedMap<Integer, String>> vetVaccinations,
+      PersistentSortedMap<String, WorkerEntry> workers, double satisfaction) {
+    _version = version;
+    _animals = animals;
+    _habitats = habitats;
+    _vaccines = vaccines;
+    _vaccinations = vaccinations;
+    _wrongVaccinations = wrongVaccinations;
+    _animalVaccinations = animalVaccinations;
+    _vetVaccinations = vetVaccinations;
+    _workers = workers;
+    _satisfaction = satisfaction;
+  }
+
+  /**
+   * Takes a snapshot of every entity of a hotel.
+   *
+   * <p>
+   * The hotel must not change while the snapshot is taken.
+   *
+   * @param hotel the hotel
+   * @param version the version of the hotel
+   *
+   * @return the snapshot of the hotel
+   */
+  static HotelSnapshot of(Hotel hotel, long version) {
+    return new HotelSnapshot().refresh(hotel, version, hotel.animals(), hotel.habitats(),
+        List.of(), hotel.vaccines(), hotel.workers());
+  }
+
+  /*
+   * <------------------------ Gets ------------------------>
+   */
+
+  /**
+   * Retrieves the version of the hotel this snapshot was taken from.
+   *
+   * @return the version of this snapshot
+   */
+  public long version() {
+    return _version;
+  }
+
+  /**
+   * Returns the satisfaction of the hotel.
+   *
+   * @return the satisfaction of the hotel
+   *
+   * @see Hotel#satisfaction()
+   */
+  public double satisfaction() {
+    return _satisfaction;
+  }
+
+  /**
+   * Returns the sum of the satisfaction of the animals of a habitat.
+   *
+   * @param idHabitat the identifier of the habitat
+   *
+   * @return the satisfaction of the animals of the habitat
+   *
+   * @throws HabitatNotFoundException If a habitat with the given identifier does not exist.
+   */
+  public double habitatSatisfaction(String idHabitat) throws HabitatNotFoundException {
+    return habitat(idHabitat)._satisfaction;
+  }
+
+  /**
+   * Walks the lines of every animal, sorted by identifier, without copying them.
+   *
+   * @return the lines of the animals
+   */
+  public Stream<String> animalLines() {
+    return _animals.stream();
+  }
+
+  /**
+   * Walks the lines of every worker, sorted by identifier, without copying them.
+   *
+   * @return the lines of the workers
+   */
+  public Stream<String> employeeLines() {
+    return _workers.stream().map(worker -> worker._line);
+  }
+
+  /**
+   * Walks the lines of every habitat, sorted by identifier, each followed by the lines of its
+   * trees, sorted by identifier, without copying them.
+   *
+   * @return the lines of the habitats and their trees
+   */
+  public Stream<String> habitatLines() {
+    return _habitats.stream().flatMap(habitat -> habitat._lines.stream());
+  }
+
+  /**
+   * Walks the lines of every vaccine, sorted by identifier, without copying them.
+   *
+   * @return the lines of the vaccines
+   */
+  public Stream<String> vaccineLines() {
+    return _vaccines.stream();
+  }
+
+  /**
+   * Walks the lines of every vaccination, in the order they were applied, without copying them.
+   *
+   * @return the lines of the vaccinations
+   */
+  public Stream<String> vaccinationLines() {
+    return _vaccinations.stream();
+  }
+
+  /**
+   * Walks the lines of every vaccination which harmed the animal, in the order they were applied,
+   * without copying them.
+   *
+   * @return the lines of the wrong vaccinations
+   */
+  public Stream<String> wrongVaccinationLines() {
+    return _wrongVaccinations.stream();
+  }
+
+  /**
+   * Walks the lines of the animals of a habitat, sorted by identifier, without copying them.
+   *
+   * @param idHabitat the identifier of the habitat
+   *
+   * @return the lines of the animals of the habitat
+   *
+   * @throws HabitatNotFoundException If a habitat with the given identifier does not exist.
+   */
+  public Stream<String> animalLinesInHabitat(String idHabitat) throws HabitatNotFoundException {
+    return habitat(idHabitat)._animals.stream().map(_animals::get);
+  }
+
+  /**
+   * Walks the lines of the trees of a habitat, sorted by identifier, without copying them.
+   *
+   * @param idHabitat the identifier of the habitat
+   *
+   * @return the lines of the trees of the habitat
+   *
+   * @throws HabitatNotFoundException If a habitat with the given identifier does not exist.
+   */
+  public Stream<String> treeLinesInHabitat(String idHabitat) throws HabitatNotFoundException {
+    return habitat(idHabitat)._lines.stream().skip(1);
+  }
+
+  /**
+   * Walks the lines of the vaccinations of an animal, in the order they were applied, without
+   * copying them.
+   *
+   * @param idAnimal the identifier of the animal
+   *
+   * @return the lines of the vaccinations of the animal
+   *
+   * @throws AnimalNotFoundException If an animal with the given identifier does not exist.
+   */
+  public Stream<String> medicalActLinesOnAnimal(String idAnimal) throws AnimalNotFoundException {
+    if (_animals.get(idAnimal) == null) {
+      throw new AnimalNotFoundException(idAnimal);
+    }
+    PersistentSortedMap<Integer, String> vaccinations = _animalVaccinations.get(idAnimal);
+    return vaccinations == null ? Stream.empty() : vaccinations.stream();
+  }
+
+  /**
+   * Walks the lines of the vaccinations applied by a vet, in the order they were applied, without
+   * copying them.
+   *
+   * @param idVet the identifier of the vet
+   *
+   * @return the lines of the vaccinations applied by the vet
+   *
+   * @throws WorkerNotFoundException If a vet with the given identifier does not exist.
+   */
+  public Stream<String> medicalActLinesByVeterinarian(String idVet)
+      throws WorkerNotFoundException {
+    WorkerEntry worker = _workers.get(idVet);
+    if (worker == null || !worker._vet) {
+      throw new WorkerNotFoundException(idVet);
+    }
+    PersistentSortedMap<Integer, String> vaccinations = _vetVaccinations.get(idVet);
+    return vaccinations == null ? Stream.empty() : vaccinations.stream();
+  }
+
+  /**
+   * Renders every animal, sorted by identifier.
+   *
+   * @return the lines of the animals
+   *
+   * @see #animalLines()
+   */
+  public List<String> showAllAnimals() {
+    return animalLines().toList();
+  }
+
+  /**
+   * Renders every worker, sorted by identifier.
+   *
+   * @return the lines of the workers
+   *
+   * @see #employeeLines()
+   */
+  public List<String> showAllEmployees() {
+    return employeeLines().toList();
+  }
+
+  /**
+   * Renders every habitat, sorted by identifier, each followed by its trees, sorted by identifier.
+   *
+   * @return the lines of the habitats and their trees
+   *
+   * @see #habitatLines()
+   */
+  public List<String> showAllHabitats() {
+    return habitatLines().toList();
+  }
+
+  /**
+   * Renders every vaccine, sorted by identifier.
+   *
+   * @return the lines of the vaccines
+   *
+   * @see #vaccineLines()
+   */
+  public List<String> showAllVaccines() {
+    return vaccineLines().toList();
+  }
+
+  /**
+   * Renders every vaccination, in the order they were applied.
+   *
+   * @return the lines of the vaccinations
+   *
+   * @see #vaccinationLines()
+   */
+  public List<String> showVaccinations() {
+    return vaccinationLines().toList();
+  }
+
+  /**
+   * Renders every vaccination which harmed the animal, in the order they were applied.
+   *
+   * @return the lines of the wrong vaccinations
+   *
+   * @see #wrongVaccinationLines()
+   */
+  public List<String> showWrongVaccinations() {
+    return wrongVaccinationLines().toList();
+  }
+
+  /**
+   * Renders the animals of a habitat, sorted by identifier.
+   *
+   * @param idHabitat the identifier of the habitat
+   *
+   * @return the lines of the animals of the habitat
+   *
+   * @throws HabitatNotFoundException If a habitat with the given identifier does not exist.
+   *
+   * @see #animalLinesInHabitat(String)
+   */
+  public List<String> showAnimalsInHabitat(String idHabitat) throws HabitatNotFoundException {
+    return animalLinesInHabitat(idHabitat).toList();
+  }
+
+  private HabitatEntry habitat(String idHabitat) throws HabitatNotFoundException {
+    HabitatEntry habitat = _habitats.get(idHabitat);
+    if (habitat == null) {
+      throw new HabitatNotFoundException(idHabitat);
+    }
+    return habitat;
+  }
+
+  /*
+   * <------------------------ Others ------------------------>
+   */
+
+  /**
+   * Returns a snapshot of the hotel which renders again the given entities and shares every other
+   * entity with this snapshot. Vaccinations registered since this snapshot are appended.
+   *
+   * <p>
+   * Besides the given workers, the caretakers of the given habitats and the vets of the given
+   * species are rendered again, since the satisfaction of a worker depends only on the habitats or
+   * species it is responsible for. The satisfaction of the hotel is corrected by the difference
+   * between the old and new entries of the habitats and workers rendered again.
+   *
+   * <p>
+   * The hotel must not change while the snapshot is taken.
+   *
+   * @param hotel the hotel
+   * @param version the version of the hotel
+   * @param animals the animals changed since this snapshot
+   * @param habitats the habitats changed since this snapshot, including those whose animals were
+   *        added, removed or changed species suitability, or whose caretakers changed
+   * @param species the species whose number of animals or vets changed since this snapshot
+   * @param vaccines the vaccines changed since this snapshot
+   * @param workers the workers added or whose responsibilities changed since this snapshot
+   *
+   * @return the refreshed snapshot
+   */
+  HotelSnapshot refresh(Hotel hotel, long version, Collection<Animal> animals,
+      Collection<Habitat> habitats, Collection<Species> species, Collection<Vaccine> vaccines,
+      Collection<Worker> workers) {
+    PersistentSortedMap<String, String> animalLines = _animals;
+    for (Animal animal : animals) {
+      animalLines = animalLines.with(animal.id(), animal.toString());
+    }
+
+    double satisfaction = _satisfaction;
+    PersistentSortedMap<String, HabitatEntry> habitatEntries = _habitats;
+    for (Habitat habitat : habitats) {
+      HabitatEntry entry = new HabitatEntry(habitat);
+      HabitatEntry previous = habitatEntries.get(habitat.id());
+      satisfaction += entry._satisfaction - (previous == null ? 0 : previous._satisfaction);
+      habitatEntries = habitatEntries.with(habitat.id(), entry);
+    }
+
+    Set<Worker> changedWorkers = new HashSet<Worker>(workers);
+    for (Habitat habitat : habitats) {
+      changedWorkers.addAll(habitat.careTakers());
+    }
+    for (Species changed : species) {
+      changedWorkers.addAll(changed.vets());
+    }
+    PersistentSortedMap<String, WorkerEntry> workerEntries = _workers;
+    for (Worker worker : changedWorkers) {
+      WorkerEntry entry = new WorkerEntry(worker);
+      WorkerEntry previous = workerEntries.get(worker.id());
+      satisfaction += entry._satisfaction - (previous == null ? 0 : previous._satisfaction);
+      workerEntries = workerEntries.with(worker.id(), entry);
+    }
+
+    PersistentSortedMap<String, String> vaccineLines = _vaccines;
+    for (Vaccine vaccine : vaccines) {
+      vaccineLines = vaccineLines.with(vaccine.id(), vaccine.toString());
+    }
+
+    PersistentSortedMap<Integer, String> vaccinations = _vaccinations;
+    PersistentSortedMap<Integer, String> wrongVaccinations = _wrongVaccinations;
+    PersistentSortedMap<String, PersistentSortedMap<Integer, String>> animalVaccinations =
+        _animalVaccinations;
+    PersistentSortedMap<String, PersistentSortedMap<Integer, String>> vetVaccinations =
+        _vetVaccinations;
+    List<VaccineRegistry> registry = hotel.vaccineRegistry();
+    for (int i = vaccinations.size(); i < registry.size(); i++) {
+      VaccineRegistry vaccination = registry.get(i);
+      String line = vaccination.toString();
+      vaccinations = vaccinations.with(i, line);
+      animalVaccinations = append(animalVaccinations, vaccination.animal().id(), i, line);
+      vetVaccinations = append(vetVaccinations, vaccination.vet().id(), i, line);
+      if (vaccination.vaccineDamage() != VaccineDamage.NORMAL) {
+        wrongVaccinations = wrongVaccinations.with(i, line);
+      }
+    }
+
+    return new HotelSnapshot(version, animalLines, habitatEntries, vaccineLines, vaccinations,
+        wrongVaccinations, animalVaccinations, vetVaccinations, workerEntries, satisfaction);
+  }
+
+  // Appends a vaccination to those of an animal or vet
+  private static PersistentSortedMap<String, PersistentSortedMap<Integer, String>> append(
+      PersistentSortedMap<String, PersistentSortedMap<Integer, String>> vaccinations, String id,
+      int index, String line) {
+    PersistentSortedMap<Integer, String> entity = vaccinations.get(id);
+    if (entity == null) {
+      entity = new PersistentSortedMap<Integer, String>(Integer::compare);
+    }
+    return vaccinations.with(id, entity.with(index, line));
+  }
+
+  /**
+   * Rendered state of a worker: its line, its satisfaction and whether it is a vet.
+   */
+  private static final class WorkerEntry {
+    private final String _line;
+    private final double _satisfaction;
+    private final boolean _vet;
+
+    WorkerEntry(Worker worker) {
+      _line = worker.toString();
+      _satisfaction = worker.satisfaction();
+      _vet = worker instanceof Vet;
+    }
+  }
+
+  /**
+   * Rendered state of a habitat: its line and the lines of its trees, the identifiers of its
+   * animals, sorted, and the sum of the satisfaction of its animals.
+   */
+  private static final class HabitatEntry {
+    private final List<String> _lines;
+    private final List<String> _animals;
+    private final double _satisfaction;
+
+    HabitatEntry(Habitat habitat) {
+      List<String> lines = new ArrayList<String>();
+      lines.add(habitat.toString());
+      for (Tree tree : habitat.trees().stream().sorted().toList()) {
+        lines.add(tree.toString());
+      }
+      _lines = List.copyOf(lines);
+
+      double satisfaction = 0;
+      List<String> animals = new ArrayList<String>();
+      for (Animal animal : habitat.animals().stream().sorted().toList()) {
+        animals.add(animal.id());
+        satisfaction += animal.satisfaction();
+      }
+      _animals = List.copyOf(animals);
+      _satisfaction = satisfaction;
+    }
+  }
+}
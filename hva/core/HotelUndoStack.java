@@ -0,0 +1,243 @@
+package hva.core;
+
+import hva.core.event.HotelEvent;
+import hva.core.event.HotelEventSink;
+import hva.core.exception.UnrecognizedEntryException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Class representing the changes made to a hotel that may be undone and redone, most recent first.
+ *
+ * <p>
+ * The stack follows the events of the hotel and keeps them in steps, one per change requested of
+ * the hotel: a tree planted as it is added and an animal added with the species registered for it
+ * belong to the step that added them, and the changes of a fork which was committed, such as a plan
+ * applied to the hotel, are a single step. Nothing is copied: an event holds what its inverse
+ * needs, such as the habitat an animal left, the area or influence overwritten, the identifier of
+ * an entity created, the record appended to the registries, or the season left with the trees which
+ * grew in it. Undoing or redoing a step costs as much as the step did, whatever the size of the
+ * hotel. A step of a single event, as most are, is kept as the event itself, so recording a change
+ * allocates nothing beyond its event.
+ *
+ * <p>
+ * Undoing a step passes an {@link HotelEvent.Undone} event for each of its events on to the next
+ * sink, and redoing it passes the events again, so journals and histories follow the hotel back and
+ * forth. A new change forgets the steps undone before it. Only the last steps up to a limit are
+ * kept, and the stack is not saved with the hotel.
+ *
+ * @see Hotel#undo(HotelEvent)
+ * @see HotelManager#undo()
+ */
+public class HotelUndoStack implements HotelEventSink {
+
+  private final Hotel _hotel;
+  private final HotelEventSink _next;
+  private final int _limit;
+  // Each step is either a HotelEvent or a List<HotelEvent> of several
+  private final Deque<Object> _undo = new ArrayDeque<Object>();
+  private final Deque<Object> _redo = new ArrayDeque<Object>();
+
+  /*
+   * <------------------------ Constructor ------------------------>
+   */
+
+  /**
+   * Constructor which follows the events of a hotel from now on, passing them on to the sink the
+   * hotel published to, if any.
+   *
+   * @param hotel the hotel
+   * @param limit the number of steps kept
+   *
+   * @throws IllegalArgumentException if the limit is not positive
+   */
+  HotelUndoStack(Hotel hotel, int limit) {
+    if (limit < 1) {
+      throw new IllegalArgumentException("Limit must be positive: " + limit);
+    }
+    _hotel = hotel;
+    _limit = limit;
+    _next = hotel.eventSink();
+    hotel.setEventSink(this);
+  }
+
+  /*
+   * <------------------------ Gets ------------------------>
+   */
+
+  /**
+   * Returns whether there is a step to undo.
+   *
+   * @return whether a change was made and not undone
+   */
+  public boolean canUndo() {
+    return !_undo.isEmpty();
+  }
+
+  /**
+   * Returns whether there is a step to redo.
+   *
+   * @return whether a change was undone and no change was made since
+   */
+  public boolean canRedo() {
+    return !_redo.isEmpty();
+  }
+
+  /*
+   * <------------------------ Others ------------------------>
+   */
+
+  /**
+   * Records an event of the hotel in the step it belongs to, forgetting the steps undone, and
+   * passes it on to the next sink.
+   *
+   * @param event the event
+   *
+   * @return the sequence of the event in the next sink, or the number of steps kept if there is
+   *         none
+   */
+  @Override
+  public long publish(HotelEvent event) {
+    Object last = _undo.peekFirst();
+    if (last instanceof HotelEvent previous && continues(previous, event)) {
+      List<HotelEvent> step = new ArrayList<HotelEvent>(2);
+      step.add(previous);
+      step.add(event);
+      _undo.removeFirst();
+      _undo.addFirst(step);
+    } else if (last instanceof List<?> && continues(last(events(last)), event)) {
+      events(last).add(event);
+    } else {
+      push(event);
+    }
+    _redo.clear();
+    return _next != null ? _next.publish(event) : _undo.size();
+  }
+
+  /**
+   * Records the events of a change made of several as a single step, forgetting the steps undone,
+   * and passes them on to the next sink.
+   *
+   * @param events the events
+   *
+   * @see HotelFork#commit()
+   */
+  @Override
+  public void publishAll(List<HotelEvent> events) {
+    if (events.isEmpty()) {
+      return;
+    }
+    push(events.size() == 1 ? events.get(0) : new ArrayList<HotelEvent>(events));
+    _redo.clear();
+    if (_next != null) {
+      _next.publishAll(events);
+    }
+  }
+
+  /**
+   * Undoes the last step that was not undone.
+   *
+   * @return whether there was a step to undo
+   *
+   * @throws IllegalStateException if the hotel is forked
+   */
+  public boolean undo() {
+    checkFollowing();
+    Object recorded = _undo.pollFirst();
+    if (recorded == null) {
+      return false;
+    }
+    List<HotelEvent> step = events(recorded);
+
+    // The stack recorded these events from the hotel itself, so failing to undo one is a defect
+    try {
+      for (int i = step.size() - 1; i >= 0; i--) {
+        _hotel.undo(step.get(i));
+        if (_next != null) {
+          _next.publish(new HotelEvent.Undone(step.get(i)));
+        }
+      }
+    } catch (UnrecognizedEntryException e) {
+      throw new IllegalStateException("Step cannot be undone", e);
+    }
+    _redo.addFirst(recorded);
+    return true;
+  }
+
+  /**
+   * Redoes the last step undone, if no change was made since.
+   *
+   * @return whether there was a step to redo
+   *
+   * @throws IllegalStateException if the hotel is forked
+   */
+  public boolean redo() {
+    checkFollowing();
+    Object recorded = _redo.pollFirst();
+    if (recorded == null) {
+      return false;
+    }
+    List<HotelEvent> step = events(recorded);
+    try {
+      _hotel.replay(step);
+    } catch (UnrecognizedEntryException e) {
+      throw new IllegalStateException("Step cannot be redone", e);
+    }
+    if (_next != null) {
+      for (HotelEvent event : step) {
+        _next.publish(event);
+      }
+    }
+    _undo.addFirst(recorded);
+    return true;
+  }
+
+  /**
+   * Forgets every step, such as after importing a file, whose entries are not undone.
+   *
+   * @see HotelManager#importFile(String)
+   */
+  void clear() {
+    _undo.clear();
+    _redo.clear();
+  }
+
+  // Records a new step, forgetting the oldest one past the limit
+  private void push(Object step) {
+    _undo.addFirst(step);
+    if (_undo.size() > _limit) {
+      _undo.removeLast();
+    }
+  }
+
+  // The events of a step, in the order they were published
+  @SuppressWarnings("unchecked")
+  private static List<HotelEvent> events(Object step) {
+    return step instanceof HotelEvent event ? List.of(event) : (List<HotelEvent>) step;
+  }
+
+  private static HotelEvent last(List<HotelEvent> events) {
+    return events.get(events.size() - 1);
+  }
+
+  // A fork records the changes made in it, which this stack must not undo or redo past
+  private void checkFollowing() {
+    if (_hotel.eventSink() != this) {
+      throw new IllegalStateException("Changes cannot be undone while the hotel is forked");
+    }
+  }
+
+  // Whether an event completes the change of the event before it
+  private static boolean continues(HotelEvent previous, HotelEvent event) {
+    return switch (event) {
+      case HotelEvent.TreePlanted planted ->
+          previous instanceof HotelEvent.TreeAdded added && added.tree().equals(planted.tree());
+      case HotelEvent.AnimalAdded animal -> previous instanceof HotelEvent.SpeciesAdded added
+          && added.species().equals(animal.species());
+      default -> false;
+    };
+  }
+}
@@ -0,0 +1,428 @@
+package hva.core;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serial;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import hva.core.enumerator.FootprintCategory;
+
+/**
+ * Class representing an off-heap storage of the animals of a zoo hotel.
+ *
+ * <p>
+ * The records are fixed-width entries in direct {@link ByteBuffer} chunks. Identifiers and names
+ * are encoded in UTF-8 into a separate off-heap arena and the records keep their offsets. The
+ * index from identifier to handle is an open addressing hash table, also off-heap. It is a single
+ * buffer, whose size in bytes must fit an {@code int}, so it has at most 2^28 slots. It doubles
+ * whenever it is half full, and its largest size is filled up to seven eighths, which holds about
+ * 235 million animals.
+ *
+ * <p>
+ * Views are created on demand and are not kept by this store, unless they hold on-heap state such
+ * as a vaccination history, in which case they are retained. The heap used by this store therefore
+ * does not grow with the number of animals. The retained views are kept in a concurrent map, since
+ * a {@link ConcurrentHotel} retains views of animals of one species while looking up animals of
+ * others.
+ *
+ * @see AnimalStore
+ */
+public class OffHeapAnimalStore extends AnimalStore {
+
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  /*
+   * Layout of a record. Offsets into the arena keep the chunk in the high 32 bits and the position
+   * inside the chunk in the low 32 bits.
+   */
+  private static final int SPECIES = 0;
+  private static final int HABITAT = 4;
+  private static final int NEXT = 8;
+  private static final int PREVIOUS = 12;
+  private static final int ID_HASH = 16;
+  private static final int ID_LENGTH = 20;
+  private static final int ID_OFFSET = 24;
+  private static final int NAME_LENGTH = 32;
+  private static final int NAME_OFFSET = 40;
+  private static final int RECORD_SIZE = 48;
+
+  private static final int RECORDS_PER_CHUNK = 1 << 16;
+  private static final int ARENA_CHUNK_SIZE = 1 << 22;
+  private static final int INITIAL_INDEX_CAPACITY = 1 << 10;
+  private static final int MAX_INDEX_CAPACITY = 1 << 28;
+  private static final int MAX_COUNT = MAX_INDEX_CAPACITY / 8 * 7;
+
+  private final EntityStore _store;
+  private int _count;
+  private final Map<Integer, Animal> _retained = new ConcurrentHashMap<Integer, Animal>();
+
+  private transient List<ByteBuffer> _records;
+  private transient List<ByteBuffer> _arena;
+  private transient ByteBuffer _index;
+  private transient int _indexMask;
+
+  /*
+   * <------------------------ Constructor ------------------------>
+   */
+
+  /**
+   * Constructor which creates this store.
+   *
+   * @param store the entity store the views of this store belong to
+   */
+  OffHeapAnimalStore(EntityStore store) {
+    _store = store;
+    allocate(INITIAL_INDEX_CAPACITY);
+  }
+
+  /*
+   * <------------------------ Gets ------------------------>
+   */
+
+  @Override
+  int count() {
+    return _count;
+  }
+
+  @Override
+  int find(String id) {
+    int hash = hash(id);
+
+    for (int slot = mix(hash) & _indexMask;; slot = (slot + 1) & _indexMask) {
+      int animal = _index.getInt(slot * Integer.BYTES) - 1;
+      if (animal == NONE) {
+        return NONE;
+      }
+      if (getInt(animal, ID_HASH) == hash && id(animal).equalsIgnoreCase(id)) {
+        return animal;
+      }
+    }
+  }
+
+  @Override
+  String id(int animal) {
+    return decode(getLong(animal, ID_OFFSET), getInt(animal, ID_LENGTH));
+  }
+
+  @Override
+  String name(int animal) {
+    return decode(getLong(animal, NAME_OFFSET), getInt(animal, NAME_LENGTH));
+  }
+
+  @Override
+  int species(int animal) {
+    return getInt(animal, SPECIES);
+  }
+
+  @Override
+  int habitat(int animal) {
+    return getInt(animal, HABITAT);
+  }
+
+  @Override
+  Animal animal(int animal) {
+    Animal view = _retained.get(animal);
+    return view != null ? view : new Animal(_store, animal);
+  }
+
+  @Override
+  int nextInHabitat(int animal) {
+    return getInt(animal, NEXT);
+  }
+
+  @Override
+  int previousInHabitat(int animal) {
+    return getInt(animal, PREVIOUS);
+  }
+
+  /*
+   * <------------------------ Sets ------------------------>
+   */
+
+  @Override
+  void retain(Animal animal) {
+    _retained.putIfAbsent(animal.handle(), animal);
+  }
+
+  @Override
+  int append(String id, String name, int species, int habitat) {
+    if (_count == MAX_COUNT) {
+      throw new IllegalStateException("Off-heap animal index is full");
+    }
+    int animal = _count;
+    if (animal % RECORDS_PER_CHUNK == 0) {
+      _records.add(ByteBuffer.allocateDirect(RECORDS_PER_CHUNK * RECORD_SIZE));
+    }
+
+    byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+    byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+    int hash = hash(id);
+
+    putInt(animal, SPECIES, species);
+    putInt(animal, HABITAT, habitat);
+    putInt(animal, NEXT, NONE);
+    putInt(animal, PREVIOUS, NONE);
+    putInt(animal, ID_HASH, hash);
+    putInt(animal, ID_LENGTH, idBytes.length);
+    putLong(animal, ID_OFFSET, encode(idBytes));
+    putInt(animal, NAME_LENGTH, nameBytes.length);
+    putLong(animal, NAME_OFFSET, encode(nameBytes));
+    _count++;
+
+    if (2 * _count > _indexMask + 1 && _indexMask + 1 < MAX_INDEX_CAPACITY) {
+      resizeIndex();
+    }
+    insert(animal, hash);
+    return animal;
+  }
+
+  /**
+   * Discards the last record of this store.
+   *
+   * <p>
+   * The record was the last inserted in the index, so no other animal probed past its slot, which
+   * is simply emptied. The bytes of its Strings stay in the arena.
+   */
+  @Override
+  void truncate() {
+    int animal = _count - 1;
+    int slot = mix(getInt(animal, ID_HASH)) & _indexMask;
+    while (_index.getInt(slot * Integer.BYTES) != animal + 1) {
+      slot = (slot + 1) & _indexMask;
+    }
+    _index.putInt(slot * Integer.BYTES, 0);
+    _retained.remove(animal);
+
+    _count--;
+    if (_count % RECORDS_PER_CHUNK == 0) {
+      _records.remove(_records.size() - 1);
+    }
+  }
+
+  @Override
+  void setHabitat(int animal, int habitat) {
+    putInt(animal, HABITAT, habitat);
+  }
+
+  @Override
+  void setNextInHabitat(int animal, int next) {
+    putInt(animal, NEXT, next);
+  }
+
+  @Override
+  void setPreviousInHabitat(int animal, int previous) {
+    putInt(animal, PREVIOUS, previous);
+  }
+
+  /*
+   * <------------------------ Others ------------------------>
+   */
+
+  /**
+   * Accounts for the heap retained by this store and its animals.
+   *
+   * <p>
+   * The records, Strings and index of this store are outside the heap and are not accounted. Only
+   * the views retained for the vaccinated animals are.
+   *
+   * @param footprint the estimate to which this store is added
+   *
+   * @see AnimalStore#measure(HeapFootprint)
+   */
+  @Override
+  void measure(HeapFootprint footprint) {
+    super.measure(footprint);
+    footprint.addOverhead(FootprintCategory.ANIMALS, HeapFootprint.map(_retained)
+        + _retained.size() * (long) HeapFootprint.object(Integer.BYTES));
+    for (int animal = 0; animal < _count; animal++) {
+      Animal view = _retained.get(animal);
+      footprint.addEntity(FootprintCategory.ANIMALS, view == null ? 0 : view.retainedBytes());
+    }
+  }
+
+  /**
+   * Computes the case-insensitive hash of an identifier without allocating a lowercase copy.
+   *
+   * @param id the identifier
+   *
+   * @return the hash of the identifier
+   */
+  private static int hash(String id) {
+    int hash = 0;
+    for (int i = 0; i < id.length(); i++) {
+      hash = 31 * hash + Character.toLowerCase(Character.toUpperCase(id.charAt(i)));
+    }
+    return hash;
+  }
+
+  /**
+   * Spreads the bits of a hash so that similar identifiers land in distant slots.
+   *
+   * @param hash the hash of an identifier
+   *
+   * @return the spread hash
+   */
+  private static int mix(int hash) {
+    int mixed = hash * 0x9E3779B9;
+    return mixed ^ (mixed >>> 16);
+  }
+
+  /**
+   * Allocates empty record, arena and index buffers.
+   *
+   * @param indexCapacity the number of slots of the index, a power of two
+   */
+  private void allocate(int indexCapacity) {
+    _records = new ArrayList<ByteBuffer>();
+    _arena = new ArrayList<ByteBuffer>();
+    _arena.add(ByteBuffer.allocateDirect(ARENA_CHUNK_SIZE));
+    _index = ByteBuffer.allocateDirect(indexCapacity * Integer.BYTES);
+    _indexMask = indexCapacity - 1;
+  }
+
+  /**
+   * Inserts an animal in the index. Slots keep the handle plus one so that zero means empty.
+   *
+   * @param animal the handle of the animal
+   * @param hash the hash of the identifier of the animal
+   */
+  private void insert(int animal, int hash) {
+    int slot = mix(hash) & _indexMask;
+    while (_index.getInt(slot * Integer.BYTES) != 0) {
+      slot = (slot + 1) & _indexMask;
+    }
+    _index.putInt(slot * Integer.BYTES, animal + 1);
+  }
+
+  /**
+   * Doubles the capacity of the index and reinserts every animal.
+   */
+  private void resizeIndex() {
+    int capacity = 2 * (_indexMask + 1);
+    _index = ByteBuffer.allocateDirect(capacity * Integer.BYTES);
+    _indexMask = capacity - 1;
+    for (int animal = 0; animal < _count; animal++) {
+      insert(animal, getInt(animal, ID_HASH));
+    }
+  }
+
+  /**
+   * Copies bytes into the arena.
+   *
+   * @param bytes the bytes to be copied
+   *
+   * @return the offset of the copied bytes
+   */
+  private long encode(byte[] bytes) {
+    ByteBuffer chunk = _arena.get(_arena.size() - 1);
+    if (chunk.remaining() < bytes.length) {
+      chunk = ByteBuffer.allocateDirect(Math.max(ARENA_CHUNK_SIZE, bytes.length));
+      _arena.add(chunk);
+    }
+
+    long offset = ((long) (_arena.size() - 1) << 32) | chunk.position();
+    chunk.put(bytes);
+    return offset;
+  }
+
+  /**
+   * Reads a String from the arena.
+   *
+   * @param offset the offset of the encoded String
+   * @param length the length, in bytes, of the encoded String
+   *
+   * @return the decoded String
+   */
+  private String decode(long offset, int length) {
+    byte[] bytes = new byte[length];
+    _arena.get((int) (offset >>> 32)).get((int) offset, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private int getInt(int animal, int field) {
+    return _records.get(animal / RECORDS_PER_CHUNK)
+        .getInt((animal % RECORDS_PER_CHUNK) * RECORD_SIZE + field);
+  }
+
+  private long getLong(int animal, int field) {
+    return _records.get(animal / RECORDS_PER_CHUNK)
+        .getLong((animal % RECORDS_PER_CHUNK) * RECORD_SIZE + field);
+  }
+
+  private void putInt(int animal, int field, int value) {
+    _records.get(animal / RECORDS_PER_CHUNK)
+        .putInt((animal % RECORDS_PER_CHUNK) * RECORD_SIZE + field, value);
+  }
+
+  private void putLong(int animal, int field, long value) {
+    _records.get(animal / RECORDS_PER_CHUNK)
+        .putLong((animal % RECORDS_PER_CHUNK) * RECORD_SIZE + field, value);
+  }
+
+  /**
+   * Custom serialization of the OffHeapAnimalStore class.
+   *
+   * <p>
+   * The off-heap buffers cannot be serialized directly, so every record is written after the
+   * serializable fields, with its identifier and name decoded.
+   *
+   * @param out the ObjectOutputStream object used to write the object
+   *
+   * @throws IOException if an I/O error occurs while writing the object
+   */
+  @Serial
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    out.defaultWriteObject();
+    for (int animal = 0; animal < _count; animal++) {
+      out.writeInt(species(animal));
+      out.writeInt(habitat(animal));
+      out.writeInt(nextInHabitat(animal));
+      out.writeInt(previousInHabitat(animal));
+      out.writeUTF(id(animal));
+      out.writeUTF(name(animal));
+    }
+  }
+
+  /**
+   * Custom deserialization of the OffHeapAnimalStore class.
+   *
+   * <p>
+   * The off-heap buffers are allocated again and filled with the records written by
+   * {@link #writeObject(ObjectOutputStream)}, keeping their handles and habitat links.
+   *
+   * @param in the ObjectInputStream object used to read the object
+   *
+   * @throws ClassNotFoundException if the class of a serialized object cannot be found
+   * @throws IOException if an I/O error occurs while reading the object
+   */
+  @Serial
+  private void readObject(ObjectInputStream in) throws ClassNotFoundException, IOException {
+    in.defaultReadObject();
+    int count = _count;
+    int indexCapacity = INITIAL_INDEX_CAPACITY;
+    while (2 * count > indexCapacity && indexCapacity < MAX_INDEX_CAPACITY) {
+      indexCapacity *= 2;
+    }
+
+    allocate(indexCapacity);
+    _count = 0;
+    for (int animal = 0; animal < count; animal++) {
+      int species = in.readInt();
+      int habitat = in.readInt();
+      int next = in.readInt();
+      int previous = in.readInt();
+      append(in.readUTF(), in.readUTF(), species, habitat);
+      setNextInHabitat(animal, next);
+      setPreviousInHabitat(animal, previous);
+    }
+  }
+}
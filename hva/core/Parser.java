@@ -16,6 +16,7 @@ import hva.core.exception.UnrecognizedEntryException;
 import hva.core.exception.UnrecognizedTreeTypeException;
 import hva.core.exception.UnrecognizedWorkerTypeException;
 import hva.core.exception.WorkerNotFoundException;
+import hva.core.jfr.ParserBatchEvent;
 
 import java.io.FileReader;
 import java.io.BufferedReader;
@@ -49,10 +50,50 @@ public class Parser {
   public void parseFile(String filename) throws IOException, UnrecognizedEntryException {
     try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
       String line;
+      ParserBatchEvent batch = new ParserBatchEvent();
 
-      while ((line = reader.readLine()) != null)
+      if (!batch.isEnabled()) {
+        while ((line = reader.readLine()) != null)
+          parseLine(line);
+        return;
+      }
+
+      // Record each run of lines of the same type as a Flight Recorder event
+      batch.begin();
+      while ((line = reader.readLine()) != null) {
+        if (batch.recordType != null && !hasRecordType(line, batch.recordType)) {
+          batch.commit();
+          batch = new ParserBatchEvent();
+          batch.begin();
+        }
+        if (batch.recordType == null) {
+          int end = line.indexOf('|');
+          batch.recordType = end < 0 ? line : line.substring(0, end);
+        }
         parseLine(line);
+        batch.count++;
+        batch.bytes += utf8Length(line) + 1;
+      }
+      if (batch.count > 0) {
+        batch.commit();
+      }
+    }
+  }
+
+  // Checks, without splitting the line, if it starts with the given record type
+  private static boolean hasRecordType(String line, String recordType) {
+    return line.startsWith(recordType)
+        && (line.length() == recordType.length() || line.charAt(recordType.length()) == '|');
+  }
+
+  // Counts the bytes of a line encoded in UTF-8, without encoding it
+  private static int utf8Length(String line) {
+    int length = 0;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      length += c < 0x80 ? 1 : c < 0x800 ? 2 : Character.isSurrogate(c) ? 2 : 3;
     }
+    return length;
   }
 
   private void parseLine(String line) throws UnrecognizedEntryException {
@@ -159,7 +200,7 @@ public class Parser {
       if (components.length == 5) {
         String[] listOfTree = components[4].split(",");
         for (String treeKey : listOfTree)
-          hab.addTree(_hotel.treeExistsWithException(treeKey));
+          _hotel.plantTree(hab, _hotel.treeExistsWithException(treeKey));
       }
     } catch (TreeNotFoundException | DuplicateHabitatException e) {
       throw new UnrecognizedEntryException("Invalid entry: " + e.getMessage());
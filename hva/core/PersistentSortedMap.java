@@ -0,0 +1,244 @@
+package hva.core;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Class representing an immutable map sorted by its keys.
+ *
+ * <p>
+ * The map is a balanced (AVL) binary search tree. Adding an entry copies only the path from the
+ * root to the entry, so the new map shares every other node with the old one, and both remain
+ * valid. This is what lets a {@link HotelSnapshot} be refreshed in time proportional to the number
+ * of changed entities, while readers of older snapshots keep reading them without locks.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ *
+ * @see HotelSnapshot
+ */
+public class PersistentSortedMap<K, V> {
+
+  private final Comparator<? super K> _comparator;
+  private final Node<K, V> _root;
+
+  /*
+   * <------------------------ Constructor ------------------------>
+   */
+
+  /**
+   * Constructor which creates an empty map.
+   *
+   * @param comparator the order of the keys
+   */
+  public PersistentSortedMap(Comparator<? super K> comparator) {
+    this(comparator, null);
+  }
+
+  private PersistentSortedMap(Comparator<? super K> comparator, Node<K, V> root) {
+    _comparator = comparator;
+    _root = root;
+  }
+
+  /*
+   * <------------------------ Gets ------------------------>
+   */
+
+  /**
+   * Retrieves the number of entries of this map.
+   *
+   * @return the number of entries
+   */
+  public int size() {
+    return size(_root);
+  }
+
+  /**
+   * Retrieves the value of a key.
+   *
+   * @param key the key
+   *
+   * @return the value of the key, or null if this map does not have the key
+   */
+  public V get(K key) {
+    Node<K, V> node = _root;
+    while (node != null) {
+      int comparison = _comparator.compare(key, node._key);
+      if (comparison == 0) {
+        return node._value;
+      }
+      node = comparison < 0 ? node._left : node._right;
+    }
+    return null;
+  }
+
+  /**
+   * Retrieves every value of this map, in the order of their keys.
+   *
+   * @return an unmodifiable list of the values
+   */
+  public List<V> values() {
+    List<V> values = new ArrayList<V>(size());
+    addValues(_root, values);
+    return Collections.unmodifiableList(values);
+  }
+
+  /**
+   * Walks every value of this map, in the order of their keys, without copying them.
+   *
+   * <p>
+   * The walk keeps only the path from the root to the next value, so a listing can be written
+   * while it is walked, however large the map is.
+   *
+   * @return an ordered stream of the values
+   */
+  public Stream<V> stream() {
+    return StreamSupport.stream(Spliterators.spliterator(new Walk<K, V>(_root), size(),
+        Spliterator.ORDERED | Spliterator.IMMUTABLE), false);
+  }
+
+  /*
+   * <------------------------ Sets ------------------------>
+   */
+
+  /**
+   * Returns a map with the entries of this one and the given entry, which replaces the entry of
+   * the same key, if any. This map is left unchanged.
+   *
+   * @param key the key of the entry
+   * @param value the value of the entry
+   *
+   * @return the new map
+   */
+  public PersistentSortedMap<K, V> with(K key, V value) {
+    return new PersistentSortedMap<K, V>(_comparator, with(_root, key, value));
+  }
+
+  /*
+   * <------------------------ Others ------------------------>
+   */
+
+  private Node<K, V> with(Node<K, V> node, K key, V value) {
+    if (node == null) {
+      return new Node<K, V>(key, value, null, null);
+    }
+    int comparison = _comparator.compare(key, node._key);
+    if (comparison == 0) {
+      return new Node<K, V>(key, value, node._left, node._right);
+    }
+    if (comparison < 0) {
+      return balance(node._key, node._value, with(node._left, key, value), node._right);
+    }
+    return balance(node._key, node._value, node._left, with(node._right, key, value));
+  }
+
+  private static <K, V> Node<K, V> balance(K key, V value, Node<K, V> left, Node<K, V> right) {
+    int difference = height(left) - height(right);
+    if (difference > 1) {
+      if (height(left._left) < height(left._right)) {
+        left = rotateLeft(left._key, left._value, left._left, left._right);
+      }
+      return rotateRight(key, value, left, right);
+    }
+    if (difference < -1) {
+      if (height(right._right) < height(right._left)) {
+        right = rotateRight(right._key, right._value, right._left, right._right);
+      }
+      return rotateLeft(key, value, left, right);
+    }
+    return new Node<K, V>(key, value, left, right);
+  }
+
+  private static <K, V> Node<K, V> rotateLeft(K key, V value, Node<K, V> left,
+      Node<K, V> right) {
+    return new Node<K, V>(right._key, right._value, new Node<K, V>(key, value, left, right._left),
+        right._right);
+  }
+
+  private static <K, V> Node<K, V> rotateRight(K key, V value, Node<K, V> left,
+      Node<K, V> right) {
+    return new Node<K, V>(left._key, left._value, left._left,
+        new Node<K, V>(key, value, left._right, right));
+  }
+
+  private static <K, V> void addValues(Node<K, V> node, List<V> values) {
+    while (node != null) {
+      addValues(node._left, values);
+      values.add(node._value);
+      node = node._right;
+    }
+  }
+
+  private static int height(Node<?, ?> node) {
+    return node == null ? 0 : node._height;
+  }
+
+  private static int size(Node<?, ?> node) {
+    return node == null ? 0 : node._size;
+  }
+
+  /**
+   * In-order walk of a tree, which keeps the nodes whose values and right subtrees are still to be
+   * walked.
+   */
+  private static final class Walk<K, V> implements Iterator<V> {
+    private final Deque<Node<K, V>> _path = new ArrayDeque<Node<K, V>>();
+
+    Walk(Node<K, V> root) {
+      descend(root);
+    }
+
+    @Override
+    public boolean hasNext() {
+      return !_path.isEmpty();
+    }
+
+    @Override
+    public V next() {
+      Node<K, V> node = _path.poll();
+      if (node == null) {
+        throw new NoSuchElementException();
+      }
+      descend(node._right);
+      return node._value;
+    }
+
+    private void descend(Node<K, V> node) {
+      while (node != null) {
+        _path.push(node);
+        node = node._left;
+      }
+    }
+  }
+
+  /**
+   * Immutable node of the tree, which keeps the height and size of its subtree.
+   */
+  private static final class Node<K, V> {
+    private final K _key;
+    private final V _value;
+    private final Node<K, V> _left;
+    private final Node<K, V> _right;
+    private final int _height;
+    private final int _size;
+
+    Node(K key, V value, Node<K, V> left, Node<K, V> right) {
+      _key = key;
+      _value = value;
+      _left = left;
+      _right = right;
+      _height = 1 + Math.max(height(left), height(right));
+      _size = 1 + size(left) + size(right);
+    }
+  }
+}
@@ -0,0 +1,488 @@
+package hva.core;
+
+import hva.core.exception.AnimalNotFoundException;
+import hva.core.exception.HabitatNotFoundException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Class representing a search for the habitats of the animals of a hotel which maximize its
+ * satisfaction.
+ *
+ * <p>
+ * The search is a simulated annealing of the habitat of every animal which is not pinned, among
+ * the habitats which are not forbidden, moving at most a given number of animals away from the
+ * habitat they are in. Each proposed transfer is evaluated by its change in satisfaction, which
+ * follows in closed form from the population of the two habitats, the number of animals of the
+ * species in each, their areas and suitabilities, and the caretakers responsible for them, as
+ * {@link Hotel#previewTransfer(String, String)} does. Proposals move an animal either to a random
+ * habitat or to the habitat of another animal of its species, which is where most gains lie.
+ *
+ * <p>
+ * Several chains anneal independently from different seeds, one per core by default, on their own
+ * copy of the populations and counts, and the best placement found by any chain becomes the plan.
+ * The hotel is only read, and it must not change while the search runs.
+ *
+ * @see PlacementPlan
+ * @see Hotel#applyPlacement(PlacementPlan)
+ */
+public class PlacementOptimizer {
+
+  private static final int TEMPERATURE_SAMPLES = 1_000;
+  private static final double COOLING = 1e-3;
+
+  private final Hotel _hotel;
+  private final BitSet _pinned = new BitSet();
+  private final BitSet _forbidden = new BitSet();
+  private int _maxMoves = Integer.MAX_VALUE;
+  private long _iterations;
+  private int _chains = Runtime.getRuntime().availableProcessors();
+  private long _seed = 42;
+
+  /*
+   * <------------------------ Constructor ------------------------>
+   */
+
+  /**
+   * Constructor which creates an optimizer of the placement of the animals of a hotel, with no
+   * constraints.
+   *
+   * @param hotel the hotel
+   */
+  public PlacementOptimizer(Hotel hotel) {
+    _hotel = hotel;
+  }
+
+  /*
+   * <------------------------ Sets ------------------------>
+   */
+
+  /**
+   * Limits the number of animals the plan moves.
+   *
+   * @param maxMoves the largest number of moves
+   *
+   * @throws IllegalArgumentException if the limit is negative
+   */
+  public void setMaxMoves(int maxMoves) {
+    if (maxMoves < 0) {
+      throw new IllegalArgumentException("Negative number of moves: " + maxMoves);
+    }
+    _maxMoves = maxMoves;
+  }
+
+  /**
+   * Keeps an animal in the habitat it is in.
+   *
+   * @param idAnimal the identifier of the animal
+   *
+   * @throws AnimalNotFoundException If the animal with the given identifier does not exist.
+   */
+  public void pinAnimal(String idAnimal) throws AnimalNotFoundException {
+    _pinned.set(_hotel.animalExistsWithException(idAnimal).handle());
+  }
+
+  /**
+   * Keeps the animals which are not in a habitat out of it.
+   *
+   * @param idHabitat the identifier of the habitat
+   *
+   * @throws HabitatNotFoundException If the habitat with the given identifier does not exist.
+   */
+  public void forbidHabitat(String idHabitat) throws HabitatNotFoundException {
+    _forbidden.set(_hotel.habitatExistsWithException(idHabitat).handle());
+  }
+
+  /**
+   * Changes the number of transfers each chain proposes, which is by default 100 per animal that
+   * may move, and at least 100000.
+   *
+   * @param iterations the number of proposals per chain
+   */
+  public void setIterations(long iterations) {
+    _iterations = iterations;
+  }
+
+  /**
+   * Changes the number of chains annealed in parallel, which is by default the number of cores.
+   *
+   * @param chains the number of chains
+   *
+   * @throws IllegalArgumentException if the number is not positive
+   */
+  public void setChains(int chains) {
+    if (chains < 1) {
+      throw new IllegalArgumentException("Chains must be positive: " + chains);
+    }
+    _chains = chains;
+  }
+
+  /**
+   * Changes the seed of the random choices, so that a search may be repeated.
+   *
+   * @param seed the seed
+   */
+  public void setSeed(long seed) {
+    _seed = seed;
+  }
+
+  /*
+   * <------------------------ Others ------------------------>
+   */
+
+  /**
+   * Searches for the placement of the animals which maximizes the satisfaction of the hotel under
+   * the constraints of this optimizer.
+   *
+   * <p>
+   * The moves of the plan are ranked by their own gain, the one adding most first, and each move
+   * carries the gain it makes after the moves before it. The plan is empty if no placement better
+   * than the current one was found.
+   *
+   * @return the plan of the best placement found
+   */
+  public PlacementPlan optimize() {
+    Model model = new Model(_hotel.store(), _pinned, _forbidden, _maxMoves);
+    if (model._animals.length == 0 || model._targets.length == 0) {
+      return new PlacementPlan(List.of());
+    }
+    long iterations =
+        _iterations > 0 ? _iterations : Math.max(100_000, 100L * model._animals.length);
+
+    Chain best = IntStream.range(0, _chains).parallel()
+        .mapToObj(chain -> new Chain(model, _seed + chain * 0x9E3779B97F4A7C15L).anneal(iterations))
+        .max(Comparator.comparingDouble(chain -> chain._gain))
+        .orElseThrow();
+    return rank(model, best);
+  }
+
+  // Orders the moves of a placement by their own gain and measures each after those before it
+  private static PlacementPlan rank(Model model, Chain placement) {
+    List<Integer> moved = new ArrayList<Integer>();
+    for (int animal = 0; animal < model._home.length; animal++) {
+      if (placement._habitat[animal] != model._home[animal]) {
+        moved.add(animal);
+      }
+    }
+
+    Chain chain = new Chain(model, 0);
+    double[] own = new double[model._home.length];
+    for (int animal : moved) {
+      own[animal] = chain.delta(animal, placement._habitat[animal]);
+    }
+    moved.sort(Comparator.comparingDouble((Integer animal) -> own[animal]).reversed());
+
+    EntityStore store = model._store;
+    List<PlacementPlan.Move> moves = new ArrayList<PlacementPlan.Move>(moved.size());
+    for (int animal : moved) {
+      int habitat = placement._habitat[animal];
+      double gain = chain.delta(animal, habitat);
+      chain.move(animal, habitat);
+      moves.add(new PlacementPlan.Move(store.animalId(animal),
+          store.habitat(model._home[animal]).id(), store.habitat(habitat).id(), gain));
+    }
+    return new PlacementPlan(moves);
+  }
+
+  /**
+   * Class representing what the chains read of the hotel, which none of them changes.
+   */
+  private static final class Model {
+    private final EntityStore _store;
+    private final int _species;
+    private final int[] _home;
+    private final int[] _speciesOf;
+    private final int[] _population;
+    private final int[] _area;
+    private final double[] _careTakers;
+    private final Habitat[] _habitats;
+    private final Species[] _allSpecies;
+    private final int[] _animals;
+    private final int[] _targets;
+    private final boolean[] _forbidden;
+    private final int[][] _animalsBySpecies;
+    private final int _maxMoves;
+
+    private Model(EntityStore store, BitSet pinned, BitSet forbidden, int maxMoves) {
+      _store = store;
+      _species = store.speciesCount();
+      _maxMoves = maxMoves;
+      int animals = store.animalCount();
+      int habitats = store.habitatCount();
+
+      _home = new int[animals];
+      _speciesOf = new int[animals];
+      int[] perSpecies = new int[_species];
+      int candidates = 0;
+      for (int animal = 0; animal < animals; animal++) {
+        _home[animal] = store.animalHabitat(animal);
+        _speciesOf[animal] = store.animalSpecies(animal);
+        perSpecies[_speciesOf[animal]]++;
+        if (!pinned.get(animal)) {
+          candidates++;
+        }
+      }
+      _animals = new int[candidates];
+      _animalsBySpecies = new int[_species][];
+      for (int species = 0; species < _species; species++) {
+        _animalsBySpecies[species] = new int[perSpecies[species]];
+      }
+      Arrays.fill(perSpecies, 0);
+      for (int animal = 0, candidate = 0; animal < animals; animal++) {
+        if (!pinned.get(animal)) {
+          _animals[candidate++] = animal;
+        }
+        _animalsBySpecies[_speciesOf[animal]][perSpecies[_speciesOf[animal]]++] = animal;
+      }
+
+      _population = new int[habitats];
+      _area = new int[habitats];
+      _careTakers = new double[habitats];
+      _habitats = new Habitat[habitats];
+      _forbidden = new boolean[habitats];
+      int targets = 0;
+      for (int habitat = 0; habitat < habitats; habitat++) {
+        _habitats[habitat] = store.habitat(habitat);
+        _population[habitat] = store.habitatPopulation(habitat);
+        _area[habitat] = store.habitatArea(habitat);
+        int responsible = _habitats[habitat].responsibleCareTakers();
+        if (responsible > 0) {
+          _careTakers[habitat] = 3.0 * responsible / _habitats[habitat].careTakers().size();
+        }
+        _forbidden[habitat] = forbidden.get(habitat);
+        if (!_forbidden[habitat]) {
+          targets++;
+        }
+      }
+      _targets = new int[targets];
+      for (int habitat = 0, target = 0; habitat < habitats; habitat++) {
+        if (!_forbidden[habitat]) {
+          _targets[target++] = habitat;
+        }
+      }
+
+      _allSpecies = new Species[_species];
+      for (int species = 0; species < _species; species++) {
+        _allSpecies[species] = store.species(species);
+      }
+    }
+
+    // Number of animals of a species in a habitat of the hotel
+    private int count(int habitat, int species) {
+      return _habitats[habitat].sameSpeciesCount(_allSpecies[species]);
+    }
+
+    private int suitability(int habitat, int species) {
+      return _habitats[habitat].suitability(_allSpecies[species]).value();
+    }
+  }
+
+  /**
+   * Class representing one chain of the annealing, with its own placement of the animals.
+   */
+  private static final class Chain {
+    private final Model _model;
+    private final SplittableRandom _random;
+    private final int[] _habitat;
+    private final int[] _population;
+    private final CountOverlay _counts = new CountOverlay();
+    private int _moved;
+    private double _gain;
+
+    private Chain(Model model, long seed) {
+      _model = model;
+      _random = new SplittableRandom(seed);
+      _habitat = model._home.clone();
+      _population = model._population.clone();
+    }
+
+    // Anneals the placement and leaves it at the best placement it went through
+    private Chain anneal(long iterations) {
+      double temperature = initialTemperature();
+      double cooling = Math.pow(COOLING, 1.0 / iterations);
+      double best = 0;
+      int[] trail = new int[64];
+      int trailSize = 0;
+
+      for (long i = 0; i < iterations; i++, temperature *= cooling) {
+        int animal = _model._animals[_random.nextInt(_model._animals.length)];
+        int habitat = propose(animal);
+        if (habitat < 0) {
+          continue;
+        }
+        double delta = delta(animal, habitat);
+        if (delta < 0 && _random.nextDouble() >= Math.exp(delta / temperature)) {
+          continue;
+        }
+        if (trailSize + 2 > trail.length) {
+          trail = Arrays.copyOf(trail, trail.length * 2);
+        }
+        trail[trailSize++] = animal;
+        trail[trailSize++] = _habitat[animal];
+        move(animal, habitat);
+        _gain += delta;
+        if (_gain > best) {
+          best = _gain;
+          trailSize = 0;
+        }
+      }
+
+      // The moves since the best placement are undone, last first
+      while (trailSize > 0) {
+        int habitat = trail[--trailSize];
+        int animal = trail[--trailSize];
+        _gain += delta(animal, habitat);
+        move(animal, habitat);
+      }
+      return this;
+    }
+
+    // Mean change of random proposals, at which half of the worsening ones are accepted at first
+    private double initialTemperature() {
+      double sum = 0;
+      int samples = 0;
+      for (int i = 0; i < TEMPERATURE_SAMPLES; i++) {
+        int animal = _model._animals[_random.nextInt(_model._animals.length)];
+        int habitat = propose(animal);
+        if (habitat >= 0) {
+          sum += Math.abs(delta(animal, habitat));
+          samples++;
+        }
+      }
+      return samples > 0 && sum > 0 ? sum / samples / Math.log(2) : 1;
+    }
+
+    /**
+     * Proposes a habitat for an animal, within the constraints.
+     *
+     * @return the habitat, or -1 if the proposal breaks a constraint or moves nothing
+     */
+    private int propose(int animal) {
+      int habitat;
+      int[] mates = _model._animalsBySpecies[_model._speciesOf[animal]];
+      if (_random.nextBoolean() && mates.length > 1) {
+        habitat = _habitat[mates[_random.nextInt(mates.length)]];
+      } else {
+        habitat = _model._targets[_random.nextInt(_model._targets.length)];
+      }
+      if (habitat == _habitat[animal] || _model._forbidden[habitat]) {
+        return -1;
+      }
+      int home = _model._home[animal];
+      int moved = _moved + (_habitat[animal] == home ? 1 : 0) - (habitat == home ? 1 : 0);
+      return moved <= _model._maxMoves ? habitat : -1;
+    }
+
+    // Change in the satisfaction of the hotel if an animal moved to another habitat
+    private double delta(int animal, int to) {
+      int from = _habitat[animal];
+      int species = _model._speciesOf[animal];
+      int population = _population[from];
+      int toPopulation = _population[to];
+      double delta = 6 + 4 * (population - toPopulation)
+          + 10 * (count(to, species) - count(from, species))
+          + _model.suitability(to, species) - _model.suitability(from, species)
+          + _model._careTakers[from] - _model._careTakers[to];
+      if (population == 1) {
+        delta -= _model._area[from];
+      }
+      if (toPopulation == 0) {
+        delta += _model._area[to];
+      }
+      return delta;
+    }
+
+    private void move(int animal, int to) {
+      int from = _habitat[animal];
+      int species = _model._speciesOf[animal];
+      int home = _model._home[animal];
+      _moved += (from == home ? 1 : 0) - (to == home ? 1 : 0);
+      _population[from]--;
+      _population[to]++;
+      _counts.add(key(from, species), -1);
+      _counts.add(key(to, species), 1);
+      _habitat[animal] = to;
+    }
+
+    private int count(int habitat, int species) {
+      return _model.count(habitat, species) + _counts.get(key(habitat, species));
+    }
+
+    private long key(int habitat, int species) {
+      return (long) habitat * _model._species + species;
+    }
+  }
+
+  /**
+   * Class representing the changes a chain made to the number of animals of each species in each
+   * habitat, in an open addressing table keyed by habitat and species.
+   */
+  private static final class CountOverlay {
+    private static final long EMPTY = -1;
+
+    private long[] _keys = newKeys(1 << 10);
+    private int[] _values = new int[1 << 10];
+    private int _size;
+
+    private static long[] newKeys(int capacity) {
+      long[] keys = new long[capacity];
+      Arrays.fill(keys, EMPTY);
+      return keys;
+    }
+
+    private int get(long key) {
+      int mask = _keys.length - 1;
+      for (int slot = slot(key, mask); _keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+        if (_keys[slot] == key) {
+          return _values[slot];
+        }
+      }
+      return 0;
+    }
+
+    private void add(long key, int delta) {
+      int mask = _keys.length - 1;
+      int slot = slot(key, mask);
+      while (_keys[slot] != EMPTY && _keys[slot] != key) {
+        slot = (slot + 1) & mask;
+      }
+      if (_keys[slot] == EMPTY) {
+        _keys[slot] = key;
+        if (++_size * 2 > _keys.length) {
+          _values[slot] = delta;
+          grow();
+          return;
+        }
+      }
+      _values[slot] += delta;
+    }
+
+    private void grow() {
+      long[] keys = _keys;
+      int[] values = _values;
+      _keys = newKeys(keys.length * 2);
+      _values = new int[keys.length * 2];
+      int mask = _keys.length - 1;
+      for (int i = 0; i < keys.length; i++) {
+        if (keys[i] != EMPTY) {
+          int slot = slot(keys[i], mask);
+          while (_keys[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+          }
+          _keys[slot] = keys[i];
+          _values[slot] = values[i];
+        }
+      }
+    }
+
+    private static int slot(long key, int mask) {
+      return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+  }
+}
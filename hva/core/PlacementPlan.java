@@ -0,0 +1,126 @@
+package hva.core;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Class representing a plan of transfers of animals to habitats, ranked by what each adds to the
+ * satisfaction of the hotel.
+ *
+ * <p>
+ * Each animal is moved at most once, from the habitat it was in when the plan was made to the
+ * habitat the plan found for it. The gain of a move is the change in the satisfaction of the hotel
+ * that it makes once the moves ranked before it were made, so the gain of applying the first moves
+ * of the plan is the sum of their gains.
+ *
+ * @see PlacementOptimizer#optimize()
+ * @see Hotel#applyPlacement(PlacementPlan)
+ */
+public class PlacementPlan {
+
+  private final List<Move> _moves;
+  private final double _gain;
+
+  /*
+   * <------------------------ Constructor ------------------------>
+   */
+
+  /**
+   * Constructor which creates a plan from its ranked moves.
+   *
+   * @param moves the moves, in the order they are to be made
+   */
+  PlacementPlan(List<Move> moves) {
+    _moves = Collections.unmodifiableList(moves);
+    double gain = 0;
+    for (Move move : moves) {
+      gain += move.gain();
+    }
+    _gain = gain;
+  }
+
+  /*
+   * <------------------------ Gets ------------------------>
+   */
+
+  /**
+   * Returns the moves of this plan, the one adding most to the satisfaction first.
+   *
+   * @return an unmodifiable list of the moves
+   */
+  public List<Move> moves() {
+    return _moves;
+  }
+
+  /**
+   * Returns the change in the satisfaction of the hotel that making every move of this plan is
+   * expected to make.
+   *
+   * @return the expected gain of this plan
+   */
+  public double gain() {
+    return _gain;
+  }
+
+  /**
+   * Returns the plan in the format: PLANO|númeroDeTransferências|ganho
+   *
+   * @return the plan in format
+   */
+  @Override
+  public String toString() {
+    return "PLANO|" + _moves.size() + "|" + Math.round(_gain);
+  }
+
+  /**
+   * Class representing a transfer of an animal in a plan.
+   */
+  public static final class Move {
+    private final String _animal;
+    private final String _previousHabitat;
+    private final String _habitat;
+    private final double _gain;
+
+    /**
+     * Constructor which creates a move.
+     *
+     * @param animal the identifier of the animal
+     * @param previousHabitat the identifier of the habitat the animal is in
+     * @param habitat the identifier of the habitat the animal is moved to
+     * @param gain the change in satisfaction the move makes after the moves before it
+     */
+    Move(String animal, String previousHabitat, String habitat, double gain) {
+      _animal = animal;
+      _previousHabitat = previousHabitat;
+      _habitat = habitat;
+      _gain = gain;
+    }
+
+    public String animal() {
+      return _animal;
+    }
+
+    public String previousHabitat() {
+      return _previousHabitat;
+    }
+
+    public String habitat() {
+      return _habitat;
+    }
+
+    public double gain() {
+      return _gain;
+    }
+
+    /**
+     * Returns the move in the format: TRANSFERÊNCIA|idAnimal|idHabitatAnterior|idHabitat|ganho
+     *
+     * @return the move in format
+     */
+    @Override
+    public String toString() {
+      return "TRANSFERÊNCIA|" + _animal + "|" + _previousHabitat + "|" + _habitat + "|"
+          + Math.round(_gain);
+    }
+  }
+}
@@ -0,0 +1,143 @@
+package hva.core;
+
+import hva.core.enumerator.BalanceObjective;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Class representing a plan of responsibilities for habitats passed from a caretaker to another,
+ * with the measure of the balance of the work of the caretakers before and after it.
+ *
+ * <p>
+ * Each move removes the responsibility for a habitat from a caretaker and adds it to a caretaker
+ * who did not have it, so every habitat keeps the number of caretakers responsible for it. The
+ * moves of a habitat are independent of the others, and the measure after the plan holds once
+ * every move was made.
+ *
+ * @see CareTakerRebalancer#optimize()
+ * @see Hotel#applyRebalance(RebalancePlan)
+ */
+public class RebalancePlan {
+
+  private final BalanceObjective _objective;
+  private final List<Move> _moves;
+  private final double _before;
+  private final double _after;
+
+  /*
+   * <------------------------ Constructor ------------------------>
+   */
+
+  /**
+   * Constructor which creates a plan from its moves and the measures of the balance.
+   *
+   * @param objective the measure of the balance
+   * @param moves the moves
+   * @param before the measure before the moves
+   * @param after the measure after every move
+   */
+  RebalancePlan(BalanceObjective objective, List<Move> moves, double before, double after) {
+    _objective = objective;
+    _moves = Collections.unmodifiableList(moves);
+    _before = before;
+    _after = after;
+  }
+
+  /*
+   * <------------------------ Gets ------------------------>
+   */
+
+  /**
+   * Returns the measure of the balance this plan improves.
+   *
+   * @return the objective of the plan
+   */
+  public BalanceObjective objective() {
+    return _objective;
+  }
+
+  /**
+   * Returns the moves of this plan, grouped by habitat.
+   *
+   * @return an unmodifiable list of the moves
+   */
+  public List<Move> moves() {
+    return _moves;
+  }
+
+  /**
+   * Returns the measure of the balance of the work of the caretakers before this plan.
+   *
+   * @return the lowest satisfaction of a caretaker, or the standard deviation of their
+   *         satisfactions, by the objective of the plan
+   */
+  public double before() {
+    return _before;
+  }
+
+  /**
+   * Returns the measure of the balance of the work of the caretakers that making every move of
+   * this plan is expected to leave.
+   *
+   * @return the lowest satisfaction of a caretaker, or the standard deviation of their
+   *         satisfactions, by the objective of the plan
+   */
+  public double after() {
+    return _after;
+  }
+
+  /**
+   * Returns the plan in the format: PLANO|númeroDeMudanças|antes|depois
+   *
+   * @return the plan in format
+   */
+  @Override
+  public String toString() {
+    return "PLANO|" + _moves.size() + "|" + Math.round(_before) + "|" + Math.round(_after);
+  }
+
+  /**
+   * Class representing a responsibility passed from a caretaker to another in a plan.
+   */
+  public static final class Move {
+    private final String _habitat;
+    private final String _previousCareTaker;
+    private final String _careTaker;
+
+    /**
+     * Constructor which creates a move.
+     *
+     * @param habitat the identifier of the habitat
+     * @param previousCareTaker the identifier of the caretaker the responsibility is removed from
+     * @param careTaker the identifier of the caretaker the responsibility is added to
+     */
+    Move(String habitat, String previousCareTaker, String careTaker) {
+      _habitat = habitat;
+      _previousCareTaker = previousCareTaker;
+      _careTaker = careTaker;
+    }
+
+    public String habitat() {
+      return _habitat;
+    }
+
+    public String previousCareTaker() {
+      return _previousCareTaker;
+    }
+
+    public String careTaker() {
+      return _careTaker;
+    }
+
+    /**
+     * Returns the move in the format: RESPONSABILIDADE|idHabitat|idTratadorAnterior|idTratador
+     *
+     * @return the move in format
+     */
+    @Override
+    public String toString() {
+      return "RESPONSABILIDADE|" + _habitat + "|" + _previousCareTaker + "|" + _careTaker;
+    }
+  }
+}
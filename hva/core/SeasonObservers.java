@@ -2,4 +2,6 @@ package hva.core;
 
 interface SeasonObservers {
   void update();
+
+  void revert();
 }
@@ -8,6 +8,9 @@ import java.io.ObjectOutputStream;
 
 import java.lang.reflect.Field;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 
 /**
@@ -22,12 +25,15 @@ import java.util.Map;
 public class Species implements Serializable, Comparable<Species> {
 
   @Serial
-  private static final long serialVersionUID = 1L;
+  private static final long serialVersionUID = 2L;
 
   private final String _id;
   private final String _name;
-  private final Map<String, Animal> _animals = new CaseInsensitiveHashMap<Animal>();
-  private final Map<String, Vet> _vets = new CaseInsensitiveHashMap<Vet>();
+  private final int _handle;
+  private int _animalCount;
+  private transient int _hash;
+  private transient char[] _nameChars;
+  private final Map<String, Vet> _vets;
 
   /*
    * <------------------------ Constructor ------------------------>
@@ -38,10 +44,15 @@ public class Species implements Serializable, Comparable<Species> {
    * 
    * @param id the identifier of this species
    * @param name the name of this species
+   * @param store the store in which this species is registered
+   * 
+   * @see EntityStore
    */
-  Species(String id, String name) {
+  Species(String id, String name, EntityStore store) {
     _id = id;
     _name = name;
+    _handle = store.addSpecies(this);
+    _vets = new CaseInsensitiveHashMap<Vet>(store.strings());
   }
 
   /*
@@ -72,6 +83,55 @@ public class Species implements Serializable, Comparable<Species> {
     return _name;
   }
 
+  /**
+   * Retrieves the characters of the name of this species, in lowercase and sorted.
+   * 
+   * <p>
+   * The array is computed once and kept, so that names can be compared character by character
+   * without allocating. It must not be modified.
+   *
+   * @return the sorted lowercase characters of the name of this species
+   * 
+   * @see Vet#vaccinate(Animal, Vaccine)
+   */
+  char[] nameChars() {
+    char[] nameChars = _nameChars;
+    if (nameChars == null) {
+      nameChars = _name.toLowerCase().toCharArray();
+      Arrays.sort(nameChars);
+      _nameChars = nameChars;
+    }
+    return nameChars;
+  }
+
+  /**
+   * Retrieves the handle of this species.
+   * 
+   * <p>
+   * The handle is the dense index of this species in the {@link EntityStore} of its hotel.
+   *
+   * @return the handle of this species
+   */
+  int handle() {
+    return _handle;
+  }
+
+  /**
+   * Estimates the heap retained by this species, excluding its Strings and vets.
+   *
+   * @return the estimated number of bytes retained by this species
+   *
+   * @see HeapFootprint
+   */
+  long retainedBytes() {
+    long bytes = HeapFootprint.object(4 * HeapFootprint.REFERENCE + 3 * Integer.BYTES)
+        + HeapFootprint.map(_vets);
+    if (_nameChars != null) {
+      bytes += HeapFootprint.array(_nameChars.length, Character.BYTES);
+    }
+    return bytes;
+  }
+
   /*
    * <------------------------ Sets ------------------------>
    */
@@ -85,7 +145,18 @@ public class Species implements Serializable, Comparable<Species> {
    * @see Animal
    */
   void addAnimal(Animal animal) {
-    _animals.put(animal.id(), animal);
+    _animalCount++;
+  }
+
+  /**
+   * Removes an animal from this species.
+   * 
+   * @param animal The animal to be removed.
+   * 
+   * @see Hotel#undo(hva.core.event.HotelEvent)
+   */
+  void removeAnimal(Animal animal) {
+    _animalCount--;
   }
 
   /**
@@ -93,11 +164,13 @@ public class Species implements Serializable, Comparable<Species> {
    * 
    * @param vet The vet to be added.
    * 
+   * @return whether the vet was already added to this species
+   * 
    * @see Vet#addResponsibility(String)
    * @see Vet
    */
-  void addVet(Vet vet) {
-    _vets.put(vet.id(), vet);
+  boolean addVet(Vet vet) {
+    return _vets.put(vet.id(), vet) != null;
   }
 
   /**
@@ -124,7 +197,18 @@ public class Species implements Serializable, Comparable<Species> {
    * @see Animal
    */
   int animalCount() {
-    return _animals.size();
+    return _animalCount;
+  }
+
+  /**
+   * Retrieves the vets responsible for this species.
+   * 
+   * @return an unmodifiable collection of the vets of this species
+   * 
+   * @see Vet
+   */
+  Collection<Vet> vets() {
+    return Collections.unmodifiableCollection(_vets.values());
   }
 
   /**
@@ -165,11 +249,22 @@ public class Species implements Serializable, Comparable<Species> {
    * This method returns a hash code value for the object. This method is supported for the benefit
    * of hash tables such as those provided by {@link java.util.HashMap}.
    * 
+   * <p>
+   * The hash is computed once, without a lowercase copy of the identifier, folding each character
+   * the same way as {@link String#equalsIgnoreCase(String)}.
+   * 
    * @return A hash code value for this species
    */
   @Override
   public int hashCode() {
-    return _id.toLowerCase().hashCode();
+    int hash = _hash;
+    if (hash == 0) {
+      for (int i = 0; i < _id.length(); i++) {
+        hash = 31 * hash + Character.toLowerCase(Character.toUpperCase(_id.charAt(i)));
+      }
+      _hash = hash;
+    }
+    return hash;
   }
 
   /**
@@ -223,10 +318,12 @@ public class Species implements Serializable, Comparable<Species> {
       nameField.setAccessible(true);
       nameField.set(this, in.readObject());
 
-      // Use reflection to set the final field _animals
-      Field animalsField = Species.class.getDeclaredField("_animals");
-      animalsField.setAccessible(true);
-      animalsField.set(this, in.readObject());
+      // Use reflection to set the final field _handle
+      Field handleField = Species.class.getDeclaredField("_handle");
+      handleField.setAccessible(true);
+      handleField.setInt(this, in.readInt());
+
+      _animalCount = in.readInt();
 
       // Use reflection to set the final field _vets
       Field vetsField = Species.class.getDeclaredField("_vets");
@@ -254,7 +351,8 @@ public class Species implements Serializable, Comparable<Species> {
   private void writeObject(ObjectOutputStream out) throws IOException {
     out.writeObject(_id);
     out.writeObject(_name);
-    out.writeObject(_animals);
+    out.writeInt(_handle);
+    out.writeInt(_animalCount);
     out.writeObject(_vets);
   }
 
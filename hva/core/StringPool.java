@@ -0,0 +1,129 @@
+package hva.core;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serial;
+import java.io.Serializable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import hva.core.enumerator.FootprintCategory;
+
+/**
+ * Class representing a pool of canonical Strings of a zoo hotel.
+ *
+ * <p>
+ * Identifiers and names arrive as fresh Strings from the import file and from the menus, and the
+ * same identifier is referenced by many entities (a species is named by its vaccines and vets, a
+ * habitat by its caretakers). The pool keeps one copy of each distinct String and hands it out to
+ * everyone that stores an equal one, keeping track of how many bytes were saved this way.
+ *
+ * <p>
+ * The table of the pool is not serialized. Java serialization keeps shared Strings shared, and the
+ * table is filled again with the Strings of the hotel after it is loaded.
+ *
+ * @see Hotel#canonicalizeStrings()
+ * @see CaseInsensitiveHashMap
+ */
+public class StringPool implements Serializable {
+
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  private transient Map<String, String> _strings = new HashMap<String, String>();
+  private transient long _savedBytes;
+
+  /*
+   * <------------------------ Gets ------------------------>
+   */
+
+  /**
+   * Retrieves the number of distinct Strings in this pool.
+   *
+   * @return the number of distinct Strings
+   */
+  int size() {
+    return _strings.size();
+  }
+
+  /**
+   * Retrieves the number of bytes saved by this pool.
+   *
+   * <p>
+   * Every time an equal String is replaced by the canonical one, the estimated retained size of the
+   * replaced String is added to this count.
+   *
+   * @return the estimated number of bytes saved
+   */
+  long savedBytes() {
+    return _savedBytes;
+  }
+
+  /*
+   * <------------------------ Others ------------------------>
+   */
+
+  /**
+   * Returns the canonical copy of a String.
+   *
+   * @param value the String to be canonicalized
+   *
+   * @return the String of this pool equal to the given one, or the given one if there is none
+   */
+  String canonical(String value) {
+    String canonical = _strings.putIfAbsent(value, value);
+    if (canonical == null) {
+      return value;
+    }
+    if (canonical != value) {
+      _savedBytes += HeapFootprint.string(value);
+    }
+    return canonical;
+  }
+
+  /**
+   * Returns the canonical copy of the lowercase form of a String.
+   *
+   * @param value the String to be converted and canonicalized
+   *
+   * @return the canonical lowercase form of the given String
+   *
+   * @see CaseInsensitiveHashMap
+   */
+  String canonicalLowerCase(String value) {
+    return canonical(value.toLowerCase());
+  }
+
+  /**
+   * Accounts for the heap retained by this pool and its Strings.
+   *
+   * @param footprint the estimate to which this pool is added
+   *
+   * @see HeapFootprint
+   */
+  void measure(HeapFootprint footprint) {
+    footprint.addOverhead(FootprintCategory.STRINGS,
+        HeapFootprint.object(HeapFootprint.REFERENCE + Long.BYTES) + HeapFootprint.map(_strings));
+    for (String value : _strings.keySet()) {
+      footprint.addString(value);
+    }
+  }
+
+  /**
+   * Custom deserialization of the StringPool class.
+   *
+   * <p>
+   * The table is not serialized, so it starts empty after the pool is read.
+   *
+   * @param in the ObjectInputStream object used to read the object
+   *
+   * @throws ClassNotFoundException if the class of a serialized object cannot be found
+   * @throws IOException if an I/O error occurs while reading the object
+   */
+  @Serial
+  private void readObject(ObjectInputStream in) throws ClassNotFoundException, IOException {
+    in.defaultReadObject();
+    _strings = new HashMap<String, String>();
+  }
+}
@@ -0,0 +1,93 @@
+package hva.core;
+
+/**
+ * Class representing the change in the satisfaction of a hotel that transferring an animal to a
+ * habitat would make, split by whose satisfaction changes.
+ *
+ * <p>
+ * Moving an animal changes the satisfaction of the animal itself, of the animals of the habitat it
+ * leaves and of the habitat it joins, through the number of animals of the same and of other
+ * species and the share of the area of each, and of the caretakers responsible for either habitat,
+ * through the population of the habitats they clean. The satisfaction of vets depends on the
+ * population of species, which a transfer does not change.
+ *
+ * @see Hotel#previewTransfer(String, String)
+ */
+public class TransferPreview {
+
+  private final double _animal;
+  private final double _previousHabitat;
+  private final double _habitat;
+  private final double _careTakers;
+
+  /*
+   * <------------------------ Constructor ------------------------>
+   */
+
+  /**
+   * Constructor which creates the preview of a transfer.
+   *
+   * @param animal the change in the satisfaction of the animal
+   * @param previousHabitat the change in the satisfaction of the other animals of the habitat the
+   *        animal leaves
+   * @param habitat the change in the satisfaction of the animals of the habitat the animal joins
+   * @param careTakers the change in the satisfaction of the caretakers of either habitat
+   */
+  TransferPreview(double animal, double previousHabitat, double habitat, double careTakers) {
+    _animal = animal;
+    _previousHabitat = previousHabitat;
+    _habitat = habitat;
+    _careTakers = careTakers;
+  }
+
+  /*
+   * <------------------------ Gets ------------------------>
+   */
+
+  /**
+   * Returns the change in the satisfaction of the animal transferred.
+   *
+   * @return the change for the animal
+   */
+  public double animal() {
+    return _animal;
+  }
+
+  /**
+   * Returns the change in the satisfaction of the other animals of the habitat the animal leaves.
+   *
+   * @return the change for the animals left behind
+   */
+  public double previousHabitat() {
+    return _previousHabitat;
+  }
+
+  /**
+   * Returns the change in the satisfaction of the animals of the habitat the animal joins.
+   *
+   * @return the change for the animals joined
+   */
+  public double habitat() {
+    return _habitat;
+  }
+
+  /**
+   * Returns the change in the satisfaction of the caretakers responsible for either habitat.
+   *
+   * @return the change for the caretakers
+   */
+  public double careTakers() {
+    return _careTakers;
+  }
+
+  /**
+   * Returns the change in the satisfaction of the hotel.
+   *
+   * @return the sum of the changes
+   *
+   * @see Hotel#satisfaction()
+   */
+  public double satisfaction() {
+    return _animal + _previousHabitat + _habitat + _careTakers;
+  }
+}
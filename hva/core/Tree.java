@@ -22,14 +22,13 @@ import hva.core.enumerator.SeasonType;
 public abstract class Tree implements Serializable, Comparable<Tree>, SeasonObservers {
 
   @Serial
-  private static final long serialVersionUID = 1L;
+  private static final long serialVersionUID = 2L;
 
   private final String _id;
   private final String _name;
-  private int _age;
   private final SeasonType _birthSeason;
-  private final int _cleaningDifficulty;
   private final Hotel _hotel;
+  private final int _handle;
 
   /*
    * <------------------------ Constructor ------------------------>
@@ -51,10 +50,9 @@ public abstract class Tree implements Serializable, Comparable<Tree>, SeasonObse
   Tree(String id, String name, int age, int cleaningDifficulty, Hotel hotel) {
     _id = id;
     _name = name;
-    _age = age;
-    _cleaningDifficulty = cleaningDifficulty;
     _hotel = hotel;
     _birthSeason = _hotel.season().seasonType();
+    _handle = _hotel.store().addTree(this, age, cleaningDifficulty);
   }
 
   /*
@@ -91,7 +89,7 @@ public abstract class Tree implements Serializable, Comparable<Tree>, SeasonObse
    * @return the age of this tree
    */
   protected int age() {
-    return _age;
+    return _hotel.store().treeAge(_handle);
   }
 
   /**
@@ -100,7 +98,7 @@ public abstract class Tree implements Serializable, Comparable<Tree>, SeasonObse
    * @return the cleaning difficulty of this tree
    */
   protected int cleaningDifficulty() {
-    return _cleaningDifficulty;
+    return _hotel.store().treeCleaningDifficulty(_handle);
   }
 
   /**
@@ -112,6 +110,29 @@ public abstract class Tree implements Serializable, Comparable<Tree>, SeasonObse
     return _hotel;
   }
 
+  /**
+   * Retrieves the handle of this tree.
+   * 
+   * <p>
+   * The handle is the dense index of this tree in the {@link EntityStore} of its hotel.
+   *
+   * @return the handle of this tree
+   */
+  int handle() {
+    return _handle;
+  }
+
+  /**
+   * Estimates the heap retained by this tree, excluding its Strings.
+   *
+   * @return the estimated number of bytes retained by this tree
+   *
+   * @see HeapFootprint
+   */
+  long retainedBytes() {
+    return HeapFootprint.object(4 * HeapFootprint.REFERENCE + Integer.BYTES);
+  }
+
   /*
    * <------------------------ Others ------------------------>
    */
@@ -122,7 +143,7 @@ public abstract class Tree implements Serializable, Comparable<Tree>, SeasonObse
    * @return the total cleaning effort of this tree
    */
   double totalCleaningEffort() {
-    return _cleaningDifficulty * seasonalEffort() * Math.log(_age + 1);
+    return cleaningDifficulty() * seasonalEffort() * Math.log(age() + 1);
   }
 
   /**
@@ -136,7 +157,18 @@ public abstract class Tree implements Serializable, Comparable<Tree>, SeasonObse
    */
   void grow() {
     if (_birthSeason == _hotel.season().seasonType()) {
-      _age++;
+      _hotel.store().growTree(_handle);
+    }
+  }
+
+  /**
+   * Decreases the age of this tree, undoing its growth in the current season.
+   * 
+   * @see #grow()
+   */
+  void shrink() {
+    if (_birthSeason == _hotel.season().seasonType()) {
+      _hotel.store().shrinkTree(_handle);
     }
   }
 
@@ -149,6 +181,15 @@ public abstract class Tree implements Serializable, Comparable<Tree>, SeasonObse
     grow();
   }
 
+  /**
+   * Undoes the update of this tree in the current season, before the season goes back.
+   * 
+   * @see Hotel#undo(hva.core.event.HotelEvent)
+   */
+  public void revert() {
+    shrink();
+  }
+
   /**
    * Returns the seasonal effort of this tree.
    * 
@@ -0,0 +1,124 @@
+package hva.core;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Class representing the vaccination history of an {@link Animal} or of a {@link Vet}.
+ *
+ * <p>
+ * Most animals are vaccinated a few times at most, so the first records are kept inline in this
+ * object and only longer histories grow into an array. Owners keep no history at all until their
+ * first record, returning a shared empty list instead.
+ *
+ * <p>
+ * The history is a read-only view of itself: reading it does not allocate and any attempts to
+ * modify it through the {@link java.util.List} interface will result in an
+ * {@code UnsupportedOperationException}. Records are added through {@link #append(VaccineRegistry)}.
+ *
+ * @see VaccineRegistry
+ */
+public class VaccinationHistory extends AbstractList<VaccineRegistry>
+    implements RandomAccess, Serializable {
+
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  /** Number of records kept inline, before growing into an array. */
+  private static final int INLINE_CAPACITY = 2;
+
+  private int _size;
+  private VaccineRegistry _first;
+  private VaccineRegistry _second;
+  private VaccineRegistry[] _records;
+
+  /*
+   * <------------------------ Gets ------------------------>
+   */
+
+  @Override
+  public int size() {
+    return _size;
+  }
+
+  @Override
+  public VaccineRegistry get(int index) {
+    Objects.checkIndex(index, _size);
+    if (_records != null) {
+      return _records[index];
+    }
+    return index == 0 ? _first : _second;
+  }
+
+  /**
+   * Estimates the heap retained by this history, excluding the registries it holds.
+   *
+   * @return the estimated number of bytes of this history and its array
+   *
+   * @see HeapFootprint
+   */
+  long retainedBytes() {
+    long bytes = HeapFootprint.object(3 * HeapFootprint.REFERENCE + 2 * Integer.BYTES);
+    if (_records != null) {
+      bytes += HeapFootprint.array(_records.length, HeapFootprint.REFERENCE);
+    }
+    return bytes;
+  }
+
+  /*
+   * <------------------------ Sets ------------------------>
+   */
+
+  /**
+   * Adds a record to the end of this history.
+   *
+   * <p>
+   * Once the inline slots are full, every record moves into an array that doubles when it is full.
+   *
+   * @param vaccineRegistry the record to be added
+   */
+  void append(VaccineRegistry vaccineRegistry) {
+    if (_records == null && _size < INLINE_CAPACITY) {
+      if (_size == 0) {
+        _first = vaccineRegistry;
+      } else {
+        _second = vaccineRegistry;
+      }
+    } else {
+      if (_records == null) {
+        _records = new VaccineRegistry[2 * INLINE_CAPACITY];
+        _records[0] = _first;
+        _records[1] = _second;
+        _first = null;
+        _second = null;
+      } else if (_size == _records.length) {
+        _records = Arrays.copyOf(_records, 2 * _size);
+      }
+      _records[_size] = vaccineRegistry;
+    }
+    _size++;
+    modCount++;
+  }
+
+  /**
+   * Removes the record at the end of this history.
+   *
+   * @see Hotel#undo(hva.core.event.HotelEvent)
+   */
+  void removeLastRecord() {
+    _size--;
+    if (_records != null) {
+      _records[_size] = null;
+    } else if (_size == 1) {
+      _second = null;
+    } else {
+      _first = null;
+    }
+    modCount++;
+  }
+}
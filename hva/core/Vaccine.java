@@ -18,12 +18,12 @@ import java.util.List;
 public class Vaccine implements Serializable, Comparable<Vaccine> {
 
   @Serial
-  private static final long serialVersionUID = 1L;
+  private static final long serialVersionUID = 2L;
 
   private final String _id;
   private final String _name;
   private int _applyCount;
-  private final Map<String, Species> _species = new CaseInsensitiveHashMap<Species>();
+  private final Map<String, Species> _species;
 
   /*
    * <------------------------ Constructor ------------------------>
@@ -35,12 +35,15 @@ public class Vaccine implements Serializable, Comparable<Vaccine> {
    * @param id the identifier of the vaccine
    * @param name the name of the vaccine
    * @param species the species to which the vaccine can be safely applied
+   * @param strings the pool of canonical Strings of the hotel
    * 
    * @see Vaccine
+   * @see StringPool
    */
-  Vaccine(String id, String name, List<Species> species) {
+  Vaccine(String id, String name, List<Species> species, StringPool strings) {
     _id = id;
     _name = name;
+    _species = new CaseInsensitiveHashMap<Species>(strings);
 
     species.forEach(currentSpecies -> _species.put(currentSpecies.id(), currentSpecies));
   }
@@ -61,6 +64,15 @@ public class Vaccine implements Serializable, Comparable<Vaccine> {
     return _id;
   }
 
+  /**
+   * Retrieves the name of this vaccine.
+   *
+   * @return the name of this vaccine
+   */
+  String name() {
+    return _name;
+  }
+
   /**
    * Retrieves all the species to which this vaccine can be safely applied to.
    * 
@@ -78,6 +90,18 @@ public class Vaccine implements Serializable, Comparable<Vaccine> {
     return Collections.unmodifiableCollection(_species.values());
   }
 
+  /**
+   * Estimates the heap retained by this vaccine, excluding its Strings and species.
+   *
+   * @return the estimated number of bytes retained by this vaccine
+   *
+   * @see HeapFootprint
+   */
+  long retainedBytes() {
+    return HeapFootprint.object(3 * HeapFootprint.REFERENCE + Integer.BYTES)
+        + HeapFootprint.map(_species);
+  }
+
   /*
    * <------------------------ Others ------------------------>
    */
@@ -89,6 +113,13 @@ public class Vaccine implements Serializable, Comparable<Vaccine> {
     _applyCount++;
   }
 
+  /**
+   * Decreases the count of applications of this vaccine.
+   */
+  void unapply() {
+    _applyCount--;
+  }
+
   /**
    * Returns a String representation of this vaccine.
    * 
@@ -111,7 +142,7 @@ public class Vaccine implements Serializable, Comparable<Vaccine> {
           "|" + String.join(",", _species.values().stream().sorted().map(s -> s.id()).toList());
     }
 
-    return String.format("VACINA|%s|%s|%d%s", _id, _name, _applyCount, species.toString());
+    return "VACINA|" + _id + "|" + _name + "|" + _applyCount + species;
   }
 
   /**
@@ -41,6 +41,15 @@ public class VaccineRegistry implements Serializable {
     return _animal;
   }
 
+  /**
+   * Returns the vet who applied the vaccination registered in this instance.
+   * 
+   * @return the vet of the vaccination
+   */
+  Vet vet() {
+    return _vet;
+  }
+
   /**
    * Returns the damage dealt by the vaccine that is registered in this instance
    * 
@@ -50,6 +59,17 @@ public class VaccineRegistry implements Serializable {
     return _vaccineDamage;
   }
 
+  /**
+   * Estimates the heap retained by this registry, excluding the entities it refers to.
+   *
+   * @return the estimated number of bytes retained by this registry
+   *
+   * @see HeapFootprint
+   */
+  long retainedBytes() {
+    return HeapFootprint.object(5 * HeapFootprint.REFERENCE);
+  }
+
   /*
    * <------------------------ Others ------------------------>
    */
@@ -61,6 +81,6 @@ public class VaccineRegistry implements Serializable {
    */
   @Override
   public String toString() {
-    return String.format("REGISTO-VACINA|%s|%s|%s", _vaccine.id(), _vet.id(), _species.id());
+    return "REGISTO-VACINA|" + _vaccine.id() + "|" + _vet.id() + "|" + _species.id();
   }
 }
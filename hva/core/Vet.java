@@ -2,10 +2,8 @@ package hva.core;
 
 import java.io.Serial;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 
@@ -30,11 +28,11 @@ import hva.core.exception.WorkerNotAuthorizedException;
 public class Vet extends Worker {
 
   @Serial
-  private static final long serialVersionUID = 1L;
+  private static final long serialVersionUID = 2L;
 
   private VetSatisfactionFormula _vetSatisfactionFormula = new VetSatisfactionDefaultFormula();
-  private final Map<String, Species> _responsibilities = new CaseInsensitiveHashMap<Species>();
-  private final List<VaccineRegistry> _vaccineRegistry = new ArrayList<VaccineRegistry>();
+  private final Map<String, Species> _responsibilities;
+  private VaccinationHistory _vaccineRegistry;
 
   /*
    * <------------------------ Constructor ------------------------>
@@ -52,6 +50,7 @@ public class Vet extends Worker {
    */
   Vet(String id, String name, Hotel hotel) {
     super(id, name, hotel);
+    _responsibilities = new CaseInsensitiveHashMap<Species>(hotel.strings());
   }
 
   /*
@@ -64,14 +63,16 @@ public class Vet extends Worker {
    * <p>
    * This method provides a way to access the collection of vaccine registries without allowing
    * modifications to the underlying collection. The returned collection is a read-only view, and
-   * any attempts to modify it will result in an {@code UnsupportedOperationException}.
+   * any attempts to modify it will result in an {@code UnsupportedOperationException}. No list is
+   * allocated by this method.
    * 
    * @return an unmodifiable collecion of the vaccine registries of this vet
    * 
    * @see VaccineRegistry
+   * @see VaccinationHistory
    */
   List<VaccineRegistry> vaccineRegistry() {
-    return Collections.unmodifiableList(_vaccineRegistry);
+    return _vaccineRegistry == null ? Collections.emptyList() : _vaccineRegistry;
   }
 
   /**
@@ -90,6 +91,27 @@ public class Vet extends Worker {
     return Collections.unmodifiableCollection(_responsibilities.values());
   }
 
+  /**
+   * Estimates the heap retained by this vet, excluding its Strings and responsibilities.
+   *
+   * <p>
+   * The satisfaction formula, the map of responsibilities and the vaccination history are
+   * accounted with this vet.
+   *
+   * @return the estimated number of bytes retained by this vet
+   *
+   * @see Worker#retainedBytes()
+   */
+  @Override
+  long retainedBytes() {
+    long bytes = HeapFootprint.object(6 * HeapFootprint.REFERENCE + Integer.BYTES)
+        + HeapFootprint.object(0) + HeapFootprint.map(_responsibilities);
+    if (_vaccineRegistry != null) {
+      bytes += _vaccineRegistry.retainedBytes();
+    }
+    return bytes;
+  }
+
   /*
    * <------------------------ Sets ------------------------>
    */
@@ -110,15 +132,43 @@ public class Vet extends Worker {
    * 
    * @param id the identifier of the species
    * 
+   * @return whether this vet was already added to the species
+   * 
    * @throws SpeciesNotFoundException If the given species does not exist.
    * 
    * @see Worker#addResponsibility(String)
    * @see Species
    */
-  void addResponsibility(String id) throws SpeciesNotFoundException {
+  boolean addResponsibility(String id) throws SpeciesNotFoundException {
     Species species = hotel().speciesExistsWithException(id);
     _responsibilities.put(id, species);
-    species.addVet(this);
+    return species.addVet(this);
+  }
+
+  /**
+   * This method checks whether a species is a responsibility of this vet.
+   * 
+   * @param id the identifier of the species
+   * 
+   * @return whether the species is a responsibility of this vet
+   * 
+   * @see Worker#hasResponsibility(String)
+   */
+  boolean hasResponsibility(String id) {
+    return _responsibilities.containsKey(id);
+  }
+
+  /**
+   * This method removes this vet from a species it is no longer responsible for.
+   * 
+   * @param id the identifier of the species
+   * 
+   * @throws SpeciesNotFoundException If the given species does not exist.
+   * 
+   * @see Worker#detachResponsibility(String)
+   */
+  void detachResponsibility(String id) throws SpeciesNotFoundException {
+    hotel().speciesExistsWithException(id).removeVet(this);
   }
 
   /**
@@ -146,7 +196,10 @@ public class Vet extends Worker {
    * @see VaccineRegistry
    */
   private void addVaccineRegistry(VaccineRegistry vaccineRegistry) {
-    _vaccineRegistry.add(vaccineRegistry);
+    if (_vaccineRegistry == null) {
+      _vaccineRegistry = new VaccinationHistory();
+    }
+    _vaccineRegistry.append(vaccineRegistry);
     vaccineRegistry.animal().addVaccineRegistry(vaccineRegistry);
   }
 
@@ -187,34 +240,73 @@ public class Vet extends Worker {
       throw new WorkerNotAuthorizedException(id(), animal.species().id());
     }
 
-    VaccineDamage vaccineDamage = calculateVaccineDamage(animal, vaccine);
+    return record(animal, vaccine, calculateVaccineDamage(animal, vaccine));
+  }
+
+  /**
+   * Registers a vaccination by this vet whose damage is already known.
+   * 
+   * @param animal The animal that was vaccinated.
+   * @param vaccine The vaccine that was applied.
+   * @param vaccineDamage The damage dealt by the vaccine.
+   * 
+   * @return the vaccine registry
+   * 
+   * @see #vaccinate(Animal, Vaccine)
+   * @see Hotel#replay(List)
+   */
+  VaccineRegistry record(Animal animal, Vaccine vaccine, VaccineDamage vaccineDamage) {
     VaccineRegistry vaccineRegistry = new VaccineRegistry(vaccine, this, animal, vaccineDamage);
     addVaccineRegistry(vaccineRegistry);
     return vaccineRegistry;
   }
 
+  /**
+   * Removes a vaccination registered by this vet, which must be the last registered by this vet and
+   * the last of its animal.
+   * 
+   * @param vaccineRegistry The vaccine registry to be removed.
+   * 
+   * @see Hotel#undo(hva.core.event.HotelEvent)
+   */
+  void unrecord(VaccineRegistry vaccineRegistry) {
+    _vaccineRegistry.removeLastRecord();
+    vaccineRegistry.animal().removeLastVaccineRegistry();
+  }
+
   /**
    * Counts the number of characters in common.
    * 
    * <p>
    * This method counts the number of characters in common between the name of the species and the
-   * name of the species to which the vaccine is safe to be applied.
+   * name of the species to which the vaccine is safe to be applied, each character of a name being
+   * matched at most once. Both names are given as their sorted characters, so they are merged in a
+   * single pass.
    * 
-   * @param animalSpeciesName A hashmap of the name of a species to which it is safe to apply the
-   *        vaccine
-   * @param speciesName An array of the name of the animal to which the vaccine was applied.
+   * @param animalSpeciesName the sorted characters of the name of the species of the animal
+   * @param speciesName the sorted characters of the name of a species of the vaccine
    * 
    * @return the count of characters in common
    * 
+   * @see Species#nameChars()
    * @see #vaccinate(Animal, Vaccine)
    */
-  private int countSameChars(Map<Character, Integer> animalSpeciesName, char[] speciesName) {
+  private int countSameChars(char[] animalSpeciesName, char[] speciesName) {
     int count = 0;
+    int animalIndex = 0;
+    int speciesIndex = 0;
 
-    for (char speciesChar : speciesName) {
-      if (animalSpeciesName.containsKey(speciesChar) && animalSpeciesName.get(speciesChar) > 0) {
+    while (animalIndex < animalSpeciesName.length && speciesIndex < speciesName.length) {
+      char animalChar = animalSpeciesName[animalIndex];
+      char speciesChar = speciesName[speciesIndex];
+      if (animalChar == speciesChar) {
         count++;
-        animalSpeciesName.put(speciesChar, animalSpeciesName.get(speciesChar) - 1);
+        animalIndex++;
+        speciesIndex++;
+      } else if (animalChar < speciesChar) {
+        animalIndex++;
+      } else {
+        speciesIndex++;
       }
     }
 
@@ -242,21 +334,14 @@ public class Vet extends Worker {
     }
 
     int damage = 0;
-    char[] animalSpeciesName = animal.species().name().toCharArray();
-    Map<Character, Integer> animalSpeciesNameCharCount = new HashMap<Character, Integer>();
-
-    // Count the number of each character in the animal species name
-    for (char speciesChar : animalSpeciesName) {
-      animalSpeciesNameCharCount.put(Character.toLowerCase(speciesChar),
-          animalSpeciesNameCharCount.getOrDefault(Character.toLowerCase(speciesChar), 0) + 1);
-    }
+    int animalSpeciesNameLength = animal.species().name().length();
+    char[] animalSpeciesName = animal.species().nameChars();
 
     // Calculate the max damage
     for (Species species : vaccine.species()) {
-      char[] vaccineSpeciesName = species.name().toLowerCase().toCharArray();
-      Map<Character, Integer> clonedCharCount = new HashMap<>(animalSpeciesNameCharCount);
-      int tempDamage = Math.max(vaccineSpeciesName.length, animalSpeciesName.length)
-          - countSameChars(clonedCharCount, vaccineSpeciesName);
+      char[] vaccineSpeciesName = species.nameChars();
+      int tempDamage = Math.max(vaccineSpeciesName.length, animalSpeciesNameLength)
+          - countSameChars(animalSpeciesName, vaccineSpeciesName);
       damage = Math.max(tempDamage, damage);
     }
 
@@ -297,6 +382,6 @@ public class Vet extends Worker {
           _responsibilities.values().stream().sorted().map(s -> s.id()).toList());
     }
 
-    return String.format("VET|%s|%s%s", id(), name(), responsibilities.toString());
+    return "VET|" + id() + "|" + name() + responsibilities;
   }
 }
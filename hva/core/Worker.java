@@ -23,11 +23,12 @@ import hva.core.exception.SpeciesNotFoundException;
 abstract public class Worker implements Serializable, Comparable<Worker> {
 
   @Serial
-  private static final long serialVersionUID = 1L;
+  private static final long serialVersionUID = 2L;
 
   private final String _id;
   private final String _name;
   private final Hotel _hotel;
+  private final int _handle;
 
   /*
    * <------------------------ Constructor ------------------------>
@@ -48,6 +49,7 @@ abstract public class Worker implements Serializable, Comparable<Worker> {
     _id = id;
     _name = name;
     _hotel = hotel;
+    _handle = hotel.store().addWorker(this);
   }
 
   /*
@@ -87,6 +89,30 @@ abstract public class Worker implements Serializable, Comparable<Worker> {
     return _hotel;
   }
 
+  /**
+   * Retrieves the handle of this worker.
+   * 
+   * <p>
+   * The handle is the dense index of this worker in the {@link EntityStore} of its hotel.
+   *
+   * @return the handle of this worker
+   */
+  int handle() {
+    return _handle;
+  }
+
+  /**
+   * Estimates the heap retained by this worker, excluding its Strings and responsibilities.
+   *
+   * <p>
+   * This abstract method depends on the type of worker, since each type keeps its own fields.
+   *
+   * @return the estimated number of bytes retained by this worker
+   *
+   * @see HeapFootprint
+   */
+  abstract long retainedBytes();
+
   /*
    * <------------------------ Sets ------------------------>
    */
@@ -94,8 +120,14 @@ abstract public class Worker implements Serializable, Comparable<Worker> {
   /**
    * This abstract method adds a responsibility to this worker, depends on the type of worker.
    * 
+   * <p>
+   * Removing a responsibility keeps the worker in the habitat or species, so adding it again does
+   * not add the worker to it again.
+   * 
    * @param id the identifier of the responsibility
    * 
+   * @return whether the worker was already in the habitat or species of the responsibility
+   * 
    * @throws SpeciesNotFoundException If the given species does not exist.
    * @throws HabitatNotFoundException If the given habitat does not exist.
    * 
@@ -104,7 +136,30 @@ abstract public class Worker implements Serializable, Comparable<Worker> {
    * @see Species
    * @see Habitat
    */
-  abstract void addResponsibility(String id)
+  abstract boolean addResponsibility(String id)
+      throws SpeciesNotFoundException, HabitatNotFoundException;
+
+  /**
+   * This abstract method checks whether this worker has a responsibility.
+   * 
+   * @param id the identifier of the responsibility
+   * 
+   * @return whether the worker has the responsibility
+   */
+  abstract boolean hasResponsibility(String id);
+
+  /**
+   * This abstract method removes this worker from the habitat or species of a responsibility it
+   * no longer has, undoing the first time it was added.
+   * 
+   * @param id the identifier of the responsibility
+   * 
+   * @throws SpeciesNotFoundException If the given species does not exist.
+   * @throws HabitatNotFoundException If the given habitat does not exist.
+   * 
+   * @see Hotel#undo(hva.core.event.HotelEvent)
+   */
+  abstract void detachResponsibility(String id)
       throws SpeciesNotFoundException, HabitatNotFoundException;
 
   /**
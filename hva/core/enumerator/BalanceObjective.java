@@ -0,0 +1,13 @@
+package hva.core.enumerator;
+
+/**
+ * Enumeration of the measures of how evenly the work of a hotel is shared by its caretakers.
+ *
+ * <p>
+ * The objective can be MINIMUM, the lowest satisfaction of a caretaker, which a rebalance raises,
+ * or DEVIATION, the standard deviation of the satisfactions of the caretakers, which a rebalance
+ * lowers.
+ */
+public enum BalanceObjective {
+  MINIMUM, DEVIATION;
+}
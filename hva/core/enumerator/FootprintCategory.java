@@ -0,0 +1,29 @@
+package hva.core.enumerator;
+
+/**
+ * Enumeration of the categories of the heap footprint of a hotel and their values.
+ *
+ * <p>
+ * The category can be ANIMALS, SPECIES, HABITATS, TREES, WORKERS, VACCINES, VACCINE_REGISTRIES,
+ * INDEXES or STRINGS.
+ */
+public enum FootprintCategory {
+  ANIMALS("ANIMAIS"), SPECIES("ESPÉCIES"), HABITATS("HABITATS"), TREES("ÁRVORES"),
+  WORKERS("FUNCIONÁRIOS"), VACCINES("VACINAS"), VACCINE_REGISTRIES("REGISTOS-VACINA"),
+  INDEXES("ÍNDICES"), STRINGS("STRINGS");
+
+  private final String _value;
+
+  FootprintCategory(String value) {
+    _value = value;
+  }
+
+  public String value() {
+    return _value;
+  }
+
+  @Override
+  public String toString() {
+    return value();
+  }
+}
@@ -0,0 +1,846 @@
+package hva.core.event;
+
+import hva.core.enumerator.Influence;
+import hva.core.enumerator.SeasonType;
+import hva.core.enumerator.VaccineDamage;
+import hva.core.exception.UnrecognizedEntryException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class representing a change made to a hotel.
+ *
+ * <p>
+ * Events are immutable and refer to the entities they change by identifier, so that followers of
+ * a hotel can apply them to their own copy without sharing any object with it. Events which
+ * overwrite a value also carry the value they overwrote.
+ *
+ * <p>
+ * The kinds of event are closed, so followers may switch over them exhaustively.
+ *
+ * <p>
+ * The line of an event separates its fields with {@code |}. Text fields are written with every
+ * {@code \}, {@code |} and line break escaped by a {@code \}, so names typed freely read back
+ * as they were written.
+ *
+ * @see HotelEventStream
+ */
+public abstract sealed class HotelEvent {
+
+  private static final String UNDONE = "DESFEITO|";
+
+  /*
+   * <------------------------ Constructor ------------------------>
+   */
+
+  private HotelEvent() {}
+
+  /*
+   * <------------------------ Others ------------------------>
+   */
+
+  /**
+   * Parses an event from the line given by its {@link #toString()}.
+   *
+   * @param line the line of the event
+   *
+   * @return the event
+   *
+   * @throws UnrecognizedEntryException if the line is not the line of an event, or has more or
+   *         fewer fields than its kind of event
+   */
+  public static HotelEvent parse(String line) throws UnrecognizedEntryException {
+    if (line.startsWith(UNDONE)) {
+      return new Undone(parse(line.substring(UNDONE.length())));
+    }
+    String[] fields = split(line);
+    int arity = arity(fields[0]);
+    if (arity < 0) {
+      throw new UnrecognizedEntryException("tipo de evento inválido: " + fields[0]);
+    }
+    if (fields.length != arity) {
+      throw new UnrecognizedEntryException("Invalid event: " + line);
+    }
+    try {
+      return switch (fields[0]) {
+        case "ESPÉCIE-ADICIONADA" -> new SpeciesAdded(fields[1], fields[2]);
+        case "FUNCIONÁRIO-ADICIONADO" -> new WorkerAdded(fields[1], fields[2], fields[3]);
+        case "HABITAT-ADICIONADO" ->
+            new HabitatAdded(fields[1], fields[2], Integer.parseInt(fields[3]));
+        case "ÁRVORE-ADICIONADA" -> new TreeAdded(fields[1], fields[2],
+            Integer.parseInt(fields[3]), Integer.parseInt(fields[4]), fields[5]);
+        case "ÁRVORE-PLANTADA" -> new TreePlanted(fields[1], fields[2]);
+        case "VACINA-ADICIONADA" -> new VaccineAdded(fields[1], fields[2], fields[3]);
+        case "ANIMAL-ADICIONADO" -> new AnimalAdded(fields[1], fields[2], fields[3], fields[4]);
+        case "ANIMAL-TRANSFERIDO" -> new AnimalTransferred(fields[1], fields[2], fields[3]);
+        case "ÁREA-HABITAT" -> new HabitatAreaChanged(fields[1], Integer.parseInt(fields[2]),
+            Integer.parseInt(fields[3]));
+        case "INFLUÊNCIA-HABITAT" -> new HabitatInfluenceChanged(fields[1], fields[2],
+            Influence.valueOf(fields[3]), Influence.valueOf(fields[4]));
+        case "RESPONSABILIDADE-ADICIONADA" ->
+            new ResponsibilityAdded(fields[1], fields[2], bool(fields[3]));
+        case "RESPONSABILIDADE-REMOVIDA" -> new ResponsibilityRemoved(fields[1], fields[2]);
+        case "VACINAÇÃO" -> new VaccinationRecorded(Integer.parseInt(fields[1]), fields[2],
+            fields[3], fields[4], damage(fields[5]));
+        case "ESTAÇÃO" ->
+            new SeasonAdvanced(SeasonType.valueOf(fields[1]), SeasonType.valueOf(fields[2]));
+        default -> throw new UnrecognizedEntryException("tipo de evento inválido: " + fields[0]);
+      };
+    } catch (IllegalArgumentException e) {
+      throw new UnrecognizedEntryException("Invalid event: " + line);
+    }
+  }
+
+  // Number of fields of the line of each kind of event, with its kind, or -1 if there is no kind
+  private static int arity(String kind) {
+    return switch (kind) {
+      case "ÁRVORE-PLANTADA", "RESPONSABILIDADE-REMOVIDA", "ESTAÇÃO", "ESPÉCIE-ADICIONADA" -> 3;
+      case "FUNCIONÁRIO-ADICIONADO", "HABITAT-ADICIONADO", "VACINA-ADICIONADA",
+          "ANIMAL-TRANSFERIDO", "ÁREA-HABITAT", "RESPONSABILIDADE-ADICIONADA" -> 4;
+      case "ANIMAL-ADICIONADO", "INFLUÊNCIA-HABITAT" -> 5;
+      case "ÁRVORE-ADICIONADA", "VACINAÇÃO" -> 6;
+      default -> -1;
+    };
+  }
+
+  // Splits a line at the separators which are not escaped, undoing the escapes of each field
+  private static String[] split(String line) {
+    List<String> fields = new ArrayList<String>();
+    StringBuilder field = new StringBuilder();
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (c == '\\' && i + 1 < line.length()) {
+        char escaped = line.charAt(++i);
+        field.append(escaped == 'n' ? '\n' : escaped == 'r' ? '\r' : escaped);
+      } else if (c == '|') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else {
+        field.append(c);
+      }
+    }
+    fields.add(field.toString());
+    return fields.toArray(new String[0]);
+  }
+
+  // Escapes every backslash, separator and line break of a text field of the line of an event
+  private static String escape(String text) {
+    int i = 0;
+    while (i < text.length() && "\\|\n\r".indexOf(text.charAt(i)) < 0) {
+      i++;
+    }
+    if (i == text.length()) {
+      return text;
+    }
+    StringBuilder escaped = new StringBuilder(text.length() + 8).append(text, 0, i);
+    for (; i < text.length(); i++) {
+      char c = text.charAt(i);
+      switch (c) {
+        case '\\', '|' -> escaped.append('\\').append(c);
+        case '\n' -> escaped.append("\\n");
+        case '\r' -> escaped.append("\\r");
+        default -> escaped.append(c);
+      }
+    }
+    return escaped.toString();
+  }
+
+  // Reads a flag written by its value, refusing anything but true and false
+  private static boolean bool(String value) {
+    if (!value.equals("true") && !value.equals("false")) {
+      throw new IllegalArgumentException(value);
+    }
+    return Boolean.parseBoolean(value);
+  }
+
+  // Finds the damage written by its value, such as CONFUSÃO
+  private static VaccineDamage damage(String value) {
+    for (VaccineDamage damage : VaccineDamage.values()) {
+      if (damage.value().equals(value)) {
+        return damage;
+      }
+    }
+    throw new IllegalArgumentException(value);
+  }
+
+  /**
+   * Event of a species added to the hotel.
+   */
+  public static final class SpeciesAdded extends HotelEvent {
+    private final String _species;
+    private final String _name;
+
+    /**
+     * Constructor which creates the event of an added species.
+     *
+     * @param species the identifier of the species
+     * @param name the name of the species
+     */
+    public SpeciesAdded(String species, String name) {
+      _species = species;
+      _name = name;
+    }
+
+    public String species() {
+      return _species;
+    }
+
+    public String name() {
+      return _name;
+    }
+
+    /**
+     * Returns the event in the format: ESPÉCIE-ADICIONADA|idEspécie|nome
+     *
+     * @return the event in format
+     */
+    @Override
+    public String toString() {
+      return "ESPÉCIE-ADICIONADA|" + escape(_species) + "|" + escape(_name);
+    }
+  }
+
+  /**
+   * Event of a worker added to the hotel.
+   */
+  public static final class WorkerAdded extends HotelEvent {
+    private final String _worker;
+    private final String _name;
+    private final String _type;
+
+    /**
+     * Constructor which creates the event of an added worker.
+     *
+     * @param worker the identifier of the worker
+     * @param name the name of the worker
+     * @param type the type of the worker, VET or TRT
+     */
+    public WorkerAdded(String worker, String name, String type) {
+      _worker = worker;
+      _name = name;
+      _type = type;
+    }
+
+    public String worker() {
+      return _worker;
+    }
+
+    public String name() {
+      return _name;
+    }
+
+    public String type() {
+      return _type;
+    }
+
+    /**
+     * Returns the event in the format: FUNCIONÁRIO-ADICIONADO|idFuncionário|nome|tipo
+     *
+     * @return the event in format
+     */
+    @Override
+    public String toString() {
+      return "FUNCIONÁRIO-ADICIONADO|" + escape(_worker) + "|" + escape(_name) + "|"
+          + escape(_type);
+    }
+  }
+
+  /**
+   * Event of a habitat added to the hotel.
+   */
+  public static final class HabitatAdded extends HotelEvent {
+    private final String _habitat;
+    private final String _name;
+    private final int _area;
+
+    /**
+     * Constructor which creates the event of an added habitat.
+     *
+     * @param habitat the identifier of the habitat
+     * @param name the name of the habitat
+     * @param area the area of the habitat
+     */
+    public HabitatAdded(String habitat, String name, int area) {
+      _habitat = habitat;
+      _name = name;
+      _area = area;
+    }
+
+    public String habitat() {
+      return _habitat;
+    }
+
+    public String name() {
+      return _name;
+    }
+
+    public int area() {
+      return _area;
+    }
+
+    /**
+     * Returns the event in the format: HABITAT-ADICIONADO|idHabitat|nome|área
+     *
+     * @return the event in format
+     */
+    @Override
+    public String toString() {
+      return "HABITAT-ADICIONADO|" + escape(_habitat) + "|" + escape(_name) + "|" + _area;
+    }
+  }
+
+  /**
+   * Event of a tree added to the hotel, which is not yet in any habitat.
+   *
+   * @see TreePlanted
+   */
+  public static final class TreeAdded extends HotelEvent {
+    private final String _tree;
+    private final String _name;
+    private final int _age;
+    private final int _cleaningDifficulty;
+    private final String _type;
+
+    /**
+     * Constructor which creates the event of an added tree.
+     *
+     * @param tree the identifier of the tree
+     * @param name the name of the tree
+     * @param age the age of the tree
+     * @param cleaningDifficulty the base cleaning difficulty of the tree
+     * @param type the type of the tree, PERENE or CADUCA
+     */
+    public TreeAdded(String tree, String name, int age, int cleaningDifficulty, String type) {
+      _tree = tree;
+      _name = name;
+      _age = age;
+      _cleaningDifficulty = cleaningDifficulty;
+      _type = type;
+    }
+
+    public String tree() {
+      return _tree;
+    }
+
+    public String name() {
+      return _name;
+    }
+
+    public int age() {
+      return _age;
+    }
+
+    public int cleaningDifficulty() {
+      return _cleaningDifficulty;
+    }
+
+    public String type() {
+      return _type;
+    }
+
+    /**
+     * Returns the event in the format: ÁRVORE-ADICIONADA|idÁrvore|nome|idade|dificuldade|tipo
+     *
+     * @return the event in format
+     */
+    @Override
+    public String toString() {
+      return "ÁRVORE-ADICIONADA|" + escape(_tree) + "|" + escape(_name) + "|" + _age + "|"
+          + _cleaningDifficulty + "|" + escape(_type);
+    }
+  }
+
+  /**
+   * Event of a tree of the hotel placed in a habitat.
+   */
+  public static final class TreePlanted extends HotelEvent {
+    private final String _habitat;
+    private final String _tree;
+
+    /**
+     * Constructor which creates the event of a planted tree.
+     *
+     * @param habitat the identifier of the habitat
+     * @param tree the identifier of the tree
+     */
+    public TreePlanted(String habitat, String tree) {
+      _habitat = habitat;
+      _tree = tree;
+    }
+
+    public String habitat() {
+      return _habitat;
+    }
+
+    public String tree() {
+      return _tree;
+    }
+
+    /**
+     * Returns the event in the format: ÁRVORE-PLANTADA|idHabitat|idÁrvore
+     *
+     * @return the event in format
+     */
+    @Override
+    public String toString() {
+      return "ÁRVORE-PLANTADA|" + escape(_habitat) + "|" + escape(_tree);
+    }
+  }
+
+  /**
+   * Event of a vaccine added to the hotel.
+   */
+  public static final class VaccineAdded extends HotelEvent {
+    private final String _vaccine;
+    private final String _name;
+    private final String _species;
+
+    /**
+     * Constructor which creates the event of an added vaccine.
+     *
+     * @param vaccine the identifier of the vaccine
+     * @param name the name of the vaccine
+     * @param species the identifiers of the species of the vaccine, separated by commas
+     */
+    public VaccineAdded(String vaccine, String name, String species) {
+      _vaccine = vaccine;
+      _name = name;
+      _species = species;
+    }
+
+    public String vaccine() {
+      return _vaccine;
+    }
+
+    public String name() {
+      return _name;
+    }
+
+    public String species() {
+      return _species;
+    }
+
+    /**
+     * Returns the event in the format: VACINA-ADICIONADA|idVacina|nome|idEspécie1,...,idEspécieN
+     *
+     * @return the event in format
+     */
+    @Override
+    public String toString() {
+      return "VACINA-ADICIONADA|" + escape(_vaccine) + "|" + escape(_name) + "|"
+          + escape(_species);
+    }
+  }
+
+  /**
+   * Event of an animal added to a habitat of the hotel.
+   */
+  public static final class AnimalAdded extends HotelEvent {
+    private final String _animal;
+    private final String _name;
+    private final String _species;
+    private final String _habitat;
+
+    /**
+     * Constructor which creates the event of an added animal.
+     *
+     * @param animal the identifier of the animal
+     * @param name the name of the animal
+     * @param species the identifier of the species of the animal
+     * @param habitat the identifier of the habitat of the animal
+     */
+    public AnimalAdded(String animal, String name, String species, String habitat) {
+      _animal = animal;
+      _name = name;
+      _species = species;
+      _habitat = habitat;
+    }
+
+    public String animal() {
+      return _animal;
+    }
+
+    public String name() {
+      return _name;
+    }
+
+    public String species() {
+      return _species;
+    }
+
+    public String habitat() {
+      return _habitat;
+    }
+
+    /**
+     * Returns the event in the format: ANIMAL-ADICIONADO|idAnimal|nome|idEspécie|idHabitat
+     *
+     * @return the event in format
+     */
+    @Override
+    public String toString() {
+      return "ANIMAL-ADICIONADO|" + escape(_animal) + "|" + escape(_name) + "|"
+          + escape(_species) + "|" + escape(_habitat);
+    }
+  }
+
+  /**
+   * Event of an animal transferred from one habitat to another.
+   */
+  public static final class AnimalTransferred extends HotelEvent {
+    private final String _animal;
+    private final String _previousHabitat;
+    private final String _habitat;
+
+    /**
+     * Constructor which creates the event of a transferred animal.
+     *
+     * @param animal the identifier of the animal
+     * @param previousHabitat the identifier of the habitat the animal left
+     * @param habitat the identifier of the habitat the animal was transferred to
+     */
+    public AnimalTransferred(String animal, String previousHabitat, String habitat) {
+      _animal = animal;
+      _previousHabitat = previousHabitat;
+      _habitat = habitat;
+    }
+
+    public String animal() {
+      return _animal;
+    }
+
+    public String previousHabitat() {
+      return _previousHabitat;
+    }
+
+    public String habitat() {
+      return _habitat;
+    }
+
+    /**
+     * Returns the event in the format: ANIMAL-TRANSFERIDO|idAnimal|idHabitatAnterior|idHabitat
+     *
+     * @return the event in format
+     */
+    @Override
+    public String toString() {
+      return "ANIMAL-TRANSFERIDO|" + escape(_animal) + "|" + escape(_previousHabitat) + "|"
+          + escape(_habitat);
+    }
+  }
+
+  /**
+   * Event of a change of the area of a habitat.
+   */
+  public static final class HabitatAreaChanged extends HotelEvent {
+    private final String _habitat;
+    private final int _previousArea;
+    private final int _area;
+
+    /**
+     * Constructor which creates the event of a changed area.
+     *
+     * @param habitat the identifier of the habitat
+     * @param previousArea the area before the change
+     * @param area the area after the change
+     */
+    public HabitatAreaChanged(String habitat, int previousArea, int area) {
+      _habitat = habitat;
+      _previousArea = previousArea;
+      _area = area;
+    }
+
+    public String habitat() {
+      return _habitat;
+    }
+
+    public int previousArea() {
+      return _previousArea;
+    }
+
+    public int area() {
+      return _area;
+    }
+
+    /**
+     * Returns the event in the format: ÁREA-HABITAT|idHabitat|áreaAnterior|área
+     *
+     * @return the event in format
+     */
+    @Override
+    public String toString() {
+      return "ÁREA-HABITAT|" + escape(_habitat) + "|" + _previousArea + "|" + _area;
+    }
+  }
+
+  /**
+   * Event of a change of the influence of a habitat on a species.
+   */
+  public static final class HabitatInfluenceChanged extends HotelEvent {
+    private final String _habitat;
+    private final String _species;
+    private final Influence _previousInfluence;
+    private final Influence _influence;
+
+    /**
+     * Constructor which creates the event of a changed influence.
+     *
+     * @param habitat the identifier of the habitat
+     * @param species the identifier of the species
+     * @param previousInfluence the influence before the change
+     * @param influence the influence after the change
+     */
+    public HabitatInfluenceChanged(String habitat, String species, Influence previousInfluence,
+        Influence influence) {
+      _habitat = habitat;
+      _species = species;
+      _previousInfluence = previousInfluence;
+      _influence = influence;
+    }
+
+    public String habitat() {
+      return _habitat;
+    }
+
+    public String species() {
+      return _species;
+    }
+
+    public Influence previousInfluence() {
+      return _previousInfluence;
+    }
+
+    public Influence influence() {
+      return _influence;
+    }
+
+    /**
+     * Returns the event in the format:
+     * INFLUÊNCIA-HABITAT|idHabitat|idEspécie|influênciaAnterior|influência
+     *
+     * @return the event in format
+     */
+    @Override
+    public String toString() {
+      return "INFLUÊNCIA-HABITAT|" + escape(_habitat) + "|" + escape(_species) + "|"
+          + _previousInfluence.name()
+          + "|" + _influence.name();
+    }
+  }
+
+  /**
+   * Event of a responsibility added to a worker which did not have it.
+   */
+  public static final class ResponsibilityAdded extends HotelEvent {
+    private final String _worker;
+    private final String _responsibility;
+    private final boolean _attached;
+
+    /**
+     * Constructor which creates the event of an added responsibility.
+     *
+     * @param worker the identifier of the worker
+     * @param responsibility the identifier of the habitat or species
+     * @param attached whether the worker was already in the habitat or species, having had the
+     *        responsibility before
+     */
+    public ResponsibilityAdded(String worker, String responsibility, boolean attached) {
+      _worker = worker;
+      _responsibility = responsibility;
+      _attached = attached;
+    }
+
+    public String worker() {
+      return _worker;
+    }
+
+    public String responsibility() {
+      return _responsibility;
+    }
+
+    public boolean attached() {
+      return _attached;
+    }
+
+    /**
+     * Returns the event in the format:
+     * RESPONSABILIDADE-ADICIONADA|idFuncionário|idResponsabilidade|jáAssociado
+     *
+     * @return the event in format
+     */
+    @Override
+    public String toString() {
+      return "RESPONSABILIDADE-ADICIONADA|" + escape(_worker) + "|" + escape(_responsibility)
+          + "|" + _attached;
+    }
+  }
+
+  /**
+   * Event of a responsibility removed from a worker.
+   */
+  public static final class ResponsibilityRemoved extends HotelEvent {
+    private final String _worker;
+    private final String _responsibility;
+
+    /**
+     * Constructor which creates the event of a removed responsibility.
+     *
+     * @param worker the identifier of the worker
+     * @param responsibility the identifier of the habitat or species
+     */
+    public ResponsibilityRemoved(String worker, String responsibility) {
+      _worker = worker;
+      _responsibility = responsibility;
+    }
+
+    public String worker() {
+      return _worker;
+    }
+
+    public String responsibility() {
+      return _responsibility;
+    }
+
+    /**
+     * Returns the event in the format:
+     * RESPONSABILIDADE-REMOVIDA|idFuncionário|idResponsabilidade
+     *
+     * @return the event in format
+     */
+    @Override
+    public String toString() {
+      return "RESPONSABILIDADE-REMOVIDA|" + escape(_worker) + "|" + escape(_responsibility);
+    }
+  }
+
+  /**
+   * Event of a vaccination registered by the hotel.
+   */
+  public static final class VaccinationRecorded extends HotelEvent {
+    private final int _index;
+    private final String _animal;
+    private final String _vaccine;
+    private final String _vet;
+    private final VaccineDamage _damage;
+
+    /**
+     * Constructor which creates the event of a registered vaccination.
+     *
+     * @param index the position of the vaccination in the registry of the hotel
+     * @param animal the identifier of the vaccinated animal
+     * @param vaccine the identifier of the vaccine
+     * @param vet the identifier of the vet
+     * @param damage the damage dealt to the animal
+     */
+    public VaccinationRecorded(int index, String animal, String vaccine, String vet,
+        VaccineDamage damage) {
+      _index = index;
+      _animal = animal;
+      _vaccine = vaccine;
+      _vet = vet;
+      _damage = damage;
+    }
+
+    public int index() {
+      return _index;
+    }
+
+    public String animal() {
+      return _animal;
+    }
+
+    public String vaccine() {
+      return _vaccine;
+    }
+
+    public String vet() {
+      return _vet;
+    }
+
+    public VaccineDamage damage() {
+      return _damage;
+    }
+
+    /**
+     * Returns the event in the format: VACINAÇÃO|índice|idAnimal|idVacina|idVeterinário|dano
+     *
+     * @return the event in format
+     */
+    @Override
+    public String toString() {
+      return "VACINAÇÃO|" + _index + "|" + escape(_animal) + "|" + escape(_vaccine) + "|"
+          + escape(_vet) + "|" + _damage;
+    }
+  }
+
+  /**
+   * Event of the progression of the season of the hotel.
+   */
+  public static final class SeasonAdvanced extends HotelEvent {
+    private final SeasonType _previousSeason;
+    private final SeasonType _season;
+
+    /**
+     * Constructor which creates the event of a new season.
+     *
+     * @param previousSeason the season which ended
+     * @param season the season which began
+     */
+    public SeasonAdvanced(SeasonType previousSeason, SeasonType season) {
+      _previousSeason = previousSeason;
+      _season = season;
+    }
+
+    public SeasonType previousSeason() {
+      return _previousSeason;
+    }
+
+    public SeasonType season() {
+      return _season;
+    }
+
+    /**
+     * Returns the event in the format: ESTAÇÃO|estaçãoAnterior|estação
+     *
+     * @return the event in format
+     */
+    @Override
+    public String toString() {
+      return "ESTAÇÃO|" + _previousSeason.name() + "|" + _season.name();
+    }
+  }
+
+  /**
+   * Event of a change undone, which was the last change made to the hotel that was not undone.
+   */
+  public static final class Undone extends HotelEvent {
+    private final HotelEvent _event;
+
+    /**
+     * Constructor which creates the event of an undone change.
+     *
+     * @param event the event of the change, which is not itself an undone change
+     */
+    public Undone(HotelEvent event) {
+      if (event instanceof Undone) {
+        throw new IllegalArgumentException("Undone changes are redone by their own event");
+      }
+      _event = event;
+    }
+
+    public HotelEvent event() {
+      return _event;
+    }
+
+    /**
+     * Returns the event in the format: DESFEITO|evento
+     *
+     * @return the event in format
+     */
+    @Override
+    public String toString() {
+      return UNDONE + _event;
+    }
+  }
+}
@@ -0,0 +1,212 @@
+package hva.core.event;
+
+import hva.core.exception.UnrecognizedEntryException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class representing the append-only log of the changes made to a hotel.
+ *
+ * <p>
+ * Each event is written as its line, as given by {@link HotelEvent#toString()}, and its sequence is
+ * the number of the line, starting at 0. Publishing writes the line through to the file before
+ * returning, so the log holds every change the hotel acknowledged. A line left incomplete by a
+ * crash is discarded when the log is opened again.
+ *
+ * @see HotelEvent#parse(String)
+ * @see hva.core.HotelJournal
+ */
+public class HotelEventLog implements HotelEventSink, AutoCloseable {
+
+  private static final int BUFFER = 1 << 16;
+
+  private final Path _file;
+  private final Writer _writer;
+  private long _position;
+
+  /*
+   * <------------------------ Constructor ------------------------>
+   */
+
+  /**
+   * Constructor which opens a log for appending, creating it if it does not exist.
+   *
+   * @param file the file of the log
+   *
+   * @throws IOException if the file cannot be read or written
+   */
+  public HotelEventLog(Path file) throws IOException {
+    _file = file;
+    _position = completeLines(file);
+    _writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+        StandardOpenOption.APPEND);
+  }
+
+  /*
+   * <------------------------ Gets ------------------------>
+   */
+
+  /**
+   * Returns the sequence the next published event will have.
+   *
+   * @return the number of events in this log
+   */
+  public synchronized long position() {
+    return _position;
+  }
+
+  /*
+   * <------------------------ Others ------------------------>
+   */
+
+  /**
+   * Appends an event to this log.
+   *
+   * @param event the event
+   *
+   * @return the sequence of the event
+   *
+   * @throws UncheckedIOException if the event cannot be written, since the change it describes was
+   *         already made
+   */
+  @Override
+  public synchronized long publish(HotelEvent event) {
+    try {
+      _writer.write(event.toString());
+      _writer.write('\n');
+      _writer.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return _position++;
+  }
+
+  /**
+   * Opens a cursor over the events of this log, from a position.
+   *
+   * @param position the sequence of the first event to read
+   *
+   * @return the cursor, positioned at the event
+   *
+   * @throws IOException if the log cannot be read
+   */
+  public Cursor read(long position) throws IOException {
+    InputStream in = new BufferedInputStream(Files.newInputStream(_file), BUFFER);
+    try {
+      for (long line = 0; line < position;) {
+        int b = in.read();
+        if (b < 0) {
+          break;
+        }
+        if (b == '\n') {
+          line++;
+        }
+      }
+    } catch (IOException e) {
+      in.close();
+      throw e;
+    }
+    return new Cursor(in, position);
+  }
+
+  /**
+   * Closes this log.
+   *
+   * @throws IOException if the pending lines cannot be written
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    _writer.close();
+  }
+
+  // Counts the complete lines of the file, cutting off an incomplete last line
+  private static long completeLines(Path file) throws IOException {
+    if (!Files.exists(file)) {
+      return 0;
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      ByteBuffer buffer = ByteBuffer.allocate(BUFFER);
+      long lines = 0;
+      long complete = 0;
+      long offset = 0;
+      while (channel.read(buffer) > 0) {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+          offset++;
+          if (buffer.get() == '\n') {
+            lines++;
+            complete = offset;
+          }
+        }
+        buffer.clear();
+      }
+      if (complete < channel.size()) {
+        channel.truncate(complete);
+      }
+      return lines;
+    }
+  }
+
+  /**
+   * Class representing a sequential reader of the events of a log.
+   */
+  public static final class Cursor implements AutoCloseable {
+    private final BufferedReader _reader;
+    private long _position;
+
+    private Cursor(InputStream in, long position) {
+      _reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER);
+      _position = position;
+    }
+
+    /**
+     * Returns the sequence of the next event this cursor reads.
+     *
+     * @return the position of this cursor
+     */
+    public long position() {
+      return _position;
+    }
+
+    /**
+     * Reads the next events of the log.
+     *
+     * @param max the maximum number of events to read
+     *
+     * @return the events read, which are fewer than the maximum only at the end of the log
+     *
+     * @throws IOException if the log cannot be read
+     * @throws UnrecognizedEntryException if a line is not the line of an event
+     */
+    public List<HotelEvent> next(int max) throws IOException, UnrecognizedEntryException {
+      List<HotelEvent> events = new ArrayList<HotelEvent>(max);
+      String line;
+      while (events.size() < max && (line = _reader.readLine()) != null) {
+        events.add(HotelEvent.parse(line));
+        _position++;
+      }
+      return events;
+    }
+
+    @Override
+    public void close() throws IOException {
+      _reader.close();
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package hva.core.event;
+
+import java.util.List;
+
+/**
+ * Interface representing a destination of the changes made to a hotel.
+ *
+ * <p>
+ * A hotel publishes one event at a time, even when it is shared by several threads through
+ * {@link hva.core.ConcurrentHotel} or {@link hva.core.HotelCommandLoop}, so sinks need not be
+ * thread-safe towards the hotel. A sink which is also read by other threads must guard what it
+ * shares with them.
+ *
+ * @see hva.core.Hotel#setEventSink(HotelEventSink)
+ */
+public interface HotelEventSink {
+
+  /**
+   * Publishes an event to this sink, once the change it describes was made.
+   *
+   * @param event the event
+   *
+   * @return the sequence of the event in this sink
+   */
+  long publish(HotelEvent event);
+
+  /**
+   * Publishes the events of a change made of several, in order, such as the changes of a fork
+   * which was committed.
+   *
+   * <p>
+   * By default, each event is published on its own.
+   *
+   * @param events the events
+   *
+   * @see hva.core.HotelFork#commit()
+   */
+  default void publishAll(List<HotelEvent> events) {
+    for (HotelEvent event : events) {
+      publish(event);
+    }
+  }
+}
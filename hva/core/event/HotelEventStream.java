@@ -0,0 +1,303 @@
+package hva.core.event;
+
+import hva.core.exception.SequenceUnavailableException;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Class representing the ordered stream of the changes made to a hotel.
+ *
+ * <p>
+ * Every published event is numbered by a sequence, starting at 0, and kept in a bounded ring of
+ * slots until it is overwritten by the event numbered {@code capacity} after it. Subscribers read
+ * the events in order from a position of their choice, and may close their subscription and
+ * subscribe again from the position they reached, as long as it is still retained.
+ *
+ * <p>
+ * Subscribers hold back publishers: an event is not published over one that an open subscription
+ * has not read yet, and the publisher waits instead. Without subscriptions, publishing never waits
+ * and old events are simply overwritten.
+ *
+ * <p>
+ * Publishing claims a sequence, stores the event in its slot and wakes the subscribers only if one
+ * is waiting, so it allocates nothing besides the slot, and it only locks to raise the gate of the
+ * publishers once the subscriptions it waited for have read on. Several threads may
+ * publish at once, and events published while holding a lock are numbered in the order the lock
+ * was held.
+ *
+ * @see HotelEvent
+ * @see hva.core.Hotel#setEventSink(HotelEventSink)
+ */
+public class HotelEventStream implements HotelEventSink {
+
+  private static final int SPINS = 128;
+  private static final long BACKOFF_NANOS = 10_000;
+
+  private final int _mask;
+  private final AtomicReferenceArray<Slot> _slots;
+  private final AtomicLong _claimed = new AtomicLong();
+  private final List<Subscription> _subscriptions = new CopyOnWriteArrayList<Subscription>();
+  private final AtomicInteger _waiting = new AtomicInteger();
+  private volatile long _gate = Long.MAX_VALUE;
+
+  /*
+   * <------------------------ Constructor ------------------------>
+   */
+
+  /**
+   * Constructor which creates an empty stream.
+   *
+   * @param capacity the number of events retained, which must be a power of two
+   *
+   * @throws IllegalArgumentException if the capacity is not a power of two
+   */
+  public HotelEventStream(int capacity) {
+    if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+    }
+    _mask = capacity - 1;
+    _slots = new AtomicReferenceArray<Slot>(capacity);
+  }
+
+  /*
+   * <------------------------ Gets ------------------------>
+   */
+
+  /**
+   * Returns the number of events retained by this stream.
+   *
+   * @return the capacity of this stream
+   */
+  public int capacity() {
+    return _slots.length();
+  }
+
+  /**
+   * Returns the sequence the next published event will have.
+   *
+   * @return the number of events published so far
+   */
+  public long position() {
+    return _claimed.get();
+  }
+
+  /*
+   * <------------------------ Others ------------------------>
+   */
+
+  /**
+   * Publishes an event, waiting while its slot holds an event not yet read by a subscription.
+   *
+   * @param event the event
+   *
+   * @return the sequence of the event
+   */
+  @Override
+  public long publish(HotelEvent event) {
+    long sequence = _claimed.getAndIncrement();
+    long wrapped = sequence - _slots.length();
+    if (wrapped >= _gate) {
+      awaitSubscriptions(wrapped);
+    }
+
+    // Without subscriptions, a publisher one lap ahead may already have taken the slot
+    int index = (int) sequence & _mask;
+    Slot slot = new Slot(sequence, event);
+    Slot current = _slots.get(index);
+    while ((current == null || current._sequence < sequence)
+        && !_slots.compareAndSet(index, current, slot)) {
+      current = _slots.get(index);
+    }
+
+    if (_waiting.get() > 0) {
+      for (Subscription subscription : _subscriptions) {
+        Thread waiter = subscription._waiter;
+        if (waiter != null) {
+          LockSupport.unpark(waiter);
+        }
+      }
+    }
+    return sequence;
+  }
+
+  /**
+   * Subscribes to the events published from now on.
+   *
+   * @return the subscription
+   */
+  public synchronized Subscription subscribe() {
+    Subscription subscription = new Subscription(_claimed.get());
+    register(subscription);
+    return subscription;
+  }
+
+  /**
+   * Subscribes to the events from a position, such as the one a previous subscription reached.
+   *
+   * <p>
+   * Events published concurrently may still overwrite the oldest retained events before the
+   * subscription holds them back, in which case reading them fails.
+   *
+   * @param position the sequence of the first event to read
+   *
+   * @return the subscription
+   *
+   * @throws SequenceUnavailableException if the event at the position is no longer retained
+   */
+  public synchronized Subscription subscribe(long position) throws SequenceUnavailableException {
+    Slot slot = _slots.get((int) position & _mask);
+    if (position < 0 || (slot != null && slot._sequence > position)) {
+      throw new SequenceUnavailableException(position);
+    }
+    Subscription subscription = new Subscription(position);
+    register(subscription);
+    return subscription;
+  }
+
+  // Adds a subscription and lowers the gate of the publishers to its position, under the monitor
+  // the gate is raised under
+  private void register(Subscription subscription) {
+    _subscriptions.add(subscription);
+    if (subscription._position < _gate) {
+      _gate = subscription._position;
+    }
+  }
+
+  // Waits until every subscription has read past the given sequence, then raises the gate. The
+  // slowest position is checked again under the monitor of register, so that a subscription
+  // registered meanwhile is not left below the gate
+  private void awaitSubscriptions(long sequence) {
+    int spins = 0;
+    while (true) {
+      if (sequence < slowestPosition()) {
+        synchronized (this) {
+          long gate = slowestPosition();
+          if (sequence < gate) {
+            _gate = gate;
+            return;
+          }
+        }
+      }
+      if (++spins < SPINS) {
+        Thread.onSpinWait();
+      } else {
+        LockSupport.parkNanos(this, BACKOFF_NANOS);
+      }
+    }
+  }
+
+  // Position of the slowest open subscription, or no limit without subscriptions
+  private long slowestPosition() {
+    long slowest = Long.MAX_VALUE;
+    for (Subscription subscription : _subscriptions) {
+      slowest = Math.min(slowest, subscription._position);
+    }
+    return slowest;
+  }
+
+  /**
+   * Event held by a slot and its sequence.
+   */
+  private static final class Slot {
+    private final long _sequence;
+    private final HotelEvent _event;
+
+    Slot(long sequence, HotelEvent event) {
+      _sequence = sequence;
+      _event = event;
+    }
+  }
+
+  /**
+   * Class representing a reader of the events of a stream.
+   *
+   * <p>
+   * A subscription reads the events in order of sequence and holds back the publishers until it is
+   * closed. It must be read by one thread at a time.
+   */
+  public final class Subscription implements AutoCloseable {
+    private volatile long _position;
+    private volatile Thread _waiter;
+
+    private Subscription(long position) {
+      _position = position;
+    }
+
+    /**
+     * Returns the sequence of the next event this subscription reads, from which a later
+     * subscription may resume.
+     *
+     * @return the position of this subscription
+     */
+    public long position() {
+      return _position;
+    }
+
+    /**
+     * Reads the next event, if it is already published.
+     *
+     * @return the next event, or {@code null} if it is not published yet
+     *
+     * @throws SequenceUnavailableException if the next event was overwritten before it was read
+     */
+    public HotelEvent poll() throws SequenceUnavailableException {
+      long position = _position;
+      Slot slot = _slots.get((int) position & _mask);
+      if (slot == null || slot._sequence < position) {
+        return null;
+      }
+      if (slot._sequence > position) {
+        throw new SequenceUnavailableException(position);
+      }
+      _position = position + 1;
+      return slot._event;
+    }
+
+    /**
+     * Reads the next event, waiting until it is published.
+     *
+     * @return the next event
+     *
+     * @throws SequenceUnavailableException if the next event was overwritten before it was read
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public HotelEvent next() throws SequenceUnavailableException, InterruptedException {
+      for (int spins = 0; spins < SPINS; spins++) {
+        HotelEvent event = poll();
+        if (event != null) {
+          return event;
+        }
+        Thread.onSpinWait();
+      }
+
+      _waiter = Thread.currentThread();
+      _waiting.incrementAndGet();
+      try {
+        HotelEvent event;
+        while ((event = poll()) == null) {
+          LockSupport.park(this);
+          if (Thread.interrupted()) {
+            throw new InterruptedException();
+          }
+        }
+        return event;
+      } finally {
+        _waiting.decrementAndGet();
+        _waiter = null;
+      }
+    }
+
+    /**
+     * Closes this subscription, so that it no longer holds back the publishers.
+     */
+    @Override
+    public void close() {
+      _subscriptions.remove(this);
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package hva.core.exception;
+
+import java.io.Serial;
+
+public class SequenceUnavailableException extends Exception {
+
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  private final long _sequence;
+
+  public SequenceUnavailableException(long sequence) {
+    super("Event with sequence " + sequence + " is no longer retained");
+    _sequence = sequence;
+  }
+
+  public long sequence() {
+    return _sequence;
+  }
+
+}
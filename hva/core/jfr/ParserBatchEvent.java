@@ -0,0 +1,34 @@
+package hva.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of a batch of consecutive records of the same type in an import file.
+ *
+ * <p>
+ * Import files list their entities grouped by type, so each batch usually covers every record of
+ * one type, and its duration is the time spent parsing and registering them.
+ *
+ * @see hva.core.Parser
+ */
+@Name("hva.ParserBatch")
+@Label("Parser Batch")
+@Category({"HVA", "Import"})
+@Description("Consecutive records of the same type parsed from an import file")
+public class ParserBatchEvent extends Event {
+
+  @Label("Record Type")
+  public String recordType;
+
+  @Label("Records")
+  public int count;
+
+  @Label("Bytes")
+  @DataAmount
+  public long bytes;
+}
@@ -0,0 +1,33 @@
+package hva.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of a save, load or modification check of a hotel.
+ *
+ * <p>
+ * The bytes are those of the serialized hotel, which every one of these operations produces.
+ *
+ * @see hva.core.HotelManager
+ */
+@Name("hva.Persistence")
+@Label("Hotel Persistence")
+@Category({"HVA", "Persistence"})
+@Description("Serialization of the hotel to save it, load it or check it for changes")
+public class PersistenceEvent extends Event {
+
+  @Label("Operation")
+  public String operation;
+
+  @Label("File")
+  public String file;
+
+  @Label("Bytes")
+  @DataAmount
+  public long bytes;
+}
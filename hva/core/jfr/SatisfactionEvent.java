@@ -0,0 +1,28 @@
+package hva.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of an evaluation of the global satisfaction of a hotel.
+ *
+ * @see hva.core.Hotel#satisfaction()
+ */
+@Name("hva.Satisfaction")
+@Label("Hotel Satisfaction")
+@Category({"HVA", "Satisfaction"})
+@Description("Evaluation of the global satisfaction of the hotel")
+public class SatisfactionEvent extends Event {
+
+  @Label("Animals Visited")
+  public int animals;
+
+  @Label("Workers Visited")
+  public int workers;
+
+  @Label("Satisfaction")
+  public double satisfaction;
+}
@@ -0,0 +1,25 @@
+package hva.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of a change of season of a hotel.
+ *
+ * @see hva.core.Hotel#progressSeason()
+ */
+@Name("hva.Season")
+@Label("Season Change")
+@Category({"HVA", "Season"})
+@Description("Change of season of the hotel and notification of its observers")
+public class SeasonEvent extends Event {
+
+  @Label("Season")
+  public String season;
+
+  @Label("Observers Notified")
+  public int observers;
+}
@@ -0,0 +1,126 @@
+package hva.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Class representing a lock-free histogram of latencies, in nanoseconds.
+ *
+ * <p>
+ * Like an HDR histogram, buckets are log-linear: every power of two is split into
+ * {@value #SUB_BUCKETS} buckets of equal width, so any recorded value is reported with a relative
+ * error below 1/{@value #SUB_BUCKETS}, from nanoseconds to centuries, in a fixed array of counters.
+ * Recording is a single atomic increment.
+ */
+public class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray _counts = new AtomicLongArray(BUCKETS);
+  private final LongAccumulator _max = new LongAccumulator(Math::max, 0);
+
+  /*
+   * <------------------------ Gets ------------------------>
+   */
+
+  /**
+   * Retrieves the largest recorded value.
+   *
+   * @return the largest value, or zero if nothing was recorded
+   */
+  public long max() {
+    return _max.get();
+  }
+
+  /**
+   * Estimates a percentile of the recorded values.
+   *
+   * @param percentile the percentile, between 0 and 100
+   *
+   * @return the largest value of the bucket holding the percentile, or zero if nothing was recorded
+   */
+  public long percentile(double percentile) {
+    long[] counts = new long[BUCKETS];
+    long total = 0;
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      counts[bucket] = _counts.get(bucket);
+      total += counts[bucket];
+    }
+    if (total == 0) {
+      return 0;
+    }
+
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+    long seen = 0;
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      seen += counts[bucket];
+      if (seen >= rank) {
+        return Math.min(highestValue(bucket), max());
+      }
+    }
+    return max();
+  }
+
+  /*
+   * <------------------------ Sets ------------------------>
+   */
+
+  /**
+   * Records a value.
+   *
+   * @param value the value, negative values being recorded as zero
+   */
+  public void record(long value) {
+    long clamped = Math.max(0, value);
+    _counts.incrementAndGet(bucket(clamped));
+    _max.accumulate(clamped);
+  }
+
+  /**
+   * Forgets every recorded value.
+   */
+  public void reset() {
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      _counts.set(bucket, 0);
+    }
+    _max.reset();
+  }
+
+  /*
+   * <------------------------ Others ------------------------>
+   */
+
+  /**
+   * Finds the bucket of a value.
+   *
+   * @param value the value, not negative
+   *
+   * @return the index of the bucket
+   */
+  private static int bucket(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  /**
+   * Computes the largest value of a bucket.
+   *
+   * @param bucket the index of the bucket
+   *
+   * @return the largest value that falls in the bucket
+   */
+  private static long highestValue(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = bucket / SUB_BUCKETS - 1;
+    long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    return lowest + (1L << shift) - 1;
+  }
+}
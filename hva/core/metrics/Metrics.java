@@ -0,0 +1,141 @@
+package hva.core.metrics;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import java.lang.management.ManagementFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Class representing the registry of the latency metrics of this application.
+ *
+ * <p>
+ * Metrics are disabled by default and enabled with {@code -Dmetrics=true}. When disabled, timers
+ * do not read the clock nor record anything, and the JIT removes the timing code altogether since
+ * {@link #ENABLED} is a constant.
+ *
+ * <p>
+ * When enabled, the registry and every timer are registered as MXBeans under the {@code hva}
+ * domain, so they can be watched with any JMX client (such as JConsole) while the application runs.
+ * The registry can write a report of every timer to a file on demand, through
+ * {@link #dump(Path)} or its {@code dumpToFile} JMX operation.
+ *
+ * @see Timer
+ */
+public class Metrics implements MetricsMXBean {
+
+  /** Whether metrics are recorded, set with -Dmetrics=true */
+  public static final boolean ENABLED = Boolean.getBoolean("metrics");
+
+  private static final String DOMAIN = "hva";
+  private static final Metrics REGISTRY = new Metrics();
+
+  private final Map<String, Timer> _timers = new ConcurrentSkipListMap<String, Timer>();
+
+  static {
+    if (ENABLED) {
+      register(REGISTRY, DOMAIN + ":type=Metrics");
+    }
+  }
+
+  /*
+   * <------------------------ Constructor ------------------------>
+   */
+
+  private Metrics() {
+  }
+
+  /*
+   * <------------------------ Gets ------------------------>
+   */
+
+  /**
+   * Retrieves the timer of an operation, creating it if needed.
+   *
+   * <p>
+   * Timers are meant to be kept in constants of the timed classes.
+   *
+   * @param name the name of the operation, such as {@code Hotel.satisfaction}
+   *
+   * @return the timer of the operation
+   */
+  public static Timer timer(String name) {
+    return REGISTRY._timers.computeIfAbsent(name, key -> {
+      Timer timer = new Timer(key);
+      if (ENABLED) {
+        register(timer, DOMAIN + ":type=Timer,name=" + key);
+      }
+      return timer;
+    });
+  }
+
+  /*
+   * <------------------------ Others ------------------------>
+   */
+
+  /**
+   * Writes a report of every timer to a file, one line per operation, latencies in microseconds.
+   *
+   * @param file the path of the file
+   *
+   * @throws IOException if the file cannot be written
+   */
+  public static void dump(Path file) throws IOException {
+    try (PrintWriter out =
+        new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+      print(out);
+    }
+  }
+
+  /**
+   * Prints a report of every timer, one line per operation, latencies in microseconds.
+   *
+   * @param out the destination of the report
+   */
+  public static void print(PrintWriter out) {
+    out.printf(Locale.ROOT, "%-40s %10s %12s %12s %12s %12s %12s %12s%n", "operation", "count",
+        "mean", "p50", "p90", "p99", "p99.9", "max");
+    for (Timer timer : REGISTRY._timers.values()) {
+      out.printf(Locale.ROOT, "%-40s %10d %12.1f %12.1f %12.1f %12.1f %12.1f %12.1f%n",
+          timer.name(), timer.getCount(), timer.getMeanMicros(), timer.getP50Micros(),
+          timer.getP90Micros(), timer.getP99Micros(), timer.getP999Micros(),
+          timer.getMaxMicros());
+    }
+    out.flush();
+  }
+
+  @Override
+  public void dumpToFile(String file) throws IOException {
+    dump(Path.of(file));
+  }
+
+  @Override
+  public void reset() {
+    _timers.values().forEach(Timer::reset);
+  }
+
+  /**
+   * Registers an MXBean in the platform server. Failures are reported and otherwise ignored, since
+   * metrics must never break the application.
+   *
+   * @param bean the MXBean
+   * @param name the object name of the MXBean
+   */
+  private static void register(Object bean, String name) {
+    try {
+      ManagementFactory.getPlatformMBeanServer().registerMBean(bean, new ObjectName(name));
+    } catch (JMException e) {
+      System.err.println("Could not register the metrics of " + name + ": " + e.getMessage());
+    }
+  }
+}
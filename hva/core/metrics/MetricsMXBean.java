@@ -0,0 +1,23 @@
+package hva.core.metrics;
+
+import java.io.IOException;
+
+/**
+ * Management interface of the {@link Metrics} registry, as seen through JMX.
+ */
+public interface MetricsMXBean {
+
+  /**
+   * Writes a report of every timer to a file.
+   *
+   * @param file the path of the file
+   *
+   * @throws IOException if the file cannot be written
+   */
+  void dumpToFile(String file) throws IOException;
+
+  /**
+   * Forgets every recorded latency.
+   */
+  void reset();
+}
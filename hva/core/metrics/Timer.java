@@ -0,0 +1,130 @@
+package hva.core.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Class representing the latency metrics of one operation.
+ *
+ * <p>
+ * Operations are timed as follows, which costs a single read of a constant when metrics are
+ * disabled:
+ *
+ * <pre>
+ * long start = TIMER.start();
+ * try {
+ *   ...
+ * } finally {
+ *   TIMER.stop(start);
+ * }
+ * </pre>
+ *
+ * @see Metrics#timer(String)
+ */
+public class Timer implements TimerMXBean {
+
+  private static final double NANOS_PER_MICRO = 1_000.0;
+
+  private final String _name;
+  private final LongAdder _count = new LongAdder();
+  private final LongAdder _totalNanos = new LongAdder();
+  private final LatencyHistogram _histogram = new LatencyHistogram();
+
+  /*
+   * <------------------------ Constructor ------------------------>
+   */
+
+  /**
+   * Constructor which creates this timer.
+   *
+   * @param name the name of the timed operation
+   */
+  Timer(String name) {
+    _name = name;
+  }
+
+  /*
+   * <------------------------ Gets ------------------------>
+   */
+
+  public String name() {
+    return _name;
+  }
+
+  @Override
+  public long getCount() {
+    return _count.sum();
+  }
+
+  @Override
+  public double getMeanMicros() {
+    long count = _count.sum();
+    return count == 0 ? 0 : _totalNanos.sum() / NANOS_PER_MICRO / count;
+  }
+
+  @Override
+  public double getP50Micros() {
+    return _histogram.percentile(50) / NANOS_PER_MICRO;
+  }
+
+  @Override
+  public double getP90Micros() {
+    return _histogram.percentile(90) / NANOS_PER_MICRO;
+  }
+
+  @Override
+  public double getP99Micros() {
+    return _histogram.percentile(99) / NANOS_PER_MICRO;
+  }
+
+  @Override
+  public double getP999Micros() {
+    return _histogram.percentile(99.9) / NANOS_PER_MICRO;
+  }
+
+  @Override
+  public double getMaxMicros() {
+    return _histogram.max() / NANOS_PER_MICRO;
+  }
+
+  /*
+   * <------------------------ Sets ------------------------>
+   */
+
+  /**
+   * Starts timing an operation.
+   *
+   * @return the start time to be given to {@link #stop(long)}, or zero if metrics are disabled
+   */
+  public long start() {
+    return Metrics.ENABLED ? System.nanoTime() : 0L;
+  }
+
+  /**
+   * Stops timing an operation and records its latency.
+   *
+   * @param start the value returned by {@link #start()}
+   */
+  public void stop(long start) {
+    if (Metrics.ENABLED) {
+      record(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Records the latency of an operation.
+   *
+   * @param nanos the latency, in nanoseconds
+   */
+  public void record(long nanos) {
+    _count.increment();
+    _totalNanos.add(nanos);
+    _histogram.record(nanos);
+  }
+
+  @Override
+  public void reset() {
+    _count.reset();
+    _totalNanos.reset();
+    _histogram.reset();
+  }
+}
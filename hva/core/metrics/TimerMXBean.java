@@ -0,0 +1,26 @@
+package hva.core.metrics;
+
+/**
+ * Management interface of a {@link Timer}, as seen through JMX.
+ *
+ * <p>
+ * Latencies are in microseconds.
+ */
+public interface TimerMXBean {
+
+  long getCount();
+
+  double getMeanMicros();
+
+  double getP50Micros();
+
+  double getP90Micros();
+
+  double getP99Micros();
+
+  double getP999Micros();
+
+  double getMaxMicros();
+
+  void reset();
+}
@@ -0,0 +1,225 @@
+package hva.bench;
+
+import hva.core.CaseInsensitiveHashMap;
+import hva.core.Hotel;
+import hva.core.HotelManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * JMH benchmarks of the hot paths of {@link hva.core}, the same workloads as
+ * {@link HotelBenchmarks}.
+ *
+ * <p>
+ * Every hotel is a {@link SyntheticHotel} with a fixed seed, imported through
+ * {@link HotelManager#importFile(String)}. Each benchmark runs in forked JVMs, so the profile of
+ * one workload does not leak into the next, and its results are consumed by a {@link Blackhole},
+ * so the JIT cannot remove the work.
+ *
+ * <p>
+ * Build with {@code mvn -B package} and run with
+ * {@code java -jar jmh/target/benchmarks.jar [regexp] [-f forks] [-wi N] [-i N]}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class HotelJmhBenchmarks {
+
+  private static final long SEED = 42;
+
+  /*
+   * <------------------------ States ------------------------>
+   */
+
+  /**
+   * A file of a synthetic hotel, to import.
+   */
+  @State(Scope.Benchmark)
+  public static class ImportFile {
+    @Param("10000")
+    public int animals;
+
+    String _file;
+
+    @Setup
+    public void setUp() throws Exception {
+      _file = SyntheticHotel.ofAnimals(animals, SEED).writeTemporaryFile().toString();
+    }
+  }
+
+  /**
+   * An imported synthetic hotel, which the benchmarks only read.
+   */
+  @State(Scope.Benchmark)
+  public static class ImportedHotel {
+    @Param({"1000", "10000", "100000"})
+    public int animals;
+
+    HotelManager _manager;
+
+    @Setup
+    public void setUp() throws Exception {
+      _manager = HotelBenchmarks.importHotel(SyntheticHotel.ofAnimals(animals, SEED));
+    }
+  }
+
+  /**
+   * A synthetic hotel imported again before every iteration, since every vaccination is recorded.
+   */
+  @State(Scope.Benchmark)
+  public static class VaccinatedHotel {
+    @Param("10000")
+    public int animals;
+
+    SyntheticHotel _synthetic;
+    String _file;
+    Hotel _hotel;
+    int _next;
+
+    @Setup
+    public void setUp() throws Exception {
+      _synthetic = SyntheticHotel.ofAnimals(animals, SEED);
+      _file = _synthetic.writeTemporaryFile().toString();
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpIteration() throws Exception {
+      HotelManager manager = new HotelManager();
+      manager.importFile(_file);
+      _hotel = manager.getHotel();
+    }
+  }
+
+  /**
+   * A synthetic hotel with many trees and a habitat for every ten of them.
+   */
+  @State(Scope.Benchmark)
+  public static class WoodedHotel {
+    @Param("100000")
+    public int trees;
+
+    HotelManager _manager;
+
+    @Setup
+    public void setUp() throws Exception {
+      int habitats = Math.max(1, trees / 10);
+      _manager =
+          HotelBenchmarks.importHotel(new SyntheticHotel(4, habitats, trees, 0, 1, 1, 1, SEED));
+    }
+  }
+
+  /**
+   * An imported synthetic hotel, the file it was saved to and a manager to load it into.
+   */
+  @State(Scope.Benchmark)
+  public static class SavedHotel {
+    @Param("10000")
+    public int animals;
+
+    HotelManager _manager;
+    final HotelManager _loader = new HotelManager();
+    String _file;
+
+    @Setup
+    public void setUp() throws Exception {
+      _manager = HotelBenchmarks.importHotel(SyntheticHotel.ofAnimals(animals, SEED));
+      Path file = Files.createTempFile("hva-jmh-", ".dat");
+      file.toFile().deleteOnExit();
+      _file = file.toString();
+      _manager.saveAs(_file);
+    }
+  }
+
+  /**
+   * A case insensitive map, looked up with keys in a different case than stored.
+   */
+  @State(Scope.Benchmark)
+  public static class Keys {
+    @Param("10000")
+    public int keys;
+
+    final Map<String, Integer> _map = new CaseInsensitiveHashMap<Integer>();
+    String[] _keys;
+    int _next;
+
+    @Setup
+    public void setUp() {
+      _keys = new String[keys];
+      for (int key = 0; key < keys; key++) {
+        _map.put("Key" + key, key);
+        _keys[key] = (key % 2 == 0 ? "KEY" : "key") + key;
+      }
+    }
+  }
+
+  /*
+   * <------------------------ Benchmarks ------------------------>
+   */
+
+  @Benchmark
+  public void parseFile(ImportFile state, Blackhole blackhole) throws Exception {
+    HotelManager manager = new HotelManager();
+    manager.importFile(state._file);
+    blackhole.consume(manager);
+  }
+
+  @Benchmark
+  public void satisfaction(ImportedHotel state, Blackhole blackhole) {
+    blackhole.consume(state._manager.getHotel().satisfaction());
+  }
+
+  @Benchmark
+  public void vaccinateAnimal(VaccinatedHotel state, Blackhole blackhole) throws Exception {
+    int animal = state._next++ % state.animals;
+    SyntheticHotel synthetic = state._synthetic;
+    blackhole.consume(state._hotel.vaccinateAnimal(synthetic.animalId(animal),
+        synthetic.vaccineId(animal), synthetic.vetFor(animal)));
+  }
+
+  @Benchmark
+  public void progressSeason(WoodedHotel state, Blackhole blackhole) {
+    blackhole.consume(state._manager.progressSeason());
+  }
+
+  @Benchmark
+  public void saveAs(SavedHotel state, Blackhole blackhole) throws Exception {
+    state._manager.saveAs(state._file);
+    blackhole.consume(state._manager);
+  }
+
+  @Benchmark
+  public void load(SavedHotel state, Blackhole blackhole) throws Exception {
+    state._loader.load(state._file);
+    blackhole.consume(state._loader.getHotel());
+  }
+
+  @Benchmark
+  public void hotelModified(SavedHotel state, Blackhole blackhole) throws Exception {
+    blackhole.consume(state._manager.hotelModified());
+  }
+
+  @Benchmark
+  public void caseInsensitiveGet(Keys state, Blackhole blackhole) {
+    blackhole.consume(state._map.get(state._keys[state._next++ % state.keys]));
+  }
+}